@@ -0,0 +1,78 @@
+package group.gnometrading.benchmarks;
+
+import group.gnometrading.arbitrage.ArbitrageKernel;
+import group.gnometrading.sm.ContractRelationship;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One full pass of the arbitrage consistency check over every pair, as run per tick. Pairs alternate between
+ * EQUIVALENT and COMPLEMENT and reference securities spread over the price array, so the gathers miss the way
+ * production slots do; about one pair in ten violates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ArbitrageKernelBenchmark {
+
+    private static final double TOLERANCE = 0.02;
+
+    @Param({"10000", "100000"})
+    private int pairs;
+
+    @Param({"scalar", "vector"})
+    private String kernelType;
+
+    private ArbitrageKernel kernel;
+    private double[] prices;
+    private int[] violations;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(42);
+        final int securities = this.pairs * 2;
+        final ContractRelationship[] relationships = new ContractRelationship[this.pairs];
+        for (int i = 0; i < this.pairs; i++) {
+            final int a = 1 + random.nextInt(securities);
+            int b = 1 + random.nextInt(securities);
+            if (b == a) {
+                b = a % securities + 1;
+            }
+            relationships[i] = new ContractRelationship(
+                    i, a, b, (i & 1) == 0 ? "EQUIVALENT" : "COMPLEMENT", 0.95f, "benchmark");
+        }
+        this.kernel = this.kernelType.equals("vector")
+                ? ArbitrageKernel.build(relationships, 0f)
+                : ArbitrageKernel.scalar(relationships, 0f);
+        if (this.kernelType.equals("vector") && !this.kernel.isVectorized()) {
+            throw new IllegalStateException(
+                    "jdk.incubator.vector or gnome-registry-vector is not available in the benchmark JVM");
+        }
+
+        this.prices = this.kernel.newPriceArray();
+        for (int slot = 0; slot < this.prices.length; slot++) {
+            this.prices[slot] = 0.5 + (random.nextInt(20) == 0 ? 0.1 : 0.0);
+        }
+        this.violations = new int[this.kernel.pairCount()];
+    }
+
+    @Benchmark
+    public int findViolations() {
+        return this.kernel.findViolations(this.prices, TOLERANCE, this.violations);
+    }
+}
@@ -0,0 +1,68 @@
+package group.gnometrading.benchmarks;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import group.gnometrading.RegistryConnection;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A mocked {@link RegistryConnection} serving pre-rendered {@link Fixtures} pages, so benchmarks measure decoding
+ * and caching rather than the network. Pages are rendered once up front and rewound on every request.
+ */
+final class FixtureRegistry {
+
+    private static final ByteBuffer EMPTY = ByteBuffer.wrap("[]".getBytes());
+
+    private final Map<String, ByteBuffer> pages = new HashMap<>();
+
+    private FixtureRegistry(final int securities, final boolean securitiesOnly) {
+        for (int offset = 0; offset < securities; offset += Fixtures.PAGE_SIZE) {
+            final int to = Math.min(securities, offset + Fixtures.PAGE_SIZE);
+            this.pages.put(key("/api/securities", offset), ByteBuffer.wrap(Fixtures.securities(offset, to)));
+            if (!securitiesOnly) {
+                this.pages.put(key("/api/listings", offset), ByteBuffer.wrap(Fixtures.listings(offset, to)));
+                this.pages.put(key("/api/listing-specs", offset), ByteBuffer.wrap(Fixtures.listingSpecs(offset, to)));
+            }
+        }
+        if (!securitiesOnly) {
+            this.pages.put(key("/api/exchanges", 0), ByteBuffer.wrap(Fixtures.exchanges()));
+        }
+    }
+
+    /**
+     * @return a registry of the given number of securities, each with one listing and listing spec
+     */
+    static RegistryConnection connection(final int securities) {
+        return mockConnection(new FixtureRegistry(securities, false));
+    }
+
+    /**
+     * @return a registry serving only securities; every other endpoint answers with an empty array
+     */
+    static RegistryConnection securitiesOnly(final int securities) {
+        return mockConnection(new FixtureRegistry(securities, true));
+    }
+
+    private static RegistryConnection mockConnection(final FixtureRegistry registry) {
+        final RegistryConnection connection = mock(RegistryConnection.class);
+        when(connection.get(any())).thenAnswer(invocation -> registry.serve(invocation.getArgument(0).toString()));
+        return connection;
+    }
+
+    private ByteBuffer serve(final String path) {
+        final int query = path.indexOf('?');
+        final String endpoint = query < 0 ? path : path.substring(0, query);
+        final int offsetStart = path.indexOf("offset=");
+        final int offset = offsetStart < 0 ? 0 : Integer.parseInt(path.substring(offsetStart + "offset=".length()));
+        final ByteBuffer page = this.pages.getOrDefault(key(endpoint, offset), EMPTY);
+        return page.clear();
+    }
+
+    private static String key(final String endpoint, final int offset) {
+        return endpoint + '@' + offset;
+    }
+}
@@ -0,0 +1,141 @@
+package group.gnometrading.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Synthetic registry payloads shaped like production responses: one listing per security spread over a handful of
+ * exchanges, and one listing spec per listing.
+ */
+final class Fixtures {
+
+    static final int EXCHANGES = 4;
+    static final int PAGE_SIZE = 5000;
+
+    private Fixtures() {}
+
+    static int exchangeId(final int securityId) {
+        return 1 + securityId % EXCHANGES;
+    }
+
+    static byte[] exchanges() {
+        final StringBuilder json = new StringBuilder("[");
+        for (int exchangeId = 1; exchangeId <= EXCHANGES; exchangeId++) {
+            if (exchangeId > 1) {
+                json.append(',');
+            }
+            json.append("{\"exchange_id\": ")
+                    .append(exchangeId)
+                    .append(", \"exchange_name\": \"EX")
+                    .append(exchangeId)
+                    .append("\", \"region\": \"us-east-1\", \"schema_type\": \"mbp-10\",")
+                    .append(" \"date_modified\": \"2024-01-01T00:00:00.000Z\"}");
+        }
+        return bytes(json.append(']'));
+    }
+
+    /**
+     * @return securities with ids {@code [from + 1, to]}
+     */
+    static byte[] securities(final int from, final int to) {
+        final StringBuilder json = new StringBuilder("[");
+        for (int securityId = from + 1; securityId <= to; securityId++) {
+            if (securityId > from + 1) {
+                json.append(',');
+            }
+            json.append("{\"security_id\": ")
+                    .append(securityId)
+                    .append(", \"symbol\": \"SYM")
+                    .append(securityId)
+                    .append("\", \"type\": 1, \"contract_type\": 0, \"asset_class\": 0,")
+                    .append(" \"base_currency\": \"BTC\", \"quote_currency\": \"USD\", \"settle_currency\": \"USD\",")
+                    .append(" \"inverse\": false, \"is_quanto\": false, \"expiry\": \"2025-03-28T08:00:00.000Z\",")
+                    .append(" \"strike_price\": \"0\", \"active\": true, \"underlying_security_id\": 0,")
+                    .append(" \"date_modified\": \"2024-01-01T00:00:00.000Z\"}");
+        }
+        return bytes(json.append(']'));
+    }
+
+    /**
+     * @return one listing per security in {@code [from + 1, to]}, sharing the security's id
+     */
+    static byte[] listings(final int from, final int to) {
+        final StringBuilder json = new StringBuilder("[");
+        for (int securityId = from + 1; securityId <= to; securityId++) {
+            if (securityId > from + 1) {
+                json.append(',');
+            }
+            json.append("{\"listing_id\": ")
+                    .append(securityId)
+                    .append(", \"exchange_id\": ")
+                    .append(exchangeId(securityId))
+                    .append(", \"security_id\": ")
+                    .append(securityId)
+                    .append(", \"exchange_security_id\": \"ID")
+                    .append(securityId)
+                    .append("\", \"exchange_security_symbol\": \"SYM")
+                    .append(securityId)
+                    .append("\", \"active\": true, \"date_modified\": \"2024-01-01T00:00:00.000Z\"}");
+        }
+        return bytes(json.append(']'));
+    }
+
+    static byte[] listingSpecs(final int from, final int to) {
+        final StringBuilder json = new StringBuilder("[");
+        for (int listingId = from + 1; listingId <= to; listingId++) {
+            if (listingId > from + 1) {
+                json.append(',');
+            }
+            json.append("{\"id\": \"")
+                    .append(listingId)
+                    .append("\", \"listing_id\": ")
+                    .append(listingId)
+                    .append(", \"tick_size\": \"100\", \"lot_size\": \"1000\", \"min_notional\": \"50000\",")
+                    .append(" \"contract_multiplier\": \"1000000000\", \"recorded_at\": \"2024-01-01T00:00:00.000Z\"}");
+        }
+        return bytes(json.append(']'));
+    }
+
+    /**
+     * @param variant changes every limit, so payloads with different variants parse to different policies
+     */
+    static byte[] policies(final int count, final int variant) {
+        final StringBuilder json = new StringBuilder("[");
+        json.append("{\"policy_id\": 1, \"policy_type\": \"KILL_SWITCH\", \"scope\": 0, \"strategy_id\": null,")
+                .append(" \"listing_id\": null, \"parameters\": {}, \"enabled\": false}");
+        for (int i = 2; i <= count; i++) {
+            final int strategyId = 1 + i % 8;
+            json.append(",{\"policy_id\": ").append(i);
+            switch (i % 4) {
+                case 0 -> json.append(", \"policy_type\": \"MAX_POSITION\", \"scope\": 1, \"strategy_id\": ")
+                        .append(strategyId)
+                        .append(", \"listing_id\": null, \"parameters\": {\"max_position\": ")
+                        .append(1_000_000 + variant)
+                        .append("}");
+                case 1 -> json.append(", \"policy_type\": \"MAX_NOTIONAL\", \"scope\": 2, \"strategy_id\": ")
+                        .append(strategyId)
+                        .append(", \"listing_id\": ")
+                        .append(i)
+                        .append(", \"parameters\": {\"max_notional\": ")
+                        .append(9_000_000_000L + variant)
+                        .append("}");
+                case 2 -> json.append(", \"policy_type\": \"ORDER_RATE\", \"scope\": 2, \"strategy_id\": null,")
+                        .append(" \"listing_id\": ")
+                        .append(i)
+                        .append(", \"parameters\": {\"max_orders\": ")
+                        .append(100 + variant)
+                        .append(", \"window_millis\": 1000}");
+                default -> json.append(", \"policy_type\": \"MAX_ORDER_SIZE\", \"scope\": 1, \"strategy_id\": ")
+                        .append(strategyId)
+                        .append(", \"listing_id\": null, \"parameters\": {\"max_order_size\": ")
+                        .append(10_000 + variant)
+                        .append(", \"reduce_only\": false}");
+            }
+            json.append(", \"enabled\": true}");
+        }
+        return bytes(json.append(']'));
+    }
+
+    private static byte[] bytes(final CharSequence json) {
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,57 @@
+package group.gnometrading.benchmarks;
+
+import group.gnometrading.risk.RiskDecision;
+import group.gnometrading.risk.RiskEngine;
+import group.gnometrading.risk.RiskMaster;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-order cost of {@link RiskEngine#check}. Sample-time mode reports the p99 the engine is expected to keep under
+ * a microsecond.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RiskEngineBenchmark {
+
+    private static final String POLICIES =
+            """
+            [{"policy_id": 1, "policy_type": "KILL_SWITCH", "scope": 0, "parameters": {}, "enabled": false},
+             {"policy_id": 2, "policy_type": "MAX_ORDER_SIZE", "scope": 0, "parameters": {"max_order_size": 1000000}, "enabled": true},
+             {"policy_id": 3, "policy_type": "MAX_POSITION", "scope": 1, "strategy_id": 10, "parameters": {"max_position": 5000000}, "enabled": true},
+             {"policy_id": 4, "policy_type": "MAX_NOTIONAL", "scope": 2, "strategy_id": 10, "listing_id": 7, "parameters": {"max_notional": 9000000000000}, "enabled": true},
+             {"policy_id": 5, "policy_type": "ORDER_RATE", "scope": 1, "strategy_id": 10, "parameters": {"max_orders": 1000, "window_millis": 1}, "enabled": true}]""";
+
+    private RiskEngine riskEngine;
+    private long now;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // refresh(ByteBuffer) never touches the connection
+        final RiskMaster riskMaster = new RiskMaster(null);
+        riskMaster.refresh(ByteBuffer.wrap(POLICIES.getBytes(StandardCharsets.UTF_8)));
+        this.riskEngine = new RiskEngine(riskMaster);
+    }
+
+    @Benchmark
+    public RiskDecision checkOrder() {
+        final long quantity = (++this.now & 1) == 0 ? 100 : -100;
+        return this.riskEngine.check(10, 7, quantity, 25_000, 1_000, this.now);
+    }
+}
@@ -0,0 +1,57 @@
+package group.gnometrading.benchmarks;
+
+import group.gnometrading.risk.RiskMaster;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link RiskMaster#refresh(ByteBuffer)} over a full policy set. Alternating two payloads that differ in every
+ * limit forces a full parse, diff and publish each time; repeating one payload measures the unchanged fast path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RiskMasterRefreshBenchmark {
+
+    @Param({"64"})
+    private int policies;
+
+    private RiskMaster riskMaster;
+    private ByteBuffer[] payloads;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // refresh(ByteBuffer) never touches the connection
+        this.riskMaster = new RiskMaster(null);
+        this.payloads = new ByteBuffer[] {
+            ByteBuffer.wrap(Fixtures.policies(this.policies, 0)), ByteBuffer.wrap(Fixtures.policies(this.policies, 1))
+        };
+    }
+
+    @Benchmark
+    public boolean refreshChanged() {
+        this.next ^= 1;
+        return this.riskMaster.refresh(this.payloads[this.next].clear());
+    }
+
+    @Benchmark
+    public boolean refreshUnchanged() {
+        return this.riskMaster.refresh(this.payloads[0].clear());
+    }
+}
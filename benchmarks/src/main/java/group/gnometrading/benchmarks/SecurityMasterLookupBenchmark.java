@@ -0,0 +1,72 @@
+package group.gnometrading.benchmarks;
+
+import group.gnometrading.SecurityMaster;
+import group.gnometrading.sm.Listing;
+import group.gnometrading.sm.ListingSpec;
+import group.gnometrading.sm.Security;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cache-hit lookups on a preloaded {@link SecurityMaster}. Ids are walked with a large odd stride so consecutive
+ * calls do not share cache lines.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecurityMasterLookupBenchmark {
+
+    private static final int STRIDE = 7919;
+
+    @Param({"10000", "200000"})
+    private int securities;
+
+    private SecurityMaster securityMaster;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.securityMaster = new SecurityMaster(FixtureRegistry.connection(this.securities));
+        this.securityMaster.preload();
+    }
+
+    private int nextId() {
+        this.cursor = (this.cursor + STRIDE) % this.securities;
+        return this.cursor + 1;
+    }
+
+    @Benchmark
+    public Security getSecurity() {
+        return this.securityMaster.getSecurity(nextId());
+    }
+
+    @Benchmark
+    public Listing getListingById() {
+        return this.securityMaster.getListing(nextId());
+    }
+
+    @Benchmark
+    public Listing getListingByExchangeAndSecurity() {
+        final int securityId = nextId();
+        return this.securityMaster.getListing(Fixtures.exchangeId(securityId), securityId);
+    }
+
+    @Benchmark
+    public ListingSpec getListingSpec() {
+        return this.securityMaster.getListingSpec(nextId());
+    }
+}
@@ -0,0 +1,79 @@
+package group.gnometrading.benchmarks;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import group.gnometrading.RegistryConnection;
+import group.gnometrading.SecurityMaster;
+import group.gnometrading.sm.Security;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full {@link SecurityMaster#preload()} from paged fixture responses, and decoding one page of securities with the
+ * streaming decoder against the Jackson data binding it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecurityMasterPreloadBenchmark {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Param({"10000", "200000"})
+    private int securities;
+
+    private RegistryConnection registryConnection;
+    private RegistryConnection pageConnection;
+    private byte[] securityPage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.registryConnection = FixtureRegistry.connection(this.securities);
+        this.pageConnection = FixtureRegistry.securitiesOnly(Fixtures.PAGE_SIZE);
+        this.securityPage = Fixtures.securities(0, Fixtures.PAGE_SIZE);
+    }
+
+    @Benchmark
+    public SecurityMaster preload() {
+        final SecurityMaster securityMaster = new SecurityMaster(this.registryConnection);
+        securityMaster.preload();
+        return securityMaster;
+    }
+
+    /**
+     * One page of securities through {@link SecurityMaster}: the streaming decoder plus caching. The other
+     * endpoints answer with empty arrays.
+     */
+    @Benchmark
+    public SecurityMaster decodeSecurityPage() {
+        final SecurityMaster securityMaster = new SecurityMaster(this.pageConnection);
+        securityMaster.preload();
+        return securityMaster;
+    }
+
+    /**
+     * The same page bound with Jackson, as the client did before the streaming decoder.
+     */
+    @Benchmark
+    public Security[] decodeSecurityPageWithJackson() throws IOException {
+        return OBJECT_MAPPER.readValue(this.securityPage, Security[].class);
+    }
+}
@@ -0,0 +1,3 @@
+CREATE INDEX IF NOT EXISTS idx_security_date_modified ON sm.security(date_modified);
+CREATE INDEX IF NOT EXISTS idx_exchange_date_modified ON sm.exchange(date_modified);
+CREATE INDEX IF NOT EXISTS idx_listing_date_modified ON sm.listing(date_modified);
@@ -0,0 +1,23 @@
+-- Single-row counter bumped by every statement that changes risk.policy. Clients long-poll /risk/version
+-- instead of re-reading every policy, and the trigger's NOTIFY wakes waiting pollers immediately.
+CREATE TABLE IF NOT EXISTS risk.policy_version (
+    id       boolean PRIMARY KEY DEFAULT true CHECK (id),
+    version  bigint  NOT NULL DEFAULT 0
+);
+
+INSERT INTO risk.policy_version (id, version) VALUES (true, 0) ON CONFLICT DO NOTHING;
+
+CREATE OR REPLACE FUNCTION risk.bump_policy_version() RETURNS trigger AS $$
+DECLARE
+    next_version bigint;
+BEGIN
+    UPDATE risk.policy_version SET version = version + 1 RETURNING version INTO next_version;
+    PERFORM pg_notify('risk_policy_version', next_version::text);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_risk_policy_version ON risk.policy;
+CREATE TRIGGER trg_risk_policy_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON risk.policy
+    FOR EACH STATEMENT EXECUTE FUNCTION risk.bump_policy_version();
@@ -4,6 +4,18 @@ import { Pool } from 'pg';
 
 const DEFAULT_PAGE_SIZE = 5000;
 
+/**
+ * Parses a comma-separated id list such as `1,2,3` for an `IN (...)` filter, rejecting anything that is not
+ * plain digits so the list is safe to interpolate.
+ */
+export function idList(value: string): string {
+  const ids = value.split(',').map(id => id.trim());
+  if (ids.some(id => !/^\d+$/.test(id))) {
+    throw new Error(`Invalid id list: ${value}`);
+  }
+  return ids.join(',');
+}
+
 const CORS_HEADERS = {
   'Access-Control-Allow-Origin': '*',
   'Access-Control-Allow-Credentials': 'true',
@@ -45,6 +45,9 @@ class EventHandler extends ResourceHandler {
     if (params?.resolved !== undefined) {
       query += ` AND resolved = ${params.resolved === 'true'}`;
     }
+    if (params?.modifiedSince) {
+      query += ` AND date_modified >= to_timestamp(${Number(params.modifiedSince)} / 1000.0) AT TIME ZONE 'UTC'`;
+    }
     if (params?.tag) {
       query += ` AND '${params.tag.replace(/'/g, "''")}' = ANY(tags)`;
     }
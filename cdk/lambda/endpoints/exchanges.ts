@@ -34,6 +34,9 @@ class ExchangeHandler extends ResourceHandler {
     if (params?.schemaType) {
       query += ` AND schema_type='${params.schemaType}'`;
     }
+    if (params?.modifiedSince) {
+      query += ` AND date_modified >= to_timestamp(${Number(params.modifiedSince)} / 1000.0) AT TIME ZONE 'UTC'`;
+    }
     return query;
   }
 
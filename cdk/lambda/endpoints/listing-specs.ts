@@ -1,5 +1,5 @@
 import { APIGatewayProxyEvent, APIGatewayProxyEventQueryStringParameters } from 'aws-lambda';
-import { ResourceHandler } from './base';
+import { ResourceHandler, idList } from './base';
 
 interface IListingSpec {
   listingId: number;
@@ -11,13 +11,23 @@ interface IListingSpec {
 
 class ListingSpecHandler extends ResourceHandler {
   generateSelectQuery(params: APIGatewayProxyEventQueryStringParameters | null): string {
+    if (params?.latest === 'true') {
+      // Cheap version probe: rows are append-only, so the newest id moves whenever any spec is recorded.
+      return 'SELECT MAX(id) AS id, MAX(recorded_at) AS recorded_at FROM sm.listing_spec';
+    }
     let where = '1=1';
     if (params?.listingId) {
       where += ` AND listing_id=${params.listingId}`;
     }
+    if (params?.listingIds) {
+      where += ` AND listing_id IN (${idList(params.listingIds)})`;
+    }
     if (params?.exchangeId) {
       where += ` AND listing_id IN (SELECT listing_id FROM sm.listing WHERE exchange_id=${params.exchangeId})`;
     }
+    if (params?.afterVersion) {
+      where += ` AND id > ${Number(params.afterVersion)}`;
+    }
     if (params?.before) {
       where += ` AND recorded_at <= '${params.before}'`;
     }
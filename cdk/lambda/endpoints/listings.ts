@@ -1,5 +1,5 @@
 import { APIGatewayProxyEvent, APIGatewayProxyEventQueryStringParameters } from 'aws-lambda';
-import { ResourceHandler } from './base';
+import { ResourceHandler, idList } from './base';
 import { ICreateListing, IDeleteListing } from '../types';
 
 class ListingHandler extends ResourceHandler {
@@ -41,6 +41,10 @@ class ListingHandler extends ResourceHandler {
     if (params?.listingId) {
       query += denormalize ? ` AND l.listing_id=${params.listingId}` : ` AND listing_id=${params.listingId}`;
     }
+    if (params?.listingIds) {
+      const ids = idList(params.listingIds);
+      query += denormalize ? ` AND l.listing_id IN (${ids})` : ` AND listing_id IN (${ids})`;
+    }
     if (params?.securityId) {
       query += denormalize ? ` AND l.security_id=${params.securityId}` : ` AND security_id=${params.securityId}`;
     }
@@ -61,6 +65,10 @@ class ListingHandler extends ResourceHandler {
       const escaped = params.search.replace(/'/g, "''");
       query += ` AND (s.symbol ILIKE '%${escaped}%' OR e.exchange_name ILIKE '%${escaped}%' OR l.exchange_security_symbol ILIKE '%${escaped}%')`;
     }
+    if (params?.modifiedSince) {
+      const since = `to_timestamp(${Number(params.modifiedSince)} / 1000.0) AT TIME ZONE 'UTC'`;
+      query += denormalize ? ` AND l.date_modified >= ${since}` : ` AND date_modified >= ${since}`;
+    }
     if (params?.active !== undefined) {
       query += denormalize ? ` AND l.active=${params.active === 'true'}` : ` AND active=${params.active === 'true'}`;
     }
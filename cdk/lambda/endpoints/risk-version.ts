@@ -0,0 +1,85 @@
+import { APIGatewayProxyEvent } from 'aws-lambda';
+import { PoolClient } from 'pg';
+import { connectDatabase } from '../connections';
+
+// Stays under API Gateway's 29s integration timeout.
+const MAX_WAIT_MILLIS = 25000;
+const CHANNEL = 'risk_policy_version';
+
+const CORS_HEADERS = {
+  'Access-Control-Allow-Origin': '*',
+  'Access-Control-Allow-Credentials': 'true',
+  'Access-Control-Allow-Headers': 'Content-Type,X-Amz-Date,Authorization,X-Api-Key,X-Amz-Security-Token',
+  'Access-Control-Allow-Methods': 'GET,OPTIONS',
+};
+
+const VERSION_QUERY = `
+  SELECT v.version,
+         EXISTS (
+           SELECT 1 FROM risk.policy
+           WHERE policy_type = 'KILL_SWITCH' AND scope = 0 AND enabled
+         ) AS kill_switch
+  FROM risk.policy_version v
+`;
+
+function createResponse(statusCode: number, body: any) {
+  return {
+    statusCode,
+    body: typeof body === 'string' ? body : JSON.stringify(body),
+    headers: CORS_HEADERS,
+  };
+}
+
+async function readVersion(client: PoolClient) {
+  const result = await client.query(VERSION_QUERY);
+  const row = result.rows[0];
+  return { version: Number(row?.version ?? 0), kill_switch: row?.kill_switch === true };
+}
+
+function waitForNotification(client: PoolClient, waitMillis: number): Promise<void> {
+  return new Promise((resolve) => {
+    const done = () => {
+      clearTimeout(timer);
+      client.removeListener('notification', done);
+      resolve();
+    };
+    const timer = setTimeout(done, waitMillis);
+    client.on('notification', done);
+  });
+}
+
+/**
+ * Long-poll for the risk policy version. Returns immediately when the version differs from `since`, otherwise
+ * waits up to `waitMillis` for the next change. The response carries the global kill switch so clients can halt
+ * without fetching every policy.
+ */
+export const handler = async (event: APIGatewayProxyEvent) => {
+  const pool = await connectDatabase();
+  const client = await pool.connect();
+  let listening = false;
+  try {
+    const params = event.queryStringParameters;
+    const since = params?.since != null ? Number(params.since) : -1;
+    const waitMillis = Math.min(Math.max(Number(params?.waitMillis ?? 0), 0), MAX_WAIT_MILLIS);
+
+    // LISTEN before reading so a change between the read and the wait is not missed.
+    if (waitMillis > 0) {
+      await client.query(`LISTEN ${CHANNEL}`);
+      listening = true;
+    }
+    let state = await readVersion(client);
+    if (state.version === since && waitMillis > 0) {
+      await waitForNotification(client, waitMillis);
+      state = await readVersion(client);
+    }
+    return createResponse(200, state);
+  } catch (error) {
+    console.log(error);
+    return createResponse(500, { message: error });
+  } finally {
+    if (listening) {
+      await client.query(`UNLISTEN ${CHANNEL}`).catch(() => undefined);
+    }
+    client.release();
+  }
+};
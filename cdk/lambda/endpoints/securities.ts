@@ -1,5 +1,5 @@
 import { APIGatewayProxyEvent, APIGatewayProxyEventQueryStringParameters } from 'aws-lambda';
-import { ResourceHandler } from './base';
+import { ResourceHandler, idList } from './base';
 import { ICreateSecurity, IDeleteSecurity } from '../types';
 
 function currencyColumns(alias: string): string {
@@ -66,6 +66,9 @@ class SecurityHandler extends ResourceHandler {
     if (params?.securityId) {
       query += ` AND s.security_id=${params.securityId}`;
     }
+    if (params?.securityIds) {
+      query += ` AND s.security_id IN (${idList(params.securityIds)})`;
+    }
     if (params?.symbol) {
       query += ` AND s.symbol='${params.symbol}'`;
     }
@@ -81,6 +84,12 @@ class SecurityHandler extends ResourceHandler {
     if (params?.assetClass) {
       query += ` AND s.asset_class=${params.assetClass}`;
     }
+    if (params?.exchangeId) {
+      query += ` AND s.security_id IN (SELECT security_id FROM sm.listing WHERE exchange_id=${params.exchangeId})`;
+    }
+    if (params?.modifiedSince) {
+      query += ` AND s.date_modified >= to_timestamp(${Number(params.modifiedSince)} / 1000.0) AT TIME ZONE 'UTC'`;
+    }
     if (params?.search) {
       const escaped = params.search.replace(/'/g, "''");
       query += ` AND (s.symbol ILIKE '%${escaped}%' OR s.description ILIKE '%${escaped}%')`;
@@ -79,6 +79,8 @@ export class ApiStack extends cdk.Stack {
     // /risk/policies (full CRUD)
     const riskResource = this.api.root.addResource('risk');
     this.attachMethods(riskResource.addResource('policies'), 'risk-policies.ts', ['GET', 'POST', 'DELETE', 'PATCH']);
+    // /risk/version (GET long-poll on the policy version and kill switch)
+    this.attachMethods(riskResource.addResource('version'), 'risk-version.ts', ['GET']);
 
     // /strategy-sessions — split into two Lambdas:
     // - In-VPC Lambda: GET/PATCH/POST (DB-only operations)
@@ -0,0 +1,58 @@
+package group.gnometrading;
+
+import java.util.Arrays;
+
+/**
+ * Log of the cache entries a {@link SecurityMaster} has written since it was last drained, so that
+ * {@link ConcurrentSecurityMaster} can publish just those entries after a load instead of copying every cache.
+ * Keys are cache ids, or {@link group.gnometrading.sm.ListingKeyIndex#pack packed} keys for {@link #LISTING_KEY}.
+ */
+final class CacheJournal {
+
+    static final int SECURITY = 0;
+    static final int EXCHANGE = 1;
+    static final int LISTING = 2;
+    static final int LISTING_SPEC = 3;
+    static final int EVENT = 4;
+    static final int EVENT_CONTRACT = 5;
+    static final int LISTING_KEY = 6;
+    static final int CONTRACT_RELATIONSHIPS = 7;
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private int[] kinds = new int[DEFAULT_CAPACITY];
+    private long[] keys = new long[DEFAULT_CAPACITY];
+    private int size;
+
+    void record(final int kind, final long key) {
+        if (this.size == this.kinds.length) {
+            this.kinds = Arrays.copyOf(this.kinds, this.size * 2);
+            this.keys = Arrays.copyOf(this.keys, this.size * 2);
+        }
+        this.kinds[this.size] = kind;
+        this.keys[this.size++] = key;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    int kind(final int index) {
+        return this.kinds[index];
+    }
+
+    long key(final int index) {
+        return this.keys[index];
+    }
+
+    /**
+     * Empties the journal, releasing the arrays a bulk load grew.
+     */
+    void clear() {
+        if (this.kinds.length > DEFAULT_CAPACITY) {
+            this.kinds = new int[DEFAULT_CAPACITY];
+            this.keys = new long[DEFAULT_CAPACITY];
+        }
+        this.size = 0;
+    }
+}
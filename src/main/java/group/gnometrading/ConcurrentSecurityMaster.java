@@ -0,0 +1,697 @@
+package group.gnometrading;
+
+import group.gnometrading.metrics.MetricsSink;
+import group.gnometrading.metrics.MetricsSource;
+import group.gnometrading.sm.ContractRelationship;
+import group.gnometrading.sm.ContractRelationshipGraph;
+import group.gnometrading.sm.Event;
+import group.gnometrading.sm.EventContract;
+import group.gnometrading.sm.EventIndex;
+import group.gnometrading.sm.Exchange;
+import group.gnometrading.sm.Listing;
+import group.gnometrading.sm.ListingKeyIndex;
+import group.gnometrading.sm.ListingSpec;
+import group.gnometrading.sm.ListingSpecTable;
+import group.gnometrading.sm.Security;
+import group.gnometrading.strings.GnomeString;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe variant of {@link SecurityMaster} meant to be shared by every strategy thread in a process.
+ * Readers do lock-free, allocation-free lookups against tables the loaded entries are published to.
+ * Cache misses are loaded single-flight: concurrent callers for the same key share one registry request.
+ * Loads are serialized through an underlying {@link SecurityMaster}, which journals the entries each load
+ * writes; only those entries are published afterwards, so a miss costs time proportional to what it loaded
+ * rather than to the cache size. Call {@link #preload()} at startup to make misses rare.
+ *
+ * <p>Loads hold a {@link ReentrantLock} rather than a monitor, so a load blocked on the network does not pin a
+ * virtual thread's carrier. The async variants run their loads through
+ * {@link RegistryConnection#supplyAsync(Supplier)}, which bounds them to the connection's pooled clients.
+ *
+ * <p>With a coalescing window, misses on securities, listings and listing specs arriving within the window are
+ * also grouped into one batched registry request and one publication, so a burst of cold lookups from many
+ * threads costs a handful of requests rather than one each.
+ */
+public final class ConcurrentSecurityMaster implements MetricsSource {
+
+    private static final Listing EMPTY_LISTING = new Listing(-1, null, null, null, null, false);
+
+    private static final int SECURITY = 0;
+    private static final int EXCHANGE = 1;
+    private static final int LISTING = 2;
+    private static final int LISTING_SPEC = 3;
+    private static final int EVENT = 4;
+    private static final int EVENT_CONTRACT = 5;
+    private static final int LISTING_BY_KEY = 6;
+    private static final int CONTRACT_RELATIONSHIPS = 7;
+
+    private final RegistryConnection registryConnection;
+    private final SecurityMaster loader;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ConcurrentHashMap<Long, CompletableFuture<Object>> inFlight;
+    private final RequestCoalescer<Security> securityBatches;
+    private final RequestCoalescer<Listing> listingBatches;
+    private final RequestCoalescer<ListingSpec> listingSpecBatches;
+
+    private final CacheJournal journal;
+    private final PublishedTable<Security> securities;
+    private final PublishedTable<Exchange> exchanges;
+    private final PublishedTable<Listing> listings;
+    private final PublishedTable<ListingSpec> listingSpecs;
+    private final PublishedTable<Event> events;
+    private final PublishedTable<EventContract> eventContracts;
+    private final PublishedTable<Integer> listingKeys;
+    private final PublishedTable<ContractRelationship[]> contractRelationships;
+    // load-once values, written under the load lock
+    private volatile ContractRelationship[] allContractRelationships;
+    private volatile ContractRelationshipGraph contractRelationshipGraph;
+    private volatile EventIndex eventIndex = EventIndex.empty();
+    // hits answered from the published tables, which never reach the loader's single-writer counters
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheNegativeHits = new LongAdder();
+
+    public ConcurrentSecurityMaster(final RegistryConnection registryConnection) {
+        this(registryConnection, SecurityMaster.DEFAULT_LISTING_SPEC_REFRESH_MILLIS);
+    }
+
+    public ConcurrentSecurityMaster(final RegistryConnection registryConnection, final long listingSpecRefreshMillis) {
+        this(registryConnection, listingSpecRefreshMillis, 0L);
+    }
+
+    /**
+     * @param coalesceWindowMicros how long the first miss waits for others to batch with it; 0 loads every miss
+     *     on its own
+     */
+    public ConcurrentSecurityMaster(
+            final RegistryConnection registryConnection,
+            final long listingSpecRefreshMillis,
+            final long coalesceWindowMicros) {
+        this.registryConnection = registryConnection;
+        this.loader = new SecurityMaster(registryConnection, listingSpecRefreshMillis);
+        this.inFlight = new ConcurrentHashMap<>();
+        this.journal = new CacheJournal();
+        this.loader.journal(this.journal);
+        this.securities = new PublishedTable<>();
+        this.exchanges = new PublishedTable<>();
+        this.listings = new PublishedTable<>();
+        this.listingSpecs = new PublishedTable<>();
+        this.events = new PublishedTable<>();
+        this.eventContracts = new PublishedTable<>();
+        this.listingKeys = new PublishedTable<>();
+        this.contractRelationships = new PublishedTable<>();
+        if (coalesceWindowMicros > 0) {
+            final long windowNanos = coalesceWindowMicros * 1_000L;
+            this.securityBatches = new RequestCoalescer<>(
+                    ids -> fetchAndPublish(() -> this.loader.getSecurities(ids)),
+                    windowNanos,
+                    SecurityMaster.MAX_BATCH_IDS);
+            this.listingBatches = new RequestCoalescer<>(
+                    ids -> fetchAndPublish(() -> this.loader.getListings(ids)),
+                    windowNanos,
+                    SecurityMaster.MAX_BATCH_IDS);
+            this.listingSpecBatches = new RequestCoalescer<>(
+                    ids -> fetchAndPublish(() -> this.loader.getListingSpecs(ids)),
+                    windowNanos,
+                    SecurityMaster.MAX_BATCH_IDS);
+        } else {
+            this.securityBatches = null;
+            this.listingBatches = null;
+            this.listingSpecBatches = null;
+        }
+    }
+
+    public void preload() {
+        this.lock.lock();
+        try {
+            this.loader.preload();
+            publish();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public void preloadExchanges(final int... exchangeIds) {
+        this.lock.lock();
+        try {
+            this.loader.preloadExchanges(exchangeIds);
+            publish();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Applies the registry changes since the last preload or refresh and publishes them if there were any.
+     *
+     * @see SecurityMaster#refreshChanges()
+     */
+    public int refreshChanges() {
+        this.lock.lock();
+        try {
+            final int changes = this.loader.refreshChanges();
+            if (changes > 0) {
+                publish();
+            }
+            return changes;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @see SecurityMaster#onSecurityChanged(Consumer)
+     */
+    public void onSecurityChanged(final Consumer<SecurityChange> listener) {
+        this.lock.lock();
+        try {
+            this.loader.onSecurityChanged(listener);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @see SecurityMaster#onListingChanged(Consumer)
+     */
+    public void onListingChanged(final Consumer<ListingChange> listener) {
+        this.lock.lock();
+        try {
+            this.loader.onListingChanged(listener);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @see SecurityMaster#onEventResolved(Consumer)
+     */
+    public void onEventResolved(final Consumer<EventResolution> listener) {
+        this.lock.lock();
+        try {
+            this.loader.onEventResolved(listener);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Samples the underlying loader's metrics without taking its lock. Hits answered from the published tables
+     * are added to the loader's own, so the hit counts cover every lookup.
+     *
+     * @see SecurityMaster#sampleMetrics(MetricsSink)
+     */
+    @Override
+    public void sampleMetrics(final MetricsSink sink) {
+        this.loader.sampleMetrics(sink, this.cacheHits.sum(), this.cacheNegativeHits.sum());
+    }
+
+    /**
+     * @see SecurityMaster#pollListingSpecs(long)
+     */
+    public int pollListingSpecs(final long nowMillis) {
+        this.lock.lock();
+        try {
+            final int changes = this.loader.pollListingSpecs(nowMillis);
+            publish();
+            return changes;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @see SecurityMaster#refreshListingSpecs()
+     */
+    public int refreshListingSpecs() {
+        this.lock.lock();
+        try {
+            final int changes = this.loader.refreshListingSpecs();
+            publish();
+            return changes;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Publishes the caches stored by {@link #writeSnapshot(Path)}, e.g. at boot before the registry is reachable.
+     * Follow with {@link #reconcileAsync()} to bring the entries up to date in the background.
+     */
+    public boolean loadSnapshot(final Path path) {
+        this.lock.lock();
+        try {
+            final boolean loaded = this.loader.loadSnapshot(path);
+            publish();
+            return loaded;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public void writeSnapshot(final Path path) {
+        this.lock.lock();
+        try {
+            this.loader.writeSnapshot(path);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Reloads the universe from the registry on the connection's async executor and publishes it, replacing
+     * the entries loaded from a snapshot file. Readers keep seeing the entries loaded so far until then. Entries
+     * deleted from the registry since the file was written are not removed.
+     */
+    public CompletableFuture<Void> reconcileAsync() {
+        return preloadAsync();
+    }
+
+    public Security getSecurity(final int securityId) {
+        final Security cached = this.securities.get(securityId);
+        if (cached != null) {
+            return cached == SecurityMaster.EMPTY_SECURITY ? negativeHit() : hit(cached);
+        }
+        if (this.securityBatches != null) {
+            return coalesce(SECURITY, securityId, this.securityBatches);
+        }
+        return load(SECURITY, securityId, () -> this.loader.getSecurity(securityId));
+    }
+
+    /**
+     * @see SecurityMaster#getSecurities(int[])
+     */
+    public Security[] getSecurities(final int[] securityIds) {
+        final PublishedTable<Security> cached = this.securities;
+        if (!containsAll(cached, securityIds)) {
+            return fetchAndPublish(() -> this.loader.getSecurities(securityIds));
+        }
+        return resolve(securityIds, cached, SecurityMaster.EMPTY_SECURITY, new Security[securityIds.length]);
+    }
+
+    public Exchange getExchange(final int exchangeId) {
+        final Exchange cached = this.exchanges.get(exchangeId);
+        if (cached != null) {
+            return cached == SecurityMaster.EMPTY_EXCHANGE ? negativeHit() : hit(cached);
+        }
+        return load(EXCHANGE, exchangeId, () -> this.loader.getExchange(exchangeId));
+    }
+
+    public Listing getListing(final int listingId) {
+        final Listing cached = this.listings.get(listingId);
+        if (cached != null) {
+            return cached == EMPTY_LISTING ? negativeHit() : hit(cached);
+        }
+        if (this.listingBatches != null) {
+            return coalesce(LISTING, listingId, this.listingBatches);
+        }
+        return load(LISTING, listingId, () -> this.loader.getListing(listingId));
+    }
+
+    /**
+     * @see SecurityMaster#getListings(int[])
+     */
+    public Listing[] getListings(final int[] listingIds) {
+        final PublishedTable<Listing> cached = this.listings;
+        if (!containsAll(cached, listingIds)) {
+            return fetchAndPublish(() -> this.loader.getListings(listingIds));
+        }
+        return resolve(listingIds, cached, EMPTY_LISTING, new Listing[listingIds.length]);
+    }
+
+    public Listing getListing(final int exchangeId, final int securityId) {
+        final Integer listingId = this.listingKeys.get(ListingKeyIndex.pack(exchangeId, securityId));
+        if (listingId != null) {
+            if (listingId == ListingKeyIndex.NOT_FOUND) {
+                return negativeHit();
+            }
+            final Listing cached = this.listings.get(listingId);
+            if (cached != null) {
+                return cached == EMPTY_LISTING ? negativeHit() : hit(cached);
+            }
+        }
+        return load(
+                LISTING_BY_KEY,
+                ListingKeyIndex.pack(exchangeId, securityId),
+                () -> this.loader.getListing(exchangeId, securityId));
+    }
+
+    /**
+     * Hits read the loader's native symbol index, which is safe to read without the lock, and do not allocate.
+     *
+     * @see SecurityMaster#getListingByExchangeSecurityId(int, CharSequence)
+     */
+    public Listing getListingByExchangeSecurityId(final int exchangeId, final CharSequence exchangeSecurityId) {
+        final Listing cached =
+                publishedListing(this.loader.exchangeSecurityIdIndex().get(exchangeId, exchangeSecurityId));
+        if (cached != null) {
+            return cached == EMPTY_LISTING ? negativeHit() : hit(cached);
+        }
+        return fetchAndPublish(() -> this.loader.getListingByExchangeSecurityId(exchangeId, exchangeSecurityId));
+    }
+
+    public Listing getListingByExchangeSecurityId(final int exchangeId, final GnomeString exchangeSecurityId) {
+        final Listing cached =
+                publishedListing(this.loader.exchangeSecurityIdIndex().get(exchangeId, exchangeSecurityId));
+        if (cached != null) {
+            return cached == EMPTY_LISTING ? negativeHit() : hit(cached);
+        }
+        return fetchAndPublish(() -> this.loader.getListingByExchangeSecurityId(exchangeId, exchangeSecurityId));
+    }
+
+    /**
+     * Hits read the loader's native symbol index, which is safe to read without the lock, and do not allocate.
+     *
+     * @see SecurityMaster#getListingByExchangeSecuritySymbol(int, CharSequence)
+     */
+    public Listing getListingByExchangeSecuritySymbol(
+            final int exchangeId, final CharSequence exchangeSecuritySymbol) {
+        final Listing cached =
+                publishedListing(this.loader.exchangeSecuritySymbolIndex().get(exchangeId, exchangeSecuritySymbol));
+        if (cached != null) {
+            return cached == EMPTY_LISTING ? negativeHit() : hit(cached);
+        }
+        return fetchAndPublish(
+                () -> this.loader.getListingByExchangeSecuritySymbol(exchangeId, exchangeSecuritySymbol));
+    }
+
+    public Listing getListingByExchangeSecuritySymbol(final int exchangeId, final GnomeString exchangeSecuritySymbol) {
+        final Listing cached =
+                publishedListing(this.loader.exchangeSecuritySymbolIndex().get(exchangeId, exchangeSecuritySymbol));
+        if (cached != null) {
+            return cached == EMPTY_LISTING ? negativeHit() : hit(cached);
+        }
+        return fetchAndPublish(
+                () -> this.loader.getListingByExchangeSecuritySymbol(exchangeId, exchangeSecuritySymbol));
+    }
+
+    public ListingSpec getListingSpec(final int listingId) {
+        final ListingSpec cached = this.listingSpecs.get(listingId);
+        if (cached != null) {
+            return cached == SecurityMaster.EMPTY_LISTING_SPEC ? negativeHit() : hit(cached);
+        }
+        if (this.listingSpecBatches != null) {
+            return coalesce(LISTING_SPEC, listingId, this.listingSpecBatches);
+        }
+        return load(LISTING_SPEC, listingId, () -> this.loader.getListingSpec(listingId));
+    }
+
+    /**
+     * @see SecurityMaster#getListingSpecs(int[])
+     */
+    public ListingSpec[] getListingSpecs(final int[] listingIds) {
+        final PublishedTable<ListingSpec> cached = this.listingSpecs;
+        if (!containsAll(cached, listingIds)) {
+            return fetchAndPublish(() -> this.loader.getListingSpecs(listingIds));
+        }
+        return resolve(
+                listingIds, cached, SecurityMaster.EMPTY_LISTING_SPEC, new ListingSpec[listingIds.length]);
+    }
+
+    /**
+     * Spec table written under the load lock and readable lock-free from any thread.
+     */
+    public ListingSpecTable getListingSpecTable() {
+        return this.loader.getListingSpecTable();
+    }
+
+    public Event getEvent(final int eventId) {
+        final Event cached = this.events.get(eventId);
+        if (cached != null) {
+            return cached == SecurityMaster.EMPTY_EVENT ? negativeHit() : hit(cached);
+        }
+        return load(EVENT, eventId, () -> this.loader.getEvent(eventId));
+    }
+
+    public EventContract getEventContractBySecurity(final int securityId) {
+        final EventContract cached = this.eventContracts.get(securityId);
+        if (cached != null) {
+            return cached == SecurityMaster.EMPTY_EVENT_CONTRACT ? negativeHit() : hit(cached);
+        }
+        return load(EVENT_CONTRACT, securityId, () -> this.loader.getEventContractBySecurity(securityId));
+    }
+
+    /**
+     * The array is shared with every caller and must not be modified.
+     *
+     * @see SecurityMaster#getAllContractRelationships()
+     */
+    public ContractRelationship[] getAllContractRelationships() {
+        final ContractRelationship[] cached = this.allContractRelationships;
+        if (cached != null) {
+            return cached;
+        }
+        this.lock.lock();
+        try {
+            this.allContractRelationships = this.loader.getAllContractRelationships();
+            return this.allContractRelationships;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @see SecurityMaster#getContractRelationships(int)
+     */
+    public ContractRelationship[] getContractRelationships(final int securityId) {
+        final ContractRelationship[] cached = this.contractRelationships.get(securityId);
+        if (cached != null) {
+            return hit(cached);
+        }
+        return load(CONTRACT_RELATIONSHIPS, securityId, () -> this.loader.getContractRelationships(securityId));
+    }
+
+    /**
+     * @see SecurityMaster#getContractRelationshipGraph()
+     */
+    public ContractRelationshipGraph getContractRelationshipGraph() {
+        final ContractRelationshipGraph cached = this.contractRelationshipGraph;
+        if (cached != null) {
+            return cached;
+        }
+        this.lock.lock();
+        try {
+            this.contractRelationshipGraph = this.loader.getContractRelationshipGraph();
+            return this.contractRelationshipGraph;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Loads the events under the load lock, publishes them and then the new index, which readers pick up with
+     * one volatile read.
+     *
+     * @see SecurityMaster#loadEventIndex()
+     */
+    public EventIndex loadEventIndex() {
+        this.lock.lock();
+        try {
+            final EventIndex index = this.loader.loadEventIndex();
+            publish();
+            this.eventIndex = index;
+            return index;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the index built by the last {@link #loadEventIndex()}, or an empty one
+     */
+    public EventIndex getEventIndex() {
+        return this.eventIndex;
+    }
+
+    /**
+     * Non-blocking variant of {@link #getSecurity(int)}. Hits complete immediately; misses are loaded on the
+     * registry connection's async executor, e.g. to prefetch without stalling an event loop.
+     */
+    public CompletableFuture<Security> getSecurityAsync(final int securityId) {
+        final Security cached = this.securities.get(securityId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(
+                    cached == SecurityMaster.EMPTY_SECURITY ? negativeHit() : hit(cached));
+        }
+        return this.registryConnection.supplyAsync(() -> getSecurity(securityId));
+    }
+
+    public CompletableFuture<Exchange> getExchangeAsync(final int exchangeId) {
+        final Exchange cached = this.exchanges.get(exchangeId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(
+                    cached == SecurityMaster.EMPTY_EXCHANGE ? negativeHit() : hit(cached));
+        }
+        return this.registryConnection.supplyAsync(() -> getExchange(exchangeId));
+    }
+
+    public CompletableFuture<Listing> getListingAsync(final int listingId) {
+        final Listing cached = this.listings.get(listingId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached == EMPTY_LISTING ? negativeHit() : hit(cached));
+        }
+        return this.registryConnection.supplyAsync(() -> getListing(listingId));
+    }
+
+    public CompletableFuture<Listing> getListingAsync(final int exchangeId, final int securityId) {
+        final Integer listingId = this.listingKeys.get(ListingKeyIndex.pack(exchangeId, securityId));
+        if (listingId != null) {
+            if (listingId == ListingKeyIndex.NOT_FOUND) {
+                return CompletableFuture.completedFuture(negativeHit());
+            }
+            final Listing cached = this.listings.get(listingId);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached == EMPTY_LISTING ? negativeHit() : hit(cached));
+            }
+        }
+        return this.registryConnection.supplyAsync(() -> getListing(exchangeId, securityId));
+    }
+
+    public CompletableFuture<ListingSpec> getListingSpecAsync(final int listingId) {
+        final ListingSpec cached = this.listingSpecs.get(listingId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(
+                    cached == SecurityMaster.EMPTY_LISTING_SPEC ? negativeHit() : hit(cached));
+        }
+        return this.registryConnection.supplyAsync(() -> getListingSpec(listingId));
+    }
+
+    public CompletableFuture<Void> preloadAsync() {
+        return this.registryConnection.supplyAsync(() -> {
+            preload();
+            return null;
+        });
+    }
+
+    public CompletableFuture<Integer> refreshChangesAsync() {
+        return this.registryConnection.supplyAsync(this::refreshChanges);
+    }
+
+    /**
+     * Copies the entries the loader journaled since the last call into the published tables. Must hold the
+     * loader lock.
+     */
+    private void publish() {
+        final CacheJournal journal = this.journal;
+        for (int i = 0; i < journal.size(); i++) {
+            final long key = journal.key(i);
+            final int id = (int) key;
+            switch (journal.kind(i)) {
+                case CacheJournal.SECURITY -> this.securities.put(key, this.loader.securityCache().get(id));
+                case CacheJournal.EXCHANGE -> this.exchanges.put(key, this.loader.exchangeCache().get(id));
+                case CacheJournal.LISTING -> {
+                    final Listing listing = this.loader.listingCache().get(id);
+                    this.listings.put(key, listing == null ? EMPTY_LISTING : listing);
+                }
+                case CacheJournal.LISTING_SPEC -> this.listingSpecs.put(key, this.loader.listingSpecCache().get(id));
+                case CacheJournal.EVENT -> this.events.put(key, this.loader.eventCache().get(id));
+                case CacheJournal.EVENT_CONTRACT -> this.eventContracts.put(
+                        key, this.loader.eventContractBySecurityCache().get(id));
+                case CacheJournal.LISTING_KEY -> this.listingKeys.put(
+                        key, this.loader.listingKeyIndex().get((int) (key >>> 32), id));
+                case CacheJournal.CONTRACT_RELATIONSHIPS -> this.contractRelationships.put(
+                        key, this.loader.contractRelationshipCache().get(id));
+                default -> throw new IllegalStateException("Unknown journal entry " + journal.kind(i));
+            }
+        }
+        journal.clear();
+    }
+
+    /**
+     * @return the published listing for an id read from a native symbol index, {@link #EMPTY_LISTING} for a
+     *     symbol known to be absent, or null if the symbol or its listing is not published yet
+     */
+    private Listing publishedListing(final int listingId) {
+        if (listingId == ListingKeyIndex.NOT_FOUND) {
+            return EMPTY_LISTING;
+        }
+        return listingId == ListingKeyIndex.MISSING ? null : this.listings.get(listingId);
+    }
+
+    private <T> T load(final int type, final int id, final Supplier<T> fetch) {
+        return load(type, id & 0xFFFFFFFFL, fetch);
+    }
+
+    private <T> T load(final int type, final long id, final Supplier<T> fetch) {
+        return singleFlight(type, id, () -> fetchAndPublish(fetch));
+    }
+
+    /**
+     * Single-flight like {@link #load(int, int, Supplier)}, but the miss joins the coalescer's open batch, which
+     * takes the load lock only once the window has elapsed.
+     */
+    private <T> T coalesce(final int type, final int id, final RequestCoalescer<T> coalescer) {
+        return singleFlight(type, id & 0xFFFFFFFFL, () -> coalescer.load(id));
+    }
+
+    private <T> T fetchAndPublish(final Supplier<T> fetch) {
+        this.lock.lock();
+        try {
+            final T value = fetch.get();
+            publish();
+            return value;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T singleFlight(final int type, final long id, final Supplier<T> fetch) {
+        // Packed (exchangeId, securityId) keys use all 64 bits; complementing them keeps them negative and
+        // disjoint from the (type << 32 | id) keys.
+        final Long key = type == LISTING_BY_KEY ? ~id : ((long) type << 32) | id;
+        final CompletableFuture<Object> created = new CompletableFuture<>();
+        final CompletableFuture<Object> existing = this.inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+            }
+        }
+
+        try {
+            final T value = fetch.get();
+            created.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.remove(key, created);
+        }
+    }
+
+    private static <T> boolean containsAll(final PublishedTable<T> cache, final int[] ids) {
+        for (final int id : ids) {
+            if (cache.get(id) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private <T> T[] resolve(final int[] ids, final PublishedTable<T> cache, final T notFound, final T[] result) {
+        for (int i = 0; i < ids.length; i++) {
+            final T value = cache.get(ids[i]);
+            result[i] = value == notFound ? negativeHit() : hit(value);
+        }
+        return result;
+    }
+
+    private <T> T hit(final T value) {
+        this.cacheHits.increment();
+        return value;
+    }
+
+    private <T> T negativeHit() {
+        this.cacheNegativeHits.increment();
+        return null;
+    }
+}
@@ -0,0 +1,122 @@
+package group.gnometrading;
+
+import group.gnometrading.metrics.LatencyHistogram;
+import group.gnometrading.metrics.MetricsSink;
+import group.gnometrading.strings.GnomeString;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-endpoint request metrics for {@link RegistryConnection}, keyed by the request path up to its query string.
+ * Lookups scan a small copy-on-write array without locking or allocating; only the first request to a new endpoint
+ * registers it. Endpoints beyond {@link #MAX_ENDPOINTS} share one "other" entry.
+ */
+final class EndpointMetrics {
+
+    static final int MAX_ENDPOINTS = 32;
+
+    private final Endpoint other = new Endpoint("other");
+    private volatile Endpoint[] endpoints = new Endpoint[0];
+
+    Endpoint forPath(final GnomeString path) {
+        final Endpoint[] current = this.endpoints;
+        for (final Endpoint endpoint : current) {
+            if (endpoint.matches(path)) {
+                return endpoint;
+            }
+        }
+        return register(path);
+    }
+
+    void sample(final MetricsSink sink) {
+        for (final Endpoint endpoint : this.endpoints) {
+            endpoint.sample(sink);
+        }
+        this.other.sample(sink);
+    }
+
+    private synchronized Endpoint register(final GnomeString path) {
+        final Endpoint[] current = this.endpoints;
+        for (final Endpoint endpoint : current) {
+            if (endpoint.matches(path)) {
+                return endpoint;
+            }
+        }
+        if (current.length == MAX_ENDPOINTS) {
+            return this.other;
+        }
+        final String text = path.toString();
+        final int query = text.indexOf('?');
+        final Endpoint endpoint = new Endpoint(query < 0 ? text : text.substring(0, query));
+        final Endpoint[] grown = new Endpoint[current.length + 1];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        grown[current.length] = endpoint;
+        this.endpoints = grown;
+        return endpoint;
+    }
+
+    static final class Endpoint {
+
+        private final String name;
+        private final String latencyName;
+        private final String requestsName;
+        private final String errorsName;
+        private final String bytesName;
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong bytesReceived = new AtomicLong();
+
+        private Endpoint(final String name) {
+            this.name = name;
+            this.latencyName = "registry." + name + ".latency_nanos";
+            this.requestsName = "registry." + name + ".requests";
+            this.errorsName = "registry." + name + ".errors";
+            this.bytesName = "registry." + name + ".bytes_received";
+        }
+
+        void recordSuccess(final long nanos, final int bytes) {
+            this.latency.record(nanos);
+            this.requests.incrementAndGet();
+            this.bytesReceived.addAndGet(bytes);
+        }
+
+        void recordError(final long nanos) {
+            this.latency.record(nanos);
+            this.requests.incrementAndGet();
+            this.errors.incrementAndGet();
+        }
+
+        long getRequests() {
+            return this.requests.get();
+        }
+
+        long getErrors() {
+            return this.errors.get();
+        }
+
+        long getBytesReceived() {
+            return this.bytesReceived.get();
+        }
+
+        private boolean matches(final GnomeString path) {
+            final int length = this.name.length();
+            if (path.length() < length || (path.length() > length && path.byteAt(length) != '?')) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (path.byteAt(i) != this.name.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void sample(final MetricsSink sink) {
+            sink.histogram(this.latencyName, this.latency);
+            sink.counter(this.requestsName, this.requests.get());
+            sink.counter(this.errorsName, this.errors.get());
+            sink.counter(this.bytesName, this.bytesReceived.get());
+        }
+    }
+}
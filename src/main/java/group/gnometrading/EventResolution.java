@@ -0,0 +1,30 @@
+package group.gnometrading;
+
+import group.gnometrading.sm.Event;
+
+/**
+ * A cached event that {@link SecurityMaster#refreshChanges()} saw flip to resolved. The same instance is reused
+ * for every notification, so listeners must copy anything they need beyond the callback.
+ */
+public final class EventResolution {
+
+    private Event event;
+
+    EventResolution() {}
+
+    void set(final Event event) {
+        this.event = event;
+    }
+
+    public Event event() {
+        return this.event;
+    }
+
+    public int eventId() {
+        return this.event.eventId();
+    }
+
+    public long resolvedAt() {
+        return this.event.resolvedAt();
+    }
+}
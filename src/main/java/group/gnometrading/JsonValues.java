@@ -0,0 +1,42 @@
+package group.gnometrading;
+
+import group.gnometrading.strings.GnomeString;
+
+/**
+ * Parses scalar JSON values in place from the raw bytes {@link group.gnometrading.codecs.json.JsonDecoder} exposes,
+ * without allocating, for the registry decoders.
+ */
+final class JsonValues {
+
+    private JsonValues() {}
+
+    /**
+     * Parses an integral JSON number in place. Null yields 0 and any fractional part is truncated. Quoted numbers
+     * are accepted too, since Postgres bigint columns are serialized as strings.
+     */
+    static long longValue(final GnomeString raw) {
+        final int length = raw.length();
+        int index = length > 0 && raw.byteAt(0) == '"' ? 1 : 0;
+        boolean negative = false;
+        if (index < length && raw.byteAt(index) == '-') {
+            negative = true;
+            index++;
+        }
+        long value = 0;
+        for (; index < length; index++) {
+            final byte b = raw.byteAt(index);
+            if (b < '0' || b > '9') {
+                break;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * @return true for a JSON {@code true}, false for anything else including null
+     */
+    static boolean booleanValue(final GnomeString raw) {
+        return raw.length() > 0 && raw.byteAt(0) == 't';
+    }
+}
@@ -0,0 +1,42 @@
+package group.gnometrading;
+
+import group.gnometrading.sm.Listing;
+
+/**
+ * A listing added or updated by {@link SecurityMaster#refreshChanges()}. The same instance is reused for every
+ * notification, so listeners must copy anything they need beyond the callback.
+ */
+public final class ListingChange {
+
+    private Listing previous;
+    private Listing current;
+
+    ListingChange() {}
+
+    void set(final Listing previous, final Listing current) {
+        this.previous = previous;
+        this.current = current;
+    }
+
+    /**
+     * @return the listing as cached before the refresh, or null if it was not cached
+     */
+    public Listing previous() {
+        return this.previous;
+    }
+
+    public Listing current() {
+        return this.current;
+    }
+
+    public boolean activated() {
+        return this.current.active() && (this.previous == null || !this.previous.active());
+    }
+
+    /**
+     * @return true only if a cached active row went inactive; a row first seen inactive was never active here
+     */
+    public boolean deactivated() {
+        return !this.current.active() && this.previous != null && this.previous.active();
+    }
+}
@@ -0,0 +1,115 @@
+package group.gnometrading;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Open-addressing {@code long -> T} table written by one thread at a time and read lock-free by any number of
+ * threads. Entries are never removed, so a slot keeps its key once claimed; a new entry stores its value before its
+ * key, so a reader that finds the key also finds the value. Growing copies the table once and publishes the copy
+ * through a volatile field, keeping puts amortized O(1). Reads do not allocate.
+ */
+final class PublishedTable<T> {
+
+    private static final long EMPTY_KEY = Long.MIN_VALUE;
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private volatile Slots slots;
+    private int size; // written under the writer's lock only
+
+    PublishedTable() {
+        this.slots = new Slots(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @return the value stored under {@code key}, or null if there is none yet
+     */
+    @SuppressWarnings("unchecked")
+    T get(final long key) {
+        final Slots current = this.slots;
+        int index = current.indexOf(key);
+        while (true) {
+            final long stored = current.keys.get(index);
+            if (stored == key) {
+                return (T) current.values.get(index);
+            }
+            if (stored == EMPTY_KEY) {
+                return null;
+            }
+            index = (index + 1) & current.mask;
+        }
+    }
+
+    /**
+     * Callers must serialize puts.
+     */
+    void put(final long key, final T value) {
+        Slots current = this.slots;
+        if ((this.size + 1) * 2 > current.capacity()) {
+            current = current.grow();
+            this.slots = current;
+        }
+        if (current.put(key, value)) {
+            this.size++;
+        }
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    private static final class Slots {
+        private final AtomicLongArray keys;
+        private final AtomicReferenceArray<Object> values;
+        private final int mask;
+
+        private Slots(final int capacity) {
+            this.keys = new AtomicLongArray(capacity);
+            this.values = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+            for (int i = 0; i < capacity; i++) {
+                this.keys.lazySet(i, EMPTY_KEY);
+            }
+        }
+
+        private int capacity() {
+            return this.mask + 1;
+        }
+
+        private int indexOf(final long key) {
+            final long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & this.mask;
+        }
+
+        /**
+         * @return true if the key was not present before
+         */
+        private boolean put(final long key, final Object value) {
+            int index = indexOf(key);
+            while (true) {
+                final long stored = this.keys.get(index);
+                if (stored == key) {
+                    this.values.set(index, value);
+                    return false;
+                }
+                if (stored == EMPTY_KEY) {
+                    this.values.set(index, value);
+                    this.keys.set(index, key);
+                    return true;
+                }
+                index = (index + 1) & this.mask;
+            }
+        }
+
+        private Slots grow() {
+            final Slots grown = new Slots(capacity() * 2);
+            for (int i = 0; i < capacity(); i++) {
+                final long key = this.keys.get(i);
+                if (key != EMPTY_KEY) {
+                    grown.put(key, this.values.get(i));
+                }
+            }
+            return grown;
+        }
+    }
+}
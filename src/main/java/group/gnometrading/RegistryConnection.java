@@ -1,40 +1,104 @@
 package group.gnometrading;
 
+import group.gnometrading.metrics.MetricsSink;
+import group.gnometrading.metrics.MetricsSource;
 import group.gnometrading.networking.http.HTTPProtocol;
 import group.gnometrading.networking.http.HTTPResponse;
 import group.gnometrading.networking.http.RetryableHTTPClient;
+import group.gnometrading.strings.ExpandingMutableString;
 import group.gnometrading.strings.GnomeString;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
-public final class RegistryConnection {
+/**
+ * Connection to the registry API. Safe to share between threads: every thread issues requests through its own
+ * HTTP client. The blocking {@link #get}/{@link #post} calls return buffers owned by the calling thread's client,
+ * valid until that thread's next request. The async calls run on a bounded executor, borrow their client from a
+ * pool of at most {@code maxInFlight} connections and complete with copies. Blocking calls made from inside
+ * {@link #supplyAsync(Supplier)} use that task's pooled client too, so no per-thread client is ever created for
+ * async work, even on a virtual-thread-per-task executor.
+ *
+ * <p>Request latency, request and error counts and bytes received are recorded per endpoint and can be sampled via
+ * {@link #sampleMetrics}.
+ */
+public final class RegistryConnection implements MetricsSource {
 
     private static final String API_KEY_HEADER = "x-api-key";
+    private static final int DEFAULT_MAX_IN_FLIGHT = 8;
 
     private final String url;
     private final String apiKey;
-    private final RetryableHTTPClient httpClient;
+    private final ThreadLocal<RetryableHTTPClient> httpClients;
+    // set only while a supplyAsync task holds a pooled client
+    private final ThreadLocal<RetryableHTTPClient> borrowedClients;
+    private final Semaphore inFlight;
+    private final ConcurrentLinkedQueue<RetryableHTTPClient> asyncClients;
+    private final EndpointMetrics endpointMetrics = new EndpointMetrics();
+    private final int maxInFlight;
+
+    private volatile Executor asyncExecutor;
 
     public RegistryConnection(final String url, final String apiKey) {
+        this(url, apiKey, DEFAULT_MAX_IN_FLIGHT, null);
+    }
+
+    /**
+     * @param maxInFlight maximum number of async requests issued concurrently
+     * @param asyncExecutor executor for async requests, e.g. a virtual-thread-per-task executor, since async requests
+     *     use pooled clients rather than per-thread ones; when null a pool of {@code maxInFlight} daemon threads is
+     *     created on first use
+     */
+    public RegistryConnection(
+            final String url, final String apiKey, final int maxInFlight, final Executor asyncExecutor) {
         this.url = url;
         this.apiKey = apiKey;
-        this.httpClient = new RetryableHTTPClient();
+        this.httpClients = ThreadLocal.withInitial(RetryableHTTPClient::new);
+        this.borrowedClients = new ThreadLocal<>();
+        this.inFlight = new Semaphore(maxInFlight);
+        this.asyncClients = new ConcurrentLinkedQueue<>();
+        this.maxInFlight = maxInFlight;
+        this.asyncExecutor = asyncExecutor;
     }
 
     public ByteBuffer get(final GnomeString path) {
+        return get(client(), path);
+    }
+
+    private ByteBuffer get(final RetryableHTTPClient httpClient, final GnomeString path) {
+        final EndpointMetrics.Endpoint endpoint = this.endpointMetrics.forPath(path);
+        final long start = System.nanoTime();
         try {
             final HTTPResponse response =
                     httpClient.get(HTTPProtocol.HTTPS, this.url, path, API_KEY_HEADER, this.apiKey);
             if (response.isSuccess()) {
-                return response.getBody();
+                final ByteBuffer body = response.getBody();
+                endpoint.recordSuccess(System.nanoTime() - start, body.remaining());
+                return body;
             }
+            endpoint.recordError(System.nanoTime() - start);
             throw new RuntimeException("Unable to request the registry. Status code: " + response.getStatusCode());
         } catch (IOException e) {
+            endpoint.recordError(System.nanoTime() - start);
             throw new RuntimeException(e);
         }
     }
 
     public void post(final GnomeString path, final byte[] body, final int length) {
+        post(client(), path, body, length);
+    }
+
+    private void post(
+            final RetryableHTTPClient httpClient, final GnomeString path, final byte[] body, final int length) {
+        final EndpointMetrics.Endpoint endpoint = this.endpointMetrics.forPath(path);
+        final long start = System.nanoTime();
         try {
             final HTTPResponse response = httpClient.post(
                     HTTPProtocol.HTTPS,
@@ -47,11 +111,114 @@ public final class RegistryConnection {
                     "Content-Type",
                     "application/json");
             if (response.isSuccess()) {
+                endpoint.recordSuccess(System.nanoTime() - start, 0);
                 return;
             }
+            endpoint.recordError(System.nanoTime() - start);
             throw new RuntimeException("Unable to post to the registry. Status code: " + response.getStatusCode());
         } catch (IOException e) {
+            endpoint.recordError(System.nanoTime() - start);
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Issues the GET without blocking the caller. The path is copied, so the caller may reuse it immediately.
+     * The future completes with a heap copy of the response body.
+     */
+    public CompletableFuture<ByteBuffer> getAsync(final GnomeString path) {
+        final ExpandingMutableString pathCopy = new ExpandingMutableString();
+        pathCopy.copy(path);
+        return supplyAsync(() -> {
+            final ByteBuffer body = get(pathCopy);
+            final ByteBuffer copy = ByteBuffer.allocate(body.remaining());
+            copy.put(body).flip();
+            return copy;
+        });
+    }
+
+    /**
+     * Issues the POST without blocking the caller. The path and body are copied, so the caller may reuse them
+     * immediately.
+     */
+    public CompletableFuture<Void> postAsync(final GnomeString path, final byte[] body, final int length) {
+        final ExpandingMutableString pathCopy = new ExpandingMutableString();
+        pathCopy.copy(path);
+        final byte[] bodyCopy = Arrays.copyOf(body, length);
+        return supplyAsync(() -> {
+            post(pathCopy, bodyCopy, length);
+            return null;
+        });
+    }
+
+    /**
+     * Runs blocking registry work on the async executor with a client borrowed from the pool: every {@link #get} and
+     * {@link #post} the task makes goes through that client, and at most {@code maxInFlight} tasks hold one at once.
+     */
+    <T> CompletableFuture<T> supplyAsync(final Supplier<T> work) {
+        return CompletableFuture.supplyAsync(
+                () -> {
+                    final RetryableHTTPClient httpClient = acquireAsyncClient();
+                    this.borrowedClients.set(httpClient);
+                    try {
+                        return work.get();
+                    } finally {
+                        this.borrowedClients.remove();
+                        releaseAsyncClient(httpClient);
+                    }
+                },
+                asyncExecutor());
+    }
+
+    @Override
+    public void sampleMetrics(final MetricsSink sink) {
+        this.endpointMetrics.sample(sink);
+    }
+
+    /**
+     * @return the executor backing the async API. Blocking registry calls made by tasks submitted to it directly use
+     *     per-thread clients; package code schedules them through {@link #supplyAsync(Supplier)} instead
+     */
+    public Executor asyncExecutor() {
+        Executor executor = this.asyncExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = this.asyncExecutor;
+                if (executor == null) {
+                    executor = createDefaultExecutor(this.maxInFlight);
+                    this.asyncExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    private RetryableHTTPClient client() {
+        final RetryableHTTPClient borrowed = this.borrowedClients.get();
+        return borrowed != null ? borrowed : this.httpClients.get();
+    }
+
+    /**
+     * Blocks until fewer than {@code maxInFlight} async requests are running, then borrows an idle client. At most
+     * {@code maxInFlight} clients are ever created, however many threads the executor runs tasks on.
+     */
+    private RetryableHTTPClient acquireAsyncClient() {
+        this.inFlight.acquireUninterruptibly();
+        final RetryableHTTPClient httpClient = this.asyncClients.poll();
+        return httpClient != null ? httpClient : new RetryableHTTPClient();
+    }
+
+    private void releaseAsyncClient(final RetryableHTTPClient httpClient) {
+        this.asyncClients.offer(httpClient);
+        this.inFlight.release();
+    }
+
+    private static Executor createDefaultExecutor(final int threads) {
+        final AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "registry-async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 }
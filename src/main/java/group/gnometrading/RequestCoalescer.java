@@ -0,0 +1,117 @@
+package group.gnometrading;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Groups single-id loads arriving within a short window into one batched load, dataloader style. The first caller
+ * opens a batch and waits out the window; callers arriving meanwhile join it and block until the first caller has
+ * run the batch loader over every id collected. A batch that fills up is run without waiting out the window.
+ * The batch state is guarded by a {@link ReentrantLock}, so callers on virtual threads never pin their carrier.
+ *
+ * @param <T> the loaded value; the batch loader returns one per id, aligned with its input
+ */
+final class RequestCoalescer<T> {
+
+    private final Function<int[], T[]> batchLoader;
+    private final long windowNanos;
+    private final int maxBatchSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Batch<T> open; // guarded by lock
+
+    RequestCoalescer(final Function<int[], T[]> batchLoader, final long windowNanos, final int maxBatchSize) {
+        this.batchLoader = batchLoader;
+        this.windowNanos = windowNanos;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    T load(final int id) {
+        final Batch<T> batch;
+        final int index;
+        final boolean leader;
+        this.lock.lock();
+        try {
+            leader = this.open == null;
+            if (leader) {
+                this.open = new Batch<>(Thread.currentThread(), this.maxBatchSize);
+            }
+            batch = this.open;
+            index = batch.size;
+            batch.ids[batch.size++] = id;
+            if (batch.size == this.maxBatchSize) {
+                this.open = null;
+                if (!leader) {
+                    LockSupport.unpark(batch.leader);
+                }
+            }
+        } finally {
+            this.lock.unlock();
+        }
+
+        if (leader) {
+            awaitWindow(batch);
+            try {
+                batch.values.complete(this.batchLoader.apply(Arrays.copyOf(batch.ids, batch.size)));
+            } catch (RuntimeException e) {
+                batch.values.completeExceptionally(e);
+            }
+        }
+
+        try {
+            return batch.values.join()[index];
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+    }
+
+    /**
+     * Parks until the window elapses or a joining caller fills the batch, then closes it to further callers.
+     */
+    private void awaitWindow(final Batch<T> batch) {
+        final long deadline = System.nanoTime() + this.windowNanos;
+        long remaining = this.windowNanos;
+        while (remaining > 0) {
+            if (!isOpen(batch)) {
+                return;
+            }
+            LockSupport.parkNanos(this, remaining);
+            remaining = deadline - System.nanoTime();
+        }
+        this.lock.lock();
+        try {
+            if (this.open == batch) {
+                this.open = null;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private boolean isOpen(final Batch<T> batch) {
+        this.lock.lock();
+        try {
+            return this.open == batch;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private static final class Batch<T> {
+        private final Thread leader;
+        private final int[] ids;
+        private final CompletableFuture<T[]> values;
+        private int size;
+
+        private Batch(final Thread leader, final int capacity) {
+            this.leader = leader;
+            this.ids = new int[capacity];
+            this.values = new CompletableFuture<>();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package group.gnometrading;
+
+import group.gnometrading.sm.Security;
+
+/**
+ * A security added or updated by {@link SecurityMaster#refreshChanges()}. The same instance is reused for every
+ * notification, so listeners must copy anything they need beyond the callback.
+ */
+public final class SecurityChange {
+
+    private Security previous;
+    private Security current;
+
+    SecurityChange() {}
+
+    void set(final Security previous, final Security current) {
+        this.previous = previous;
+        this.current = current;
+    }
+
+    /**
+     * @return the security as cached before the refresh, or null if it was not cached
+     */
+    public Security previous() {
+        return this.previous;
+    }
+
+    public Security current() {
+        return this.current;
+    }
+
+    public boolean activated() {
+        return this.current.active() && (this.previous == null || !this.previous.active());
+    }
+
+    /**
+     * @return true only if a cached active row went inactive; a row first seen inactive was never active here
+     */
+    public boolean deactivated() {
+        return !this.current.active() && this.previous != null && this.previous.active();
+    }
+}
@@ -1,31 +1,50 @@
 package group.gnometrading;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import group.gnometrading.collections.IntHashMap;
 import group.gnometrading.collections.IntMap;
+import group.gnometrading.metrics.Counter;
+import group.gnometrading.metrics.MetricsSink;
+import group.gnometrading.metrics.MetricsSource;
 import group.gnometrading.sm.AssetClass;
 import group.gnometrading.sm.ContractRelationship;
+import group.gnometrading.sm.ContractRelationshipGraph;
 import group.gnometrading.sm.ContractType;
 import group.gnometrading.sm.Event;
 import group.gnometrading.sm.EventContract;
+import group.gnometrading.sm.EventIndex;
 import group.gnometrading.sm.Exchange;
+import group.gnometrading.sm.ExchangeEvent;
 import group.gnometrading.sm.Listing;
+import group.gnometrading.sm.ListingKeyIndex;
 import group.gnometrading.sm.ListingSpec;
+import group.gnometrading.sm.ListingSpecTable;
+import group.gnometrading.sm.NativeSymbolIndex;
 import group.gnometrading.sm.Security;
 import group.gnometrading.sm.SecurityType;
 import group.gnometrading.strings.ExpandingMutableString;
+import group.gnometrading.strings.GnomeString;
 import group.gnometrading.strings.MutableString;
-import java.io.IOException;
+import java.net.URLEncoder;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
 
 /**
  * SecurityMaster is an abstraction for the database security master layer.
- * These class will produce garbage when fetching from the API.
+ * Responses are decoded in place from the connection's buffer; fetching from the API still produces garbage
+ * for the records themselves.
+ *
+ * <p>Cache hits, negative hits and misses, time spent decoding pages and the age of the last full or delta sync are
+ * recorded without allocating and can be sampled from another thread via {@link #sampleMetrics}.
  */
-public final class SecurityMaster {
+public final class SecurityMaster implements MetricsSource {
 
     private static final String SECURITY_ENDPOINT = "/api/securities?";
     private static final String EXCHANGE_ENDPOINT = "/api/exchanges?";
@@ -34,16 +53,41 @@ public final class SecurityMaster {
     private static final String EVENT_ENDPOINT = "/api/events?";
     private static final String EVENT_CONTRACT_ENDPOINT = "/api/event-contracts?";
     private static final String CONTRACT_RELATIONSHIP_ENDPOINT = "/api/contract-relationships?";
+    private static final String EXCHANGE_EVENT_ENDPOINT = "/api/exchange-events?";
 
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
-            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
-            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    static final int PAGE_SIZE = 5000;
+    static final int MAX_BATCH_IDS = 200;
+    // Rows whose transactions commit out of date_modified order can land just behind the watermark.
+    static final long MODIFIED_OVERLAP_MILLIS = 1_000L;
+    static final long DEFAULT_LISTING_SPEC_REFRESH_MILLIS = 60_000L;
+
+    private static final ContractRelationship[] EMPTY_CONTRACT_RELATIONSHIPS = new ContractRelationship[0];
+
+    static final String CACHE_HITS_METRIC = "security_master.cache_hits";
+    static final String CACHE_NEGATIVE_HITS_METRIC = "security_master.cache_negative_hits";
+    static final String CACHE_MISSES_METRIC = "security_master.cache_misses";
+    static final String PARSE_NANOS_METRIC = "security_master.parse_nanos";
+    static final String ROWS_LOADED_METRIC = "security_master.rows_loaded";
+    static final String STALENESS_METRIC = "security_master.staleness_millis";
 
     @JsonIgnoreProperties(ignoreUnknown = true)
-    private record ListingResponse(
-            int listingId, int exchangeId, int securityId, String exchangeSecurityId, String exchangeSecuritySymbol) {}
+    record ListingResponse(
+            int listingId,
+            int exchangeId,
+            int securityId,
+            String exchangeSecurityId,
+            String exchangeSecuritySymbol,
+            Boolean active) {
+
+        /**
+         * Listings are active unless the registry says otherwise.
+         */
+        boolean isActive() {
+            return this.active == null || this.active;
+        }
+    }
 
-    private static final Security EMPTY_SECURITY = new Security(
+    static final Security EMPTY_SECURITY = new Security(
             -1,
             null,
             SecurityType.SPOT,
@@ -58,12 +102,13 @@ public final class SecurityMaster {
             0L,
             false,
             0);
-    private static final Exchange EMPTY_EXCHANGE = new Exchange(-1, null, null, null);
-    private static final ListingSpec EMPTY_LISTING_SPEC = new ListingSpec(-1, -1, -1, -1, 0L);
-    private static final Event EMPTY_EVENT = new Event(-1, null, null, null, false, 0L, 0L);
-    private static final EventContract EMPTY_EVENT_CONTRACT = new EventContract(-1, -1, -1, null);
+    static final Exchange EMPTY_EXCHANGE = new Exchange(-1, null, null, null);
+    static final ListingSpec EMPTY_LISTING_SPEC = new ListingSpec(-1, -1, -1, -1, 0L, 0L, 0L);
+    static final Event EMPTY_EVENT = new Event(-1, null, null, null, false, 0L, 0L);
+    static final EventContract EMPTY_EVENT_CONTRACT = new EventContract(-1, -1, -1, null);
 
     private final RegistryConnection registryConnection;
+    private final SecurityMasterDecoder decoder;
 
     private final MutableString securityPath;
     private final MutableString exchangePath;
@@ -72,6 +117,7 @@ public final class SecurityMaster {
     private final MutableString eventPath;
     private final MutableString eventContractPath;
     private final MutableString contractRelationshipPath;
+    private final MutableString exchangeEventPath;
 
     private final IntMap<Security> securityCache;
     private final IntMap<Exchange> exchangeCache;
@@ -79,11 +125,65 @@ public final class SecurityMaster {
     private final IntMap<ListingSpec> listingSpecCache;
     private final IntMap<Event> eventCache;
     private final IntMap<EventContract> eventContractBySecurityCache;
+    private final IntMap<ContractRelationship[]> contractRelationshipCache;
+    private final ListingKeyIndex listingKeyIndex;
+    private final NativeSymbolIndex exchangeSecurityIdIndex;
+    private final NativeSymbolIndex exchangeSecuritySymbolIndex;
+    private final ListingSpecTable listingSpecTable;
+
+    private final ToIntFunction<ByteBuffer> securityPage;
+    private final ToIntFunction<ByteBuffer> exchangePage;
+    private final ToIntFunction<ByteBuffer> listingPage;
+    private final ToIntFunction<ByteBuffer> listingSpecPage;
+    private final ToIntFunction<ByteBuffer> listingSpecChangePage;
+    private final ToIntFunction<ByteBuffer> eventChangePage;
+    private final ToIntFunction<ByteBuffer> securityBatch;
+    private final ToIntFunction<ByteBuffer> listingBatch;
+    private final ToIntFunction<ByteBuffer> listingSpecBatch;
+    private final List<Consumer<SecurityChange>> securityListeners;
+    private final List<Consumer<ListingChange>> listingListeners;
+    private final List<Consumer<EventResolution>> eventResolvedListeners;
+    private final SecurityChange securityChange;
+    private final ListingChange listingChange;
+    private final EventResolution eventResolution;
+    private final List<ListingResponse> pendingListings;
+    private final List<ContractRelationship> contractRelationships;
 
     private ContractRelationship[] allContractRelationships;
+    private ContractRelationshipGraph contractRelationshipGraph;
+    private EventIndex eventIndex = EventIndex.empty();
+    private CacheJournal journal;
+    private long exchangesModified;
+    private long securitiesModified;
+    private long listingsModified;
+    private long eventsModified;
+    private boolean eventsCached;
+    private boolean notifyChanges;
+    private int changedRows; // rows a refresh found different from the cache
+    private final long listingSpecRefreshMillis;
+    private long listingSpecVersion;
+    private long lastListingSpecPoll;
+    private int listingSpecChanges;
+
+    private final Counter cacheHits = new Counter();
+    private final Counter cacheNegativeHits = new Counter();
+    private final Counter cacheMisses = new Counter();
+    private final Counter parseNanos = new Counter();
+    private final Counter rowsLoaded = new Counter();
+    private volatile long lastSyncMillis;
 
     public SecurityMaster(final RegistryConnection registryConnection) {
+        this(registryConnection, DEFAULT_LISTING_SPEC_REFRESH_MILLIS);
+    }
+
+    /**
+     * @param listingSpecRefreshMillis minimum interval between the spec version probes issued by
+     *     {@link #pollListingSpecs(long)}
+     */
+    public SecurityMaster(final RegistryConnection registryConnection, final long listingSpecRefreshMillis) {
         this.registryConnection = registryConnection;
+        this.listingSpecRefreshMillis = listingSpecRefreshMillis;
+        this.decoder = new SecurityMasterDecoder();
 
         this.securityPath = new ExpandingMutableString(SECURITY_ENDPOINT);
         this.exchangePath = new ExpandingMutableString(EXCHANGE_ENDPOINT);
@@ -92,6 +192,7 @@ public final class SecurityMaster {
         this.eventPath = new ExpandingMutableString(EVENT_ENDPOINT);
         this.eventContractPath = new ExpandingMutableString(EVENT_CONTRACT_ENDPOINT);
         this.contractRelationshipPath = new ExpandingMutableString(CONTRACT_RELATIONSHIP_ENDPOINT);
+        this.exchangeEventPath = new ExpandingMutableString(EXCHANGE_EVENT_ENDPOINT);
 
         this.securityCache = new IntHashMap<>();
         this.exchangeCache = new IntHashMap<>();
@@ -99,156 +200,453 @@ public final class SecurityMaster {
         this.listingSpecCache = new IntHashMap<>();
         this.eventCache = new IntHashMap<>();
         this.eventContractBySecurityCache = new IntHashMap<>();
+        this.contractRelationshipCache = new IntHashMap<>();
+        this.listingKeyIndex = new ListingKeyIndex();
+        this.exchangeSecurityIdIndex = new NativeSymbolIndex();
+        this.exchangeSecuritySymbolIndex = new NativeSymbolIndex();
+        this.listingSpecTable = new ListingSpecTable();
+
+        this.securityPage = this::decodeSecurityPage;
+        this.exchangePage = this::decodeExchangePage;
+        this.listingPage = this::decodeListingPage;
+        this.listingSpecPage = this::decodeListingSpecPage;
+        this.listingSpecChangePage = this::decodeListingSpecChangePage;
+        this.eventChangePage = this::decodeEventChangePage;
+        this.securityBatch = this::decodeSecurityBatch;
+        this.listingBatch = this::decodeListingBatch;
+        this.listingSpecBatch = this::decodeListingSpecBatch;
+        this.securityListeners = new ArrayList<>();
+        this.listingListeners = new ArrayList<>();
+        this.eventResolvedListeners = new ArrayList<>();
+        this.securityChange = new SecurityChange();
+        this.listingChange = new ListingChange();
+        this.eventResolution = new EventResolution();
+        this.pendingListings = new ArrayList<>();
+        this.contractRelationships = new ArrayList<>();
+    }
+
+    /**
+     * Pages through every exchange, security, listing and listing spec in the registry and populates
+     * the caches in one pass, so subsequent lookups are served from memory.
+     */
+    public void preload() {
+        loadPages(this.exchangePath, null, 0, this.exchangePage);
+        loadPages(this.securityPath, null, 0, this.securityPage);
+        loadPages(this.listingPath, null, 0, this.listingPage);
+        loadPages(this.listingSpecPath, null, 0, this.listingSpecPage);
+        this.lastSyncMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Same as {@link #preload()} but restricted to the listings on the given exchanges and the
+     * securities and listing specs they reference.
+     */
+    public void preloadExchanges(final int... exchangeIds) {
+        for (int exchangeId : exchangeIds) {
+            getExchange(exchangeId);
+            loadPages(this.securityPath, "exchangeId", exchangeId, this.securityPage);
+            loadPages(this.listingPath, "exchangeId", exchangeId, this.listingPage);
+            loadPages(this.listingSpecPath, "exchangeId", exchangeId, this.listingSpecPage);
+        }
+        this.lastSyncMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Pulls only the exchanges, securities and listings modified since the last preload or refresh and patches
+     * the caches in place, so a long-running process stays current for the cost of the changed rows. Cached
+     * listings are relinked when the exchange or security they reference changed. Cached events are refreshed
+     * the same way. Rows deleted from the registry are not detected, and contract relationships are not reloaded.
+     * Without a prior preload the first call loads everything. Rows re-sent unchanged, e.g. by the overlap window,
+     * are skipped.
+     *
+     * <p>Registered change listeners are called from here, on the calling thread.
+     *
+     * @return the number of rows that differed from the cached ones
+     */
+    public int refreshChanges() {
+        this.notifyChanges = true;
+        this.changedRows = 0;
+        try {
+            loadChanges(this.exchangePath, this.exchangesModified, this.exchangePage);
+            loadChanges(this.securityPath, this.securitiesModified, this.securityPage);
+            loadChanges(this.listingPath, this.listingsModified, this.listingPage);
+            if (this.changedRows > 0) {
+                relinkListings();
+            }
+            if (this.eventsCached) {
+                loadChanges(this.eventPath, this.eventsModified, this.eventChangePage);
+            }
+            this.lastSyncMillis = System.currentTimeMillis();
+            return this.changedRows;
+        } finally {
+            this.notifyChanges = false;
+        }
+    }
+
+    /**
+     * Registers a listener for securities added or updated by {@link #refreshChanges()}, e.g. to react to
+     * {@link SecurityChange#deactivated()}. The change object is reused between calls.
+     */
+    public void onSecurityChanged(final Consumer<SecurityChange> listener) {
+        this.securityListeners.add(listener);
+    }
+
+    /**
+     * Registers a listener for listings added or updated by {@link #refreshChanges()}. Listings only relinked to
+     * a changed exchange or security are not reported. The change object is reused between calls.
+     */
+    public void onListingChanged(final Consumer<ListingChange> listener) {
+        this.listingListeners.add(listener);
+    }
+
+    /**
+     * Registers a listener for cached events that {@link #refreshChanges()} sees resolve. The resolution object
+     * is reused between calls.
+     */
+    public void onEventResolved(final Consumer<EventResolution> listener) {
+        this.eventResolvedListeners.add(listener);
+    }
+
+    /**
+     * Calls {@link #refreshListingSpecs()} if the configured refresh interval has elapsed since the last poll.
+     * Meant to be driven from a housekeeping loop; does nothing and does not allocate when not due.
+     *
+     * @return the number of cached specs replaced
+     */
+    public int pollListingSpecs(final long nowMillis) {
+        if (nowMillis - this.lastListingSpecPoll < this.listingSpecRefreshMillis) {
+            return 0;
+        }
+        this.lastListingSpecPoll = nowMillis;
+        return refreshListingSpecs();
+    }
+
+    /**
+     * Probes the registry for the newest spec version and, only if it moved past the versions already loaded,
+     * fetches the latest spec of each changed listing. Specs that are cached (including cached misses) are
+     * swapped in whole, in the cache and in the {@link ListingSpecTable}; other listings are left to be
+     * fetched on demand.
+     *
+     * @return the number of cached specs replaced
+     */
+    public int refreshListingSpecs() {
+        final int originalLength = this.listingSpecPath.length();
+        this.listingSpecPath.appendString("latest=true");
+        final ByteBuffer response = this.registryConnection.get(this.listingSpecPath);
+        this.listingSpecPath.setLength(originalLength);
+
+        final ListingSpec latest = this.decoder.firstListingSpec(response);
+        if (latest == null || latest.version() <= this.listingSpecVersion) {
+            return 0;
+        }
+        this.listingSpecChanges = 0;
+        loadPages(this.listingSpecPath, "afterVersion", this.listingSpecVersion, this.listingSpecChangePage);
+        return this.listingSpecChanges;
+    }
+
+    /**
+     * Persists the cached exchanges, securities, listings and listing specs to a versioned binary file
+     * that {@link #loadSnapshot(Path)} can map back in at the next start.
+     */
+    public void writeSnapshot(final Path path) {
+        final List<Exchange> exchanges = new ArrayList<>();
+        for (int exchangeId : this.exchangeCache.keys()) {
+            final Exchange exchange = this.exchangeCache.get(exchangeId);
+            if (exchange != EMPTY_EXCHANGE) {
+                exchanges.add(exchange);
+            }
+        }
+        final List<Security> securities = new ArrayList<>();
+        for (int securityId : this.securityCache.keys()) {
+            final Security security = this.securityCache.get(securityId);
+            if (security != EMPTY_SECURITY) {
+                securities.add(security);
+            }
+        }
+        final List<Listing> listings = new ArrayList<>();
+        for (int listingId : this.listingCache.keys()) {
+            final Listing listing = this.listingCache.get(listingId);
+            if (listing != null && listing.exchange() != null && listing.security() != null) {
+                listings.add(listing);
+            }
+        }
+        final List<ListingSpec> listingSpecs = new ArrayList<>();
+        for (int listingId : this.listingSpecCache.keys()) {
+            final ListingSpec listingSpec = this.listingSpecCache.get(listingId);
+            if (listingSpec != EMPTY_LISTING_SPEC) {
+                listingSpecs.add(listingSpec);
+            }
+        }
+        SecurityMasterSnapshot.write(path, exchanges, securities, listings, listingSpecs);
+    }
+
+    /**
+     * Populates the caches from a file written by {@link #writeSnapshot(Path)} without touching the registry.
+     * Entries may be stale; reconcile with {@link #preload()} once the process is up. Reconciling updates and adds
+     * entries but does not drop those deleted from the registry since the file was written, which stay cached.
+     *
+     * @return false if the file is missing, truncated, corrupt or was written with an incompatible layout, in
+     *     which case nothing is loaded
+     */
+    public boolean loadSnapshot(final Path path) {
+        return SecurityMasterSnapshot.read(
+                path, this::cacheExchange, this::cacheSecurity, this::cacheListing, this::cacheListingSpec);
     }
 
     public Security getSecurity(final int securityId) {
         if (this.securityCache.containsKey(securityId)) {
             final Security cached = this.securityCache.get(securityId);
-            return cached == EMPTY_SECURITY ? null : cached;
+            return cached == EMPTY_SECURITY ? negativeHit() : hit(cached);
         }
+        this.cacheMisses.increment();
 
         final int originalLength = addParameters(this.securityPath, "securityId", securityId);
         final ByteBuffer response = this.registryConnection.get(this.securityPath);
         this.securityPath.setLength(originalLength);
 
-        try {
-            final Security[] result = OBJECT_MAPPER.readValue(toByteArray(response), Security[].class);
-            if (result.length == 0) {
-                this.securityCache.put(securityId, EMPTY_SECURITY);
-                return null;
-            }
-            this.securityCache.put(securityId, result[0]);
-            return this.securityCache.get(securityId);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        final Security result = this.decoder.firstSecurity(response);
+        if (result == null) {
+            put(this.securityCache, CacheJournal.SECURITY, securityId, EMPTY_SECURITY);
+            return null;
+        }
+        put(this.securityCache, CacheJournal.SECURITY, securityId, result);
+        return result;
+    }
+
+    /**
+     * Resolves many securities at once, fetching the ones not cached yet in batched {@code securityIds=}
+     * requests of up to {@link #MAX_BATCH_IDS} ids rather than one request each.
+     *
+     * @return the securities in the order of {@code securityIds}, null for ids the registry does not know
+     */
+    public Security[] getSecurities(final int[] securityIds) {
+        final int[] misses = collectMisses(securityIds, this.securityCache, EMPTY_SECURITY);
+        if (misses.length > 0) {
+            loadBatches(this.securityPath, "securityId", "securityIds", misses, this.securityBatch);
+            cacheNotFound(misses, this.securityCache, CacheJournal.SECURITY, EMPTY_SECURITY);
         }
+        return resolve(securityIds, this.securityCache, EMPTY_SECURITY, new Security[securityIds.length]);
     }
 
     public Exchange getExchange(final int exchangeId) {
         if (this.exchangeCache.containsKey(exchangeId)) {
             final Exchange cached = this.exchangeCache.get(exchangeId);
-            return cached == EMPTY_EXCHANGE ? null : cached;
+            return cached == EMPTY_EXCHANGE ? negativeHit() : hit(cached);
         }
+        this.cacheMisses.increment();
 
         final int originalLength = addParameters(this.exchangePath, "exchangeId", exchangeId);
         final ByteBuffer response = this.registryConnection.get(this.exchangePath);
         this.exchangePath.setLength(originalLength);
 
-        try {
-            final Exchange[] result = OBJECT_MAPPER.readValue(toByteArray(response), Exchange[].class);
-            if (result.length == 0) {
-                this.exchangeCache.put(exchangeId, EMPTY_EXCHANGE);
-                return null;
-            }
-            this.exchangeCache.put(exchangeId, result[0]);
-            return this.exchangeCache.get(exchangeId);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        final Exchange result = this.decoder.firstExchange(response);
+        if (result == null) {
+            put(this.exchangeCache, CacheJournal.EXCHANGE, exchangeId, EMPTY_EXCHANGE);
+            return null;
         }
+        put(this.exchangeCache, CacheJournal.EXCHANGE, exchangeId, result);
+        return result;
     }
 
     public Listing getListing(final int exchangeId, final int securityId) {
-        for (int listingId : this.listingCache.keys()) {
-            final Listing listing = this.listingCache.get(listingId);
-            if (listing.exchange().exchangeId() == exchangeId
-                    && listing.security().securityId() == securityId) {
-                return listing;
-            }
+        final int cachedListingId = this.listingKeyIndex.get(exchangeId, securityId);
+        if (cachedListingId == ListingKeyIndex.NOT_FOUND) {
+            return negativeHit();
         }
+        if (cachedListingId != ListingKeyIndex.MISSING) {
+            return getListing(cachedListingId);
+        }
+        this.cacheMisses.increment();
 
         final int originalLength = addParameters(this.listingPath, "exchangeId", exchangeId, "securityId", securityId);
         final ByteBuffer response = this.registryConnection.get(this.listingPath);
         this.listingPath.setLength(originalLength);
 
         final Listing listing = parseListing(response);
-        if (listing != null) {
-            this.listingCache.put(listing.listingId(), listing);
+        if (listing == null) {
+            putListingKeyNotFound(exchangeId, securityId);
+            return null;
         }
+        cacheListing(listing);
         return listing;
     }
 
     public Listing getListing(final int listingId) {
         if (this.listingCache.containsKey(listingId)) {
-            return this.listingCache.get(listingId);
+            final Listing cached = this.listingCache.get(listingId);
+            return cached == null ? negativeHit() : hit(cached);
         }
+        this.cacheMisses.increment();
 
         final int originalLength = addParameters(this.listingPath, "listingId", listingId);
         final ByteBuffer response = this.registryConnection.get(this.listingPath);
         this.listingPath.setLength(originalLength);
 
-        this.listingCache.put(listingId, parseListing(response));
-        return this.listingCache.get(listingId);
+        final Listing listing = parseListing(response);
+        if (listing == null) {
+            put(this.listingCache, CacheJournal.LISTING, listingId, null);
+            return null;
+        }
+        cacheListing(listing);
+        return listing;
+    }
+
+    /**
+     * Resolves many listings at once in batched {@code listingIds=} requests. The securities of every batch are
+     * fetched together as well, instead of one request per listing.
+     *
+     * @return the listings in the order of {@code listingIds}, null for ids the registry does not know
+     * @see #getSecurities(int[])
+     */
+    public Listing[] getListings(final int[] listingIds) {
+        final int[] misses = collectMisses(listingIds, this.listingCache, null);
+        if (misses.length > 0) {
+            loadBatches(this.listingPath, "listingId", "listingIds", misses, this.listingBatch);
+            cacheNotFound(misses, this.listingCache, CacheJournal.LISTING, null);
+        }
+        return resolve(listingIds, this.listingCache, null, new Listing[listingIds.length]);
+    }
+
+    /**
+     * Resolves a listing from the exchange-native security id, e.g. as received on a market data feed.
+     * Cache hits hash the identifier in place and do not allocate.
+     */
+    public Listing getListingByExchangeSecurityId(final int exchangeId, final CharSequence exchangeSecurityId) {
+        final int listingId = this.exchangeSecurityIdIndex.get(exchangeId, exchangeSecurityId);
+        if (listingId != ListingKeyIndex.MISSING) {
+            return listingId == ListingKeyIndex.NOT_FOUND ? negativeHit() : getListing(listingId);
+        }
+        return fetchListingByNativeKey(
+                exchangeId, "exchangeSecurityId", exchangeSecurityId.toString(), this.exchangeSecurityIdIndex);
+    }
+
+    public Listing getListingByExchangeSecurityId(final int exchangeId, final GnomeString exchangeSecurityId) {
+        final int listingId = this.exchangeSecurityIdIndex.get(exchangeId, exchangeSecurityId);
+        if (listingId != ListingKeyIndex.MISSING) {
+            return listingId == ListingKeyIndex.NOT_FOUND ? negativeHit() : getListing(listingId);
+        }
+        return fetchListingByNativeKey(
+                exchangeId, "exchangeSecurityId", exchangeSecurityId.toString(), this.exchangeSecurityIdIndex);
+    }
+
+    /**
+     * Resolves a listing from the exchange-native symbol. Cache hits hash the symbol in place and do not allocate.
+     */
+    public Listing getListingByExchangeSecuritySymbol(
+            final int exchangeId, final CharSequence exchangeSecuritySymbol) {
+        final int listingId = this.exchangeSecuritySymbolIndex.get(exchangeId, exchangeSecuritySymbol);
+        if (listingId != ListingKeyIndex.MISSING) {
+            return listingId == ListingKeyIndex.NOT_FOUND ? negativeHit() : getListing(listingId);
+        }
+        return fetchListingByNativeKey(
+                exchangeId,
+                "exchangeSecuritySymbol",
+                exchangeSecuritySymbol.toString(),
+                this.exchangeSecuritySymbolIndex);
+    }
+
+    public Listing getListingByExchangeSecuritySymbol(final int exchangeId, final GnomeString exchangeSecuritySymbol) {
+        final int listingId = this.exchangeSecuritySymbolIndex.get(exchangeId, exchangeSecuritySymbol);
+        if (listingId != ListingKeyIndex.MISSING) {
+            return listingId == ListingKeyIndex.NOT_FOUND ? negativeHit() : getListing(listingId);
+        }
+        return fetchListingByNativeKey(
+                exchangeId,
+                "exchangeSecuritySymbol",
+                exchangeSecuritySymbol.toString(),
+                this.exchangeSecuritySymbolIndex);
     }
 
     public ListingSpec getListingSpec(final int listingId) {
         if (this.listingSpecCache.containsKey(listingId)) {
             final ListingSpec cached = this.listingSpecCache.get(listingId);
-            return cached == EMPTY_LISTING_SPEC ? null : cached;
+            return cached == EMPTY_LISTING_SPEC ? negativeHit() : hit(cached);
         }
+        this.cacheMisses.increment();
 
         final int originalLength = addParameters(this.listingSpecPath, "listingId", listingId);
         final ByteBuffer response = this.registryConnection.get(this.listingSpecPath);
         this.listingSpecPath.setLength(originalLength);
 
-        try {
-            final ListingSpec[] result = OBJECT_MAPPER.readValue(toByteArray(response), ListingSpec[].class);
-            if (result.length == 0) {
-                this.listingSpecCache.put(listingId, EMPTY_LISTING_SPEC);
-                return null;
-            }
-            this.listingSpecCache.put(listingId, result[0]);
-            return this.listingSpecCache.get(listingId);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        final ListingSpec result = this.decoder.firstListingSpec(response);
+        if (result == null) {
+            put(this.listingSpecCache, CacheJournal.LISTING_SPEC, listingId, EMPTY_LISTING_SPEC);
+            return null;
         }
+        cacheListingSpec(result);
+        return result;
+    }
+
+    /**
+     * Resolves the specs of many listings at once in batched {@code listingIds=} requests.
+     *
+     * @return the specs in the order of {@code listingIds}, null for listings without one
+     */
+    public ListingSpec[] getListingSpecs(final int[] listingIds) {
+        final int[] misses = collectMisses(listingIds, this.listingSpecCache, EMPTY_LISTING_SPEC);
+        if (misses.length > 0) {
+            loadBatches(this.listingSpecPath, "listingId", "listingIds", misses, this.listingSpecBatch);
+            cacheNotFound(misses, this.listingSpecCache, CacheJournal.LISTING_SPEC, EMPTY_LISTING_SPEC);
+        }
+        return resolve(listingIds, this.listingSpecCache, EMPTY_LISTING_SPEC, new ListingSpec[listingIds.length]);
+    }
+
+    /**
+     * Primitive, allocation-free view of every listing spec loaded so far, for reading tick size, lot size,
+     * min notional and contract multiplier on the order path. Kept in step with {@link #getListingSpec(int)}.
+     */
+    public ListingSpecTable getListingSpecTable() {
+        return this.listingSpecTable;
     }
 
     public Event getEvent(final int eventId) {
         if (this.eventCache.containsKey(eventId)) {
             final Event cached = this.eventCache.get(eventId);
-            return cached == EMPTY_EVENT ? null : cached;
+            return cached == EMPTY_EVENT ? negativeHit() : hit(cached);
         }
+        this.cacheMisses.increment();
 
         final int originalLength = addParameters(this.eventPath, "eventId", eventId);
         final ByteBuffer response = this.registryConnection.get(this.eventPath);
         this.eventPath.setLength(originalLength);
 
-        try {
-            final Event[] result = OBJECT_MAPPER.readValue(toByteArray(response), Event[].class);
-            if (result.length == 0) {
-                this.eventCache.put(eventId, EMPTY_EVENT);
-                return null;
-            }
-            this.eventCache.put(eventId, result[0]);
-            return this.eventCache.get(eventId);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        final Event result = this.decoder.firstEvent(response);
+        // seed the change watermark from this row so the first refresh does not page every event since epoch
+        this.eventsModified = Math.max(this.eventsModified, this.decoder.getLatestModified());
+        this.eventsCached = true;
+        if (result == null) {
+            put(this.eventCache, CacheJournal.EVENT, eventId, EMPTY_EVENT);
+            return null;
         }
+        put(this.eventCache, CacheJournal.EVENT, eventId, result);
+        return result;
     }
 
     public EventContract getEventContractBySecurity(final int securityId) {
         if (this.eventContractBySecurityCache.containsKey(securityId)) {
             final EventContract cached = this.eventContractBySecurityCache.get(securityId);
-            return cached == EMPTY_EVENT_CONTRACT ? null : cached;
+            return cached == EMPTY_EVENT_CONTRACT ? negativeHit() : hit(cached);
         }
+        this.cacheMisses.increment();
 
         final int originalLength = addParameters(this.eventContractPath, "securityId", securityId);
         final ByteBuffer response = this.registryConnection.get(this.eventContractPath);
         this.eventContractPath.setLength(originalLength);
 
-        try {
-            final EventContract[] result = OBJECT_MAPPER.readValue(toByteArray(response), EventContract[].class);
-            if (result.length == 0) {
-                this.eventContractBySecurityCache.put(securityId, EMPTY_EVENT_CONTRACT);
-                return null;
-            }
-            this.eventContractBySecurityCache.put(securityId, result[0]);
-            return this.eventContractBySecurityCache.get(securityId);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        final EventContract result = this.decoder.firstEventContract(response);
+        if (result == null) {
+            put(this.eventContractBySecurityCache, CacheJournal.EVENT_CONTRACT, securityId, EMPTY_EVENT_CONTRACT);
+            return null;
         }
+        put(this.eventContractBySecurityCache, CacheJournal.EVENT_CONTRACT, securityId, result);
+        return result;
     }
 
+    /**
+     * Every relationship in the registry, loaded on first use and kept for the life of this instance; {@link
+     * #refreshChanges()} does not reload relationships. The array is shared by every caller and must not be
+     * modified.
+     */
     public ContractRelationship[] getAllContractRelationships() {
         if (this.allContractRelationships != null) {
             return this.allContractRelationships;
@@ -256,49 +654,590 @@ public final class SecurityMaster {
 
         final ByteBuffer response = this.registryConnection.get(this.contractRelationshipPath);
 
-        try {
-            this.allContractRelationships =
-                    OBJECT_MAPPER.readValue(toByteArray(response), ContractRelationship[].class);
-            return this.allContractRelationships;
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        this.allContractRelationships = decodeContractRelationships(response);
+        return this.allContractRelationships;
     }
 
+    /**
+     * Relationships in which the security is either side. Cached per security and loaded once, like {@link
+     * #getAllContractRelationships()}; once every relationship has been loaded, uncached securities are answered
+     * from the full set instead of the registry. The returned array is the cached one and must not be modified.
+     */
     public ContractRelationship[] getContractRelationships(final int securityId) {
-        final int originalLength = addParameters(this.contractRelationshipPath, "securityId", securityId);
-        final ByteBuffer response = this.registryConnection.get(this.contractRelationshipPath);
-        this.contractRelationshipPath.setLength(originalLength);
+        if (this.contractRelationshipCache.containsKey(securityId)) {
+            return hit(this.contractRelationshipCache.get(securityId));
+        }
+        this.cacheMisses.increment();
 
-        try {
-            return OBJECT_MAPPER.readValue(toByteArray(response), ContractRelationship[].class);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        final ContractRelationship[] result;
+        if (this.allContractRelationships != null) {
+            result = relationshipsOf(this.allContractRelationships, securityId);
+        } else {
+            final int originalLength = addParameters(this.contractRelationshipPath, "securityId", securityId);
+            final ByteBuffer response = this.registryConnection.get(this.contractRelationshipPath);
+            this.contractRelationshipPath.setLength(originalLength);
+            result = decodeContractRelationships(response);
         }
+        put(this.contractRelationshipCache, CacheJournal.CONTRACT_RELATIONSHIPS, securityId, result);
+        return result;
+    }
+
+    /**
+     * Every relationship in the registry as a compressed-sparse-row graph keyed by security, for allocation-free
+     * traversal by type and confidence and for transitive IMPLIES lookups. Built once, on first use, from
+     * {@link #getAllContractRelationships()}, and not rebuilt by {@link #refreshChanges()}.
+     */
+    public ContractRelationshipGraph getContractRelationshipGraph() {
+        if (this.contractRelationshipGraph == null) {
+            this.contractRelationshipGraph = ContractRelationshipGraph.build(getAllContractRelationships());
+        }
+        return this.contractRelationshipGraph;
+    }
+
+    /**
+     * Pages through every event, event contract and exchange event in the registry and rebuilds the {@link
+     * EventIndex} over them and the cached listings, so call it after {@link #preload()}. The events and
+     * contracts are cached as well, and {@link #refreshChanges()} keeps the cached events current; the index
+     * itself is a snapshot and is only replaced by calling this again.
+     *
+     * @return the new index, also returned by {@link #getEventIndex()} from now on
+     */
+    public EventIndex loadEventIndex() {
+        final List<Event> events = new ArrayList<>();
+        final List<EventContract> contracts = new ArrayList<>();
+        final List<ExchangeEvent> exchangeEvents = new ArrayList<>();
+        loadPages(this.eventPath, null, 0, response -> {
+            final int count = this.decoder.decodeEvents(response, event -> {
+                put(this.eventCache, CacheJournal.EVENT, event.eventId(), event);
+                events.add(event);
+            });
+            this.eventsModified = Math.max(this.eventsModified, this.decoder.getLatestModified());
+            return count;
+        });
+        this.eventsCached = true;
+        final Consumer<EventContract> contractSink = contract -> {
+            put(this.eventContractBySecurityCache, CacheJournal.EVENT_CONTRACT, contract.securityId(), contract);
+            contracts.add(contract);
+        };
+        final Consumer<ExchangeEvent> exchangeEventSink = exchangeEvents::add;
+        loadPages(
+                this.eventContractPath, null, 0, response -> this.decoder.decodeEventContracts(response, contractSink));
+        loadPages(
+                this.exchangeEventPath,
+                null,
+                0,
+                response -> this.decoder.decodeExchangeEvents(response, exchangeEventSink));
+
+        final List<Listing> listings = new ArrayList<>();
+        for (int listingId : this.listingCache.keys()) {
+            final Listing listing = this.listingCache.get(listingId);
+            if (listing != null) {
+                listings.add(listing);
+            }
+        }
+        this.eventIndex = EventIndex.build(
+                events.toArray(new Event[0]),
+                contracts.toArray(new EventContract[0]),
+                exchangeEvents.toArray(new ExchangeEvent[0]),
+                listings.toArray(new Listing[0]));
+        return this.eventIndex;
+    }
+
+    /**
+     * @return the index built by the last {@link #loadEventIndex()}, or an empty one
+     */
+    public EventIndex getEventIndex() {
+        return this.eventIndex;
+    }
+
+    /**
+     * Starts recording every write to the entity caches and the listing key index in {@code journal}.
+     */
+    void journal(final CacheJournal journal) {
+        this.journal = journal;
+    }
+
+    IntMap<Security> securityCache() {
+        return this.securityCache;
+    }
+
+    IntMap<Exchange> exchangeCache() {
+        return this.exchangeCache;
+    }
+
+    IntMap<Listing> listingCache() {
+        return this.listingCache;
+    }
+
+    IntMap<ListingSpec> listingSpecCache() {
+        return this.listingSpecCache;
+    }
+
+    IntMap<Event> eventCache() {
+        return this.eventCache;
+    }
+
+    IntMap<EventContract> eventContractBySecurityCache() {
+        return this.eventContractBySecurityCache;
+    }
+
+    ListingKeyIndex listingKeyIndex() {
+        return this.listingKeyIndex;
+    }
+
+    IntMap<ContractRelationship[]> contractRelationshipCache() {
+        return this.contractRelationshipCache;
+    }
+
+    NativeSymbolIndex exchangeSecurityIdIndex() {
+        return this.exchangeSecurityIdIndex;
+    }
+
+    NativeSymbolIndex exchangeSecuritySymbolIndex() {
+        return this.exchangeSecuritySymbolIndex;
+    }
+
+    private Listing fetchListingByNativeKey(
+            final int exchangeId, final String paramName, final String value, final NativeSymbolIndex index) {
+        this.cacheMisses.increment();
+        final int originalLength = addParameters(this.listingPath, "exchangeId", exchangeId);
+        this.listingPath.append((byte) '&');
+        this.listingPath.appendString(paramName);
+        this.listingPath.append((byte) '=');
+        this.listingPath.appendString(URLEncoder.encode(value, StandardCharsets.UTF_8));
+        final ByteBuffer response = this.registryConnection.get(this.listingPath);
+        this.listingPath.setLength(originalLength);
+
+        final Listing listing = parseListing(response);
+        if (listing == null) {
+            index.putNotFound(exchangeId, value);
+            return null;
+        }
+        cacheListing(listing);
+        return listing;
     }
 
     private Listing parseListing(final ByteBuffer response) {
-        try {
-            final ListingResponse[] result = OBJECT_MAPPER.readValue(toByteArray(response), ListingResponse[].class);
-            if (result.length == 0) {
-                return null;
+        final ListingResponse r = this.decoder.firstListing(response);
+        if (r == null) {
+            return null;
+        }
+        return new Listing(
+                r.listingId(),
+                getExchange(r.exchangeId()),
+                getSecurity(r.securityId()),
+                r.exchangeSecurityId(),
+                r.exchangeSecuritySymbol(),
+                r.isActive());
+    }
+
+    /**
+     * Listings are resolved only once the page is fully decoded: resolving may fetch an exchange or security,
+     * which reuses both the decoder and the connection's response buffer.
+     */
+    private int decodeListingPage(final ByteBuffer response) {
+        this.pendingListings.clear();
+        final int count = this.decoder.decodeListings(response, this.pendingListings::add);
+        this.listingsModified = Math.max(this.listingsModified, this.decoder.getLatestModified());
+        for (int i = 0; i < this.pendingListings.size(); i++) {
+            cacheListing(this.pendingListings.get(i));
+        }
+        this.pendingListings.clear();
+        return count;
+    }
+
+    /**
+     * Like {@link #decodeListingPage(ByteBuffer)}, but fetches the batch's uncached securities in one request
+     * first so that resolving the listings finds them cached. Batches leave the change watermarks untouched.
+     */
+    private int decodeListingBatch(final ByteBuffer response) {
+        this.pendingListings.clear();
+        final int count = this.decoder.decodeListings(response, this.pendingListings::add);
+        final int[] securityIds = new int[count];
+        for (int i = 0; i < count; i++) {
+            securityIds[i] = this.pendingListings.get(i).securityId();
+        }
+        getSecurities(securityIds);
+        for (int i = 0; i < count; i++) {
+            cacheListing(this.pendingListings.get(i));
+        }
+        this.pendingListings.clear();
+        return count;
+    }
+
+    private ContractRelationship[] relationshipsOf(final ContractRelationship[] relationships, final int securityId) {
+        this.contractRelationships.clear();
+        for (final ContractRelationship relationship : relationships) {
+            if (relationship.securityIdA() == securityId || relationship.securityIdB() == securityId) {
+                this.contractRelationships.add(relationship);
+            }
+        }
+        if (this.contractRelationships.isEmpty()) {
+            return EMPTY_CONTRACT_RELATIONSHIPS;
+        }
+        return this.contractRelationships.toArray(EMPTY_CONTRACT_RELATIONSHIPS);
+    }
+
+    private ContractRelationship[] decodeContractRelationships(final ByteBuffer response) {
+        this.contractRelationships.clear();
+        this.decoder.decodeContractRelationships(response, this.contractRelationships::add);
+        if (this.contractRelationships.isEmpty()) {
+            return EMPTY_CONTRACT_RELATIONSHIPS;
+        }
+        return this.contractRelationships.toArray(EMPTY_CONTRACT_RELATIONSHIPS);
+    }
+
+    private <T> void put(final IntMap<T> cache, final int kind, final int id, final T value) {
+        cache.put(id, value);
+        if (this.journal != null) {
+            this.journal.record(kind, id);
+        }
+    }
+
+    private void putListingKey(final int exchangeId, final int securityId, final int listingId) {
+        this.listingKeyIndex.put(exchangeId, securityId, listingId);
+        if (this.journal != null) {
+            this.journal.record(CacheJournal.LISTING_KEY, ListingKeyIndex.pack(exchangeId, securityId));
+        }
+    }
+
+    private void putListingKeyNotFound(final int exchangeId, final int securityId) {
+        this.listingKeyIndex.putNotFound(exchangeId, securityId);
+        if (this.journal != null) {
+            this.journal.record(CacheJournal.LISTING_KEY, ListingKeyIndex.pack(exchangeId, securityId));
+        }
+    }
+
+    private void cacheExchange(final Exchange exchange) {
+        if (this.notifyChanges) {
+            if (exchange.equals(this.exchangeCache.get(exchange.exchangeId()))) {
+                return;
+            }
+            this.changedRows++;
+        }
+        put(this.exchangeCache, CacheJournal.EXCHANGE, exchange.exchangeId(), exchange);
+    }
+
+    private void cacheSecurity(final Security security) {
+        if (!this.notifyChanges) {
+            put(this.securityCache, CacheJournal.SECURITY, security.securityId(), security);
+            return;
+        }
+        final Security previous = this.securityCache.get(security.securityId());
+        if (security.equals(previous)) {
+            return;
+        }
+        this.changedRows++;
+        put(this.securityCache, CacheJournal.SECURITY, security.securityId(), security);
+        this.securityChange.set(previous == EMPTY_SECURITY ? null : previous, security);
+        for (int i = 0; i < this.securityListeners.size(); i++) {
+            this.securityListeners.get(i).accept(this.securityChange);
+        }
+    }
+
+    private void cacheListing(final ListingResponse r) {
+        final Listing listing = new Listing(
+                r.listingId(),
+                getExchange(r.exchangeId()),
+                getSecurity(r.securityId()),
+                r.exchangeSecurityId(),
+                r.exchangeSecuritySymbol(),
+                r.isActive());
+        if (!this.notifyChanges) {
+            cacheListing(listing);
+            return;
+        }
+        final Listing previous = this.listingCache.get(listing.listingId());
+        if (listing.equals(previous)) {
+            return;
+        }
+        this.changedRows++;
+        cacheListing(listing);
+        this.listingChange.set(previous, listing);
+        for (int i = 0; i < this.listingListeners.size(); i++) {
+            this.listingListeners.get(i).accept(this.listingChange);
+        }
+    }
+
+    private int decodeEventChangePage(final ByteBuffer response) {
+        final int count = this.decoder.decodeEvents(response, this::applyEventChange);
+        this.eventsModified = Math.max(this.eventsModified, this.decoder.getLatestModified());
+        return count;
+    }
+
+    private void applyEventChange(final Event event) {
+        final Event previous = this.eventCache.get(event.eventId());
+        if (previous == null || event.equals(previous)) {
+            return;
+        }
+        this.changedRows++;
+        put(this.eventCache, CacheJournal.EVENT, event.eventId(), event);
+        if (previous != EMPTY_EVENT && !previous.resolved() && event.resolved()) {
+            this.eventResolution.set(event);
+            for (int i = 0; i < this.eventResolvedListeners.size(); i++) {
+                this.eventResolvedListeners.get(i).accept(this.eventResolution);
+            }
+        }
+    }
+
+    private void cacheListing(final Listing listing) {
+        final Listing previous = this.listingCache.get(listing.listingId());
+        if (previous != null) {
+            retireListingKeys(previous, listing);
+        }
+        put(this.listingCache, CacheJournal.LISTING, listing.listingId(), listing);
+        if (listing.exchange() != null && listing.security() != null) {
+            putListingKey(listing.exchange().exchangeId(), listing.security().securityId(), listing.listingId());
+        }
+        if (listing.exchange() != null) {
+            final int exchangeId = listing.exchange().exchangeId();
+            this.exchangeSecurityIdIndex.put(exchangeId, listing.exchangeSecurityId(), listing.listingId());
+            this.exchangeSecuritySymbolIndex.put(exchangeId, listing.exchangeSecuritySymbol(), listing.listingId());
+        }
+    }
+
+    /**
+     * Marks the keys a listing was indexed under as not found when an update moved it to different ones.
+     */
+    private void retireListingKeys(final Listing previous, final Listing listing) {
+        if (previous.exchange() == null) {
+            return;
+        }
+        final int previousExchangeId = previous.exchange().exchangeId();
+        final boolean sameExchange =
+                listing.exchange() != null && listing.exchange().exchangeId() == previousExchangeId;
+        if (previous.security() != null
+                && !(sameExchange
+                        && listing.security() != null
+                        && listing.security().securityId() == previous.security().securityId())) {
+            putListingKeyNotFound(previousExchangeId, previous.security().securityId());
+        }
+        if (!sameExchange || !Objects.equals(previous.exchangeSecurityId(), listing.exchangeSecurityId())) {
+            this.exchangeSecurityIdIndex.putNotFound(previousExchangeId, previous.exchangeSecurityId());
+        }
+        if (!sameExchange || !Objects.equals(previous.exchangeSecuritySymbol(), listing.exchangeSecuritySymbol())) {
+            this.exchangeSecuritySymbolIndex.putNotFound(previousExchangeId, previous.exchangeSecuritySymbol());
+        }
+    }
+
+    /**
+     * Rebuilds the cached listings still pointing at a superseded exchange or security.
+     */
+    private void relinkListings() {
+        final List<Listing> stale = new ArrayList<>();
+        for (int listingId : this.listingCache.keys()) {
+            final Listing listing = this.listingCache.get(listingId);
+            if (listing == null || listing.exchange() == null || listing.security() == null) {
+                continue;
             }
-            final ListingResponse r = result[0];
-            return new Listing(
-                    r.listingId(),
-                    getExchange(r.exchangeId()),
-                    getSecurity(r.securityId()),
-                    r.exchangeSecurityId(),
-                    r.exchangeSecuritySymbol());
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            final Exchange exchange = this.exchangeCache.get(listing.exchange().exchangeId());
+            final Security security = this.securityCache.get(listing.security().securityId());
+            if (exchange != listing.exchange() || security != listing.security()) {
+                stale.add(new Listing(
+                        listing.listingId(),
+                        exchange,
+                        security,
+                        listing.exchangeSecurityId(),
+                        listing.exchangeSecuritySymbol(),
+                        listing.active()));
+            }
+        }
+        for (int i = 0; i < stale.size(); i++) {
+            cacheListing(stale.get(i));
         }
     }
 
-    private static byte[] toByteArray(final ByteBuffer buffer) {
-        final byte[] bytes = new byte[buffer.remaining()];
-        buffer.get(bytes);
-        return bytes;
+    /**
+     * Pages through the rows modified since {@code modified}, or through every row when nothing was seen yet.
+     */
+    private int loadChanges(final MutableString path, final long modified, final ToIntFunction<ByteBuffer> page) {
+        if (modified == 0L) {
+            return loadPages(path, null, 0, page);
+        }
+        return loadPages(path, "modifiedSince", modified - MODIFIED_OVERLAP_MILLIS, page);
+    }
+
+    private int decodeExchangePage(final ByteBuffer response) {
+        final int count = this.decoder.decodeExchanges(response, this::cacheExchange);
+        this.exchangesModified = Math.max(this.exchangesModified, this.decoder.getLatestModified());
+        return count;
+    }
+
+    private int decodeSecurityPage(final ByteBuffer response) {
+        final int count = this.decoder.decodeSecurities(response, this::cacheSecurity);
+        this.securitiesModified = Math.max(this.securitiesModified, this.decoder.getLatestModified());
+        return count;
+    }
+
+    private int decodeSecurityBatch(final ByteBuffer response) {
+        return this.decoder.decodeSecurities(response, this::cacheSecurity);
+    }
+
+    private int decodeListingSpecBatch(final ByteBuffer response) {
+        return this.decoder.decodeListingSpecs(response, this::cacheListingSpec);
+    }
+
+    private int decodeListingSpecPage(final ByteBuffer response) {
+        return this.decoder.decodeListingSpecs(response, this::cacheListingSpec);
+    }
+
+    private int decodeListingSpecChangePage(final ByteBuffer response) {
+        return this.decoder.decodeListingSpecs(response, this::applyListingSpecChange);
+    }
+
+    private void applyListingSpecChange(final ListingSpec listingSpec) {
+        this.listingSpecVersion = Math.max(this.listingSpecVersion, listingSpec.version());
+        final ListingSpec cached = this.listingSpecCache.get(listingSpec.listingId());
+        if (cached != null && cached.version() < listingSpec.version()) {
+            cacheListingSpec(listingSpec);
+            this.listingSpecChanges++;
+        }
+    }
+
+    /**
+     * Caches the spec however it was loaded: lazily, in a batch, from a page or from a snapshot. Each path advances
+     * the version watermark, so the next {@link #refreshListingSpecs()} only asks for newer versions.
+     */
+    private void cacheListingSpec(final ListingSpec listingSpec) {
+        put(this.listingSpecCache, CacheJournal.LISTING_SPEC, listingSpec.listingId(), listingSpec);
+        this.listingSpecTable.put(listingSpec);
+        this.listingSpecVersion = Math.max(this.listingSpecVersion, listingSpec.version());
+    }
+
+    @Override
+    public void sampleMetrics(final MetricsSink sink) {
+        sampleMetrics(sink, 0L, 0L);
+    }
+
+    /**
+     * Samples the metrics with hits answered outside this instance, e.g. from published tables, added to its own.
+     */
+    void sampleMetrics(final MetricsSink sink, final long extraHits, final long extraNegativeHits) {
+        sink.counter(CACHE_HITS_METRIC, this.cacheHits.get() + extraHits);
+        sink.counter(CACHE_NEGATIVE_HITS_METRIC, this.cacheNegativeHits.get() + extraNegativeHits);
+        sink.counter(CACHE_MISSES_METRIC, this.cacheMisses.get());
+        sink.counter(PARSE_NANOS_METRIC, this.parseNanos.get());
+        sink.counter(ROWS_LOADED_METRIC, this.rowsLoaded.get());
+        final long lastSync = this.lastSyncMillis;
+        sink.gauge(STALENESS_METRIC, lastSync == 0 ? -1 : System.currentTimeMillis() - lastSync);
+    }
+
+    private <T> T hit(final T value) {
+        this.cacheHits.increment();
+        return value;
+    }
+
+    private <T> T negativeHit() {
+        this.cacheNegativeHits.increment();
+        return null;
+    }
+
+    /**
+     * @param decodePage streams one page into the caches and returns how many entries it held
+     */
+    private int loadPages(
+            final MutableString path,
+            final String filterName,
+            final long filterValue,
+            final ToIntFunction<ByteBuffer> decodePage) {
+        int total = 0;
+        int offset = 0;
+        int count;
+        do {
+            final int originalLength = path.length();
+            if (filterName != null) {
+                addParameters(path, filterName, filterValue);
+                path.append((byte) '&');
+            }
+            addParameters(path, "limit", PAGE_SIZE, "offset", offset);
+            final ByteBuffer response = this.registryConnection.get(path);
+            path.setLength(originalLength);
+
+            final long start = System.nanoTime();
+            count = decodePage.applyAsInt(response);
+            this.parseNanos.add(System.nanoTime() - start);
+            this.rowsLoaded.add(count);
+            offset += count;
+            total += count;
+        } while (count == PAGE_SIZE);
+        return total;
+    }
+
+    /**
+     * Requests {@code ids} in chunks of at most {@link #MAX_BATCH_IDS} through the registry's {@code IN (...)}
+     * filter. A chunk of one id uses the single-id filter instead.
+     */
+    private void loadBatches(
+            final MutableString path,
+            final String paramName,
+            final String listParamName,
+            final int[] ids,
+            final ToIntFunction<ByteBuffer> decodeBatch) {
+        for (int from = 0; from < ids.length; from += MAX_BATCH_IDS) {
+            final int to = Math.min(ids.length, from + MAX_BATCH_IDS);
+            final int originalLength = to - from == 1
+                    ? addParameters(path, paramName, ids[from])
+                    : addIdList(path, listParamName, ids, from, to);
+            final ByteBuffer response = this.registryConnection.get(path);
+            path.setLength(originalLength);
+
+            final long start = System.nanoTime();
+            final int count = decodeBatch.applyAsInt(response);
+            this.parseNanos.add(System.nanoTime() - start);
+            this.rowsLoaded.add(count);
+        }
+    }
+
+    /**
+     * Counts the hits among {@code ids} and returns the distinct ids missing from {@code cache}, ascending.
+     */
+    private <T> int[] collectMisses(final int[] ids, final IntMap<T> cache, final T notFound) {
+        final int[] misses = new int[ids.length];
+        int count = 0;
+        for (final int id : ids) {
+            if (!cache.containsKey(id)) {
+                misses[count++] = id;
+            } else if (cache.get(id) == notFound) {
+                this.cacheNegativeHits.increment();
+            } else {
+                this.cacheHits.increment();
+            }
+        }
+        Arrays.sort(misses, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || misses[i] != misses[distinct - 1]) {
+                misses[distinct++] = misses[i];
+            }
+        }
+        this.cacheMisses.add(distinct);
+        return Arrays.copyOf(misses, distinct);
+    }
+
+    private <T> void cacheNotFound(final int[] ids, final IntMap<T> cache, final int kind, final T notFound) {
+        for (final int id : ids) {
+            if (!cache.containsKey(id)) {
+                put(cache, kind, id, notFound);
+            }
+        }
+    }
+
+    private static <T> T[] resolve(final int[] ids, final IntMap<T> cache, final T notFound, final T[] result) {
+        for (int i = 0; i < ids.length; i++) {
+            final T value = cache.get(ids[i]);
+            result[i] = value == notFound ? null : value;
+        }
+        return result;
+    }
+
+    private int addIdList(
+            final MutableString string, final String paramName, final int[] ids, final int from, final int to) {
+        final int originalLength = addParameters(string, paramName, ids[from]);
+        for (int i = from + 1; i < to; i++) {
+            string.append((byte) ',');
+            string.appendNaturalIntAscii(ids[i]);
+        }
+        return originalLength;
     }
 
     private int addParameters(final MutableString string, final String paramName, final int value) {
@@ -309,6 +1248,17 @@ public final class SecurityMaster {
         return originalLength;
     }
 
+    private int addParameters(final MutableString string, final String paramName, final long value) {
+        if (value >= 0 && value <= Integer.MAX_VALUE) {
+            return addParameters(string, paramName, (int) value);
+        }
+        int originalLength = string.length();
+        string.appendString(paramName);
+        string.append((byte) '=');
+        string.appendString(Long.toString(value));
+        return originalLength;
+    }
+
     private int addParameters(
             final MutableString string,
             final String paramName1,
@@ -0,0 +1,660 @@
+package group.gnometrading;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import group.gnometrading.codecs.json.JsonDecoder;
+import group.gnometrading.sm.AssetClass;
+import group.gnometrading.sm.ContractRelationship;
+import group.gnometrading.sm.ContractType;
+import group.gnometrading.sm.EpochMillisDeserializer;
+import group.gnometrading.sm.Event;
+import group.gnometrading.sm.EventContract;
+import group.gnometrading.sm.Exchange;
+import group.gnometrading.sm.ExchangeEvent;
+import group.gnometrading.sm.ListingSpec;
+import group.gnometrading.sm.SchemaTypeDeserializer;
+import group.gnometrading.sm.Security;
+import group.gnometrading.sm.SecurityType;
+import group.gnometrading.strings.GnomeString;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Streams registry responses straight out of the response buffer with {@link JsonDecoder}, handing each entity to
+ * a consumer as soon as it is parsed. No byte[] copy of the body and no intermediate arrays are built.
+ * Falls back to Jackson if the streaming parse fails. Not thread-safe.
+ */
+final class SecurityMasterDecoder {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final JsonDecoder jsonDecoder;
+    private final Function<JsonDecoder.JsonNode, Security> securityParser;
+    private final Function<JsonDecoder.JsonNode, Exchange> exchangeParser;
+    private final Function<JsonDecoder.JsonNode, SecurityMaster.ListingResponse> listingParser;
+    private final Function<JsonDecoder.JsonNode, ListingSpec> listingSpecParser;
+    private final Function<JsonDecoder.JsonNode, Event> eventParser;
+    private final Function<JsonDecoder.JsonNode, EventContract> eventContractParser;
+    private final Function<JsonDecoder.JsonNode, ContractRelationship> contractRelationshipParser;
+    private final Function<JsonDecoder.JsonNode, ExchangeEvent> exchangeEventParser;
+
+    private final Consumer<Object> firstSink;
+
+    private byte[] scratch;
+    private Object first;
+    private long latestModified;
+    private long fallbackCount;
+
+    SecurityMasterDecoder() {
+        this.jsonDecoder = new JsonDecoder();
+        this.securityParser = this::parseSecurity;
+        this.exchangeParser = this::parseExchange;
+        this.listingParser = this::parseListing;
+        this.listingSpecParser = this::parseListingSpec;
+        this.eventParser = this::parseEvent;
+        this.eventContractParser = this::parseEventContract;
+        this.contractRelationshipParser = this::parseContractRelationship;
+        this.exchangeEventParser = this::parseExchangeEvent;
+        this.firstSink = value -> {
+            if (this.first == null) {
+                this.first = value;
+            }
+        };
+        this.scratch = new byte[256];
+    }
+
+    /**
+     * @return the first security in the response, or null if it is empty
+     */
+    Security firstSecurity(final ByteBuffer response) {
+        return first(response, Security[].class, this.securityParser);
+    }
+
+    Exchange firstExchange(final ByteBuffer response) {
+        return first(response, Exchange[].class, this.exchangeParser);
+    }
+
+    SecurityMaster.ListingResponse firstListing(final ByteBuffer response) {
+        return first(response, SecurityMaster.ListingResponse[].class, this.listingParser);
+    }
+
+    ListingSpec firstListingSpec(final ByteBuffer response) {
+        return first(response, ListingSpec[].class, this.listingSpecParser);
+    }
+
+    Event firstEvent(final ByteBuffer response) {
+        return first(response, Event[].class, this.eventParser);
+    }
+
+    EventContract firstEventContract(final ByteBuffer response) {
+        return first(response, EventContract[].class, this.eventContractParser);
+    }
+
+    int decodeSecurities(final ByteBuffer response, final Consumer<Security> consumer) {
+        return decode(response, Security[].class, this.securityParser, consumer);
+    }
+
+    int decodeExchanges(final ByteBuffer response, final Consumer<Exchange> consumer) {
+        return decode(response, Exchange[].class, this.exchangeParser, consumer);
+    }
+
+    int decodeListings(final ByteBuffer response, final Consumer<SecurityMaster.ListingResponse> consumer) {
+        return decode(response, SecurityMaster.ListingResponse[].class, this.listingParser, consumer);
+    }
+
+    int decodeListingSpecs(final ByteBuffer response, final Consumer<ListingSpec> consumer) {
+        return decode(response, ListingSpec[].class, this.listingSpecParser, consumer);
+    }
+
+    int decodeEvents(final ByteBuffer response, final Consumer<Event> consumer) {
+        return decode(response, Event[].class, this.eventParser, consumer);
+    }
+
+    int decodeEventContracts(final ByteBuffer response, final Consumer<EventContract> consumer) {
+        return decode(response, EventContract[].class, this.eventContractParser, consumer);
+    }
+
+    int decodeContractRelationships(final ByteBuffer response, final Consumer<ContractRelationship> consumer) {
+        return decode(response, ContractRelationship[].class, this.contractRelationshipParser, consumer);
+    }
+
+    int decodeExchangeEvents(final ByteBuffer response, final Consumer<ExchangeEvent> consumer) {
+        return decode(response, ExchangeEvent[].class, this.exchangeEventParser, consumer);
+    }
+
+    /**
+     * @return the latest {@code date_modified} in epoch millis across the entities of the last decoded response,
+     *     or 0 if none carried one
+     */
+    long getLatestModified() {
+        return this.latestModified;
+    }
+
+    /**
+     * @return how many responses had to be decoded by the Jackson fallback
+     */
+    long getFallbackCount() {
+        return this.fallbackCount;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T first(
+            final ByteBuffer response, final Class<T[]> type, final Function<JsonDecoder.JsonNode, T> parser) {
+        this.first = null;
+        decode(response, type, parser, (Consumer<T>) this.firstSink);
+        final T value = (T) this.first;
+        this.first = null;
+        return value;
+    }
+
+    @SuppressWarnings("checkstyle:NestedTryDepth")
+    private <T> int decode(
+            final ByteBuffer response,
+            final Class<T[]> type,
+            final Function<JsonDecoder.JsonNode, T> parser,
+            final Consumer<T> consumer) {
+        final int position = response.position();
+        final int limit = response.limit();
+        this.latestModified = 0L;
+        int count = 0;
+        try {
+            try (var node = this.jsonDecoder.wrap(response)) {
+                try (var array = node.asArray()) {
+                    while (array.hasNextItem()) {
+                        final T value;
+                        try (var item = array.nextItem()) {
+                            value = parser.apply(item);
+                        }
+                        count++;
+                        try {
+                            consumer.accept(value);
+                        } catch (RuntimeException e) {
+                            throw new ConsumerException(e);
+                        }
+                    }
+                }
+            }
+            return count;
+        } catch (ConsumerException e) {
+            throw (RuntimeException) e.getCause();
+        } catch (RuntimeException e) {
+            this.fallbackCount++;
+            response.limit(limit).position(position);
+            return decodeWithJackson(response, type, consumer, count);
+        }
+    }
+
+    /**
+     * Decodes the whole response with Jackson, skipping the entities the streaming parse already handed over. The
+     * entity records carry no {@code date_modified}, so it is read off the tree to keep {@link #getLatestModified()}
+     * in step with the streaming path.
+     */
+    private <T> int decodeWithJackson(
+            final ByteBuffer response, final Class<T[]> type, final Consumer<T> consumer, final int alreadyConsumed) {
+        final byte[] bytes = new byte[response.remaining()];
+        response.get(bytes);
+        final T[] values;
+        try {
+            final JsonNode tree = OBJECT_MAPPER.readTree(bytes);
+            this.latestModified = 0L;
+            for (final JsonNode item : tree) {
+                final JsonNode modified = item.get("date_modified");
+                if (modified != null && modified.isTextual()) {
+                    this.latestModified =
+                            Math.max(this.latestModified, EpochMillisDeserializer.toEpochMillis(modified.asText()));
+                }
+            }
+            values = OBJECT_MAPPER.treeToValue(tree, type);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        for (int i = alreadyConsumed; i < values.length; i++) {
+            consumer.accept(values[i]);
+        }
+        return values.length;
+    }
+
+    @SuppressWarnings("checkstyle:NestedTryDepth")
+    private Security parseSecurity(final JsonDecoder.JsonNode item) {
+        int securityId = 0;
+        String symbol = null;
+        SecurityType type = null;
+        ContractType contractType = null;
+        AssetClass assetClass = null;
+        String baseCurrency = null;
+        String quoteCurrency = null;
+        String settleCurrency = null;
+        boolean inverse = false;
+        boolean isQuanto = false;
+        long expiry = 0L;
+        long strikePrice = 0L;
+        boolean active = false;
+        int underlyingSecurityId = 0;
+
+        try (var object = item.asObject()) {
+            while (object.hasNextKey()) {
+                try (var key = object.nextKey()) {
+                    final var name = key.getName();
+                    final GnomeString raw = key.asRawJson();
+                    if (name.equals("security_id")) {
+                        securityId = intValue(raw);
+                    } else if (name.equals("symbol")) {
+                        symbol = stringValue(raw);
+                    } else if (name.equals("type")) {
+                        type = isNull(raw) ? null : SecurityType.fromCode(intValue(raw));
+                    } else if (name.equals("contract_type")) {
+                        contractType = isNull(raw) ? null : ContractType.fromCode(intValue(raw));
+                    } else if (name.equals("asset_class")) {
+                        assetClass = isNull(raw) ? null : AssetClass.fromCode(intValue(raw));
+                    } else if (name.equals("base_currency")) {
+                        baseCurrency = stringValue(raw);
+                    } else if (name.equals("quote_currency")) {
+                        quoteCurrency = stringValue(raw);
+                    } else if (name.equals("settle_currency")) {
+                        settleCurrency = stringValue(raw);
+                    } else if (name.equals("inverse")) {
+                        inverse = JsonValues.booleanValue(raw);
+                    } else if (name.equals("is_quanto")) {
+                        isQuanto = JsonValues.booleanValue(raw);
+                    } else if (name.equals("expiry")) {
+                        expiry = epochMillisValue(raw);
+                    } else if (name.equals("strike_price")) {
+                        strikePrice = JsonValues.longValue(raw);
+                    } else if (name.equals("active")) {
+                        active = JsonValues.booleanValue(raw);
+                    } else if (name.equals("underlying_security_id")) {
+                        underlyingSecurityId = intValue(raw);
+                    } else if (name.equals("date_modified")) {
+                        modified(raw);
+                    }
+                }
+            }
+        }
+        return new Security(
+                securityId,
+                symbol,
+                type,
+                contractType,
+                assetClass,
+                baseCurrency,
+                quoteCurrency,
+                settleCurrency,
+                inverse,
+                isQuanto,
+                expiry,
+                strikePrice,
+                active,
+                underlyingSecurityId);
+    }
+
+    @SuppressWarnings("checkstyle:NestedTryDepth")
+    private Exchange parseExchange(final JsonDecoder.JsonNode item) {
+        int exchangeId = 0;
+        String exchangeName = null;
+        String region = null;
+        String schemaType = null;
+
+        try (var object = item.asObject()) {
+            while (object.hasNextKey()) {
+                try (var key = object.nextKey()) {
+                    final var name = key.getName();
+                    final GnomeString raw = key.asRawJson();
+                    if (name.equals("exchange_id")) {
+                        exchangeId = intValue(raw);
+                    } else if (name.equals("exchange_name")) {
+                        exchangeName = stringValue(raw);
+                    } else if (name.equals("region")) {
+                        region = stringValue(raw);
+                    } else if (name.equals("schema_type")) {
+                        schemaType = stringValue(raw);
+                    } else if (name.equals("date_modified")) {
+                        modified(raw);
+                    }
+                }
+            }
+        }
+        return new Exchange(exchangeId, exchangeName, region, SchemaTypeDeserializer.fromId(schemaType));
+    }
+
+    @SuppressWarnings("checkstyle:NestedTryDepth")
+    private SecurityMaster.ListingResponse parseListing(final JsonDecoder.JsonNode item) {
+        int listingId = 0;
+        int exchangeId = 0;
+        int securityId = 0;
+        String exchangeSecurityId = null;
+        String exchangeSecuritySymbol = null;
+        Boolean active = null;
+
+        try (var object = item.asObject()) {
+            while (object.hasNextKey()) {
+                try (var key = object.nextKey()) {
+                    final var name = key.getName();
+                    final GnomeString raw = key.asRawJson();
+                    if (name.equals("listing_id")) {
+                        listingId = intValue(raw);
+                    } else if (name.equals("exchange_id")) {
+                        exchangeId = intValue(raw);
+                    } else if (name.equals("security_id")) {
+                        securityId = intValue(raw);
+                    } else if (name.equals("exchange_security_id")) {
+                        exchangeSecurityId = stringValue(raw);
+                    } else if (name.equals("exchange_security_symbol")) {
+                        exchangeSecuritySymbol = stringValue(raw);
+                    } else if (name.equals("active")) {
+                        active = isNull(raw) ? null : JsonValues.booleanValue(raw);
+                    } else if (name.equals("date_modified")) {
+                        modified(raw);
+                    }
+                }
+            }
+        }
+        return new SecurityMaster.ListingResponse(
+                listingId, exchangeId, securityId, exchangeSecurityId, exchangeSecuritySymbol, active);
+    }
+
+    @SuppressWarnings("checkstyle:NestedTryDepth")
+    private ListingSpec parseListingSpec(final JsonDecoder.JsonNode item) {
+        int listingId = 0;
+        long tickSize = 0L;
+        long lotSize = 0L;
+        long minNotional = 0L;
+        long contractMultiplier = 0L;
+        long version = 0L;
+        long recordedAt = 0L;
+
+        try (var object = item.asObject()) {
+            while (object.hasNextKey()) {
+                try (var key = object.nextKey()) {
+                    final var name = key.getName();
+                    final GnomeString raw = key.asRawJson();
+                    if (name.equals("listing_id")) {
+                        listingId = intValue(raw);
+                    } else if (name.equals("tick_size")) {
+                        tickSize = JsonValues.longValue(raw);
+                    } else if (name.equals("lot_size")) {
+                        lotSize = JsonValues.longValue(raw);
+                    } else if (name.equals("min_notional")) {
+                        minNotional = JsonValues.longValue(raw);
+                    } else if (name.equals("contract_multiplier")) {
+                        contractMultiplier = JsonValues.longValue(raw);
+                    } else if (name.equals("id")) {
+                        version = JsonValues.longValue(raw);
+                    } else if (name.equals("recorded_at")) {
+                        recordedAt = epochMillisValue(raw);
+                    }
+                }
+            }
+        }
+        return new ListingSpec(listingId, tickSize, lotSize, minNotional, contractMultiplier, version, recordedAt);
+    }
+
+    @SuppressWarnings("checkstyle:NestedTryDepth")
+    private Event parseEvent(final JsonDecoder.JsonNode item) {
+        int eventId = 0;
+        String title = null;
+        String description = null;
+        String category = null;
+        boolean resolved = false;
+        long resolvedAt = 0L;
+        long expiry = 0L;
+
+        try (var object = item.asObject()) {
+            while (object.hasNextKey()) {
+                try (var key = object.nextKey()) {
+                    final var name = key.getName();
+                    final GnomeString raw = key.asRawJson();
+                    if (name.equals("event_id")) {
+                        eventId = intValue(raw);
+                    } else if (name.equals("title")) {
+                        title = stringValue(raw);
+                    } else if (name.equals("description")) {
+                        description = stringValue(raw);
+                    } else if (name.equals("category")) {
+                        category = stringValue(raw);
+                    } else if (name.equals("resolved")) {
+                        resolved = JsonValues.booleanValue(raw);
+                    } else if (name.equals("resolved_at")) {
+                        resolvedAt = epochMillisValue(raw);
+                    } else if (name.equals("expiry")) {
+                        expiry = epochMillisValue(raw);
+                    } else if (name.equals("date_modified")) {
+                        modified(raw);
+                    }
+                }
+            }
+        }
+        return new Event(eventId, title, description, category, resolved, resolvedAt, expiry);
+    }
+
+    @SuppressWarnings("checkstyle:NestedTryDepth")
+    private EventContract parseEventContract(final JsonDecoder.JsonNode item) {
+        int eventContractId = 0;
+        int eventId = 0;
+        int securityId = 0;
+        String outcomeLabel = null;
+
+        try (var object = item.asObject()) {
+            while (object.hasNextKey()) {
+                try (var key = object.nextKey()) {
+                    final var name = key.getName();
+                    final GnomeString raw = key.asRawJson();
+                    if (name.equals("event_contract_id")) {
+                        eventContractId = intValue(raw);
+                    } else if (name.equals("event_id")) {
+                        eventId = intValue(raw);
+                    } else if (name.equals("security_id")) {
+                        securityId = intValue(raw);
+                    } else if (name.equals("outcome_label")) {
+                        outcomeLabel = stringValue(raw);
+                    }
+                }
+            }
+        }
+        return new EventContract(eventContractId, eventId, securityId, outcomeLabel);
+    }
+
+    @SuppressWarnings("checkstyle:NestedTryDepth")
+    private ContractRelationship parseContractRelationship(final JsonDecoder.JsonNode item) {
+        int relationshipId = 0;
+        int securityIdA = 0;
+        int securityIdB = 0;
+        String relationshipType = null;
+        float confidence = 0f;
+        String method = null;
+
+        try (var object = item.asObject()) {
+            while (object.hasNextKey()) {
+                try (var key = object.nextKey()) {
+                    final var name = key.getName();
+                    final GnomeString raw = key.asRawJson();
+                    if (name.equals("relationship_id")) {
+                        relationshipId = intValue(raw);
+                    } else if (name.equals("security_id_a")) {
+                        securityIdA = intValue(raw);
+                    } else if (name.equals("security_id_b")) {
+                        securityIdB = intValue(raw);
+                    } else if (name.equals("relationship_type")) {
+                        relationshipType = stringValue(raw);
+                    } else if (name.equals("confidence")) {
+                        confidence = isNull(raw) ? 0f : Float.parseFloat(raw.toString());
+                    } else if (name.equals("method")) {
+                        method = stringValue(raw);
+                    }
+                }
+            }
+        }
+        return new ContractRelationship(
+                relationshipId, securityIdA, securityIdB, relationshipType, confidence, method);
+    }
+
+    @SuppressWarnings("checkstyle:NestedTryDepth")
+    private ExchangeEvent parseExchangeEvent(final JsonDecoder.JsonNode item) {
+        int exchangeEventId = 0;
+        int exchangeId = 0;
+        int eventId = 0;
+        String nativeEventId = null;
+        String rawTitle = null;
+        String nativeUrl = null;
+
+        try (var object = item.asObject()) {
+            while (object.hasNextKey()) {
+                try (var key = object.nextKey()) {
+                    final var name = key.getName();
+                    final GnomeString raw = key.asRawJson();
+                    if (name.equals("exchange_event_id")) {
+                        exchangeEventId = intValue(raw);
+                    } else if (name.equals("exchange_id")) {
+                        exchangeId = intValue(raw);
+                    } else if (name.equals("event_id")) {
+                        eventId = intValue(raw);
+                    } else if (name.equals("native_event_id")) {
+                        nativeEventId = stringValue(raw);
+                    } else if (name.equals("raw_title")) {
+                        rawTitle = stringValue(raw);
+                    } else if (name.equals("native_url")) {
+                        nativeUrl = stringValue(raw);
+                    }
+                }
+            }
+        }
+        return new ExchangeEvent(exchangeEventId, exchangeId, eventId, nativeEventId, rawTitle, nativeUrl);
+    }
+
+    private void modified(final GnomeString raw) {
+        final long modified = epochMillisValue(raw);
+        if (modified > this.latestModified) {
+            this.latestModified = modified;
+        }
+    }
+
+    static boolean isNull(final GnomeString raw) {
+        return raw.length() == 0 || raw.byteAt(0) == 'n';
+    }
+
+    static int intValue(final GnomeString raw) {
+        return (int) JsonValues.longValue(raw);
+    }
+
+    /**
+     * Parses an ISO-8601 UTC timestamp such as {@code "2024-01-31T12:00:00.000Z"} in place, deferring to
+     * {@link EpochMillisDeserializer} for any other shape. Null yields 0.
+     */
+    static long epochMillisValue(final GnomeString raw) {
+        if (isNull(raw)) {
+            return 0L;
+        }
+        final int length = raw.length();
+        // "YYYY-MM-DDTHH:MM:SS" is 19 characters, plus the surrounding quotes and a trailing 'Z'.
+        if (length >= 22 && raw.byteAt(length - 2) == 'Z' && raw.byteAt(5) == '-' && raw.byteAt(11) == 'T') {
+            final int year = digits(raw, 1, 4);
+            final int month = digits(raw, 6, 2);
+            final int day = digits(raw, 9, 2);
+            final int hour = digits(raw, 12, 2);
+            final int minute = digits(raw, 15, 2);
+            final int second = digits(raw, 18, 2);
+            int millis = 0;
+            if (raw.byteAt(20) == '.') {
+                final int fractionDigits = Math.min(3, length - 2 - 21);
+                millis = digits(raw, 21, fractionDigits);
+                for (int i = fractionDigits; i < 3; i++) {
+                    millis *= 10;
+                }
+            }
+            if (year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0 && second >= 0 && millis >= 0) {
+                return daysFromCivil(year, month, day) * 86_400_000L
+                        + hour * 3_600_000L
+                        + minute * 60_000L
+                        + second * 1_000L
+                        + millis;
+            }
+        }
+        return EpochMillisDeserializer.toEpochMillis(stringValueStatic(raw));
+    }
+
+    private static int digits(final GnomeString raw, final int offset, final int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            final byte b = raw.byteAt(i);
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date.
+     */
+    private static long daysFromCivil(final int year, final int month, final int day) {
+        final int y = month <= 2 ? year - 1 : year;
+        final int era = Math.floorDiv(y, 400);
+        final int yearOfEra = y - era * 400;
+        final int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - 719_468L;
+    }
+
+    /**
+     * Unquotes and unescapes a raw JSON string value. Null yields null.
+     */
+    String stringValue(final GnomeString raw) {
+        if (isNull(raw)) {
+            return null;
+        }
+        final int end = raw.length() - 1;
+        if (this.scratch.length < end) {
+            this.scratch = new byte[Math.max(end, this.scratch.length * 2)];
+        }
+        int length = 0;
+        for (int i = 1; i < end; i++) {
+            final byte b = raw.byteAt(i);
+            if (b != '\\') {
+                this.scratch[length++] = b;
+                continue;
+            }
+            final byte escaped = raw.byteAt(++i);
+            switch (escaped) {
+                case 'n' -> this.scratch[length++] = '\n';
+                case 't' -> this.scratch[length++] = '\t';
+                case 'r' -> this.scratch[length++] = '\r';
+                case 'b' -> this.scratch[length++] = '\b';
+                case 'f' -> this.scratch[length++] = '\f';
+                case 'u' -> {
+                    int codePoint = 0;
+                    for (int h = i + 1; h <= i + 4; h++) {
+                        codePoint = (codePoint << 4) | Character.digit((char) raw.byteAt(h), 16);
+                    }
+                    final byte[] encoded = String.valueOf((char) codePoint).getBytes(StandardCharsets.UTF_8);
+                    for (byte e : encoded) {
+                        this.scratch[length++] = e;
+                    }
+                    i += 4;
+                }
+                default -> this.scratch[length++] = escaped;
+            }
+        }
+        return new String(this.scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static String stringValueStatic(final GnomeString raw) {
+        final String text = raw.toString();
+        return text.length() >= 2 && text.charAt(0) == '"' ? text.substring(1, text.length() - 1) : text;
+    }
+
+    /**
+     * Carries an exception thrown by a consumer past the fallback handler.
+     */
+    private static final class ConsumerException extends RuntimeException {
+        private ConsumerException(final RuntimeException cause) {
+            super(cause);
+        }
+    }
+}
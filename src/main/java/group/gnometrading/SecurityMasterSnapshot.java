@@ -0,0 +1,321 @@
+package group.gnometrading;
+
+import group.gnometrading.schemas.SchemaType;
+import group.gnometrading.sm.AssetClass;
+import group.gnometrading.sm.ContractType;
+import group.gnometrading.sm.Exchange;
+import group.gnometrading.sm.Listing;
+import group.gnometrading.sm.ListingSpec;
+import group.gnometrading.sm.Security;
+import group.gnometrading.sm.SecurityType;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Versioned, fixed-layout binary image of the security master caches, read back through a memory-mapped buffer.
+ *
+ * <pre>
+ * header     magic, version, createdAtMillis, section counts, string pool offset
+ * exchanges  EXCHANGE_SIZE bytes each
+ * securities SECURITY_SIZE bytes each
+ * listings   LISTING_SIZE bytes each
+ * specs      LISTING_SPEC_SIZE bytes each
+ * strings    length-prefixed UTF-8, referenced by offset (-1 for null)
+ * </pre>
+ */
+final class SecurityMasterSnapshot {
+
+    static final int MAGIC = 0x47534D53; // "GSMS"
+    static final int VERSION = 3;
+
+    private static final int HEADER_SIZE = 40;
+    private static final int EXCHANGE_SIZE = 16;
+    private static final int SECURITY_SIZE = 48;
+    private static final int LISTING_SIZE = 24;
+    private static final int LISTING_SPEC_SIZE = 56;
+
+    private static final byte FLAG_INVERSE = 1;
+    private static final byte FLAG_QUANTO = 2;
+    private static final byte FLAG_ACTIVE = 4;
+
+    private SecurityMasterSnapshot() {}
+
+    static void write(
+            final Path path,
+            final List<Exchange> exchanges,
+            final List<Security> securities,
+            final List<Listing> listings,
+            final List<ListingSpec> listingSpecs) {
+        final StringPool strings = new StringPool();
+        final int recordsSize = exchanges.size() * EXCHANGE_SIZE
+                + securities.size() * SECURITY_SIZE
+                + listings.size() * LISTING_SIZE
+                + listingSpecs.size() * LISTING_SPEC_SIZE;
+        final ByteBuffer records = ByteBuffer.allocate(recordsSize).order(ByteOrder.LITTLE_ENDIAN);
+
+        for (Exchange exchange : exchanges) {
+            records.putInt(exchange.exchangeId());
+            records.putInt(strings.add(exchange.exchangeName()));
+            records.putInt(strings.add(exchange.region()));
+            records.putInt(strings.add(exchange.schemaType() == null ? null : exchange.schemaType().name()));
+        }
+        for (Security security : securities) {
+            final int start = records.position();
+            records.putInt(security.securityId());
+            records.putInt(strings.add(security.symbol()));
+            records.put(security.type() == null ? -1 : (byte) security.type().code());
+            records.put(security.contractType() == null ? -1 : (byte) security.contractType().code());
+            records.put(security.assetClass() == null ? -1 : (byte) security.assetClass().code());
+            records.put((byte) ((security.inverse() ? FLAG_INVERSE : 0)
+                    | (security.isQuanto() ? FLAG_QUANTO : 0)
+                    | (security.active() ? FLAG_ACTIVE : 0)));
+            records.putInt(strings.add(security.baseCurrency()));
+            records.putInt(strings.add(security.quoteCurrency()));
+            records.putInt(strings.add(security.settleCurrency()));
+            records.putLong(security.expiry());
+            records.putLong(security.strikePrice());
+            records.putInt(security.underlyingSecurityId());
+            records.position(start + SECURITY_SIZE);
+        }
+        for (Listing listing : listings) {
+            records.putInt(listing.listingId());
+            records.putInt(listing.exchange().exchangeId());
+            records.putInt(listing.security().securityId());
+            records.putInt(strings.add(listing.exchangeSecurityId()));
+            records.putInt(strings.add(listing.exchangeSecuritySymbol()));
+            records.putInt(listing.active() ? FLAG_ACTIVE : 0);
+        }
+        for (ListingSpec spec : listingSpecs) {
+            records.putInt(spec.listingId());
+            records.putInt(0);
+            records.putLong(spec.tickSize());
+            records.putLong(spec.lotSize());
+            records.putLong(spec.minNotional());
+            records.putLong(spec.contractMultiplier());
+            records.putLong(spec.version());
+            records.putLong(spec.recordedAt());
+        }
+
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putLong(System.currentTimeMillis());
+        header.putInt(exchanges.size());
+        header.putInt(securities.size());
+        header.putInt(listings.size());
+        header.putInt(listingSpecs.size());
+        header.putInt(HEADER_SIZE + recordsSize);
+        header.putInt(strings.size());
+
+        final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(
+                temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final ByteBuffer[] sections = {header.flip(), records.flip(), strings.buffer()};
+            final long total = HEADER_SIZE + recordsSize + strings.size();
+            long written = 0;
+            while (written < total) {
+                written += channel.write(sections);
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Nothing is handed to the consumers unless the whole file decodes, so a truncated or corrupt file leaves the
+     * caches untouched.
+     *
+     * @return false if the file is missing, was written with a different layout version or is truncated or corrupt
+     */
+    static boolean read(
+            final Path path,
+            final Consumer<Exchange> exchanges,
+            final Consumer<Security> securities,
+            final Consumer<SecurityMaster.ListingResponse> listings,
+            final Consumer<ListingSpec> listingSpecs) {
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+        final MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        final ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            return false;
+        }
+
+        final int exchangeCount = buffer.getInt(16);
+        final int securityCount = buffer.getInt(20);
+        final int listingCount = buffer.getInt(24);
+        final int listingSpecCount = buffer.getInt(28);
+        final int stringsOffset = buffer.getInt(32);
+        final int stringsSize = buffer.getInt(36);
+        if (exchangeCount < 0 || securityCount < 0 || listingCount < 0 || listingSpecCount < 0 || stringsSize < 0) {
+            return false;
+        }
+        final long recordsEnd = HEADER_SIZE
+                + (long) exchangeCount * EXCHANGE_SIZE
+                + (long) securityCount * SECURITY_SIZE
+                + (long) listingCount * LISTING_SIZE
+                + (long) listingSpecCount * LISTING_SPEC_SIZE;
+        if (recordsEnd != stringsOffset || (long) stringsOffset + stringsSize != buffer.capacity()) {
+            return false;
+        }
+
+        final List<Exchange> exchangeRecords = new ArrayList<>(exchangeCount);
+        final List<Security> securityRecords = new ArrayList<>(securityCount);
+        final List<SecurityMaster.ListingResponse> listingRecords = new ArrayList<>(listingCount);
+        final List<ListingSpec> listingSpecRecords = new ArrayList<>(listingSpecCount);
+        try {
+            readRecords(buffer, exchangeRecords, securityRecords, listingRecords, listingSpecRecords);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return false;
+        }
+        exchangeRecords.forEach(exchanges);
+        securityRecords.forEach(securities);
+        listingRecords.forEach(listings);
+        listingSpecRecords.forEach(listingSpecs);
+        return true;
+    }
+
+    /**
+     * Decodes every record, throwing {@link IllegalArgumentException} or {@link IndexOutOfBoundsException} for a
+     * string reference or enum code that does not fit the file.
+     */
+    private static void readRecords(
+            final ByteBuffer buffer,
+            final List<Exchange> exchanges,
+            final List<Security> securities,
+            final List<SecurityMaster.ListingResponse> listings,
+            final List<ListingSpec> listingSpecs) {
+        final int exchangeCount = buffer.getInt(16);
+        final int securityCount = buffer.getInt(20);
+        final int listingCount = buffer.getInt(24);
+        final int listingSpecCount = buffer.getInt(28);
+        final int stringsOffset = buffer.getInt(32);
+        int offset = HEADER_SIZE;
+        for (int i = 0; i < exchangeCount; i++, offset += EXCHANGE_SIZE) {
+            final String schemaType = readString(buffer, stringsOffset, buffer.getInt(offset + 12));
+            exchanges.add(new Exchange(
+                    buffer.getInt(offset),
+                    readString(buffer, stringsOffset, buffer.getInt(offset + 4)),
+                    readString(buffer, stringsOffset, buffer.getInt(offset + 8)),
+                    schemaType == null ? null : SchemaType.valueOf(schemaType)));
+        }
+        for (int i = 0; i < securityCount; i++, offset += SECURITY_SIZE) {
+            final byte type = buffer.get(offset + 8);
+            final byte contractType = buffer.get(offset + 9);
+            final byte assetClass = buffer.get(offset + 10);
+            final byte flags = buffer.get(offset + 11);
+            securities.add(new Security(
+                    buffer.getInt(offset),
+                    readString(buffer, stringsOffset, buffer.getInt(offset + 4)),
+                    type < 0 ? null : SecurityType.fromCode(type),
+                    contractType < 0 ? null : ContractType.fromCode(contractType),
+                    assetClass < 0 ? null : AssetClass.fromCode(assetClass),
+                    readString(buffer, stringsOffset, buffer.getInt(offset + 12)),
+                    readString(buffer, stringsOffset, buffer.getInt(offset + 16)),
+                    readString(buffer, stringsOffset, buffer.getInt(offset + 20)),
+                    (flags & FLAG_INVERSE) != 0,
+                    (flags & FLAG_QUANTO) != 0,
+                    buffer.getLong(offset + 24),
+                    buffer.getLong(offset + 32),
+                    (flags & FLAG_ACTIVE) != 0,
+                    buffer.getInt(offset + 40)));
+        }
+        for (int i = 0; i < listingCount; i++, offset += LISTING_SIZE) {
+            listings.add(new SecurityMaster.ListingResponse(
+                    buffer.getInt(offset),
+                    buffer.getInt(offset + 4),
+                    buffer.getInt(offset + 8),
+                    readString(buffer, stringsOffset, buffer.getInt(offset + 12)),
+                    readString(buffer, stringsOffset, buffer.getInt(offset + 16)),
+                    (buffer.getInt(offset + 20) & FLAG_ACTIVE) != 0));
+        }
+        for (int i = 0; i < listingSpecCount; i++, offset += LISTING_SPEC_SIZE) {
+            listingSpecs.add(new ListingSpec(
+                    buffer.getInt(offset),
+                    buffer.getLong(offset + 8),
+                    buffer.getLong(offset + 16),
+                    buffer.getLong(offset + 24),
+                    buffer.getLong(offset + 32),
+                    buffer.getLong(offset + 40),
+                    buffer.getLong(offset + 48)));
+        }
+    }
+
+    private static String readString(final ByteBuffer buffer, final int stringsOffset, final int ref) {
+        if (ref < 0) {
+            return null;
+        }
+        final int position = stringsOffset + ref;
+        final int length = buffer.getInt(position);
+        if (length < 0 || length > buffer.capacity() - position - 4) {
+            throw new IndexOutOfBoundsException("String at " + position + " overruns the snapshot");
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(position + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Deduplicating pool of length-prefixed UTF-8 strings.
+     */
+    private static final class StringPool {
+        private final Map<String, Integer> offsets = new HashMap<>();
+        private final List<byte[]> entries = new ArrayList<>();
+        private int size;
+
+        int add(final String value) {
+            if (value == null) {
+                return -1;
+            }
+            final Integer existing = this.offsets.get(value);
+            if (existing != null) {
+                return existing;
+            }
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            final int offset = this.size;
+            this.offsets.put(value, offset);
+            this.entries.add(bytes);
+            this.size += 4 + bytes.length;
+            return offset;
+        }
+
+        int size() {
+            return this.size;
+        }
+
+        ByteBuffer buffer() {
+            final ByteBuffer buffer = ByteBuffer.allocate(this.size).order(ByteOrder.LITTLE_ENDIAN);
+            for (byte[] entry : this.entries) {
+                buffer.putInt(entry.length);
+                buffer.put(entry);
+            }
+            return buffer.flip();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package group.gnometrading.arbitrage;
+
+import group.gnometrading.sm.ContractRelationship;
+import group.gnometrading.sm.RelationshipType;
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+
+/**
+ * Checks every EQUIVALENT pair for equal prices and every COMPLEMENT pair for prices summing to 1 in one pass over a
+ * caller-maintained price array. Each security in a checked pair owns a dense price slot; the caller writes the
+ * latest price (in dollars, so 0 to 1 for binary contracts) to {@code prices[slot(securityId)]} and leaves NaN for
+ * unquoted securities, whose pairs never report a violation.
+ *
+ * <pre>{@code
+ * final ArbitrageKernel kernel = ArbitrageKernel.build(securityMaster.getAllContractRelationships(), 0.9f);
+ * final double[] prices = kernel.newPriceArray();
+ * final int[] violations = new int[kernel.pairCount()];
+ * ...
+ * final int count = kernel.findViolations(prices, 0.02, violations);
+ * }</pre>
+ *
+ * <p>The Vector API implementation ships separately, in the optional {@code gnome-registry-vector} artifact, so
+ * this one compiles and runs without the incubator module. {@link #build} returns it when that jar is on the
+ * classpath and the JVM was started with {@code --add-modules jdk.incubator.vector}, and the scalar one otherwise.
+ * Both are immutable, safe to share between threads and allocation-free per call.
+ */
+public abstract class ArbitrageKernel {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNEL = "group.gnometrading.arbitrage.VectorArbitrageKernel";
+    // null unless both the incubator module and the gnome-registry-vector jar are present
+    private static final Constructor<? extends ArbitrageKernel> VECTOR_CONSTRUCTOR = findVectorConstructor();
+
+    final PairLayout layout;
+
+    ArbitrageKernel(final PairLayout layout) {
+        this.layout = layout;
+    }
+
+    /**
+     * @param minConfidence relationships with a lower confidence are not checked
+     */
+    public static ArbitrageKernel build(final ContractRelationship[] relationships, final float minConfidence) {
+        final PairLayout layout = PairLayout.build(relationships, minConfidence);
+        if (VECTOR_CONSTRUCTOR == null) {
+            return new ScalarArbitrageKernel(layout);
+        }
+        try {
+            return VECTOR_CONSTRUCTOR.newInstance(layout);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to create the vector kernel", e);
+        }
+    }
+
+    public static ArbitrageKernel scalar(final ContractRelationship[] relationships, final float minConfidence) {
+        return new ScalarArbitrageKernel(PairLayout.build(relationships, minConfidence));
+    }
+
+    /**
+     * @return true if {@link #build} returns the Vector API implementation in this JVM
+     */
+    public static boolean isVectorAvailable() {
+        return VECTOR_CONSTRUCTOR != null;
+    }
+
+    /**
+     * Looks the vector kernel up by name, so this class never links against the incubator module itself.
+     */
+    private static Constructor<? extends ArbitrageKernel> findVectorConstructor() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return null;
+        }
+        try {
+            return Class.forName(VECTOR_KERNEL, true, ArbitrageKernel.class.getClassLoader())
+                    .asSubclass(ArbitrageKernel.class)
+                    .getDeclaredConstructor(PairLayout.class);
+        } catch (ClassNotFoundException | NoSuchMethodException | LinkageError e) {
+            return null;
+        }
+    }
+
+    public abstract boolean isVectorized();
+
+    /**
+     * Writes the index of every pair whose mispricing exceeds {@code tolerance} in absolute value to
+     * {@code violations}, in ascending order.
+     *
+     * @param prices indexed by {@link #slot(int)}, at least {@link #securityCount()} long
+     * @param violations at least {@link #pairCount()} long
+     * @return the number of violating pairs written
+     */
+    public int findViolations(final double[] prices, final double tolerance, final int[] violations) {
+        if (prices.length < this.layout.securityIds.length) {
+            throw new IllegalArgumentException(
+                    "Price array holds " + prices.length + " slots, need " + this.layout.securityIds.length);
+        }
+        if (violations.length < this.layout.pairCount) {
+            throw new IllegalArgumentException(
+                    "Violation array holds " + violations.length + " pairs, need " + this.layout.pairCount);
+        }
+        return scan(prices, tolerance, violations);
+    }
+
+    abstract int scan(double[] prices, double tolerance, int[] violations);
+
+    /**
+     * @return how far the pair is from consistent: the price difference for EQUIVALENT pairs, the price sum minus 1
+     *     for COMPLEMENT pairs
+     */
+    public double mispricing(final int pair, final double[] prices) {
+        final PairLayout layout = this.layout;
+        return prices[layout.left[pair]] + layout.signs[pair] * prices[layout.right[pair]] - layout.targets[pair];
+    }
+
+    /**
+     * @return a price array sized for this kernel with every slot unquoted
+     */
+    public double[] newPriceArray() {
+        final double[] prices = new double[this.layout.securityIds.length];
+        Arrays.fill(prices, Double.NaN);
+        return prices;
+    }
+
+    public int pairCount() {
+        return this.layout.pairCount;
+    }
+
+    public int securityCount() {
+        return this.layout.securityIds.length;
+    }
+
+    /**
+     * @return the security's price slot, or -1 if it is in no checked pair
+     */
+    public int slot(final int securityId) {
+        if (securityId < 0 || securityId >= this.layout.slots.length) {
+            return -1;
+        }
+        return this.layout.slots[securityId] - 1;
+    }
+
+    public int securityId(final int slot) {
+        return this.layout.securityIds[slot];
+    }
+
+    /**
+     * @return {@code security_id_a} of the pair's relationship
+     */
+    public int leftSecurityId(final int pair) {
+        return this.layout.securityIds[this.layout.left[pair]];
+    }
+
+    /**
+     * @return {@code security_id_b} of the pair's relationship
+     */
+    public int rightSecurityId(final int pair) {
+        return this.layout.securityIds[this.layout.right[pair]];
+    }
+
+    public int relationshipId(final int pair) {
+        return this.layout.relationshipIds[pair];
+    }
+
+    public RelationshipType type(final int pair) {
+        return this.layout.signs[pair] > 0 ? RelationshipType.COMPLEMENT : RelationshipType.EQUIVALENT;
+    }
+}
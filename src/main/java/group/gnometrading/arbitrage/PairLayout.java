@@ -0,0 +1,96 @@
+package group.gnometrading.arbitrage;
+
+import group.gnometrading.sm.ContractRelationship;
+import group.gnometrading.sm.RelationshipType;
+import java.util.Arrays;
+
+/**
+ * Flat, pair-major layout of the EQUIVALENT and COMPLEMENT relationships a kernel checks. Pair {@code i} is
+ * consistent when {@code prices[left[i]] + signs[i] * prices[right[i]] - targets[i]} is within tolerance of zero:
+ * EQUIVALENT pairs use a sign of -1 and a target of 0, COMPLEMENT pairs a sign of 1 and a target of 1.
+ */
+final class PairLayout {
+
+    final int[] left;
+    final int[] right;
+    final double[] signs;
+    final double[] targets;
+    final int[] relationshipIds;
+    final int[] slots; // securityId -> price slot + 1, 0 when absent
+    final int[] securityIds;
+    final int pairCount;
+
+    private PairLayout(
+            final int[] left,
+            final int[] right,
+            final double[] signs,
+            final double[] targets,
+            final int[] relationshipIds,
+            final int[] slots,
+            final int[] securityIds) {
+        this.left = left;
+        this.right = right;
+        this.signs = signs;
+        this.targets = targets;
+        this.relationshipIds = relationshipIds;
+        this.slots = slots;
+        this.securityIds = securityIds;
+        this.pairCount = left.length;
+    }
+
+    static PairLayout build(final ContractRelationship[] relationships, final float minConfidence) {
+        int pairCount = 0;
+        int maxSecurityId = -1;
+        for (final ContractRelationship relationship : relationships) {
+            if (accepted(relationship, minConfidence)) {
+                pairCount++;
+                maxSecurityId = Math.max(maxSecurityId, relationship.securityIdA());
+                maxSecurityId = Math.max(maxSecurityId, relationship.securityIdB());
+            }
+        }
+
+        final int[] left = new int[pairCount];
+        final int[] right = new int[pairCount];
+        final double[] signs = new double[pairCount];
+        final double[] targets = new double[pairCount];
+        final int[] relationshipIds = new int[pairCount];
+        final int[] slots = new int[maxSecurityId + 1];
+        final int[] securityIds = new int[pairCount * 2];
+        int slotCount = 0;
+        int pair = 0;
+        for (final ContractRelationship relationship : relationships) {
+            if (!accepted(relationship, minConfidence)) {
+                continue;
+            }
+            slotCount = assignSlot(slots, securityIds, relationship.securityIdA(), slotCount);
+            slotCount = assignSlot(slots, securityIds, relationship.securityIdB(), slotCount);
+            final boolean complement =
+                    RelationshipType.fromName(relationship.relationshipType()) == RelationshipType.COMPLEMENT;
+            left[pair] = slots[relationship.securityIdA()] - 1;
+            right[pair] = slots[relationship.securityIdB()] - 1;
+            signs[pair] = complement ? 1.0 : -1.0;
+            targets[pair] = complement ? 1.0 : 0.0;
+            relationshipIds[pair++] = relationship.relationshipId();
+        }
+        return new PairLayout(
+                left, right, signs, targets, relationshipIds, slots, Arrays.copyOf(securityIds, slotCount));
+    }
+
+    private static boolean accepted(final ContractRelationship relationship, final float minConfidence) {
+        final RelationshipType type = RelationshipType.fromName(relationship.relationshipType());
+        return (type == RelationshipType.EQUIVALENT || type == RelationshipType.COMPLEMENT)
+                && relationship.confidence() >= minConfidence
+                && relationship.securityIdA() >= 0
+                && relationship.securityIdB() >= 0
+                && relationship.securityIdA() != relationship.securityIdB();
+    }
+
+    private static int assignSlot(final int[] slots, final int[] securityIds, final int securityId, final int count) {
+        if (slots[securityId] != 0) {
+            return count;
+        }
+        slots[securityId] = count + 1;
+        securityIds[count] = securityId;
+        return count + 1;
+    }
+}
@@ -0,0 +1,45 @@
+package group.gnometrading.arbitrage;
+
+final class ScalarArbitrageKernel extends ArbitrageKernel {
+
+    ScalarArbitrageKernel(final PairLayout layout) {
+        super(layout);
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return false;
+    }
+
+    @Override
+    int scan(final double[] prices, final double tolerance, final int[] violations) {
+        return scan(this.layout, prices, tolerance, violations, 0, 0);
+    }
+
+    /**
+     * Checks pairs {@code [from, pairCount)}, appending violations after the first {@code count}. Also finishes the
+     * tail the vector kernel leaves after its last full vector.
+     *
+     * @return the new violation count
+     */
+    static int scan(
+            final PairLayout layout,
+            final double[] prices,
+            final double tolerance,
+            final int[] violations,
+            final int from,
+            final int count) {
+        final int[] left = layout.left;
+        final int[] right = layout.right;
+        final double[] signs = layout.signs;
+        final double[] targets = layout.targets;
+        int written = count;
+        for (int pair = from; pair < layout.pairCount; pair++) {
+            final double mispricing = prices[left[pair]] + signs[pair] * prices[right[pair]] - targets[pair];
+            if (Math.abs(mispricing) > tolerance) {
+                violations[written++] = pair;
+            }
+        }
+        return written;
+    }
+}
@@ -0,0 +1,24 @@
+package group.gnometrading.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-writer counter: the owning thread updates it with plain arithmetic and an opaque store, so counting costs
+ * no more than an ordinary field write, while any thread may read a recent value.
+ */
+public final class Counter {
+
+    private final AtomicLong value = new AtomicLong();
+
+    public void increment() {
+        this.value.setOpaque(this.value.getPlain() + 1);
+    }
+
+    public void add(final long delta) {
+        this.value.setOpaque(this.value.getPlain() + delta);
+    }
+
+    public long get() {
+        return this.value.getOpaque();
+    }
+}
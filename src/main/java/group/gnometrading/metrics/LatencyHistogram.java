@@ -0,0 +1,71 @@
+package group.gnometrading.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with power-of-two buckets: bucket {@code i} counts values in
+ * {@code [2^(i-1), 2^i)} nanoseconds, bucket 0 counts zero. Recording is one atomic increment per bucket plus the
+ * running total and never allocates; any thread may record or read concurrently.
+ */
+public final class LatencyHistogram {
+
+    public static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    public void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+        this.buckets.incrementAndGet(bucket(value));
+        this.totalNanos.addAndGet(value);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += this.buckets.get(i);
+        }
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return this.totalNanos.get();
+    }
+
+    /**
+     * @return the upper bound of the bucket holding the given percentile (0-100), or 0 when empty
+     */
+    public long getValueAtPercentile(final double percentile) {
+        final long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.buckets.get(i);
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    /**
+     * Copies the bucket counts into {@code into}, which must hold {@link #BUCKETS} values.
+     */
+    public void copyBuckets(final long[] into) {
+        for (int i = 0; i < BUCKETS; i++) {
+            into[i] = this.buckets.get(i);
+        }
+    }
+
+    static int bucket(final long nanos) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+    }
+
+    static long upperBound(final int bucket) {
+        return bucket == 0 ? 0 : bucket >= 63 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+}
@@ -0,0 +1,14 @@
+package group.gnometrading.metrics;
+
+/**
+ * Receives metric values from a {@link MetricsSource}. Names are constants owned by the source, so sampling does
+ * not allocate.
+ */
+public interface MetricsSink {
+
+    void counter(String name, long value);
+
+    void gauge(String name, long value);
+
+    void histogram(String name, LatencyHistogram histogram);
+}
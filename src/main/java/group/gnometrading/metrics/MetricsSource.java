@@ -0,0 +1,9 @@
+package group.gnometrading.metrics;
+
+/**
+ * A component whose metrics can be sampled from a monitoring thread without locking or disturbing its owner.
+ */
+public interface MetricsSource {
+
+    void sampleMetrics(MetricsSink sink);
+}
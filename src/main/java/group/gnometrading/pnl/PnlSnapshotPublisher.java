@@ -0,0 +1,380 @@
+package group.gnometrading.pnl;
+
+import group.gnometrading.RegistryConnection;
+import group.gnometrading.strings.ViewString;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Publishes PnL snapshots to the registry in batches.
+ *
+ * <p>The trading thread calls {@link #offer} to copy primitive snapshot fields into a pre-allocated single-producer,
+ * single-consumer ring. A flusher thread encodes up to {@code batchSize} snapshots into a reusable JSON buffer and
+ * posts them as one array, once a full batch is waiting or {@code flushIntervalMillis} has passed. Backpressure is
+ * bounded: when the ring is full {@link #offer} drops the snapshot and returns false rather than blocking. Neither
+ * side allocates after construction.
+ *
+ * <p>Exactly one thread may call {@link #offer}.
+ */
+public final class PnlSnapshotPublisher implements AutoCloseable {
+
+    private static final ViewString PNL_SNAPSHOTS_ENDPOINT = new ViewString("/api/pnl/snapshots");
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final int DEFAULT_BATCH_SIZE = 256;
+    private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1_000;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long RETRY_BACKOFF_MILLIS = 1_000;
+    private static final int MAX_DRAIN_ATTEMPTS = 3;
+    // keys and punctuation, five 20-digit longs, two 11-digit ints and a 30-byte double, rounded up
+    private static final int SNAPSHOT_JSON_BYTES = 384;
+    private static final long FRACTION_SCALE = 1_000_000_000L;
+    private static final int FRACTION_DIGITS = 9;
+
+    private final RegistryConnection registryConnection;
+    private final byte[] sessionId;
+    private final int mask;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+
+    private final int[] strategyIds;
+    private final int[] listingIds;
+    private final long[] netQuantities;
+    private final long[] avgEntryPrices;
+    private final double[] realizedPnls;
+    private final long[] totalFees;
+    private final long[] leavesBuyQuantities;
+    private final long[] leavesSellQuantities;
+
+    // head is only written by the producer and tail only by the flusher
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+
+    // only touched by the flusher thread
+    private final byte[] body;
+    private final byte[] digits = new byte[20];
+    private int bodyLength;
+    private int pendingCount;
+    private long lastFlushMillis;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public PnlSnapshotPublisher(final RegistryConnection registryConnection, final String sessionId) {
+        this(registryConnection, sessionId, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param sessionId strategy session every snapshot belongs to, or null
+     * @param capacity ring size, rounded up to a power of two
+     * @param batchSize most snapshots posted in one request
+     * @param flushIntervalMillis longest a snapshot waits for its batch to fill
+     */
+    public PnlSnapshotPublisher(
+            final RegistryConnection registryConnection,
+            final String sessionId,
+            final int capacity,
+            final int batchSize,
+            final long flushIntervalMillis) {
+        if (capacity <= 0 || capacity > 1 << 30 || batchSize <= 0) {
+            throw new IllegalArgumentException("Invalid capacity " + capacity + " or batch size " + batchSize);
+        }
+        final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.registryConnection = registryConnection;
+        this.sessionId = sessionId == null ? null : sessionId.getBytes(StandardCharsets.UTF_8);
+        this.mask = size - 1;
+        this.batchSize = Math.min(batchSize, size);
+        this.flushIntervalMillis = flushIntervalMillis;
+
+        this.strategyIds = new int[size];
+        this.listingIds = new int[size];
+        this.netQuantities = new long[size];
+        this.avgEntryPrices = new long[size];
+        this.realizedPnls = new double[size];
+        this.totalFees = new long[size];
+        this.leavesBuyQuantities = new long[size];
+        this.leavesSellQuantities = new long[size];
+
+        // session ids are escaped at most two bytes per byte
+        final int sessionBytes = this.sessionId == null ? 0 : 2 * this.sessionId.length;
+        this.body = new byte[2 + this.batchSize * (SNAPSHOT_JSON_BYTES + sessionBytes)];
+    }
+
+    /**
+     * Queues a snapshot. Never blocks and never allocates.
+     *
+     * @return false if the ring was full and the snapshot was dropped
+     */
+    public boolean offer(
+            final int strategyId,
+            final int listingId,
+            final long netQuantity,
+            final long avgEntryPrice,
+            final double realizedPnl,
+            final long totalFees,
+            final long leavesBuyQuantity,
+            final long leavesSellQuantity) {
+        final long position = this.head.get();
+        if (position - this.tail.getAcquire() > this.mask) {
+            this.dropped.incrementAndGet();
+            return false;
+        }
+        final int slot = (int) position & this.mask;
+        this.strategyIds[slot] = strategyId;
+        this.listingIds[slot] = listingId;
+        this.netQuantities[slot] = netQuantity;
+        this.avgEntryPrices[slot] = avgEntryPrice;
+        this.realizedPnls[slot] = realizedPnl;
+        this.totalFees[slot] = totalFees;
+        this.leavesBuyQuantities[slot] = leavesBuyQuantity;
+        this.leavesSellQuantities[slot] = leavesSellQuantity;
+        this.head.setRelease(position + 1);
+        return true;
+    }
+
+    /**
+     * Starts the flusher thread. Does nothing if already running.
+     */
+    public synchronized void start() {
+        if (this.running) {
+            return;
+        }
+        this.running = true;
+        this.lastFlushMillis = System.currentTimeMillis();
+        this.flusher = new Thread(this::run, "pnl-snapshot-publisher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Stops the flusher after it posts whatever is still queued. Each batch of the final drain is tried up to
+     * {@value #MAX_DRAIN_ATTEMPTS} times, backing off between attempts; snapshots still unposted after that are
+     * added to {@link #getDroppedCount()}. Waits for the drain even if interrupted, then restores the interrupt.
+     */
+    @Override
+    public synchronized void close() {
+        if (!this.running) {
+            return;
+        }
+        this.running = false;
+        LockSupport.unpark(this.flusher);
+        boolean interrupted = false;
+        while (true) {
+            try {
+                this.flusher.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        this.flusher = null;
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    public long getPublishedCount() {
+        return this.published.get();
+    }
+
+    public long getFailedFlushCount() {
+        return this.failedFlushes.get();
+    }
+
+    private void run() {
+        while (this.running) {
+            if (!flush(System.currentTimeMillis(), false)) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        drain(MAX_DRAIN_ATTEMPTS, RETRY_BACKOFF_MILLIS);
+    }
+
+    /**
+     * Posts everything queued, trying each batch up to {@code maxAttempts} times with {@code backoffMillis} between
+     * attempts. Gives up on the first batch that exhausts its attempts and counts it and everything behind it as
+     * dropped.
+     *
+     * @return the number of snapshots dropped
+     */
+    long drain(final int maxAttempts, final long backoffMillis) {
+        int failures = 0;
+        while (true) {
+            if (flush(System.currentTimeMillis(), true)) {
+                failures = 0;
+            } else if (this.pendingCount == 0) {
+                return 0;
+            } else if (++failures < maxAttempts) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoffMillis));
+            } else {
+                break;
+            }
+        }
+        final long head = this.head.getAcquire();
+        final long undrained = this.pendingCount + head - this.tail.get();
+        this.pendingCount = 0;
+        this.tail.setRelease(head);
+        this.dropped.addAndGet(undrained);
+        return undrained;
+    }
+
+    /**
+     * Encodes and posts one batch if a full batch is waiting, the flush interval has passed, or {@code force} is
+     * set. A batch that fails to post is kept and retried after a back-off, while new snapshots wait in the ring.
+     *
+     * @return true if a batch was posted
+     */
+    boolean flush(final long nowMillis, final boolean force) {
+        if (this.pendingCount == 0) {
+            final long available = this.head.getAcquire() - this.tail.get();
+            if (available == 0) {
+                this.lastFlushMillis = nowMillis;
+                return false;
+            }
+            if (!force && available < this.batchSize && nowMillis - this.lastFlushMillis < this.flushIntervalMillis) {
+                return false;
+            }
+            encodeBatch((int) Math.min(available, this.batchSize));
+        } else if (!force && nowMillis - this.lastFlushMillis < RETRY_BACKOFF_MILLIS) {
+            return false;
+        }
+
+        this.lastFlushMillis = nowMillis;
+        try {
+            this.registryConnection.post(PNL_SNAPSHOTS_ENDPOINT, this.body, this.bodyLength);
+        } catch (RuntimeException e) {
+            this.failedFlushes.incrementAndGet();
+            return false;
+        }
+        this.published.addAndGet(this.pendingCount);
+        this.pendingCount = 0;
+        return true;
+    }
+
+    /**
+     * Encodes the oldest {@code count} snapshots and frees their slots, so producers can refill them while the
+     * batch is posted.
+     */
+    private void encodeBatch(final int count) {
+        final long start = this.tail.get();
+        this.bodyLength = 0;
+        put((byte) '[');
+        for (int i = 0; i < count; i++) {
+            final int slot = (int) (start + i) & this.mask;
+            if (i > 0) {
+                put((byte) ',');
+            }
+            putKey("{\"strategyId\":");
+            putLong(this.strategyIds[slot]);
+            putKey(",\"listingId\":");
+            putLong(this.listingIds[slot]);
+            putKey(",\"netQuantity\":");
+            putLong(this.netQuantities[slot]);
+            putKey(",\"avgEntryPrice\":");
+            putLong(this.avgEntryPrices[slot]);
+            putKey(",\"realizedPnl\":");
+            putDouble(this.realizedPnls[slot]);
+            putKey(",\"totalFees\":");
+            putLong(this.totalFees[slot]);
+            putKey(",\"leavesBuyQty\":");
+            putLong(this.leavesBuyQuantities[slot]);
+            putKey(",\"leavesSellQty\":");
+            putLong(this.leavesSellQuantities[slot]);
+            if (this.sessionId != null) {
+                putKey(",\"sessionId\":\"");
+                for (final byte b : this.sessionId) {
+                    if (b == '"' || b == '\\') {
+                        put((byte) '\\');
+                    }
+                    put(b);
+                }
+                put((byte) '"');
+            }
+            put((byte) '}');
+        }
+        put((byte) ']');
+        this.pendingCount = count;
+        this.tail.setRelease(start + count);
+    }
+
+    private void put(final byte b) {
+        this.body[this.bodyLength++] = b;
+    }
+
+    private void putKey(final String key) {
+        for (int i = 0; i < key.length(); i++) {
+            put((byte) key.charAt(i));
+        }
+    }
+
+    private void putLong(final long value) {
+        if (value == Long.MIN_VALUE) {
+            putKey("-9223372036854775808");
+            return;
+        }
+        long remaining = value;
+        if (remaining < 0) {
+            put((byte) '-');
+            remaining = -remaining;
+        }
+        int length = 0;
+        do {
+            this.digits[length++] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining > 0);
+        while (length > 0) {
+            put(this.digits[--length]);
+        }
+    }
+
+    /**
+     * Writes the value with up to nine decimal places, trailing zeros trimmed. Non-finite values are written as 0,
+     * since JSON has no representation for them.
+     */
+    private void putDouble(final double value) {
+        if (!Double.isFinite(value) || Math.abs(value) >= Long.MAX_VALUE) {
+            put((byte) '0');
+            return;
+        }
+        final double magnitude = Math.abs(value);
+        long whole = (long) magnitude;
+        long fraction = Math.round((magnitude - whole) * FRACTION_SCALE);
+        if (fraction >= FRACTION_SCALE) {
+            whole++;
+            fraction -= FRACTION_SCALE;
+        }
+        if (value < 0 && (whole != 0 || fraction != 0)) {
+            put((byte) '-');
+        }
+        putLong(whole);
+        if (fraction == 0) {
+            return;
+        }
+        int scale = FRACTION_DIGITS;
+        while (fraction % 10 == 0) {
+            fraction /= 10;
+            scale--;
+        }
+        put((byte) '.');
+        for (long divisor = pow10(scale - 1); divisor > 0; divisor /= 10) {
+            put((byte) ('0' + (fraction / divisor) % 10));
+        }
+    }
+
+    private static long pow10(final int exponent) {
+        long value = 1;
+        for (int i = 0; i < exponent; i++) {
+            value *= 10;
+        }
+        return value;
+    }
+}
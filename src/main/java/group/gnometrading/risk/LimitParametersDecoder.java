@@ -0,0 +1,40 @@
+package group.gnometrading.risk;
+
+import group.gnometrading.codecs.json.JsonDecoder;
+
+/**
+ * Decodes the limit parameters shared by the built-in policy types. Unknown keys are ignored, and a limit that is
+ * not an integer fails the refresh, see {@link LimitValues}.
+ */
+final class LimitParametersDecoder implements PolicyParametersDecoder {
+
+    static final LimitParametersDecoder INSTANCE = new LimitParametersDecoder();
+
+    private LimitParametersDecoder() {}
+
+    @Override
+    @SuppressWarnings("checkstyle:NestedTryDepth")
+    public void decode(final JsonDecoder.JsonNode parameters, final RiskPolicyRecord record) {
+        try (var object = parameters.asObject()) {
+            while (object.hasNextKey()) {
+                try (var key = object.nextKey()) {
+                    if (key.getName().equals("max_position")) {
+                        record.maxPosition = LimitValues.longValue(key.asRawJson());
+                    } else if (key.getName().equals("max_notional")) {
+                        record.maxNotional = LimitValues.longValue(key.asRawJson());
+                    } else if (key.getName().equals("max_order_size")) {
+                        record.maxOrderSize = LimitValues.longValue(key.asRawJson());
+                    } else if (key.getName().equals("max_orders")) {
+                        record.maxOrders = (int) LimitValues.longValue(key.asRawJson());
+                    } else if (key.getName().equals("window_millis")) {
+                        record.windowMillis = LimitValues.longValue(key.asRawJson());
+                    } else if (key.getName().equals("reduce_only")) {
+                        if (LimitValues.booleanValue(key.asRawJson())) {
+                            record.flags |= RiskPolicyRecord.FLAG_REDUCE_ONLY;
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package group.gnometrading.risk;
+
+import group.gnometrading.strings.GnomeString;
+
+/**
+ * Parses limit parameter values in place from the raw bytes {@link group.gnometrading.codecs.json.JsonDecoder}
+ * exposes, without allocating. Limits are integral, but the policy editor may write them in any JSON number form,
+ * so fractional and exponent forms are accepted as long as they denote an integer exactly, e.g. {@code 1e6} or
+ * {@code 2.0}. Anything else, e.g. {@code 2.5}, is rejected rather than truncated, failing the refresh so the
+ * published policies stay in force.
+ */
+final class LimitValues {
+
+    private static final long[] POWERS_OF_TEN = {
+        1L,
+        10L,
+        100L,
+        1_000L,
+        10_000L,
+        100_000L,
+        1_000_000L,
+        10_000_000L,
+        100_000_000L,
+        1_000_000_000L,
+        10_000_000_000L,
+        100_000_000_000L,
+        1_000_000_000_000L,
+        10_000_000_000_000L,
+        100_000_000_000_000L,
+        1_000_000_000_000_000L,
+        10_000_000_000_000_000L,
+        100_000_000_000_000_000L,
+        1_000_000_000_000_000_000L
+    };
+
+    private LimitValues() {}
+
+    /**
+     * Parses an integral JSON number. Null yields 0, and quoted numbers are accepted like bare ones.
+     *
+     * @throws IllegalArgumentException if the value is not a number, is not an integer or does not fit in a long
+     */
+    static long longValue(final GnomeString raw) {
+        if (raw.length() == 0 || raw.byteAt(0) == 'n') {
+            return 0L;
+        }
+        try {
+            return parse(raw);
+        } catch (ArithmeticException e) {
+            throw invalid(raw);
+        }
+    }
+
+    /**
+     * @return true for a JSON {@code true}, false for anything else including null
+     */
+    static boolean booleanValue(final GnomeString raw) {
+        return raw.length() > 0 && raw.byteAt(0) == 't';
+    }
+
+    private static long parse(final GnomeString raw) {
+        final boolean quoted = raw.byteAt(0) == '"';
+        int index = quoted ? 1 : 0;
+        final int end = quoted ? raw.length() - 1 : raw.length();
+
+        final boolean negative = index < end && raw.byteAt(index) == '-';
+        if (negative) {
+            index++;
+        }
+        long mantissa = 0;
+        int scale = 0;
+        int pendingZeros = 0;
+        final int integerStart = index;
+        for (; index < end && isDigit(raw.byteAt(index)); index++) {
+            mantissa = appendDigit(mantissa, raw.byteAt(index));
+        }
+        if (index == integerStart) {
+            throw invalid(raw);
+        }
+        if (index < end && raw.byteAt(index) == '.') {
+            final int fractionStart = ++index;
+            for (; index < end && isDigit(raw.byteAt(index)); index++) {
+                // trailing zeros of the fraction do not change the value, so only fold them in before a later digit
+                if (raw.byteAt(index) == '0') {
+                    pendingZeros++;
+                    continue;
+                }
+                for (; pendingZeros > 0; pendingZeros--) {
+                    mantissa = appendDigit(mantissa, (byte) '0');
+                    scale--;
+                }
+                mantissa = appendDigit(mantissa, raw.byteAt(index));
+                scale--;
+            }
+            if (index == fractionStart) {
+                throw invalid(raw);
+            }
+        }
+        if (index < end && (raw.byteAt(index) == 'e' || raw.byteAt(index) == 'E')) {
+            index++;
+            final boolean negativeExponent = index < end && raw.byteAt(index) == '-';
+            if (index < end && (raw.byteAt(index) == '-' || raw.byteAt(index) == '+')) {
+                index++;
+            }
+            final int exponentStart = index;
+            int exponent = 0;
+            for (; index < end && isDigit(raw.byteAt(index)); index++) {
+                exponent = Math.min(exponent * 10 + (raw.byteAt(index) - '0'), POWERS_OF_TEN.length * 2);
+            }
+            if (index == exponentStart) {
+                throw invalid(raw);
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        if (index != end) {
+            throw invalid(raw);
+        }
+
+        if (mantissa != 0 && scale > 0) {
+            if (scale >= POWERS_OF_TEN.length) {
+                throw invalid(raw);
+            }
+            mantissa = Math.multiplyExact(mantissa, POWERS_OF_TEN[scale]);
+        } else if (mantissa != 0 && scale < 0) {
+            if (-scale >= POWERS_OF_TEN.length || mantissa % POWERS_OF_TEN[-scale] != 0) {
+                throw invalid(raw);
+            }
+            mantissa /= POWERS_OF_TEN[-scale];
+        }
+        return negative ? -mantissa : mantissa;
+    }
+
+    private static boolean isDigit(final byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static long appendDigit(final long value, final byte digit) {
+        return Math.addExact(Math.multiplyExact(value, 10), digit - '0');
+    }
+
+    private static IllegalArgumentException invalid(final GnomeString raw) {
+        return new IllegalArgumentException("Not an integral limit: " + raw);
+    }
+}
@@ -0,0 +1,77 @@
+package group.gnometrading.risk;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Caller-owned iterator over the policies applying to one strategy and listing, filled by
+ * {@link RiskMaster#policiesFor(int, int, PolicyCursor)}. Reusable and allocation-free; one per thread.
+ *
+ * <p>The records stay intact until two further policy sets have been published; the next refresh after that may
+ * recycle their set. A caller holding the cursor across refreshes checks {@link #isValid()} after reading through
+ * it and re-fills it from {@code policiesFor} if that returns false.
+ */
+public final class PolicyCursor {
+
+    private final int[] slots;
+    private PolicySet set;
+    private RiskPolicyRecord[] records;
+    private long generation;
+    private int size;
+    private int position;
+
+    public PolicyCursor() {
+        this.slots = new int[RiskMaster.MAX_POLICIES];
+    }
+
+    void reset(final PolicySet set, final long generation, final int size) {
+        this.set = set;
+        this.records = set.records;
+        this.generation = generation;
+        this.size = size;
+        this.position = 0;
+    }
+
+    int[] slots() {
+        return this.slots;
+    }
+
+    public boolean hasNext() {
+        return this.position < this.size;
+    }
+
+    public RiskPolicyRecord next() {
+        return this.records[this.slots[this.position++]];
+    }
+
+    /**
+     * @return the generation of the policy set the cursor was filled from
+     */
+    public long generation() {
+        return this.generation;
+    }
+
+    /**
+     * @return true if the set the cursor was filled from has not started being recycled, so every record read
+     *     through it so far was intact; false before the cursor is first filled
+     */
+    public boolean isValid() {
+        final PolicySet current = this.set;
+        if (current == null) {
+            return false;
+        }
+        // keep the record reads above from moving past the generation check
+        VarHandle.loadLoadFence();
+        return current.generation == this.generation;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return the {@code index}th matching policy, without moving the cursor
+     */
+    public RiskPolicyRecord get(final int index) {
+        return this.records[this.slots[index]];
+    }
+}
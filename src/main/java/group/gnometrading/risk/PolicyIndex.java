@@ -0,0 +1,171 @@
+package group.gnometrading.risk;
+
+/**
+ * Record slots grouped by the scope they apply to, rebuilt after every refresh into pre-allocated arrays.
+ * Strategy and listing groups are stored CSR-style: sorted keys, each owning the range
+ * {@code [starts[i], starts[i + 1])} of a flat slot array.
+ */
+final class PolicyIndex {
+
+    private final int[] global;
+    private int globalCount;
+
+    private final int[] strategyKeys;
+    private final int[] strategyStarts;
+    private final int[] strategySlots;
+    private int strategyKeyCount;
+
+    private final long[] listingKeys;
+    private final int[] listingStarts;
+    private final int[] listingSlots;
+    private int listingKeyCount;
+
+    PolicyIndex(final int capacity) {
+        this.global = new int[capacity];
+        this.strategyKeys = new int[capacity];
+        this.strategyStarts = new int[capacity + 1];
+        this.strategySlots = new int[capacity];
+        this.listingKeys = new long[capacity];
+        this.listingStarts = new int[capacity + 1];
+        this.listingSlots = new int[capacity];
+    }
+
+    void build(final RiskPolicyRecord[] records, final int count) {
+        this.globalCount = 0;
+        int strategyCount = 0;
+        int listingCount = 0;
+        for (int slot = 0; slot < count; slot++) {
+            final RiskPolicyRecord record = records[slot];
+            if (record.scope == PolicyScope.GLOBAL) {
+                this.global[this.globalCount++] = slot;
+            } else if (record.scope == PolicyScope.STRATEGY) {
+                this.strategySlots[strategyCount++] = slot;
+            } else if (record.scope == PolicyScope.LISTING) {
+                this.listingSlots[listingCount++] = slot;
+            }
+        }
+
+        sortByStrategy(records, strategyCount);
+        this.strategyKeyCount = 0;
+        for (int i = 0; i < strategyCount; i++) {
+            final int key = records[this.strategySlots[i]].strategyId;
+            if (this.strategyKeyCount == 0 || this.strategyKeys[this.strategyKeyCount - 1] != key) {
+                this.strategyKeys[this.strategyKeyCount] = key;
+                this.strategyStarts[this.strategyKeyCount++] = i;
+            }
+        }
+        this.strategyStarts[this.strategyKeyCount] = strategyCount;
+
+        sortByListing(records, listingCount);
+        this.listingKeyCount = 0;
+        for (int i = 0; i < listingCount; i++) {
+            final long key = listingKey(records[this.listingSlots[i]]);
+            if (this.listingKeyCount == 0 || this.listingKeys[this.listingKeyCount - 1] != key) {
+                this.listingKeys[this.listingKeyCount] = key;
+                this.listingStarts[this.listingKeyCount++] = i;
+            }
+        }
+        this.listingStarts[this.listingKeyCount] = listingCount;
+    }
+
+    /**
+     * Appends the slots of every policy applying to the strategy on the listing: global policies, the strategy's
+     * policies, and listing policies for that strategy or for all strategies (no strategy id).
+     *
+     * @return the number of slots written to {@code into}
+     */
+    int collect(final int strategyId, final int listingId, final int[] into) {
+        System.arraycopy(this.global, 0, into, 0, this.globalCount);
+        int size = this.globalCount;
+
+        final int strategy = find(this.strategyKeys, this.strategyKeyCount, strategyId);
+        if (strategy >= 0) {
+            size = append(this.strategySlots, this.strategyStarts, strategy, into, size);
+        }
+        final int listing = find(this.listingKeys, this.listingKeyCount, pack(strategyId, listingId));
+        if (listing >= 0) {
+            size = append(this.listingSlots, this.listingStarts, listing, into, size);
+        }
+        if (strategyId != 0) {
+            final int anyStrategy = find(this.listingKeys, this.listingKeyCount, pack(0, listingId));
+            if (anyStrategy >= 0) {
+                size = append(this.listingSlots, this.listingStarts, anyStrategy, into, size);
+            }
+        }
+        return size;
+    }
+
+    private static int append(final int[] slots, final int[] starts, final int key, final int[] into, final int size) {
+        final int length = starts[key + 1] - starts[key];
+        System.arraycopy(slots, starts[key], into, size, length);
+        return size + length;
+    }
+
+    private void sortByStrategy(final RiskPolicyRecord[] records, final int count) {
+        for (int i = 1; i < count; i++) {
+            final int slot = this.strategySlots[i];
+            final int key = records[slot].strategyId;
+            int j = i - 1;
+            while (j >= 0 && records[this.strategySlots[j]].strategyId > key) {
+                this.strategySlots[j + 1] = this.strategySlots[j];
+                j--;
+            }
+            this.strategySlots[j + 1] = slot;
+        }
+    }
+
+    private void sortByListing(final RiskPolicyRecord[] records, final int count) {
+        for (int i = 1; i < count; i++) {
+            final int slot = this.listingSlots[i];
+            final long key = listingKey(records[slot]);
+            int j = i - 1;
+            while (j >= 0 && listingKey(records[this.listingSlots[j]]) > key) {
+                this.listingSlots[j + 1] = this.listingSlots[j];
+                j--;
+            }
+            this.listingSlots[j + 1] = slot;
+        }
+    }
+
+    private static long listingKey(final RiskPolicyRecord record) {
+        return pack(record.strategyId, record.listingId);
+    }
+
+    private static long pack(final int strategyId, final int listingId) {
+        return ((long) strategyId << 32) | (listingId & 0xFFFFFFFFL);
+    }
+
+    private static int find(final int[] keys, final int count, final int key) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int value = keys[mid];
+            if (value < key) {
+                low = mid + 1;
+            } else if (value > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static int find(final long[] keys, final int count, final long key) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final long value = keys[mid];
+            if (value < key) {
+                low = mid + 1;
+            } else if (value > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+}
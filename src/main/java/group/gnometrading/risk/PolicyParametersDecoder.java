@@ -0,0 +1,15 @@
+package group.gnometrading.risk;
+
+import group.gnometrading.codecs.json.JsonDecoder;
+
+/**
+ * Decodes the {@code parameters} object of one policy type into the primitive slots of a {@link RiskPolicyRecord}.
+ * Runs once per record during {@link RiskMaster#refresh()}, after the slots have been zeroed, and must not allocate,
+ * so scalar values are best parsed in place from each key's raw JSON. Throwing fails the whole refresh and leaves
+ * the published policies in force.
+ */
+@FunctionalInterface
+public interface PolicyParametersDecoder {
+
+    void decode(JsonDecoder.JsonNode parameters, RiskPolicyRecord record);
+}
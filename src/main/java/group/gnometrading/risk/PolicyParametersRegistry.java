@@ -0,0 +1,54 @@
+package group.gnometrading.risk;
+
+import group.gnometrading.strings.GnomeString;
+
+/**
+ * Maps a policy type to the {@link PolicyParametersDecoder} for its parameters. Types without a decoder keep only
+ * {@link RiskPolicyRecord#parametersJson}. Register everything before handing the registry to {@link RiskMaster}.
+ */
+public final class PolicyParametersRegistry {
+
+    private static final int MAX_TYPES = 32;
+
+    private final String[] types = new String[MAX_TYPES];
+    private final PolicyParametersDecoder[] decoders = new PolicyParametersDecoder[MAX_TYPES];
+    private int size;
+
+    /**
+     * @return a registry with decoders for the built-in limit policy types
+     */
+    public static PolicyParametersRegistry defaults() {
+        return new PolicyParametersRegistry()
+                .register(RiskChecks.MAX_POSITION, LimitParametersDecoder.INSTANCE)
+                .register(RiskChecks.MAX_NOTIONAL, LimitParametersDecoder.INSTANCE)
+                .register(RiskChecks.MAX_ORDER_SIZE, LimitParametersDecoder.INSTANCE)
+                .register(RiskChecks.ORDER_RATE, LimitParametersDecoder.INSTANCE);
+    }
+
+    public PolicyParametersRegistry register(final String policyType, final PolicyParametersDecoder decoder) {
+        for (int i = 0; i < this.size; i++) {
+            if (this.types[i].equals(policyType)) {
+                this.decoders[i] = decoder;
+                return this;
+            }
+        }
+        if (this.size == MAX_TYPES) {
+            throw new IllegalStateException("Too many policy types registered: " + MAX_TYPES);
+        }
+        this.types[this.size] = policyType;
+        this.decoders[this.size++] = decoder;
+        return this;
+    }
+
+    /**
+     * @return the decoder registered for the policy type, or null
+     */
+    PolicyParametersDecoder find(final GnomeString policyType) {
+        for (int i = 0; i < this.size; i++) {
+            if (policyType.equals(this.types[i])) {
+                return this.decoders[i];
+            }
+        }
+        return null;
+    }
+}
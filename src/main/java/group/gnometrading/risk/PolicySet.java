@@ -0,0 +1,26 @@
+package group.gnometrading.risk;
+
+/**
+ * One complete, immutable-once-published set of policies: the records, their scope index and the generation they
+ * were published under. {@link RiskMaster} rotates through three of these so a refresh never writes to the set
+ * readers are on, nor to the one they may have just left. Before a set is refilled its generation is set to
+ * {@link #RECYCLING}, so a {@link PolicyCursor} still holding it can tell its records are no longer the ones it
+ * was filled from.
+ */
+final class PolicySet {
+
+    static final long RECYCLING = -1L;
+
+    final RiskPolicyRecord[] records;
+    final PolicyIndex index;
+    int count;
+    volatile long generation;
+
+    PolicySet(final int capacity) {
+        this.records = new RiskPolicyRecord[capacity];
+        for (int i = 0; i < capacity; i++) {
+            this.records[i] = new RiskPolicyRecord();
+        }
+        this.index = new PolicyIndex(capacity);
+    }
+}
@@ -0,0 +1,36 @@
+package group.gnometrading.risk;
+
+/**
+ * One compiled policy. Checks are shared by every strategy and listing the policy applies to, so stateful checks
+ * such as order rates limit the policy's whole scope.
+ */
+abstract class RiskCheck {
+
+    final int policyId;
+    final String policyType;
+    // RiskMaster generation this check was last compiled under, and the policy's own generation at the time
+    long generation;
+    long policyGeneration;
+
+    RiskCheck(final int policyId, final String policyType) {
+        this.policyId = policyId;
+        this.policyType = policyType;
+    }
+
+    /**
+     * @param quantity signed order quantity, positive for buys
+     * @param price order price in scaled units
+     * @param position signed position before the order
+     */
+    abstract RiskDecision check(long quantity, long price, long position, long nowMillis);
+
+    /**
+     * Called once every check of the order has accepted it.
+     */
+    void onAccepted(final long nowMillis) {}
+
+    /**
+     * @return true if this check can keep serving the record after a refresh without losing state
+     */
+    abstract boolean sameParameters(RiskPolicyRecord record);
+}
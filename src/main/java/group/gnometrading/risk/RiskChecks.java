@@ -0,0 +1,181 @@
+package group.gnometrading.risk;
+
+/**
+ * The built-in checks, compiled from the typed fields {@link PolicyParametersDecoder}s fill on each record.
+ */
+final class RiskChecks {
+
+    static final String KILL_SWITCH = "KILL_SWITCH";
+    static final String MAX_POSITION = "MAX_POSITION";
+    static final String MAX_NOTIONAL = "MAX_NOTIONAL";
+    static final String MAX_ORDER_SIZE = "MAX_ORDER_SIZE";
+    static final String ORDER_RATE = "ORDER_RATE";
+
+    private RiskChecks() {}
+
+    /**
+     * @return the check enforcing the record, or null if the policy type has no check
+     */
+    static RiskCheck create(final RiskPolicyRecord record) {
+        final RiskCheck check;
+        if (record.policyType.equals(KILL_SWITCH)) {
+            check = new KillSwitch(record.policyId);
+        } else if (record.policyType.equals(MAX_POSITION)) {
+            check = new MaxPosition(record.policyId, record.maxPosition, record.flags);
+        } else if (record.policyType.equals(MAX_NOTIONAL)) {
+            check = new MaxNotional(record.policyId, record.maxNotional);
+        } else if (record.policyType.equals(MAX_ORDER_SIZE)) {
+            check = new MaxOrderSize(record.policyId, record.maxOrderSize);
+        } else if (record.policyType.equals(ORDER_RATE)) {
+            check = new OrderRate(record.policyId, record.maxOrders, record.windowMillis);
+        } else {
+            check = null;
+        }
+        return check;
+    }
+
+    static final class KillSwitch extends RiskCheck {
+
+        KillSwitch(final int policyId) {
+            super(policyId, KILL_SWITCH);
+        }
+
+        @Override
+        RiskDecision check(final long quantity, final long price, final long position, final long nowMillis) {
+            return RiskDecision.KILL_SWITCH;
+        }
+
+        @Override
+        boolean sameParameters(final RiskPolicyRecord record) {
+            return true;
+        }
+    }
+
+    static final class MaxPosition extends RiskCheck {
+
+        private final long maxPosition;
+        private final boolean reduceOnly;
+
+        MaxPosition(final int policyId, final long maxPosition, final int flags) {
+            super(policyId, MAX_POSITION);
+            this.maxPosition = maxPosition;
+            this.reduceOnly = (flags & RiskPolicyRecord.FLAG_REDUCE_ONLY) != 0;
+        }
+
+        @Override
+        RiskDecision check(final long quantity, final long price, final long position, final long nowMillis) {
+            final long after = position + quantity;
+            final boolean increasing = Math.abs(after) > Math.abs(position);
+            if (this.reduceOnly && increasing) {
+                return RiskDecision.REDUCE_ONLY;
+            }
+            // orders that shrink an already breached position are always allowed out
+            if (increasing && Math.abs(after) > this.maxPosition) {
+                return RiskDecision.MAX_POSITION;
+            }
+            return RiskDecision.ACCEPTED;
+        }
+
+        @Override
+        boolean sameParameters(final RiskPolicyRecord record) {
+            return record.maxPosition == this.maxPosition
+                    && this.reduceOnly == record.hasFlag(RiskPolicyRecord.FLAG_REDUCE_ONLY);
+        }
+    }
+
+    static final class MaxNotional extends RiskCheck {
+
+        private final long maxNotional;
+
+        MaxNotional(final int policyId, final long maxNotional) {
+            super(policyId, MAX_NOTIONAL);
+            this.maxNotional = maxNotional;
+        }
+
+        @Override
+        RiskDecision check(final long quantity, final long price, final long position, final long nowMillis) {
+            final long size = Math.abs(quantity);
+            final long absPrice = Math.abs(price);
+            // size * price > max without overflowing
+            if (absPrice != 0 && size > this.maxNotional / absPrice) {
+                return RiskDecision.MAX_NOTIONAL;
+            }
+            return RiskDecision.ACCEPTED;
+        }
+
+        @Override
+        boolean sameParameters(final RiskPolicyRecord record) {
+            return record.maxNotional == this.maxNotional;
+        }
+    }
+
+    static final class MaxOrderSize extends RiskCheck {
+
+        private final long maxOrderSize;
+
+        MaxOrderSize(final int policyId, final long maxOrderSize) {
+            super(policyId, MAX_ORDER_SIZE);
+            this.maxOrderSize = maxOrderSize;
+        }
+
+        @Override
+        RiskDecision check(final long quantity, final long price, final long position, final long nowMillis) {
+            return Math.abs(quantity) > this.maxOrderSize ? RiskDecision.MAX_ORDER_SIZE : RiskDecision.ACCEPTED;
+        }
+
+        @Override
+        boolean sameParameters(final RiskPolicyRecord record) {
+            return record.maxOrderSize == this.maxOrderSize;
+        }
+    }
+
+    /**
+     * Sliding window over the timestamps of the last {@code maxOrders} accepted orders.
+     */
+    static final class OrderRate extends RiskCheck {
+
+        private final int maxOrders;
+        private final long windowMillis;
+        private final long[] accepted;
+        private int head;
+        private int size;
+
+        OrderRate(final int policyId, final int maxOrders, final long windowMillis) {
+            super(policyId, ORDER_RATE);
+            this.maxOrders = maxOrders;
+            this.windowMillis = windowMillis;
+            this.accepted = new long[Math.max(1, maxOrders)];
+        }
+
+        @Override
+        RiskDecision check(final long quantity, final long price, final long position, final long nowMillis) {
+            if (this.maxOrders <= 0) {
+                return RiskDecision.ORDER_RATE;
+            }
+            if (this.size == this.maxOrders && nowMillis - this.accepted[this.head] < this.windowMillis) {
+                return RiskDecision.ORDER_RATE;
+            }
+            return RiskDecision.ACCEPTED;
+        }
+
+        @Override
+        void onAccepted(final long nowMillis) {
+            if (this.maxOrders <= 0) {
+                return;
+            }
+            // head is the oldest entry; once full it is overwritten by the newest
+            final int tail = (this.head + this.size) % this.maxOrders;
+            this.accepted[tail] = nowMillis;
+            if (this.size < this.maxOrders) {
+                this.size++;
+            } else {
+                this.head = (this.head + 1) % this.maxOrders;
+            }
+        }
+
+        @Override
+        boolean sameParameters(final RiskPolicyRecord record) {
+            return record.maxOrders == this.maxOrders && record.windowMillis == this.windowMillis;
+        }
+    }
+}
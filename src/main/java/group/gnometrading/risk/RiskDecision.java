@@ -0,0 +1,18 @@
+package group.gnometrading.risk;
+
+/**
+ * Outcome of a pre-trade check by {@link RiskEngine}: either accepted or the kind of policy that rejected the order.
+ */
+public enum RiskDecision {
+    ACCEPTED,
+    KILL_SWITCH,
+    MAX_POSITION,
+    MAX_NOTIONAL,
+    MAX_ORDER_SIZE,
+    ORDER_RATE,
+    REDUCE_ONLY;
+
+    public boolean accepted() {
+        return this == ACCEPTED;
+    }
+}
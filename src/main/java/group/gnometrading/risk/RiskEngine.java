@@ -0,0 +1,155 @@
+package group.gnometrading.risk;
+
+import group.gnometrading.collections.IntHashMap;
+
+/**
+ * Pre-trade risk checks over the policies held by a {@link RiskMaster}.
+ *
+ * <p>The enabled policies applying to a strategy and listing are compiled on first use into a flat array of checks,
+ * and recompiled only once the master publishes a new policy generation. Checks are shared per policy, so a
+ * recompile keeps the state of any policy whose parameters did not change. After warm-up {@link #check} does not
+ * allocate.
+ *
+ * <p>Not thread-safe: stateful checks such as order rates are updated on every accepted order, so use one engine
+ * per order-sending thread.
+ */
+public final class RiskEngine {
+
+    private static final int MAX_COMPILE_ATTEMPTS = 4;
+
+    private final RiskMaster riskMaster;
+    private final PolicyCursor cursor = new PolicyCursor();
+    private final IntHashMap<IntHashMap<CompiledChecks>> compiled = new IntHashMap<>();
+    private final IntHashMap<RiskCheck> checksByPolicy = new IntHashMap<>();
+
+    private int rejectedPolicyId = -1;
+
+    public RiskEngine(final RiskMaster riskMaster) {
+        this.riskMaster = riskMaster;
+    }
+
+    /**
+     * Checks an order against every enabled policy applying to the strategy on the listing. Stateful checks only
+     * record the order if every check accepts it.
+     *
+     * @param quantity signed order quantity, positive for buys
+     * @param price order price in scaled units
+     * @param position signed position in the listing before the order
+     * @return {@link RiskDecision#ACCEPTED} or the kind of the first policy rejecting the order; always
+     *     {@link RiskDecision#KILL_SWITCH} while the master's kill flag is set
+     */
+    public RiskDecision check(
+            final int strategyId,
+            final int listingId,
+            final long quantity,
+            final long price,
+            final long position,
+            final long nowMillis) {
+        if (this.riskMaster.isKilled()) {
+            this.rejectedPolicyId = this.riskMaster.getKillSwitchPolicyId();
+            return RiskDecision.KILL_SWITCH;
+        }
+        final CompiledChecks checks = compiledChecks(strategyId, listingId);
+        final RiskCheck[] array = checks.checks;
+        final int size = checks.size;
+        for (int i = 0; i < size; i++) {
+            final RiskDecision decision = array[i].check(quantity, price, position, nowMillis);
+            if (decision != RiskDecision.ACCEPTED) {
+                this.rejectedPolicyId = array[i].policyId;
+                return decision;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            array[i].onAccepted(nowMillis);
+        }
+        this.rejectedPolicyId = -1;
+        return RiskDecision.ACCEPTED;
+    }
+
+    /**
+     * @return the id of the policy that rejected the last checked order, the global kill switch policy's if it was
+     *     stopped by the kill flag, or -1 if it was accepted or the watcher engaged the switch before the policies
+     *     were refreshed
+     */
+    public int getRejectedPolicyId() {
+        return this.rejectedPolicyId;
+    }
+
+    private CompiledChecks compiledChecks(final int strategyId, final int listingId) {
+        IntHashMap<CompiledChecks> byListing = this.compiled.get(strategyId);
+        if (byListing == null) {
+            byListing = new IntHashMap<>();
+            this.compiled.put(strategyId, byListing);
+        }
+        CompiledChecks checks = byListing.get(listingId);
+        if (checks == null) {
+            checks = new CompiledChecks();
+            byListing.put(listingId, checks);
+        }
+        if (checks.generation != this.riskMaster.getGeneration()) {
+            compile(strategyId, listingId, checks);
+        }
+        return checks;
+    }
+
+    /**
+     * Rebuilds the checks from the published policy set. Retries if a refresh starts recycling the set mid-compile,
+     * as reported by {@link PolicyCursor#isValid()}; after that it compiles against whatever it read.
+     */
+    private void compile(final int strategyId, final int listingId, final CompiledChecks checks) {
+        for (int attempt = 0; attempt < MAX_COMPILE_ATTEMPTS; attempt++) {
+            this.riskMaster.policiesFor(strategyId, listingId, this.cursor);
+            final long generation = this.cursor.generation();
+            checks.size = 0;
+            while (this.cursor.hasNext()) {
+                final RiskPolicyRecord record = this.cursor.next();
+                if (!record.enabled) {
+                    continue;
+                }
+                final RiskCheck check = checkFor(record, generation);
+                if (check != null) {
+                    checks.add(check);
+                }
+            }
+            checks.generation = generation;
+            if (this.cursor.isValid()) {
+                return;
+            }
+        }
+    }
+
+    private RiskCheck checkFor(final RiskPolicyRecord record, final long generation) {
+        final RiskCheck existing = this.checksByPolicy.get(record.policyId);
+        if (existing != null
+                && (existing.generation == generation
+                        || existing.policyGeneration == record.generation
+                        || (record.policyType.equals(existing.policyType) && existing.sameParameters(record)))) {
+            existing.generation = generation;
+            existing.policyGeneration = record.generation;
+            return existing;
+        }
+        final RiskCheck check = RiskChecks.create(record);
+        if (check != null) {
+            check.generation = generation;
+            check.policyGeneration = record.generation;
+            this.checksByPolicy.put(record.policyId, check);
+        }
+        return check;
+    }
+
+    private static final class CompiledChecks {
+
+        private RiskCheck[] checks = new RiskCheck[4];
+        private int size;
+        private long generation = -1;
+
+        private void add(final RiskCheck check) {
+            if (this.size == this.checks.length) {
+                final RiskCheck[] grown = new RiskCheck[this.size * 2];
+                System.arraycopy(this.checks, 0, grown, 0, this.size);
+                this.checks = grown;
+            }
+            this.checks[this.size++] = check;
+        }
+    }
+}
@@ -2,78 +2,437 @@ package group.gnometrading.risk;
 
 import group.gnometrading.RegistryConnection;
 import group.gnometrading.codecs.json.JsonDecoder;
+import group.gnometrading.metrics.Counter;
+import group.gnometrading.metrics.LatencyHistogram;
+import group.gnometrading.metrics.MetricsSink;
+import group.gnometrading.metrics.MetricsSource;
 import group.gnometrading.strings.ExpandingMutableString;
+import java.lang.invoke.VarHandle;
 import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
  * Fetches and parses risk policies from the registry.
  * GC-free after construction: pre-allocated records are reused on every refresh.
+ *
+ * <p>Refreshes fill a back {@link PolicySet} and publish it with a single volatile write, so readers always see a
+ * complete set without locking. Three sets rotate: the published one, the one readers may still be finishing with,
+ * and the one being filled. Records read from a published set therefore stay intact until two further sets have
+ * been published, and any refresh after that may overwrite them. Each set is stamped with its generation, which
+ * is invalidated before the set is refilled: a reader holding a {@link PolicyCursor} across refreshes checks
+ * {@link PolicyCursor#isValid()} after reading through it and re-reads {@link #policiesFor} when it fails.
+ *
+ * <p>Polling is cheap when nothing changed: a byte-identical response is detected by its hash and skipped without
+ * parsing, and a response whose policies all match the published ones is parsed but not published. Each record
+ * carries the generation in which its own contents last changed.
+ *
+ * <p>{@link #startWatcher()} runs a background thread long-polling the registry's policy version. It flips the kill
+ * flag read by {@link #isKilled()} as soon as the global kill switch changes, then refreshes the policies. The
+ * watcher's signal is kept apart from the kill switch found in the published policies, so a refresh that fetched
+ * its response before the switch was engaged cannot clear it. Whenever either changes, both are combined under the
+ * lock into one volatile flag, so {@link #isKilled()} reads a single field.
  */
-public final class RiskMaster {
+public final class RiskMaster implements MetricsSource {
 
     private static final String RISK_POLICIES_ENDPOINT = "/api/risk/policies";
+    private static final String RISK_VERSION_ENDPOINT = "/api/risk/version?waitMillis=";
+    static final int WATCH_WAIT_MILLIS = 20_000;
+    private static final long WATCH_RETRY_MILLIS = 1_000;
+
+    static final String REFRESH_NANOS_METRIC = "risk_master.refresh_nanos";
+    static final String PUBLISHED_METRIC = "risk_master.refreshes_published";
+    static final String SKIPPED_METRIC = "risk_master.refreshes_skipped";
+    static final String POLICIES_METRIC = "risk_master.policies";
+    static final String GENERATION_METRIC = "risk_master.generation";
+    static final String KILLED_METRIC = "risk_master.killed";
+    static final String STALENESS_METRIC = "risk_master.staleness_millis";
     static final int MAX_POLICIES = 64;
+    private static final int INITIAL_PARAMETERS_CAPACITY = 256;
 
     private final JsonDecoder jsonDecoder;
     private final RegistryConnection registryConnection;
     private final ExpandingMutableString riskPoliciesPath;
+    private final PolicyParametersRegistry parametersRegistry;
+    private final JsonDecoder parametersDecoder;
+    private ByteBuffer parametersBuffer;
+
+    private final PolicySet[] sets;
+    // only touched by the refreshing thread
+    private PolicySet retired;
+    private long generation;
+    private long payloadHash;
+    private int payloadLength = -1;
+    private final Counter skippedRefreshes = new Counter();
+    private final Counter publishedRefreshes = new Counter();
+    private final LatencyHistogram refreshLatency = new LatencyHistogram();
+    private volatile long lastRefreshMillis;
 
-    private final RiskPolicyRecord[] records;
+    // volatile write on refresh establishes happens-before for the set's records and index
+    private volatile PolicySet published;
+    private volatile int killSwitchPolicyId = -1;
+    private boolean killSignalled; // guarded by this
+    // killSignalled || killSwitchPolicyId >= 0, republished under the lock whenever either changes
+    private volatile boolean killed;
 
-    // volatile write on refresh establishes happens-before for the array contents
-    private volatile int policyCount = 0;
+    // only touched by the watcher thread
+    private final JsonDecoder versionDecoder;
+    private final ExpandingMutableString versionPath;
+    private int watchedVersion = -1;
+    private volatile Thread watcher;
 
     public RiskMaster(final RegistryConnection registryConnection) {
+        this(registryConnection, PolicyParametersRegistry.defaults());
+    }
+
+    public RiskMaster(
+            final RegistryConnection registryConnection, final PolicyParametersRegistry parametersRegistry) {
         this.registryConnection = registryConnection;
         this.jsonDecoder = new JsonDecoder();
         this.riskPoliciesPath = new ExpandingMutableString(RISK_POLICIES_ENDPOINT);
+        this.parametersRegistry = parametersRegistry;
+        this.parametersDecoder = new JsonDecoder();
+        this.parametersBuffer = ByteBuffer.allocate(INITIAL_PARAMETERS_CAPACITY);
+        this.versionDecoder = new JsonDecoder();
+        this.versionPath = new ExpandingMutableString(RISK_VERSION_ENDPOINT);
 
-        this.records = new RiskPolicyRecord[MAX_POLICIES];
-        for (int i = 0; i < MAX_POLICIES; i++) {
-            this.records[i] = new RiskPolicyRecord();
-        }
+        this.sets = new PolicySet[] {
+            new PolicySet(MAX_POLICIES), new PolicySet(MAX_POLICIES), new PolicySet(MAX_POLICIES)
+        };
+        this.published = this.sets[0];
+        this.retired = this.sets[0];
+    }
+
+    /**
+     * @return true while an enabled global kill switch is in force, either in the published policies or as last
+     *     reported by the watcher; a single volatile read, safe on the order path
+     */
+    public boolean isKilled() {
+        return this.killed;
+    }
+
+    /**
+     * @return the id of the enabled global kill switch policy in the published set, or -1 if there is none, e.g.
+     *     because the watcher reported the switch before the policies were refreshed
+     */
+    public int getKillSwitchPolicyId() {
+        return this.killSwitchPolicyId;
     }
 
     public int getPolicyCount() {
-        return this.policyCount;
+        return this.published.count;
+    }
+
+    /**
+     * @return the generation of the published policy set; zero until policies are first published, then one higher
+     *     each time a refresh changes them
+     */
+    public long getGeneration() {
+        return this.published.generation;
+    }
+
+    /**
+     * @return the number of refreshes that found the policies unchanged and published nothing
+     */
+    public long getSkippedRefreshes() {
+        return this.skippedRefreshes.get();
     }
 
     public RiskPolicyRecord getRecord(final int index) {
-        return this.records[index];
+        return this.published.records[index];
     }
 
     public void forEachPolicy(final int strategyId, final Consumer<RiskPolicyRecord> consumer) {
-        final int count = this.policyCount;
-        for (int i = 0; i < count; i++) {
-            final RiskPolicyRecord record = this.records[i];
+        final PolicySet set = this.published;
+        for (int i = 0; i < set.count; i++) {
+            final RiskPolicyRecord record = set.records[i];
             if (record.scope == PolicyScope.GLOBAL || record.strategyId == strategyId) {
                 consumer.accept(record);
             }
         }
     }
 
+    /**
+     * Fills {@code cursor} with the policies applying to an order of the strategy on the listing: global policies,
+     * the strategy's policies, and listing policies for that strategy or for every strategy. Touches only the
+     * matching policies and does not allocate.
+     */
+    public PolicyCursor policiesFor(final int strategyId, final int listingId, final PolicyCursor cursor) {
+        final PolicySet set = this.published;
+        cursor.reset(
+                set,
+                set.generation,
+                set.count == 0 ? 0 : set.index.collect(strategyId, listingId, cursor.slots()));
+        return cursor;
+    }
+
+    /**
+     * @return true if the policies changed and a new generation was published
+     */
+    public boolean refresh() {
+        return refresh(this.registryConnection.get(this.riskPoliciesPath));
+    }
+
+    /**
+     * Fetches the policies without blocking the caller and applies them on the registry's async executor.
+     */
+    public CompletableFuture<Void> refreshAsync() {
+        return this.registryConnection.getAsync(this.riskPoliciesPath).thenAccept(this::refresh);
+    }
+
+    /**
+     * Applies a risk policies response already fetched from the registry. Refreshes are serialized, so the watcher
+     * and callers may refresh concurrently; readers never take the lock.
+     */
+    public synchronized boolean refresh(final ByteBuffer response) {
+        final long start = System.nanoTime();
+        final boolean published = apply(response);
+        this.refreshLatency.record(System.nanoTime() - start);
+        this.lastRefreshMillis = System.currentTimeMillis();
+        if (published) {
+            this.publishedRefreshes.increment();
+        } else {
+            this.skippedRefreshes.increment();
+        }
+        return published;
+    }
+
+    @Override
+    public void sampleMetrics(final MetricsSink sink) {
+        final PolicySet set = this.published;
+        sink.histogram(REFRESH_NANOS_METRIC, this.refreshLatency);
+        sink.counter(PUBLISHED_METRIC, this.publishedRefreshes.get());
+        sink.counter(SKIPPED_METRIC, this.skippedRefreshes.get());
+        sink.gauge(POLICIES_METRIC, set.count);
+        sink.gauge(GENERATION_METRIC, set.generation);
+        sink.gauge(KILLED_METRIC, isKilled() ? 1 : 0);
+        final long lastRefresh = this.lastRefreshMillis;
+        sink.gauge(STALENESS_METRIC, lastRefresh == 0 ? -1 : System.currentTimeMillis() - lastRefresh);
+    }
+
     @SuppressWarnings("checkstyle:NestedTryDepth")
-    public void refresh() {
-        final ByteBuffer response = this.registryConnection.get(this.riskPoliciesPath);
+    private boolean apply(final ByteBuffer response) {
+        final long hash = payloadHash(response);
+        final int length = response.remaining();
+        if (hash == this.payloadHash && length == this.payloadLength) {
+            return false;
+        }
 
+        final PolicySet back = backSet();
+        // invalidate cursors still holding the set before any of its records change
+        back.generation = PolicySet.RECYCLING;
+        VarHandle.storeStoreFence();
         int count = 0;
 
         try (var node = this.jsonDecoder.wrap(response)) {
             try (var array = node.asArray()) {
                 while (array.hasNextItem() && count < MAX_POLICIES) {
-                    final RiskPolicyRecord record = this.records[count];
+                    final RiskPolicyRecord record = back.records[count];
                     resetRecord(record);
                     try (var item = array.nextItem()) {
                         parseRecord(item, record);
                     }
+                    decodeParameters(record);
                     count++;
                 }
             }
         }
 
-        // volatile write flushes all record field writes above
-        this.policyCount = count;
+        this.payloadHash = hash;
+        this.payloadLength = length;
+        if (!stampGenerations(back, count, this.published, this.generation + 1)) {
+            return false;
+        }
+
+        back.index.build(back.records, count);
+        back.count = count;
+        back.generation = ++this.generation;
+
+        // volatile write flushes all record and index writes above
+        this.retired = this.published;
+        this.published = back;
+        this.killSwitchPolicyId = killSwitchPolicyId(back);
+        publishKilled();
+        return true;
+    }
+
+    /**
+     * Starts the background thread long-polling the registry's policy version. Does nothing if already running.
+     */
+    public synchronized void startWatcher() {
+        if (this.watcher != null) {
+            return;
+        }
+        final Thread thread = new Thread(this::watch, "risk-master-watcher");
+        thread.setDaemon(true);
+        this.watcher = thread;
+        thread.start();
+    }
+
+    /**
+     * Stops the watcher. A long-poll already in flight is not interrupted; the thread exits once it returns.
+     */
+    public synchronized void stopWatcher() {
+        final Thread thread = this.watcher;
+        this.watcher = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void watch() {
+        final Thread self = Thread.currentThread();
+        while (this.watcher == self) {
+            try {
+                pollVersion(WATCH_WAIT_MILLIS);
+            } catch (RuntimeException e) {
+                // registry unavailable: the kill flag keeps its last known value until the next successful poll
+                try {
+                    TimeUnit.MILLISECONDS.sleep(WATCH_RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Issues one long-poll, which the registry answers once the policy version moves past the last one seen or
+     * {@code waitMillis} elapses. Applies the reported kill switch immediately and refreshes if the version moved.
+     *
+     * @return true if the version changed
+     */
+    @SuppressWarnings("checkstyle:NestedTryDepth")
+    boolean pollVersion(final int waitMillis) {
+        this.versionPath.setLength(RISK_VERSION_ENDPOINT.length());
+        this.versionPath.appendNaturalIntAscii(waitMillis);
+        if (this.watchedVersion >= 0) {
+            this.versionPath.appendString("&since=");
+            this.versionPath.appendNaturalIntAscii(this.watchedVersion);
+        }
+
+        int version = -1;
+        boolean killSwitch = false;
+        try (var node = this.versionDecoder.wrap(this.registryConnection.get(this.versionPath))) {
+            try (var object = node.asObject()) {
+                while (object.hasNextKey()) {
+                    try (var key = object.nextKey()) {
+                        if (key.getName().equals("version")) {
+                            version = key.asInt();
+                        } else if (key.getName().equals("kill_switch")) {
+                            killSwitch = key.asBoolean();
+                        }
+                    }
+                }
+            }
+        }
+
+        signalKill(killSwitch);
+        if (version == this.watchedVersion) {
+            return false;
+        }
+        // only advance once refreshed, so a failed refresh is retried on the next poll rather than skipped
+        refresh();
+        this.watchedVersion = version;
+        return true;
+    }
+
+    private synchronized void signalKill(final boolean killSwitch) {
+        if (this.killSignalled != killSwitch) {
+            this.killSignalled = killSwitch;
+            publishKilled();
+        }
+    }
+
+    /**
+     * Recombines the two kill sources into the flag {@link #isKilled()} reads. Must hold the lock, so two threads
+     * updating different sources cannot publish a stale combination.
+     */
+    private void publishKilled() {
+        this.killed = this.killSignalled || this.killSwitchPolicyId >= 0;
+    }
+
+    private static int killSwitchPolicyId(final PolicySet set) {
+        for (int i = 0; i < set.count; i++) {
+            final RiskPolicyRecord record = set.records[i];
+            if (record.enabled && record.scope == PolicyScope.GLOBAL && record.policyType.equals("KILL_SWITCH")) {
+                return record.policyId;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Carries each record's generation over from its published counterpart when unchanged, or stamps it with
+     * {@code next} otherwise.
+     *
+     * @return true if any policy was added, removed or changed
+     */
+    private static boolean stampGenerations(
+            final PolicySet back, final int count, final PolicySet current, final long next) {
+        boolean changed = count != current.count;
+        for (int i = 0; i < count; i++) {
+            final RiskPolicyRecord record = back.records[i];
+            final RiskPolicyRecord previous = findPolicy(current, record.policyId, i);
+            if (previous != null && sameContents(previous, record)) {
+                record.generation = previous.generation;
+            } else {
+                record.generation = next;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Looks in the slot the policy is most likely in first, as the registry returns policies in a stable order.
+     */
+    private static RiskPolicyRecord findPolicy(final PolicySet set, final int policyId, final int hint) {
+        if (hint < set.count && set.records[hint].policyId == policyId) {
+            return set.records[hint];
+        }
+        for (int i = 0; i < set.count; i++) {
+            if (set.records[i].policyId == policyId) {
+                return set.records[i];
+            }
+        }
+        return null;
+    }
+
+    private static boolean sameContents(final RiskPolicyRecord a, final RiskPolicyRecord b) {
+        return a.policyId == b.policyId
+                && a.scope == b.scope
+                && a.strategyId == b.strategyId
+                && a.listingId == b.listingId
+                && a.enabled == b.enabled
+                && a.policyType.equals(b.policyType)
+                && a.parametersJson.equals(b.parametersJson);
+    }
+
+    /**
+     * 64-bit FNV-1a over the remaining bytes, read without moving the buffer's position.
+     */
+    private static long payloadHash(final ByteBuffer response) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = response.position(); i < response.limit(); i++) {
+            hash ^= response.get(i) & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * @return the set that is neither published nor just retired, and so cannot have readers mid-iteration
+     */
+    private PolicySet backSet() {
+        final PolicySet current = this.published;
+        for (final PolicySet set : this.sets) {
+            if (set != current && set != this.retired) {
+                return set;
+            }
+        }
+        throw new IllegalStateException("no free policy set");
     }
 
     private static void resetRecord(final RiskPolicyRecord record) {
@@ -84,6 +443,37 @@ public final class RiskMaster {
         record.listingId = 0;
         record.parametersJson.setLength(0);
         record.enabled = false;
+        record.maxPosition = 0;
+        record.maxNotional = 0;
+        record.maxOrderSize = 0;
+        record.maxOrders = 0;
+        record.windowMillis = 0;
+        record.flags = 0;
+    }
+
+    /**
+     * Runs the policy type's parameters decoder over the raw parameters copied into a reusable buffer, since the
+     * main decoder is still positioned inside the policies array. The buffer only grows, so this stops allocating
+     * once it fits the largest parameters object seen.
+     */
+    private void decodeParameters(final RiskPolicyRecord record) {
+        final PolicyParametersDecoder decoder = this.parametersRegistry.find(record.policyType);
+        final int length = record.parametersJson.length();
+        if (decoder == null || length == 0 || record.parametersJson.byteAt(0) != '{') {
+            return;
+        }
+        if (this.parametersBuffer.capacity() < length) {
+            this.parametersBuffer = ByteBuffer.allocate(Math.max(length, this.parametersBuffer.capacity() * 2));
+        }
+        final ByteBuffer buffer = this.parametersBuffer;
+        buffer.clear();
+        for (int i = 0; i < length; i++) {
+            buffer.put(record.parametersJson.byteAt(i));
+        }
+        buffer.flip();
+        try (var node = this.parametersDecoder.wrap(buffer)) {
+            decoder.decode(node, record);
+        }
     }
 
     @SuppressWarnings("checkstyle:NestedTryDepth")
@@ -3,6 +3,9 @@ package group.gnometrading.risk;
 import group.gnometrading.strings.ExpandingMutableString;
 
 public final class RiskPolicyRecord {
+
+    public static final int FLAG_REDUCE_ONLY = 1;
+
     public int policyId;
     public final ExpandingMutableString policyType = new ExpandingMutableString();
     public PolicyScope scope;
@@ -10,4 +13,18 @@ public final class RiskPolicyRecord {
     public int listingId;
     public final ExpandingMutableString parametersJson = new ExpandingMutableString();
     public boolean enabled;
+    // RiskMaster generation in which this policy was added or last changed
+    public long generation;
+
+    // Decoded from parametersJson on refresh by the policy type's PolicyParametersDecoder; zero when absent
+    public long maxPosition;
+    public long maxNotional;
+    public long maxOrderSize;
+    public int maxOrders;
+    public long windowMillis;
+    public int flags;
+
+    public boolean hasFlag(final int flag) {
+        return (this.flags & flag) != 0;
+    }
 }
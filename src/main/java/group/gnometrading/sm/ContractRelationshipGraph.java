@@ -0,0 +1,363 @@
+package group.gnometrading.sm;
+
+import java.util.Arrays;
+
+/**
+ * Immutable compressed-sparse-row graph of contract relationships. Each security owns the range
+ * {@code [offsets[row], offsets[row + 1])} of flat neighbour, type, confidence and relationship id arrays, so a
+ * security's relationships are read from adjacent memory without boxing or allocation.
+ *
+ * <p>Symmetric relationships appear in both securities' rows. An {@link RelationshipType#IMPLIES} relationship
+ * appears in {@code security_id_a}'s row, and in {@code security_id_b}'s row flagged as {@link
+ * RelationshipCursor#inbound() inbound}. The transitive closure of IMPLIES is computed once at build time, scoring
+ * each implied security by the product of the confidences along its strongest chain.
+ *
+ * <p>Relationships with a type this client does not know, and relationships of a security with itself, are
+ * skipped.
+ */
+public final class ContractRelationshipGraph {
+
+    static final int TYPE_BITS = 0x7F;
+    static final byte INBOUND = (byte) 0x80;
+
+    private static final ContractRelationshipGraph EMPTY = build(new ContractRelationship[0]);
+
+    private final int[] rows; // securityId -> row + 1, 0 when absent
+    private final int[] offsets;
+    private final int[] neighbours;
+    private final byte[] types;
+    private final float[] confidences;
+    private final int[] relationshipIds;
+    private final int relationshipCount;
+
+    private final int[] closureOffsets;
+    private final int[] closureTargets;
+    private final byte[] closureTypes;
+    private final float[] closureConfidences;
+    private final int[] closureIds;
+
+    private ContractRelationshipGraph(
+            final int[] rows,
+            final int[] offsets,
+            final int[] neighbours,
+            final byte[] types,
+            final float[] confidences,
+            final int[] relationshipIds,
+            final int relationshipCount,
+            final int[] closureOffsets,
+            final int[] closureTargets,
+            final float[] closureConfidences) {
+        this.rows = rows;
+        this.offsets = offsets;
+        this.neighbours = neighbours;
+        this.types = types;
+        this.confidences = confidences;
+        this.relationshipIds = relationshipIds;
+        this.relationshipCount = relationshipCount;
+        this.closureOffsets = closureOffsets;
+        this.closureTargets = closureTargets;
+        this.closureConfidences = closureConfidences;
+        this.closureTypes = new byte[closureTargets.length];
+        Arrays.fill(this.closureTypes, (byte) RelationshipType.IMPLIES.ordinal());
+        this.closureIds = new int[closureTargets.length];
+        Arrays.fill(this.closureIds, -1);
+    }
+
+    public static ContractRelationshipGraph empty() {
+        return EMPTY;
+    }
+
+    public static ContractRelationshipGraph build(final ContractRelationship[] relationships) {
+        int maxSecurityId = -1;
+        int relationshipCount = 0;
+        for (final ContractRelationship relationship : relationships) {
+            if (accepted(relationship)) {
+                maxSecurityId = Math.max(maxSecurityId, relationship.securityIdA());
+                maxSecurityId = Math.max(maxSecurityId, relationship.securityIdB());
+                relationshipCount++;
+            }
+        }
+
+        final int[] rows = new int[maxSecurityId + 1];
+        final int[] rowIds = new int[Math.min(maxSecurityId + 1, relationshipCount * 2)];
+        int rowCount = 0;
+        for (final ContractRelationship relationship : relationships) {
+            if (accepted(relationship)) {
+                rowCount = assignRow(rows, rowIds, relationship.securityIdA(), rowCount);
+                rowCount = assignRow(rows, rowIds, relationship.securityIdB(), rowCount);
+            }
+        }
+
+        final int[] offsets = new int[rowCount + 1];
+        for (final ContractRelationship relationship : relationships) {
+            if (accepted(relationship)) {
+                offsets[rows[relationship.securityIdA()]]++;
+                offsets[rows[relationship.securityIdB()]]++;
+            }
+        }
+        // offsets[row + 1] now holds the row's degree; prefix sums turn them into row starts
+        for (int row = 0; row < rowCount; row++) {
+            offsets[row + 1] += offsets[row];
+        }
+
+        final int edgeCount = offsets[rowCount];
+        final int[] neighbours = new int[edgeCount];
+        final byte[] types = new byte[edgeCount];
+        final float[] confidences = new float[edgeCount];
+        final int[] relationshipIds = new int[edgeCount];
+        final int[] fill = Arrays.copyOf(offsets, rowCount);
+        for (final ContractRelationship relationship : relationships) {
+            if (!accepted(relationship)) {
+                continue;
+            }
+            final RelationshipType type = RelationshipType.fromName(relationship.relationshipType());
+            final int a = relationship.securityIdA();
+            final int b = relationship.securityIdB();
+            final byte reverse = (byte) (type.isSymmetric() ? type.ordinal() : type.ordinal() | INBOUND);
+
+            int edge = fill[rows[a] - 1]++;
+            neighbours[edge] = b;
+            types[edge] = (byte) type.ordinal();
+            confidences[edge] = relationship.confidence();
+            relationshipIds[edge] = relationship.relationshipId();
+
+            edge = fill[rows[b] - 1]++;
+            neighbours[edge] = a;
+            types[edge] = reverse;
+            confidences[edge] = relationship.confidence();
+            relationshipIds[edge] = relationship.relationshipId();
+        }
+
+        return new Closure(rows, rowIds, offsets, neighbours, types, confidences, rowCount)
+                .build(relationshipIds, relationshipCount);
+    }
+
+    public boolean contains(final int securityId) {
+        return row(securityId) >= 0;
+    }
+
+    /**
+     * @return the number of securities with at least one relationship
+     */
+    public int securityCount() {
+        return this.offsets.length - 1;
+    }
+
+    public int relationshipCount() {
+        return this.relationshipCount;
+    }
+
+    /**
+     * @return the number of relationships of the security, of any type and in either direction
+     */
+    public int degree(final int securityId) {
+        final int row = row(securityId);
+        return row < 0 ? 0 : this.offsets[row + 1] - this.offsets[row];
+    }
+
+    /**
+     * Positions {@code cursor} on the security's relationships whose type is in {@code typeMask} (or-ed {@link
+     * RelationshipType#mask()} values, or {@link RelationshipType#ALL}) and whose confidence is at least
+     * {@code minConfidence}.
+     */
+    public RelationshipCursor relationships(
+            final int securityId, final int typeMask, final float minConfidence, final RelationshipCursor cursor) {
+        final int row = row(securityId);
+        final int start = row < 0 ? 0 : this.offsets[row];
+        final int end = row < 0 ? 0 : this.offsets[row + 1];
+        cursor.reset(
+                this.neighbours,
+                this.types,
+                this.confidences,
+                this.relationshipIds,
+                start,
+                end,
+                typeMask,
+                minConfidence);
+        return cursor;
+    }
+
+    /**
+     * Positions {@code cursor} on every security the given security transitively implies, whose strongest chain
+     * has a confidence product of at least {@code minConfidence}.
+     */
+    public RelationshipCursor implied(
+            final int securityId, final float minConfidence, final RelationshipCursor cursor) {
+        final int row = row(securityId);
+        final int start = row < 0 ? 0 : this.closureOffsets[row];
+        final int end = row < 0 ? 0 : this.closureOffsets[row + 1];
+        cursor.reset(
+                this.closureTargets,
+                this.closureTypes,
+                this.closureConfidences,
+                this.closureIds,
+                start,
+                end,
+                RelationshipType.IMPLIES.mask(),
+                minConfidence);
+        return cursor;
+    }
+
+    /**
+     * @return the confidence product of the strongest IMPLIES chain from {@code securityIdA} to
+     *     {@code securityIdB}, or -1 if there is none
+     */
+    public float implicationConfidence(final int securityIdA, final int securityIdB) {
+        final int row = row(securityIdA);
+        if (row < 0) {
+            return -1f;
+        }
+        for (int i = this.closureOffsets[row]; i < this.closureOffsets[row + 1]; i++) {
+            if (this.closureTargets[i] == securityIdB) {
+                return this.closureConfidences[i];
+            }
+        }
+        return -1f;
+    }
+
+    private int row(final int securityId) {
+        if (securityId < 0 || securityId >= this.rows.length) {
+            return -1;
+        }
+        return this.rows[securityId] - 1;
+    }
+
+    private static boolean accepted(final ContractRelationship relationship) {
+        return relationship.securityIdA() >= 0
+                && relationship.securityIdB() >= 0
+                && relationship.securityIdA() != relationship.securityIdB()
+                && RelationshipType.fromName(relationship.relationshipType()) != null;
+    }
+
+    private static int assignRow(final int[] rows, final int[] rowIds, final int securityId, final int rowCount) {
+        if (rows[securityId] != 0) {
+            return rowCount;
+        }
+        rows[securityId] = rowCount + 1;
+        rowIds[rowCount] = securityId;
+        return rowCount + 1;
+    }
+
+    /**
+     * Computes, for every security, the strongest IMPLIES chain to each security reachable through outbound IMPLIES
+     * edges. Confidences are at most 1, so extending a chain never strengthens it and a label-correcting search
+     * from each security settles after a bounded number of improvements.
+     */
+    private static final class Closure {
+        private final int[] rows;
+        private final int[] rowIds;
+        private final int[] offsets;
+        private final int[] neighbours;
+        private final byte[] types;
+        private final float[] confidences;
+        private final int rowCount;
+
+        private final float[] best;
+        private final boolean[] queued;
+        private final int[] queue;
+        private final int[] reached;
+
+        private final int[] closureOffsets;
+        private int[] closureTargets;
+        private float[] closureConfidences;
+        private int closureSize;
+
+        private Closure(
+                final int[] rows,
+                final int[] rowIds,
+                final int[] offsets,
+                final int[] neighbours,
+                final byte[] types,
+                final float[] confidences,
+                final int rowCount) {
+            this.rows = rows;
+            this.rowIds = rowIds;
+            this.offsets = offsets;
+            this.neighbours = neighbours;
+            this.types = types;
+            this.confidences = confidences;
+            this.rowCount = rowCount;
+            this.best = new float[rowCount];
+            this.queued = new boolean[rowCount];
+            this.queue = new int[rowCount];
+            this.reached = new int[rowCount];
+            this.closureOffsets = new int[rowCount + 1];
+            this.closureTargets = new int[Math.max(rowCount, 1)];
+            this.closureConfidences = new float[this.closureTargets.length];
+        }
+
+        private ContractRelationshipGraph build(final int[] relationshipIds, final int relationshipCount) {
+            Arrays.fill(this.best, -1f);
+            for (int row = 0; row < this.rowCount; row++) {
+                this.closureOffsets[row] = this.closureSize;
+                search(row);
+            }
+            this.closureOffsets[this.rowCount] = this.closureSize;
+            return new ContractRelationshipGraph(
+                    this.rows,
+                    this.offsets,
+                    this.neighbours,
+                    this.types,
+                    this.confidences,
+                    relationshipIds,
+                    relationshipCount,
+                    this.closureOffsets,
+                    Arrays.copyOf(this.closureTargets, this.closureSize),
+                    Arrays.copyOf(this.closureConfidences, this.closureSize));
+        }
+
+        private void search(final int source) {
+            final int implies = RelationshipType.IMPLIES.ordinal();
+            int reachedCount = 0;
+            int head = 0;
+            int size = 1;
+            this.queue[0] = source;
+            this.queued[source] = true;
+            this.best[source] = 1f;
+
+            // the queue is a ring: a row is never in it twice, so it never holds more than rowCount entries
+            while (size > 0) {
+                final int row = this.queue[head];
+                head = (head + 1) % this.rowCount;
+                size--;
+                this.queued[row] = false;
+
+                for (int edge = this.offsets[row]; edge < this.offsets[row + 1]; edge++) {
+                    if (this.types[edge] != implies) {
+                        continue;
+                    }
+                    final int target = this.rows[this.neighbours[edge]] - 1;
+                    final float confidence = this.best[row] * this.confidences[edge];
+                    if (target == source || confidence <= this.best[target]) {
+                        continue;
+                    }
+                    if (this.best[target] < 0) {
+                        this.reached[reachedCount++] = target;
+                    }
+                    this.best[target] = confidence;
+                    if (!this.queued[target]) {
+                        this.queued[target] = true;
+                        this.queue[(head + size) % this.rowCount] = target;
+                        size++;
+                    }
+                }
+            }
+
+            for (int i = 0; i < reachedCount; i++) {
+                final int target = this.reached[i];
+                append(this.rowIds[target], this.best[target]);
+                this.best[target] = -1f;
+            }
+            this.best[source] = -1f;
+        }
+
+        private void append(final int securityId, final float confidence) {
+            if (this.closureSize == this.closureTargets.length) {
+                this.closureTargets = Arrays.copyOf(this.closureTargets, this.closureSize << 1);
+                this.closureConfidences = Arrays.copyOf(this.closureConfidences, this.closureSize << 1);
+            }
+            this.closureTargets[this.closureSize] = securityId;
+            this.closureConfidences[this.closureSize++] = confidence;
+        }
+    }
+}
@@ -15,7 +15,16 @@ public final class EpochMillisDeserializer extends StdDeserializer<Long> {
 
     @Override
     public Long deserialize(final JsonParser parser, final DeserializationContext ctx) throws IOException {
-        final String text = parser.getText();
+        return toEpochMillis(parser.getText());
+    }
+
+    /**
+     * @return the epoch millis of an ISO-8601 instant, or 0 if the text is null or not an instant
+     */
+    public static long toEpochMillis(final String text) {
+        if (text == null) {
+            return 0L;
+        }
         try {
             return Instant.parse(text).toEpochMilli();
         } catch (DateTimeParseException e) {
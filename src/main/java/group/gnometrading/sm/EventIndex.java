@@ -0,0 +1,324 @@
+package group.gnometrading.sm;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, bulk-loaded index of prediction market events, their outcome contracts, the listings trading each
+ * outcome and the exchanges carrying each event. Every level is stored compressed-sparse-row style in dense
+ * primitive arrays, so a scanner walks it with plain int indices and neither allocates nor calls the registry:
+ *
+ * <pre>{@code
+ * for (int row = 0; row < index.eventCount(); row++) {
+ *     if (!index.isLive(row, nowMillis)) {
+ *         continue;
+ *     }
+ *     for (int outcome = index.outcomeStart(row); outcome < index.outcomeEnd(row); outcome++) {
+ *         for (int i = index.listingStart(outcome); i < index.listingEnd(outcome); i++) {
+ *             quote(index.listingId(i), index.listingExchangeId(i));
+ *         }
+ *     }
+ * }
+ * }</pre>
+ *
+ * <p>The outcomes of one event are its complement set: exactly one of them resolves true, so for a binary or
+ * multi-outcome event their prices should sum to roughly 1. {@link #outcomeOf(int)} and {@link #outcomeEventRow(int)}
+ * lead from any outcome security to the rest of its set.
+ */
+public final class EventIndex {
+
+    private static final EventIndex EMPTY =
+            build(new Event[0], new EventContract[0], new ExchangeEvent[0], new Listing[0]);
+
+    private final int[] eventRows; // eventId -> row + 1, 0 when absent
+    private final int[] eventIds;
+    private final boolean[] resolved;
+    private final long[] expiries;
+
+    private final int[] outcomeOffsets;
+    private final int[] outcomeContractIds;
+    private final int[] outcomeSecurityIds;
+    private final int[] outcomeEventRows;
+    private final String[] outcomeLabels;
+    private final int[] securityOutcomes; // securityId -> outcome + 1, 0 when absent
+
+    private final int[] listingOffsets;
+    private final int[] listingIds;
+    private final int[] listingExchangeIds;
+
+    private final int[] exchangeOffsets;
+    private final int[] exchangeIds;
+
+    private EventIndex(
+            final int[] eventRows,
+            final int[] eventIds,
+            final boolean[] resolved,
+            final long[] expiries,
+            final int[] outcomeOffsets,
+            final int[] outcomeContractIds,
+            final int[] outcomeSecurityIds,
+            final int[] outcomeEventRows,
+            final String[] outcomeLabels,
+            final int[] securityOutcomes,
+            final int[] listingOffsets,
+            final int[] listingIds,
+            final int[] listingExchangeIds,
+            final int[] exchangeOffsets,
+            final int[] exchangeIds) {
+        this.eventRows = eventRows;
+        this.eventIds = eventIds;
+        this.resolved = resolved;
+        this.expiries = expiries;
+        this.outcomeOffsets = outcomeOffsets;
+        this.outcomeContractIds = outcomeContractIds;
+        this.outcomeSecurityIds = outcomeSecurityIds;
+        this.outcomeEventRows = outcomeEventRows;
+        this.outcomeLabels = outcomeLabels;
+        this.securityOutcomes = securityOutcomes;
+        this.listingOffsets = listingOffsets;
+        this.listingIds = listingIds;
+        this.listingExchangeIds = listingExchangeIds;
+        this.exchangeOffsets = exchangeOffsets;
+        this.exchangeIds = exchangeIds;
+    }
+
+    public static EventIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds the index. Contracts and exchange events referencing an event not in {@code events} are dropped, as
+     * are inactive listings and listings of securities that are not an outcome. Outcomes keep the order of
+     * {@code contracts}, and rows the order of {@code events}.
+     */
+    public static EventIndex build(
+            final Event[] events,
+            final EventContract[] contracts,
+            final ExchangeEvent[] exchangeEvents,
+            final Listing[] listings) {
+        int maxEventId = -1;
+        for (final Event event : events) {
+            maxEventId = Math.max(maxEventId, event.eventId());
+        }
+        final int[] eventRows = new int[maxEventId + 1];
+        final int[] eventIds = new int[events.length];
+        final boolean[] resolved = new boolean[events.length];
+        final long[] expiries = new long[events.length];
+        int eventCount = 0;
+        for (final Event event : events) {
+            if (event.eventId() < 0 || eventRows[event.eventId()] != 0) {
+                continue;
+            }
+            eventRows[event.eventId()] = eventCount + 1;
+            eventIds[eventCount] = event.eventId();
+            resolved[eventCount] = event.resolved();
+            expiries[eventCount++] = event.expiry();
+        }
+
+        final int[] outcomeOffsets = new int[eventCount + 1];
+        int maxSecurityId = -1;
+        for (final EventContract contract : contracts) {
+            final int row = row(eventRows, contract.eventId());
+            if (row >= 0) {
+                outcomeOffsets[row + 1]++;
+                maxSecurityId = Math.max(maxSecurityId, contract.securityId());
+            }
+        }
+        prefixSum(outcomeOffsets, eventCount);
+
+        final int outcomeCount = outcomeOffsets[eventCount];
+        final int[] outcomeContractIds = new int[outcomeCount];
+        final int[] outcomeSecurityIds = new int[outcomeCount];
+        final int[] outcomeEventRows = new int[outcomeCount];
+        final String[] outcomeLabels = new String[outcomeCount];
+        final int[] securityOutcomes = new int[maxSecurityId + 1];
+        final int[] fill = Arrays.copyOf(outcomeOffsets, eventCount);
+        for (final EventContract contract : contracts) {
+            final int row = row(eventRows, contract.eventId());
+            if (row < 0) {
+                continue;
+            }
+            final int outcome = fill[row]++;
+            outcomeContractIds[outcome] = contract.eventContractId();
+            outcomeSecurityIds[outcome] = contract.securityId();
+            outcomeEventRows[outcome] = row;
+            outcomeLabels[outcome] = contract.outcomeLabel();
+            if (contract.securityId() >= 0) {
+                securityOutcomes[contract.securityId()] = outcome + 1;
+            }
+        }
+
+        final int[] listingOffsets = new int[outcomeCount + 1];
+        for (final Listing listing : listings) {
+            final int outcome = outcomeOf(securityOutcomes, listing);
+            if (outcome >= 0) {
+                listingOffsets[outcome + 1]++;
+            }
+        }
+        prefixSum(listingOffsets, outcomeCount);
+
+        final int[] listingIds = new int[listingOffsets[outcomeCount]];
+        final int[] listingExchangeIds = new int[listingIds.length];
+        final int[] listingFill = Arrays.copyOf(listingOffsets, outcomeCount);
+        for (final Listing listing : listings) {
+            final int outcome = outcomeOf(securityOutcomes, listing);
+            if (outcome >= 0) {
+                final int index = listingFill[outcome]++;
+                listingIds[index] = listing.listingId();
+                listingExchangeIds[index] = listing.exchange().exchangeId();
+            }
+        }
+
+        final int[] exchangeOffsets = new int[eventCount + 1];
+        for (final ExchangeEvent exchangeEvent : exchangeEvents) {
+            final int row = row(eventRows, exchangeEvent.eventId());
+            if (row >= 0) {
+                exchangeOffsets[row + 1]++;
+            }
+        }
+        prefixSum(exchangeOffsets, eventCount);
+
+        final int[] exchangeIds = new int[exchangeOffsets[eventCount]];
+        final int[] exchangeFill = Arrays.copyOf(exchangeOffsets, eventCount);
+        for (final ExchangeEvent exchangeEvent : exchangeEvents) {
+            final int row = row(eventRows, exchangeEvent.eventId());
+            if (row >= 0) {
+                exchangeIds[exchangeFill[row]++] = exchangeEvent.exchangeId();
+            }
+        }
+
+        return new EventIndex(
+                eventRows,
+                Arrays.copyOf(eventIds, eventCount),
+                Arrays.copyOf(resolved, eventCount),
+                Arrays.copyOf(expiries, eventCount),
+                outcomeOffsets,
+                outcomeContractIds,
+                outcomeSecurityIds,
+                outcomeEventRows,
+                outcomeLabels,
+                securityOutcomes,
+                listingOffsets,
+                listingIds,
+                listingExchangeIds,
+                exchangeOffsets,
+                exchangeIds);
+    }
+
+    public int eventCount() {
+        return this.eventIds.length;
+    }
+
+    public int outcomeCount() {
+        return this.outcomeSecurityIds.length;
+    }
+
+    /**
+     * @return the event's row, or -1 if it is not indexed
+     */
+    public int row(final int eventId) {
+        return row(this.eventRows, eventId);
+    }
+
+    public int eventId(final int row) {
+        return this.eventIds[row];
+    }
+
+    /**
+     * @return true if the event is unresolved and has no expiry or expires after {@code nowMillis}
+     */
+    public boolean isLive(final int row, final long nowMillis) {
+        return !this.resolved[row] && (this.expiries[row] == 0 || this.expiries[row] > nowMillis);
+    }
+
+    public int outcomeStart(final int row) {
+        return this.outcomeOffsets[row];
+    }
+
+    public int outcomeEnd(final int row) {
+        return this.outcomeOffsets[row + 1];
+    }
+
+    /**
+     * @return the outcome index of the security's event contract, or -1 if the security is not an indexed outcome
+     */
+    public int outcomeOf(final int securityId) {
+        if (securityId < 0 || securityId >= this.securityOutcomes.length) {
+            return -1;
+        }
+        return this.securityOutcomes[securityId] - 1;
+    }
+
+    public int outcomeSecurityId(final int outcome) {
+        return this.outcomeSecurityIds[outcome];
+    }
+
+    public int outcomeContractId(final int outcome) {
+        return this.outcomeContractIds[outcome];
+    }
+
+    public String outcomeLabel(final int outcome) {
+        return this.outcomeLabels[outcome];
+    }
+
+    public int outcomeEventRow(final int outcome) {
+        return this.outcomeEventRows[outcome];
+    }
+
+    public int listingStart(final int outcome) {
+        return this.listingOffsets[outcome];
+    }
+
+    public int listingEnd(final int outcome) {
+        return this.listingOffsets[outcome + 1];
+    }
+
+    public int listingId(final int index) {
+        return this.listingIds[index];
+    }
+
+    public int listingExchangeId(final int index) {
+        return this.listingExchangeIds[index];
+    }
+
+    /**
+     * Range of the exchanges carrying the event, as recorded in {@code sm.exchange_event}.
+     */
+    public int exchangeStart(final int row) {
+        return this.exchangeOffsets[row];
+    }
+
+    public int exchangeEnd(final int row) {
+        return this.exchangeOffsets[row + 1];
+    }
+
+    public int exchangeId(final int index) {
+        return this.exchangeIds[index];
+    }
+
+    private static int row(final int[] eventRows, final int eventId) {
+        if (eventId < 0 || eventId >= eventRows.length) {
+            return -1;
+        }
+        return eventRows[eventId] - 1;
+    }
+
+    private static int outcomeOf(final int[] securityOutcomes, final Listing listing) {
+        if (!listing.active() || listing.exchange() == null || listing.security() == null) {
+            return -1;
+        }
+        final int securityId = listing.security().securityId();
+        if (securityId < 0 || securityId >= securityOutcomes.length) {
+            return -1;
+        }
+        return securityOutcomes[securityId] - 1;
+    }
+
+    /**
+     * Turns per-row counts stored at {@code offsets[row + 1]} into row start offsets.
+     */
+    private static void prefixSum(final int[] offsets, final int rows) {
+        for (int row = 0; row < rows; row++) {
+            offsets[row + 1] += offsets[row];
+        }
+    }
+}
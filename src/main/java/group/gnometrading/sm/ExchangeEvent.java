@@ -0,0 +1,12 @@
+package group.gnometrading.sm;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ExchangeEvent(
+        int exchangeEventId,
+        int exchangeId,
+        int eventId,
+        String nativeEventId,
+        String rawTitle,
+        String nativeUrl) {}
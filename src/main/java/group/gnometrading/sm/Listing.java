@@ -5,4 +5,5 @@ public record Listing(
         Exchange exchange,
         Security security,
         String exchangeSecurityId,
-        String exchangeSecuritySymbol) {}
+        String exchangeSecuritySymbol,
+        boolean active) {}
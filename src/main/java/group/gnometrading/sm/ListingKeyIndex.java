@@ -0,0 +1,118 @@
+package group.gnometrading.sm;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from a packed (exchangeId, securityId) pair to a listing id.
+ * Lookups are allocation-free and O(1). A value of {@link #NOT_FOUND} records that the
+ * registry has no listing for the pair, so repeated misses do not go back to the network.
+ */
+public final class ListingKeyIndex {
+
+    public static final int MISSING = Integer.MIN_VALUE;
+    public static final int NOT_FOUND = -1;
+
+    private static final long EMPTY_KEY = -1L;
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    public ListingKeyIndex() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ListingKeyIndex(final int expectedSize) {
+        final int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    public static long pack(final int exchangeId, final int securityId) {
+        return ((long) exchangeId << 32) | (securityId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return the listing id, {@link #NOT_FOUND} for a known-absent pair, or {@link #MISSING} if
+     *     the pair has not been seen
+     */
+    public int get(final int exchangeId, final int securityId) {
+        final long key = pack(exchangeId, securityId);
+        if (key == EMPTY_KEY) {
+            return MISSING;
+        }
+        int slot = hash(key) & this.mask;
+        while (true) {
+            final long existing = this.keys[slot];
+            if (existing == key) {
+                return this.values[slot];
+            }
+            if (existing == EMPTY_KEY) {
+                return MISSING;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+    }
+
+    public void put(final int exchangeId, final int securityId, final int listingId) {
+        final long key = pack(exchangeId, securityId);
+        if (key == EMPTY_KEY) {
+            return;
+        }
+        if ((this.size + 1) * 2 > this.keys.length) {
+            resize();
+        }
+        insert(key, listingId);
+    }
+
+    public void putNotFound(final int exchangeId, final int securityId) {
+        put(exchangeId, securityId, NOT_FOUND);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    private void insert(final long key, final int value) {
+        int slot = hash(key) & this.mask;
+        while (true) {
+            final long existing = this.keys[slot];
+            if (existing == key) {
+                this.values[slot] = value;
+                return;
+            }
+            if (existing == EMPTY_KEY) {
+                this.keys[slot] = key;
+                this.values[slot] = value;
+                this.size++;
+                return;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+    }
+
+    private void resize() {
+        final long[] oldKeys = this.keys;
+        final int[] oldValues = this.values;
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        this.size = 0;
+        Arrays.fill(this.keys, EMPTY_KEY);
+    }
+
+    private static int hash(final long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
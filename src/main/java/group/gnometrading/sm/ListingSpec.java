@@ -1,6 +1,19 @@
 package group.gnometrading.sm;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
+/**
+ * One version of a listing's trading spec. {@code version} is the id of the append-only spec row, increasing
+ * with every spec recorded; {@code recordedAt} is when it was recorded, in epoch millis.
+ */
 @JsonIgnoreProperties(ignoreUnknown = true)
-public record ListingSpec(int listingId, long tickSize, long lotSize, long minNotional, long contractMultiplier) {}
+public record ListingSpec(
+        int listingId,
+        long tickSize,
+        long lotSize,
+        long minNotional,
+        long contractMultiplier,
+        @JsonProperty("id") long version,
+        @JsonDeserialize(using = EpochMillisDeserializer.class) long recordedAt) {}
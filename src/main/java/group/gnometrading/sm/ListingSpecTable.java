@@ -0,0 +1,232 @@
+package group.gnometrading.sm;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Struct-of-arrays view of the listing specs for the order path. Each field lives in its own {@code long[]}
+ * indexed by a dense slot, so reads do no boxing, no record dereference and no allocation.
+ *
+ * <p>Single writer, any number of readers. Each slot is guarded by a sequence lock: a spec is swapped in as a
+ * unit and readers retry rather than observe a half-written spec. Growing the table publishes new arrays
+ * through a volatile field; readers still holding the old arrays see the values as of the swap.
+ *
+ * <p>Listing ids up to {@link #MAX_DIRECT_LISTING_ID} map to their slot through an array indexed by id; larger ids
+ * go through a small hash index instead, so a few sparse, very large ids cost memory per spec rather than per id.
+ */
+public final class ListingSpecTable {
+
+    public static final int TICK_SIZE = 0;
+    public static final int LOT_SIZE = 1;
+    public static final int MIN_NOTIONAL = 2;
+    public static final int CONTRACT_MULTIPLIER = 3;
+    public static final int FIELD_COUNT = 4;
+    public static final int MAX_DIRECT_LISTING_ID = (1 << 22) - 1;
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int DEFAULT_OVERFLOW_CAPACITY = 16;
+
+    private volatile Columns columns;
+    private int size;
+    private int overflowSize;
+
+    public ListingSpecTable() {
+        this.columns = new Columns(DEFAULT_CAPACITY, DEFAULT_CAPACITY, DEFAULT_OVERFLOW_CAPACITY);
+    }
+
+    public boolean contains(final int listingId) {
+        return this.columns.slotOf(listingId) >= 0;
+    }
+
+    /**
+     * @return the tick size, or 0 if no spec is loaded for the listing
+     */
+    public long tickSize(final int listingId) {
+        return read(listingId, TICK_SIZE);
+    }
+
+    public long lotSize(final int listingId) {
+        return read(listingId, LOT_SIZE);
+    }
+
+    public long minNotional(final int listingId) {
+        return read(listingId, MIN_NOTIONAL);
+    }
+
+    public long contractMultiplier(final int listingId) {
+        return read(listingId, CONTRACT_MULTIPLIER);
+    }
+
+    /**
+     * Copies every field of one spec version into {@code into}, indexed by the field constants.
+     *
+     * @return false if no spec is loaded for the listing
+     */
+    public boolean read(final int listingId, final long[] into) {
+        final Columns current = this.columns;
+        final int slot = current.slotOf(listingId);
+        if (slot < 0) {
+            return false;
+        }
+        long version;
+        do {
+            version = (long) LONGS.getAcquire(current.versions, slot);
+            for (int field = 0; field < FIELD_COUNT; field++) {
+                into[field] = current.fields[field][slot];
+            }
+            VarHandle.loadLoadFence();
+        } while ((version & 1) != 0 || version != (long) LONGS.getAcquire(current.versions, slot));
+        return true;
+    }
+
+    public void put(final ListingSpec spec) {
+        put(spec.listingId(), spec.tickSize(), spec.lotSize(), spec.minNotional(), spec.contractMultiplier());
+    }
+
+    public void put(
+            final int listingId,
+            final long tickSize,
+            final long lotSize,
+            final long minNotional,
+            final long contractMultiplier) {
+        if (listingId < 0) {
+            throw new IllegalArgumentException("Invalid listing id: " + listingId);
+        }
+        Columns current = this.columns;
+        int slot = current.slotOf(listingId);
+        final boolean added = slot < 0;
+        if (added) {
+            final boolean direct = listingId <= MAX_DIRECT_LISTING_ID;
+            if (this.size >= current.versions.length
+                    || (direct && listingId >= current.slots.length)
+                    || (!direct && (this.overflowSize + 1) * 2 > current.overflowKeys.length)) {
+                current = grow(current, listingId);
+            }
+            slot = this.size++;
+        }
+
+        final long version = current.versions[slot];
+        LONGS.setOpaque(current.versions, slot, version + 1);
+        VarHandle.storeStoreFence();
+        current.fields[TICK_SIZE][slot] = tickSize;
+        current.fields[LOT_SIZE][slot] = lotSize;
+        current.fields[MIN_NOTIONAL][slot] = minNotional;
+        current.fields[CONTRACT_MULTIPLIER][slot] = contractMultiplier;
+        LONGS.setRelease(current.versions, slot, version + 2);
+
+        if (added) {
+            if (listingId <= MAX_DIRECT_LISTING_ID) {
+                INTS.setRelease(current.slots, listingId, slot + 1);
+            } else {
+                current.link(listingId, slot);
+                this.overflowSize++;
+            }
+        }
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    private long read(final int listingId, final int field) {
+        final Columns current = this.columns;
+        final int slot = current.slotOf(listingId);
+        if (slot < 0) {
+            return 0;
+        }
+        final long[] values = current.fields[field];
+        long version;
+        long value;
+        do {
+            version = (long) LONGS.getAcquire(current.versions, slot);
+            value = values[slot];
+            VarHandle.loadLoadFence();
+        } while ((version & 1) != 0 || version != (long) LONGS.getAcquire(current.versions, slot));
+        return value;
+    }
+
+    private Columns grow(final Columns current, final int listingId) {
+        final int slotCapacity = listingId <= MAX_DIRECT_LISTING_ID
+                ? Math.max(current.slots.length, Integer.highestOneBit(listingId) << 1)
+                : current.slots.length;
+        final int capacity =
+                this.size >= current.versions.length ? current.versions.length << 1 : current.versions.length;
+        final int overflowCapacity = (this.overflowSize + 1) * 2 > current.overflowKeys.length
+                ? current.overflowKeys.length << 1
+                : current.overflowKeys.length;
+        final Columns grown = new Columns(slotCapacity, capacity, overflowCapacity);
+        System.arraycopy(current.slots, 0, grown.slots, 0, current.slots.length);
+        for (int i = 0; i < current.overflowKeys.length; i++) {
+            if (current.overflowKeys[i] >= 0) {
+                grown.link(current.overflowKeys[i], current.overflowSlots[i] - 1);
+            }
+        }
+        System.arraycopy(current.versions, 0, grown.versions, 0, this.size);
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            System.arraycopy(current.fields[field], 0, grown.fields[field], 0, this.size);
+        }
+        this.columns = grown;
+        return grown;
+    }
+
+    private static final class Columns {
+        private final int[] slots; // listingId -> slot + 1, 0 when absent
+        private final int[] overflowKeys; // listing ids above MAX_DIRECT_LISTING_ID, -1 when empty
+        private final int[] overflowSlots; // slot + 1, aligned with overflowKeys
+        private final long[] versions;
+        private final long[][] fields;
+
+        private Columns(final int slotCapacity, final int capacity, final int overflowCapacity) {
+            this.slots = new int[slotCapacity];
+            this.overflowKeys = new int[overflowCapacity];
+            this.overflowSlots = new int[overflowCapacity];
+            Arrays.fill(this.overflowKeys, -1);
+            this.versions = new long[capacity];
+            this.fields = new long[FIELD_COUNT][capacity];
+        }
+
+        private int slotOf(final int listingId) {
+            if (listingId < 0) {
+                return -1;
+            }
+            if (listingId < this.slots.length) {
+                return (int) INTS.getAcquire(this.slots, listingId) - 1;
+            }
+            if (listingId <= MAX_DIRECT_LISTING_ID) {
+                return -1;
+            }
+            final int mask = this.overflowKeys.length - 1;
+            for (int index = mix(listingId) & mask; ; index = (index + 1) & mask) {
+                final int key = (int) INTS.getAcquire(this.overflowKeys, index);
+                if (key == listingId) {
+                    return this.overflowSlots[index] - 1;
+                }
+                if (key < 0) {
+                    return -1;
+                }
+            }
+        }
+
+        /**
+         * Indexes a listing id above {@link #MAX_DIRECT_LISTING_ID}. The slot is stored before the key is
+         * released, so a reader that finds the key also finds the slot.
+         */
+        private void link(final int listingId, final int slot) {
+            final int mask = this.overflowKeys.length - 1;
+            int index = mix(listingId) & mask;
+            while (this.overflowKeys[index] >= 0) {
+                index = (index + 1) & mask;
+            }
+            this.overflowSlots[index] = slot + 1;
+            INTS.setRelease(this.overflowKeys, index, listingId);
+        }
+
+        private static int mix(final int listingId) {
+            final int hash = listingId * 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package group.gnometrading.sm;
+
+import group.gnometrading.strings.GnomeString;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Open-addressing map from an (exchangeId, exchange-native identifier) pair to a listing id.
+ * Keys are stored as UTF-8 bytes, and lookup keys are encoded, hashed and compared in place, so a hit never creates
+ * a {@link String} and {@link CharSequence} and {@link GnomeString} lookups agree on non-ASCII identifiers.
+ * Uses the same {@link ListingKeyIndex#MISSING} and {@link ListingKeyIndex#NOT_FOUND} sentinels
+ * as {@link ListingKeyIndex}. At most {@link #MAX_NOT_FOUND} not-found entries are kept; once that many pile up,
+ * e.g. from lookups of junk symbols, they are all dropped and the next lookup of each asks the registry again.
+ *
+ * <p>Single writer, any number of readers. A new entry's key is stored with release semantics after its value, and
+ * growing or dropping not-found entries publishes new arrays through a volatile field, so readers never lock.
+ */
+public final class NativeSymbolIndex {
+
+    public static final int MAX_NOT_FOUND = 4096;
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(byte[][].class);
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private volatile Slots slots;
+    // only touched by the writer
+    private int size;
+    private int notFoundCount;
+
+    public NativeSymbolIndex() {
+        this.slots = new Slots(DEFAULT_CAPACITY);
+    }
+
+    public int get(final int exchangeId, final CharSequence key) {
+        final Slots current = this.slots;
+        final int hash = hash(exchangeId, key);
+        int slot = hash & current.mask;
+        while (true) {
+            final byte[] existing = (byte[]) KEYS.getAcquire(current.keys, slot);
+            if (existing == null) {
+                return ListingKeyIndex.MISSING;
+            }
+            if (current.hashes[slot] == hash
+                    && current.exchangeIds[slot] == exchangeId
+                    && contentEquals(existing, key)) {
+                return (int) INTS.getAcquire(current.values, slot);
+            }
+            slot = (slot + 1) & current.mask;
+        }
+    }
+
+    public int get(final int exchangeId, final GnomeString key) {
+        final Slots current = this.slots;
+        final int hash = hash(exchangeId, key);
+        int slot = hash & current.mask;
+        while (true) {
+            final byte[] existing = (byte[]) KEYS.getAcquire(current.keys, slot);
+            if (existing == null) {
+                return ListingKeyIndex.MISSING;
+            }
+            if (current.hashes[slot] == hash
+                    && current.exchangeIds[slot] == exchangeId
+                    && contentEquals(existing, key)) {
+                return (int) INTS.getAcquire(current.values, slot);
+            }
+            slot = (slot + 1) & current.mask;
+        }
+    }
+
+    public void put(final int exchangeId, final String key, final int listingId) {
+        if (key == null) {
+            return;
+        }
+        if (listingId == ListingKeyIndex.NOT_FOUND && this.notFoundCount >= MAX_NOT_FOUND) {
+            rebuild(this.slots.keys.length, false);
+        }
+        if ((this.size + 1) * 2 > this.slots.keys.length) {
+            rebuild(this.slots.keys.length << 1, true);
+        }
+        final byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        insert(this.slots, exchangeId, bytes, hash(exchangeId, bytes), listingId);
+    }
+
+    public void putNotFound(final int exchangeId, final String key) {
+        put(exchangeId, key, ListingKeyIndex.NOT_FOUND);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    private void insert(final Slots target, final int exchangeId, final byte[] key, final int hash, final int value) {
+        int slot = hash & target.mask;
+        while (true) {
+            final byte[] existing = target.keys[slot];
+            if (existing == null) {
+                target.exchangeIds[slot] = exchangeId;
+                target.hashes[slot] = hash;
+                target.values[slot] = value;
+                KEYS.setRelease(target.keys, slot, key);
+                this.size++;
+                if (value == ListingKeyIndex.NOT_FOUND) {
+                    this.notFoundCount++;
+                }
+                return;
+            }
+            if (target.hashes[slot] == hash && target.exchangeIds[slot] == exchangeId && contentEquals(existing, key)) {
+                if (target.values[slot] == ListingKeyIndex.NOT_FOUND) {
+                    this.notFoundCount--;
+                }
+                if (value == ListingKeyIndex.NOT_FOUND) {
+                    this.notFoundCount++;
+                }
+                INTS.setRelease(target.values, slot, value);
+                return;
+            }
+            slot = (slot + 1) & target.mask;
+        }
+    }
+
+    /**
+     * Reinserts every entry into fresh arrays of the given capacity and publishes them, leaving out not-found
+     * entries unless {@code keepNotFound} is set.
+     */
+    private void rebuild(final int capacity, final boolean keepNotFound) {
+        final Slots old = this.slots;
+        final Slots rebuilt = new Slots(capacity);
+        this.size = 0;
+        this.notFoundCount = 0;
+        for (int i = 0; i < old.keys.length; i++) {
+            if (old.keys[i] != null && (keepNotFound || old.values[i] != ListingKeyIndex.NOT_FOUND)) {
+                insert(rebuilt, old.exchangeIds[i], old.keys[i], old.hashes[i], old.values[i]);
+            }
+        }
+        this.slots = rebuilt;
+    }
+
+    private static int hash(final int exchangeId, final byte[] key) {
+        int h = exchangeId;
+        for (final byte b : key) {
+            h = 31 * h + (b & 0xFF);
+        }
+        return mix(h);
+    }
+
+    private static int hash(final int exchangeId, final GnomeString key) {
+        int h = exchangeId;
+        for (int i = 0; i < key.length(); i++) {
+            h = 31 * h + (key.byteAt(i) & 0xFF);
+        }
+        return mix(h);
+    }
+
+    /**
+     * Hashes the UTF-8 encoding of {@code key} without materializing it, matching {@link #hash(int, byte[])}.
+     */
+    private static int hash(final int exchangeId, final CharSequence key) {
+        int h = exchangeId;
+        for (int i = 0; i < key.length(); ) {
+            final int codePoint = codePointAt(key, i);
+            i += Character.charCount(codePoint);
+            final int length = utf8Length(codePoint);
+            for (int j = 0; j < length; j++) {
+                h = 31 * h + utf8Byte(codePoint, length, j);
+            }
+        }
+        return mix(h);
+    }
+
+    private static int mix(final int h) {
+        final int x = h * 0x9E3779B9;
+        return x ^ (x >>> 16);
+    }
+
+    private static boolean contentEquals(final byte[] existing, final byte[] key) {
+        if (existing.length != key.length) {
+            return false;
+        }
+        for (int i = 0; i < existing.length; i++) {
+            if (existing[i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contentEquals(final byte[] existing, final GnomeString key) {
+        if (existing.length != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < existing.length; i++) {
+            if (existing[i] != key.byteAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contentEquals(final byte[] existing, final CharSequence key) {
+        int position = 0;
+        for (int i = 0; i < key.length(); ) {
+            final int codePoint = codePointAt(key, i);
+            i += Character.charCount(codePoint);
+            final int length = utf8Length(codePoint);
+            if (position + length > existing.length) {
+                return false;
+            }
+            for (int j = 0; j < length; j++) {
+                if ((existing[position++] & 0xFF) != utf8Byte(codePoint, length, j)) {
+                    return false;
+                }
+            }
+        }
+        return position == existing.length;
+    }
+
+    /**
+     * @return the code point at {@code index}, or '?' for an unpaired surrogate, as {@link String#getBytes} encodes it
+     */
+    private static int codePointAt(final CharSequence key, final int index) {
+        final char c = key.charAt(index);
+        if (Character.isHighSurrogate(c) && index + 1 < key.length()) {
+            final char low = key.charAt(index + 1);
+            if (Character.isLowSurrogate(low)) {
+                return Character.toCodePoint(c, low);
+            }
+        }
+        return Character.isSurrogate(c) ? '?' : c;
+    }
+
+    private static int utf8Length(final int codePoint) {
+        if (codePoint < 0x80) {
+            return 1;
+        }
+        if (codePoint < 0x800) {
+            return 2;
+        }
+        return codePoint < 0x10000 ? 3 : 4;
+    }
+
+    private static int utf8Byte(final int codePoint, final int length, final int index) {
+        if (length == 1) {
+            return codePoint;
+        }
+        final int shift = 6 * (length - 1 - index);
+        if (index == 0) {
+            final int lead = length == 2 ? 0xC0 : length == 3 ? 0xE0 : 0xF0;
+            return lead | (codePoint >>> shift);
+        }
+        return 0x80 | ((codePoint >>> shift) & 0x3F);
+    }
+
+    private static final class Slots {
+        private final int[] exchangeIds;
+        private final byte[][] keys;
+        private final int[] hashes;
+        private final int[] values;
+        private final int mask;
+
+        private Slots(final int capacity) {
+            this.exchangeIds = new int[capacity];
+            this.keys = new byte[capacity][];
+            this.hashes = new int[capacity];
+            this.values = new int[capacity];
+            this.mask = capacity - 1;
+        }
+    }
+}
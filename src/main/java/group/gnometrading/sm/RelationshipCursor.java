@@ -0,0 +1,96 @@
+package group.gnometrading.sm;
+
+/**
+ * Reusable, allocation-free iterator over one security's row of a {@link ContractRelationshipGraph}, skipping
+ * relationships outside the requested types or below the requested confidence.
+ *
+ * <pre>{@code
+ * while (cursor.next()) {
+ *     hedge(cursor.securityId(), cursor.confidence());
+ * }
+ * }</pre>
+ */
+public final class RelationshipCursor {
+
+    private int[] neighbours;
+    private byte[] types;
+    private float[] confidences;
+    private int[] relationshipIds;
+    private int typeMask;
+    private float minConfidence;
+    private int position;
+    private int end;
+    private int current;
+
+    void reset(
+            final int[] neighbours,
+            final byte[] types,
+            final float[] confidences,
+            final int[] relationshipIds,
+            final int start,
+            final int end,
+            final int typeMask,
+            final float minConfidence) {
+        this.neighbours = neighbours;
+        this.types = types;
+        this.confidences = confidences;
+        this.relationshipIds = relationshipIds;
+        this.position = start;
+        this.end = end;
+        this.typeMask = typeMask;
+        this.minConfidence = minConfidence;
+        this.current = -1;
+    }
+
+    /**
+     * Advances to the next matching relationship.
+     *
+     * @return false once the row is exhausted
+     */
+    public boolean next() {
+        while (this.position < this.end) {
+            final int index = this.position++;
+            if (this.confidences[index] >= this.minConfidence
+                    && (this.typeMask & (1 << (this.types[index] & ContractRelationshipGraph.TYPE_BITS))) != 0) {
+                this.current = index;
+                return true;
+            }
+        }
+        this.current = -1;
+        return false;
+    }
+
+    /**
+     * @return the security at the other end of the relationship
+     */
+    public int securityId() {
+        return this.neighbours[this.current];
+    }
+
+    public RelationshipType type() {
+        return RelationshipType.fromOrdinal(this.types[this.current] & ContractRelationshipGraph.TYPE_BITS);
+    }
+
+    /**
+     * @return the relationship's confidence, or for a transitive implication the product of the confidences along
+     *     its strongest chain
+     */
+    public float confidence() {
+        return this.confidences[this.current];
+    }
+
+    /**
+     * @return the registry's relationship id, or -1 for a transitive implication
+     */
+    public int relationshipId() {
+        return this.relationshipIds[this.current];
+    }
+
+    /**
+     * @return true if the row's security is the implied side ({@code security_id_b}) of an {@link
+     *     RelationshipType#IMPLIES} relationship; always false for symmetric types
+     */
+    public boolean inbound() {
+        return (this.types[this.current] & ContractRelationshipGraph.INBOUND) != 0;
+    }
+}
@@ -0,0 +1,48 @@
+package group.gnometrading.sm;
+
+/**
+ * Values of {@code sm.contract_relationship.relationship_type}. Every type but {@link #IMPLIES} is symmetric.
+ */
+public enum RelationshipType {
+    EQUIVALENT,
+    COMPLEMENT,
+    IMPLIES,
+    MUTUALLY_EXCLUSIVE,
+    HEDGEABLE_WITH;
+
+    public static final int ALL = (1 << values().length) - 1;
+
+    private static final RelationshipType[] VALUES = values();
+
+    /**
+     * @return this type's bit, to be or-ed together into the type masks taken by {@link ContractRelationshipGraph}
+     */
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    public boolean isSymmetric() {
+        return this != IMPLIES;
+    }
+
+    static RelationshipType fromOrdinal(final int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * @return the type with the given name, or null if the registry returned one this client does not know
+     */
+    public static RelationshipType fromName(final String name) {
+        if (name == null) {
+            return null;
+        }
+        return switch (name) {
+            case "EQUIVALENT" -> EQUIVALENT;
+            case "COMPLEMENT" -> COMPLEMENT;
+            case "IMPLIES" -> IMPLIES;
+            case "MUTUALLY_EXCLUSIVE" -> MUTUALLY_EXCLUSIVE;
+            case "HEDGEABLE_WITH" -> HEDGEABLE_WITH;
+            default -> null;
+        };
+    }
+}
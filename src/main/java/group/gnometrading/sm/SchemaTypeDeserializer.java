@@ -14,7 +14,16 @@ public final class SchemaTypeDeserializer extends StdDeserializer<SchemaType> {
 
     @Override
     public SchemaType deserialize(final JsonParser parser, final DeserializationContext ctx) throws IOException {
-        final String value = parser.getText();
+        return fromId(parser.getText());
+    }
+
+    /**
+     * @return the schema type with the given id, or null if the id is null or unknown
+     */
+    public static SchemaType fromId(final String value) {
+        if (value == null) {
+            return null;
+        }
         try {
             return SchemaType.findById(value);
         } catch (IllegalArgumentException e) {
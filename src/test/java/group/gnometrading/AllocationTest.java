@@ -0,0 +1,219 @@
+package group.gnometrading;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.*;
+
+import group.gnometrading.arbitrage.ArbitrageKernel;
+import group.gnometrading.risk.PolicyCursor;
+import group.gnometrading.risk.RiskDecision;
+import group.gnometrading.risk.RiskEngine;
+import group.gnometrading.risk.RiskMaster;
+import group.gnometrading.risk.RiskPolicyRecord;
+import group.gnometrading.sm.ContractRelationship;
+import group.gnometrading.strings.ViewString;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Guards the paths documented as allocation-free. Each operation is warmed up until the JIT has compiled it, then
+ * run in a loop between two reads of the thread's allocated bytes counter, which must not move.
+ */
+@ExtendWith(MockitoExtension.class)
+class AllocationTest {
+
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 10_000;
+    // the best of a few rounds is taken, so a one-off deoptimization mid-loop cannot fail the build
+    private static final int ROUNDS = 3;
+
+    private static final String POLICIES =
+            "[{\"policy_id\": 1, \"policy_type\": \"KILL_SWITCH\", \"scope\": 0, \"strategy_id\": null, \"listing_id\": null, \"parameters\": {}, \"enabled\": false},"
+                    + "{\"policy_id\": 2, \"policy_type\": \"MAX_POSITION\", \"scope\": 1, \"strategy_id\": 10, \"listing_id\": 0, \"parameters\": {\"max_position\": 100}, \"enabled\": true},"
+                    + "{\"policy_id\": 3, \"policy_type\": \"ORDER_RATE\", \"scope\": 2, \"strategy_id\": 10, \"listing_id\": 7, \"parameters\": {\"max_orders\": 50, \"window_millis\": 1000}, \"enabled\": true}]";
+
+    private static final String CHANGED_POLICIES = POLICIES.replace("\"max_position\": 100", "\"max_position\": 200");
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    @Mock
+    private RegistryConnection registryConnection;
+
+    @InjectMocks
+    private SecurityMaster securityMaster;
+
+    private Object last;
+    private int visited;
+    private long nowMillis;
+
+    @BeforeAll
+    static void enableAllocationCounting() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    void testRiskMasterRefreshDoesNotAllocate() {
+        final RiskMaster riskMaster = new RiskMaster(registryConnection);
+        final ByteBuffer policies = ByteBuffer.wrap(POLICIES.getBytes());
+        final ByteBuffer changedPolicies = ByteBuffer.wrap(CHANGED_POLICIES.getBytes());
+
+        // alternating payloads so that every refresh decodes and publishes rather than hitting the unchanged check
+        assertAllocationFree("RiskMaster.refresh", () -> {
+            policies.clear();
+            riskMaster.refresh(policies);
+            changedPolicies.clear();
+            riskMaster.refresh(changedPolicies);
+        });
+        assertEquals(3, riskMaster.getPolicyCount());
+    }
+
+    @Test
+    void testRiskMasterReadsDoNotAllocate() {
+        final RiskMaster riskMaster = new RiskMaster(registryConnection);
+        riskMaster.refresh(ByteBuffer.wrap(POLICIES.getBytes()));
+        final Consumer<RiskPolicyRecord> visitor = record -> this.visited++;
+        final PolicyCursor cursor = new PolicyCursor();
+
+        assertAllocationFree("RiskMaster.forEachPolicy", () -> riskMaster.forEachPolicy(10, visitor));
+        assertAllocationFree(
+                "RiskMaster.policiesFor", () -> this.visited += riskMaster.policiesFor(10, 7, cursor).size());
+        assertTrue(this.visited > 0);
+    }
+
+    @Test
+    void testRiskEngineCheckDoesNotAllocate() {
+        final RiskMaster riskMaster = new RiskMaster(registryConnection);
+        riskMaster.refresh(ByteBuffer.wrap(POLICIES.getBytes()));
+        final RiskEngine riskEngine = new RiskEngine(riskMaster);
+
+        // the clock advances 1ms per order, so the order rate policy both accepts and rejects within the loop
+        assertAllocationFree("RiskEngine.check", () -> this.last = riskEngine.check(10, 7, 1, 1, 0, this.nowMillis++));
+        assertAllocationFree(
+                "RiskEngine.check (rejected)", () -> this.last = riskEngine.check(10, 7, 1_000, 1, 0, this.nowMillis));
+        assertEquals(RiskDecision.MAX_POSITION, this.last);
+    }
+
+    @Test
+    void testSecurityMasterCacheHitsDoNotAllocate() {
+        stubCachedEntities();
+
+        final ViewString exchangeSecurityId = new ViewString("SecId");
+        final ViewString exchangeSecuritySymbol = new ViewString("SYM");
+
+        assertAllocationFree("getSecurity", () -> this.last = securityMaster.getSecurity(123));
+        assertAllocationFree("getSecurity (negative)", () -> this.last = securityMaster.getSecurity(1));
+        assertAllocationFree("getExchange", () -> this.last = securityMaster.getExchange(456));
+        assertAllocationFree("getListing(listingId)", () -> this.last = securityMaster.getListing(789));
+        assertAllocationFree(
+                "getListing(exchangeId, securityId)", () -> this.last = securityMaster.getListing(456, 123));
+        assertAllocationFree(
+                "getListingByExchangeSecurityId(CharSequence)",
+                () -> this.last = securityMaster.getListingByExchangeSecurityId(456, "SecId"));
+        assertAllocationFree(
+                "getListingByExchangeSecurityId(GnomeString)",
+                () -> this.last = securityMaster.getListingByExchangeSecurityId(456, exchangeSecurityId));
+        assertAllocationFree(
+                "getListingByExchangeSecuritySymbol(CharSequence)",
+                () -> this.last = securityMaster.getListingByExchangeSecuritySymbol(456, "SYM"));
+        assertAllocationFree(
+                "getListingByExchangeSecuritySymbol(GnomeString)",
+                () -> this.last = securityMaster.getListingByExchangeSecuritySymbol(456, exchangeSecuritySymbol));
+        assertAllocationFree("getListingSpec", () -> this.last = securityMaster.getListingSpec(789));
+        assertAllocationFree("getEvent", () -> this.last = securityMaster.getEvent(5));
+        assertAllocationFree(
+                "getEventContractBySecurity", () -> this.last = securityMaster.getEventContractBySecurity(123));
+
+        assertNotNull(securityMaster.getListingByExchangeSecuritySymbol(456, "SYM"));
+        assertNotNull(securityMaster.getEventContractBySecurity(123));
+    }
+
+    @Test
+    void testConcurrentSecurityMasterCacheHitsDoNotAllocate() {
+        stubCachedEntities();
+        final ConcurrentSecurityMaster concurrent = new ConcurrentSecurityMaster(registryConnection);
+
+        assertAllocationFree("concurrent getSecurity", () -> this.last = concurrent.getSecurity(123));
+        assertAllocationFree("concurrent getSecurity (negative)", () -> this.last = concurrent.getSecurity(1));
+        assertAllocationFree("concurrent getExchange", () -> this.last = concurrent.getExchange(456));
+        assertAllocationFree("concurrent getListing(listingId)", () -> this.last = concurrent.getListing(789));
+        assertAllocationFree(
+                "concurrent getListing(exchangeId, securityId)", () -> this.last = concurrent.getListing(456, 123));
+        assertAllocationFree("concurrent getListingSpec", () -> this.last = concurrent.getListingSpec(789));
+        assertAllocationFree("concurrent getEvent", () -> this.last = concurrent.getEvent(5));
+        assertAllocationFree(
+                "concurrent getEventContractBySecurity",
+                () -> this.last = concurrent.getEventContractBySecurity(123));
+
+        assertNotNull(concurrent.getListing(456, 123));
+        assertNotNull(concurrent.getEventContractBySecurity(123));
+    }
+
+    @Test
+    void testArbitrageKernelDoesNotAllocate() {
+        final ContractRelationship[] relationships = new ContractRelationship[1_001];
+        for (int i = 0; i < relationships.length; i++) {
+            final String type = i % 2 == 0 ? "EQUIVALENT" : "COMPLEMENT";
+            relationships[i] = new ContractRelationship(i, 2 * i + 1, 2 * i + 2, type, 1f, "manual");
+        }
+        final double[] prices = new double[relationships.length * 2];
+        for (int slot = 0; slot < prices.length; slot++) {
+            prices[slot] = (slot % 7) / 7.0;
+        }
+        final int[] violations = new int[relationships.length];
+
+        for (final ArbitrageKernel kernel : new ArbitrageKernel[] {
+            ArbitrageKernel.scalar(relationships, 0f), ArbitrageKernel.build(relationships, 0f)
+        }) {
+            assertAllocationFree(
+                    kernel.isVectorized() ? "VectorArbitrageKernel" : "ScalarArbitrageKernel",
+                    () -> this.visited = kernel.findViolations(prices, 0.05, violations));
+        }
+    }
+
+    private void stubCachedEntities() {
+        stub("/api/exchanges?exchangeId=456", """
+                [{"exchange_id": 456, "exchange_name": "NYSE", "region": "us-east-1", "schema_type": "mbp-1"}]""");
+        stub("/api/securities?securityId=123", """
+                [{"security_id": 123, "type": 0, "symbol": "BTC"}]""");
+        stub("/api/listings?listingId=789", """
+                [{"listing_id": 789, "exchange_id": 456, "security_id": 123, "exchange_security_id": "SecId", "exchange_security_symbol": "SYM"}]""");
+        stub("/api/listing-specs?listingId=789", """
+                [{"listing_id": 789, "tick_size": 100, "lot_size": 1000}]""");
+        stub("/api/events?eventId=5", """
+                [{"event_id": 5, "title": "Fed decision", "category": "economics"}]""");
+        stub("/api/event-contracts?securityId=123", """
+                [{"event_contract_id": 9, "event_id": 5, "security_id": 123, "outcome_label": "Yes"}]""");
+        stub("/api/securities?securityId=1", "[]");
+    }
+
+    private void stub(final String path, final String response) {
+        when(registryConnection.get(new ViewString(path))).thenReturn(ByteBuffer.wrap(response.getBytes()));
+    }
+
+    private static void assertAllocationFree(final String name, final Runnable operation) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            operation.run();
+        }
+
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS && allocated > 0; round++) {
+            final long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                operation.run();
+            }
+            allocated = Math.min(allocated, threads.getCurrentThreadAllocatedBytes() - before);
+        }
+        final long bytes = allocated;
+        assertEquals(0, bytes, () -> name + " allocated " + bytes + " bytes over " + MEASURED_ITERATIONS + " calls");
+    }
+}
@@ -0,0 +1,238 @@
+package group.gnometrading;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import group.gnometrading.metrics.RecordingMetricsSink;
+import group.gnometrading.sm.ContractRelationship;
+import group.gnometrading.sm.Listing;
+import group.gnometrading.sm.Security;
+import group.gnometrading.strings.ViewString;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ConcurrentSecurityMasterTest {
+
+    private static final String SECURITY_RESPONSE = """
+            [{"security_id": 123, "type": 0, "symbol": "BTC"}]""";
+
+    @Mock
+    private RegistryConnection registryConnection;
+
+    private ConcurrentSecurityMaster securityMaster;
+
+    @BeforeEach
+    void setUp() {
+        securityMaster = new ConcurrentSecurityMaster(registryConnection);
+    }
+
+    @Test
+    void testGetSecurityCaching() {
+        when(registryConnection.get(new ViewString("/api/securities?securityId=123")))
+                .thenReturn(ByteBuffer.wrap(SECURITY_RESPONSE.getBytes()));
+
+        Security first = securityMaster.getSecurity(123);
+        Security second = securityMaster.getSecurity(123);
+
+        assertEquals("BTC", first.symbol());
+        assertSame(first, second);
+        verify(registryConnection, times(1)).get(any());
+    }
+
+    @Test
+    void testGetSecurityEmptyCaching() {
+        when(registryConnection.get(new ViewString("/api/securities?securityId=1")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+
+        assertNull(securityMaster.getSecurity(1));
+        assertNull(securityMaster.getSecurity(1));
+        verify(registryConnection, times(1)).get(any());
+    }
+
+    @Test
+    void testGetListingByNativeIdentifiers() {
+        when(registryConnection.get(new ViewString("/api/listings?exchangeId=456&exchangeSecurityId=SecId")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"listing_id": 789, "exchange_id": 456, "security_id": 123, "exchange_security_id": "SecId", "exchange_security_symbol": "SYM"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/exchanges?exchangeId=456")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"exchange_id": 456, "exchange_name": "NYSE", "region": "us-east-1", "schema_type": "mbp-1"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?securityId=123")))
+                .thenReturn(ByteBuffer.wrap(SECURITY_RESPONSE.getBytes()));
+        when(registryConnection.get(new ViewString("/api/listings?exchangeId=456&exchangeSecuritySymbol=NONE")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+
+        final Listing first = securityMaster.getListingByExchangeSecurityId(456, "SecId");
+        assertEquals(789, first.listingId());
+        assertSame(first, securityMaster.getListingByExchangeSecurityId(456, new ViewString("SecId")));
+        assertSame(first, securityMaster.getListingByExchangeSecuritySymbol(456, "SYM"));
+        assertNull(securityMaster.getListingByExchangeSecuritySymbol(456, "NONE"));
+        assertNull(securityMaster.getListingByExchangeSecuritySymbol(456, new ViewString("NONE")));
+        verify(registryConnection, times(4)).get(any());
+    }
+
+    @Test
+    void testContractRelationshipsAreLoadedOnce() {
+        final String json =
+                """
+                [{"relationship_id": 2, "security_id_a": 100, "security_id_b": 300,
+                  "relationship_type": "COMPLEMENT", "confidence": 1.0, "method": "structural"}]""";
+        when(registryConnection.get(new ViewString("/api/contract-relationships?securityId=100")))
+                .thenReturn(ByteBuffer.wrap(json.getBytes()));
+        when(registryConnection.get(new ViewString("/api/contract-relationships?")))
+                .thenReturn(ByteBuffer.wrap(json.getBytes()));
+
+        final ContractRelationship[] first = securityMaster.getContractRelationships(100);
+        assertSame(first, securityMaster.getContractRelationships(100));
+        assertSame(securityMaster.getContractRelationshipGraph(), securityMaster.getContractRelationshipGraph());
+        assertSame(securityMaster.getAllContractRelationships(), securityMaster.getAllContractRelationships());
+        verify(registryConnection, times(2)).get(any());
+    }
+
+    @Test
+    void testCacheMetricsCountPublishedHits() {
+        when(registryConnection.get(new ViewString("/api/securities?securityId=1")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?securityId=123")))
+                .thenReturn(ByteBuffer.wrap(SECURITY_RESPONSE.getBytes()));
+
+        securityMaster.getSecurity(1);
+        securityMaster.getSecurity(1);
+        securityMaster.getSecurity(123);
+        securityMaster.getSecurity(123);
+        securityMaster.getSecurities(new int[] {1, 123});
+
+        final RecordingMetricsSink sink = new RecordingMetricsSink();
+        securityMaster.sampleMetrics(sink);
+        assertEquals(2, sink.get(SecurityMaster.CACHE_MISSES_METRIC));
+        assertEquals(2, sink.get(SecurityMaster.CACHE_HITS_METRIC));
+        assertEquals(2, sink.get(SecurityMaster.CACHE_NEGATIVE_HITS_METRIC));
+    }
+
+    @Test
+    void testGetListingByExchangeAndSecurityEmptyCaching() {
+        when(registryConnection.get(new ViewString("/api/listings?exchangeId=1&securityId=2")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+
+        assertNull(securityMaster.getListing(1, 2));
+        assertNull(securityMaster.getListing(1, 2));
+        verify(registryConnection, times(1)).get(any());
+    }
+
+    @Test
+    void testMissPublishesEverythingItLoaded() {
+        when(registryConnection.get(new ViewString("/api/listings?listingId=789")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"listing_id": 789, "exchange_id": 456, "security_id": 123, "exchange_security_id": "SecId", "exchange_security_symbol": "SYM"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/exchanges?exchangeId=456")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"exchange_id": 456, "exchange_name": "NYSE", "region": "us-east-1", "schema_type": "mbp-1"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?securityId=123")))
+                .thenReturn(ByteBuffer.wrap(SECURITY_RESPONSE.getBytes()));
+
+        final Listing listing = securityMaster.getListing(789);
+
+        assertSame(listing.security(), securityMaster.getSecurity(123));
+        assertSame(listing.exchange(), securityMaster.getExchange(456));
+        assertSame(listing, securityMaster.getListing(456, 123));
+        verify(registryConnection, times(3)).get(any());
+    }
+
+    @Test
+    void testConcurrentMissesAreSingleFlight() throws Exception {
+        final CountDownLatch requestStarted = new CountDownLatch(1);
+        final CountDownLatch releaseRequest = new CountDownLatch(1);
+        when(registryConnection.get(new ViewString("/api/securities?securityId=123")))
+                .thenAnswer(invocation -> {
+                    requestStarted.countDown();
+                    assertTrue(releaseRequest.await(5, TimeUnit.SECONDS));
+                    return ByteBuffer.wrap(SECURITY_RESPONSE.getBytes());
+                });
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final Future<Security> first = executor.submit(() -> securityMaster.getSecurity(123));
+            assertTrue(requestStarted.await(5, TimeUnit.SECONDS));
+            final Future<Security> second = executor.submit(() -> securityMaster.getSecurity(123));
+            final Future<Security> third = executor.submit(() -> securityMaster.getSecurity(123));
+            Thread.sleep(50);
+            releaseRequest.countDown();
+
+            assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+            assertSame(first.get(), third.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(registryConnection, times(1)).get(any());
+    }
+
+    @Test
+    void testConcurrentMissesAreCoalesced() throws Exception {
+        final ConcurrentSecurityMaster coalescing = new ConcurrentSecurityMaster(
+                registryConnection, SecurityMaster.DEFAULT_LISTING_SPEC_REFRESH_MILLIS, 200_000);
+        when(registryConnection.get(new ViewString("/api/securities?securityIds=1,2,3")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"security_id": 1, "type": 0, "symbol": "BTC"}, {"security_id": 3, "type": 0, "symbol": "SOL"}]"""
+                                .getBytes()));
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final Future<Security> first = executor.submit(() -> {
+                start.await();
+                return coalescing.getSecurity(1);
+            });
+            final Future<Security> second = executor.submit(() -> {
+                start.await();
+                return coalescing.getSecurity(2);
+            });
+            final Future<Security> third = executor.submit(() -> {
+                start.await();
+                return coalescing.getSecurity(3);
+            });
+            start.countDown();
+
+            assertEquals("BTC", first.get(5, TimeUnit.SECONDS).symbol());
+            assertNull(second.get(5, TimeUnit.SECONDS));
+            assertEquals("SOL", third.get(5, TimeUnit.SECONDS).symbol());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertSame(coalescing.getSecurity(1), coalescing.getSecurities(new int[] {1, 2, 3})[0]);
+        verify(registryConnection, times(1)).get(any());
+    }
+
+    @Test
+    void testGetSecurityAsync() throws Exception {
+        when(registryConnection.asyncExecutor()).thenReturn(Runnable::run);
+        when(registryConnection.get(new ViewString("/api/securities?securityId=123")))
+                .thenReturn(ByteBuffer.wrap(SECURITY_RESPONSE.getBytes()));
+
+        Security loaded = securityMaster.getSecurityAsync(123).get(5, TimeUnit.SECONDS);
+        Security cached = securityMaster.getSecurityAsync(123).get(5, TimeUnit.SECONDS);
+
+        assertEquals("BTC", loaded.symbol());
+        assertSame(loaded, cached);
+        verify(registryConnection, times(1)).get(any());
+        verify(registryConnection, times(1)).asyncExecutor();
+    }
+}
@@ -0,0 +1,66 @@
+package group.gnometrading;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class PublishedTableTest {
+
+    @Test
+    void testPutAndGet() {
+        final PublishedTable<String> table = new PublishedTable<>();
+        table.put(1L, "a");
+        table.put(-1L, "b");
+        table.put(Long.MAX_VALUE, "c");
+
+        assertEquals("a", table.get(1L));
+        assertEquals("b", table.get(-1L));
+        assertEquals("c", table.get(Long.MAX_VALUE));
+        assertNull(table.get(2L));
+        assertEquals(3, table.size());
+    }
+
+    @Test
+    void testPutReplacesValue() {
+        final PublishedTable<String> table = new PublishedTable<>();
+        table.put(7L, "old");
+        table.put(7L, "new");
+
+        assertEquals("new", table.get(7L));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void testGrowKeepsEntries() {
+        final PublishedTable<Integer> table = new PublishedTable<>();
+        for (int i = 0; i < 10_000; i++) {
+            table.put(i * 31L, i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, table.get(i * 31L));
+        }
+        assertNull(table.get(1L));
+        assertEquals(10_000, table.size());
+    }
+
+    @Test
+    void testReadsWhileWriting() throws Exception {
+        final PublishedTable<Integer> table = new PublishedTable<>();
+        final int count = 100_000;
+        final Thread writer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                table.put(i, i);
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            for (int i = 0; i < 1_000; i++) {
+                final Integer value = table.get(i);
+                assertTrue(value == null || value == i);
+            }
+        }
+        writer.join();
+        assertEquals(count, table.size());
+    }
+}
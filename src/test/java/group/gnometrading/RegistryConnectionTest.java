@@ -0,0 +1,121 @@
+package group.gnometrading;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import group.gnometrading.networking.http.HTTPResponse;
+import group.gnometrading.networking.http.RetryableHTTPClient;
+import group.gnometrading.strings.ExpandingMutableString;
+import group.gnometrading.strings.GnomeString;
+import group.gnometrading.strings.ViewString;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedConstruction;
+import org.mockito.stubbing.Answer;
+
+class RegistryConnectionTest {
+
+    private static final byte[] BODY = "{\"ok\":true}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void testGetAsyncCopiesPathBeforeReturning() {
+        final List<String> requestedPaths = new CopyOnWriteArrayList<>();
+        final List<Runnable> tasks = new ArrayList<>();
+        try (MockedConstruction<RetryableHTTPClient> clients = mockClients(invocation -> {
+            requestedPaths.add(invocation.getArgument(2, GnomeString.class).toString());
+            return success();
+        })) {
+            final RegistryConnection connection = new RegistryConnection("registry", "key", 2, tasks::add);
+            final ExpandingMutableString path = new ExpandingMutableString();
+            path.copy(new ViewString("/api/securities"));
+
+            final CompletableFuture<ByteBuffer> future = connection.getAsync(path);
+            path.copy(new ViewString("/api/exchanges"));
+            tasks.forEach(Runnable::run);
+
+            assertEquals(List.of("/api/securities"), requestedPaths);
+            final ByteBuffer body = future.join();
+            assertEquals(BODY.length, body.remaining());
+            assertTrue(body.hasArray());
+        }
+    }
+
+    @Test
+    void testAtMostMaxInFlightRequestsRunConcurrently() throws Exception {
+        final int maxInFlight = 2;
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(maxInFlight * 3);
+        try (MockedConstruction<RetryableHTTPClient> clients = mockClients(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } finally {
+                running.decrementAndGet();
+            }
+            return success();
+        })) {
+            final RegistryConnection connection = new RegistryConnection("registry", "key", maxInFlight, executor);
+            final List<CompletableFuture<ByteBuffer>> futures = new ArrayList<>();
+            for (int i = 0; i < maxInFlight * 3; i++) {
+                futures.add(connection.getAsync(new ViewString("/api/securities")));
+            }
+
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (running.get() < maxInFlight && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            Thread.sleep(50);
+            assertEquals(maxInFlight, running.get());
+
+            release.countDown();
+            futures.forEach(CompletableFuture::join);
+            assertEquals(maxInFlight, maxRunning.get());
+            assertTrue(clients.constructed().size() <= maxInFlight);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testPooledClientsAreReused() {
+        final AtomicInteger requests = new AtomicInteger();
+        try (MockedConstruction<RetryableHTTPClient> clients = mockClients(invocation -> {
+            requests.incrementAndGet();
+            return success();
+        })) {
+            final RegistryConnection connection = new RegistryConnection("registry", "key", 4, Runnable::run);
+            for (int i = 0; i < 5; i++) {
+                connection.getAsync(new ViewString("/api/securities")).join();
+                connection
+                        .supplyAsync(() -> connection.get(new ViewString("/api/listings")))
+                        .join();
+            }
+
+            assertEquals(1, clients.constructed().size());
+            assertEquals(10, requests.get());
+        }
+    }
+
+    private static MockedConstruction<RetryableHTTPClient> mockClients(final Answer<Object> answer) {
+        return mockConstruction(RetryableHTTPClient.class, withSettings().defaultAnswer(answer));
+    }
+
+    private static HTTPResponse success() {
+        final HTTPResponse response = mock(HTTPResponse.class);
+        when(response.isSuccess()).thenReturn(true);
+        when(response.getBody()).thenReturn(ByteBuffer.wrap(BODY));
+        return response;
+    }
+}
@@ -3,6 +3,9 @@ package group.gnometrading;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import group.gnometrading.metrics.RecordingMetricsSink;
+import group.gnometrading.risk.PolicyCursor;
+import group.gnometrading.risk.PolicyParametersRegistry;
 import group.gnometrading.risk.PolicyScope;
 import group.gnometrading.risk.RiskMaster;
 import group.gnometrading.risk.RiskPolicyRecord;
@@ -10,6 +13,8 @@ import group.gnometrading.strings.ViewString;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -101,6 +106,84 @@ class RiskMasterTest {
         assertEquals(1, (int) ids99.get(0));
     }
 
+    private static final String SCOPED_POLICIES =
+            "[{\"policy_id\": 1, \"policy_type\": \"KILL_SWITCH\", \"scope\": 0, \"strategy_id\": null, \"listing_id\": null, \"parameters\": {}, \"enabled\": true},"
+                    + "{\"policy_id\": 2, \"policy_type\": \"MAX_POSITION\", \"scope\": 1, \"strategy_id\": 10, \"listing_id\": null, \"parameters\": {}, \"enabled\": true},"
+                    + "{\"policy_id\": 3, \"policy_type\": \"MAX_POSITION\", \"scope\": 2, \"strategy_id\": 10, \"listing_id\": 7, \"parameters\": {}, \"enabled\": true},"
+                    + "{\"policy_id\": 4, \"policy_type\": \"MAX_NOTIONAL\", \"scope\": 2, \"strategy_id\": null, \"listing_id\": 7, \"parameters\": {}, \"enabled\": true},"
+                    + "{\"policy_id\": 5, \"policy_type\": \"MAX_POSITION\", \"scope\": 2, \"strategy_id\": 20, \"listing_id\": 7, \"parameters\": {}, \"enabled\": true},"
+                    + "{\"policy_id\": 6, \"policy_type\": \"MAX_POSITION\", \"scope\": 1, \"strategy_id\": 5, \"listing_id\": null, \"parameters\": {}, \"enabled\": true}]";
+
+    @Test
+    void testPoliciesForSelectsByScope() {
+        when(registryConnection.get(new ViewString("/api/risk/policies")))
+                .thenReturn(ByteBuffer.wrap(SCOPED_POLICIES.getBytes()));
+        riskMaster.refresh();
+
+        final PolicyCursor cursor = new PolicyCursor();
+        assertEquals(List.of(1, 2, 3, 4), policyIds(riskMaster.policiesFor(10, 7, cursor)));
+        assertEquals(List.of(1, 2), policyIds(riskMaster.policiesFor(10, 8, cursor)));
+        assertEquals(List.of(1, 5, 4), policyIds(riskMaster.policiesFor(20, 7, cursor)));
+        assertEquals(List.of(1, 6, 4), policyIds(riskMaster.policiesFor(5, 7, cursor)));
+        assertEquals(List.of(1), policyIds(riskMaster.policiesFor(99, 8, cursor)));
+    }
+
+    @Test
+    void testPoliciesForEmptyBeforeRefresh() {
+        assertFalse(riskMaster.policiesFor(10, 7, new PolicyCursor()).hasNext());
+    }
+
+    @Test
+    void testRefreshLeavesPreviousSetIntact() {
+        when(registryConnection.get(new ViewString("/api/risk/policies")))
+                .thenReturn(ByteBuffer.wrap(SCOPED_POLICIES.getBytes()))
+                .thenReturn(ByteBuffer.wrap(KILL_SWITCH_DISABLED.getBytes()));
+        riskMaster.refresh();
+        assertEquals(1, riskMaster.getGeneration());
+
+        final PolicyCursor before = riskMaster.policiesFor(10, 7, new PolicyCursor());
+        riskMaster.refresh();
+
+        assertEquals(2, riskMaster.getGeneration());
+        assertEquals(1, before.generation());
+        assertEquals(List.of(1, 2, 3, 4), policyIds(before));
+        assertTrue(before.get(0).enabled);
+        assertFalse(riskMaster.getRecord(0).enabled);
+        assertEquals(List.of(1), policyIds(riskMaster.policiesFor(10, 7, new PolicyCursor())));
+    }
+
+    @Test
+    void testCursorDetectsRecycledSet() {
+        when(registryConnection.get(new ViewString("/api/risk/policies")))
+                .thenReturn(ByteBuffer.wrap(SCOPED_POLICIES.getBytes()))
+                .thenReturn(ByteBuffer.wrap(KILL_SWITCH_DISABLED.getBytes()))
+                .thenReturn(ByteBuffer.wrap(KILL_SWITCH_ENABLED.getBytes()))
+                .thenReturn(ByteBuffer.wrap(MIXED_POLICIES.getBytes()));
+        final PolicyCursor cursor = new PolicyCursor();
+        assertFalse(cursor.isValid());
+
+        riskMaster.refresh();
+        riskMaster.policiesFor(10, 7, cursor);
+        assertTrue(cursor.isValid());
+
+        riskMaster.refresh();
+        assertTrue(cursor.isValid());
+        riskMaster.refresh();
+        assertTrue(cursor.isValid());
+
+        riskMaster.refresh();
+        assertFalse(cursor.isValid());
+        assertTrue(riskMaster.policiesFor(10, 7, cursor).isValid());
+    }
+
+    private static List<Integer> policyIds(final PolicyCursor cursor) {
+        final List<Integer> ids = new ArrayList<>();
+        while (cursor.hasNext()) {
+            ids.add(cursor.next().policyId);
+        }
+        return ids;
+    }
+
     @Test
     void testDisabledPolicyWithRawObjectParameters() {
         when(registryConnection.get(new ViewString("/api/risk/policies")))
@@ -115,4 +198,129 @@ class RiskMasterTest {
         assertFalse(record.enabled);
         assertTrue(record.parametersJson.equals("{}"));
     }
+
+    private static final String LIMIT_POLICIES =
+            "[{\"policy_id\": 1, \"policy_type\": \"MAX_POSITION\", \"scope\": 1, \"strategy_id\": 10, \"listing_id\": null, \"parameters\": {\"max_position\": 500, \"reduce_only\": true}, \"enabled\": true},"
+                    + "{\"policy_id\": 2, \"policy_type\": \"ORDER_RATE\", \"scope\": 0, \"strategy_id\": null, \"listing_id\": null, \"parameters\": {\"max_orders\": 20, \"window_millis\": \"1000\"}, \"enabled\": true},"
+                    + "{\"policy_id\": 3, \"policy_type\": \"CUSTOM\", \"scope\": 0, \"strategy_id\": null, \"listing_id\": null, \"parameters\": {\"max_position\": 7}, \"enabled\": true}]";
+
+    @Test
+    void testRefreshDecodesLimitParameters() {
+        when(registryConnection.get(new ViewString("/api/risk/policies")))
+                .thenReturn(ByteBuffer.wrap(LIMIT_POLICIES.getBytes()));
+        riskMaster.refresh();
+
+        final RiskPolicyRecord position = riskMaster.getRecord(0);
+        assertEquals(500L, position.maxPosition);
+        assertTrue(position.hasFlag(RiskPolicyRecord.FLAG_REDUCE_ONLY));
+
+        final RiskPolicyRecord rate = riskMaster.getRecord(1);
+        assertEquals(20, rate.maxOrders);
+        assertEquals(1000L, rate.windowMillis);
+        assertFalse(rate.hasFlag(RiskPolicyRecord.FLAG_REDUCE_ONLY));
+
+        // no decoder registered for the type: only the raw JSON is kept
+        final RiskPolicyRecord custom = riskMaster.getRecord(2);
+        assertEquals(0L, custom.maxPosition);
+        assertTrue(custom.parametersJson.equals("{\"max_position\": 7}"));
+    }
+
+    @Test
+    void testRefreshUsesRegisteredDecoder() {
+        final RiskMaster custom = new RiskMaster(
+                registryConnection,
+                PolicyParametersRegistry.defaults().register("CUSTOM", (parameters, record) -> record.maxOrders = 42));
+        when(registryConnection.get(new ViewString("/api/risk/policies")))
+                .thenReturn(ByteBuffer.wrap(LIMIT_POLICIES.getBytes()));
+        custom.refresh();
+
+        assertEquals(42, custom.getRecord(2).maxOrders);
+        assertEquals(500L, custom.getRecord(0).maxPosition);
+    }
+
+    @Test
+    void testIdenticalPayloadIsSkipped() {
+        when(registryConnection.get(new ViewString("/api/risk/policies")))
+                .thenReturn(ByteBuffer.wrap(MIXED_POLICIES.getBytes()))
+                .thenReturn(ByteBuffer.wrap(MIXED_POLICIES.getBytes()));
+
+        assertTrue(riskMaster.refresh());
+        assertFalse(riskMaster.refresh());
+
+        assertEquals(1, riskMaster.getGeneration());
+        assertEquals(1, riskMaster.getSkippedRefreshes());
+        assertEquals(3, riskMaster.getPolicyCount());
+    }
+
+    @Test
+    void testUnchangedPoliciesAreNotPublished() {
+        // same policies, different bytes
+        when(registryConnection.get(new ViewString("/api/risk/policies")))
+                .thenReturn(ByteBuffer.wrap(KILL_SWITCH_ENABLED.getBytes()))
+                .thenReturn(ByteBuffer.wrap((KILL_SWITCH_ENABLED + " ").getBytes()));
+
+        assertTrue(riskMaster.refresh());
+        assertFalse(riskMaster.refresh());
+        assertEquals(1, riskMaster.getGeneration());
+    }
+
+    @Test
+    void testPerPolicyGenerationTracksChanges() {
+        when(registryConnection.get(new ViewString("/api/risk/policies")))
+                .thenReturn(ByteBuffer.wrap(LIMIT_POLICIES.getBytes()))
+                .thenReturn(ByteBuffer.wrap(
+                        LIMIT_POLICIES.replace("\"max_orders\": 20", "\"max_orders\": 30").getBytes()));
+
+        riskMaster.refresh();
+        assertTrue(riskMaster.refresh());
+
+        assertEquals(2, riskMaster.getGeneration());
+        assertEquals(1, riskMaster.getRecord(0).generation);
+        assertEquals(2, riskMaster.getRecord(1).generation);
+        assertEquals(30, riskMaster.getRecord(1).maxOrders);
+        assertEquals(1, riskMaster.getRecord(2).generation);
+    }
+
+    @Test
+    void testRemovedPolicyPublishesNewGeneration() {
+        when(registryConnection.get(new ViewString("/api/risk/policies")))
+                .thenReturn(ByteBuffer.wrap(MIXED_POLICIES.getBytes()))
+                .thenReturn(ByteBuffer.wrap(KILL_SWITCH_ENABLED.getBytes()));
+
+        riskMaster.refresh();
+        assertTrue(riskMaster.refresh());
+
+        assertEquals(2, riskMaster.getGeneration());
+        assertEquals(1, riskMaster.getPolicyCount());
+        assertEquals(1, riskMaster.getRecord(0).generation);
+    }
+
+    @Test
+    void testRefreshMetrics() {
+        when(registryConnection.get(new ViewString("/api/risk/policies")))
+                .thenReturn(ByteBuffer.wrap(MIXED_POLICIES.getBytes()))
+                .thenReturn(ByteBuffer.wrap(MIXED_POLICIES.getBytes()));
+        riskMaster.refresh();
+        riskMaster.refresh();
+
+        final RecordingMetricsSink sink = new RecordingMetricsSink();
+        riskMaster.sampleMetrics(sink);
+        assertEquals(1, sink.get("risk_master.refreshes_published"));
+        assertEquals(1, sink.get("risk_master.refreshes_skipped"));
+        assertEquals(3, sink.get("risk_master.policies"));
+        assertEquals(0, sink.get("risk_master.killed"));
+        assertTrue(sink.get("risk_master.staleness_millis") >= 0);
+        assertEquals(2, sink.histogram("risk_master.refresh_nanos").getCount());
+    }
+
+    @Test
+    void testRefreshAsync() throws Exception {
+        when(registryConnection.getAsync(new ViewString("/api/risk/policies")))
+                .thenReturn(CompletableFuture.completedFuture(ByteBuffer.wrap(MIXED_POLICIES.getBytes())));
+
+        riskMaster.refreshAsync().get(5, TimeUnit.SECONDS);
+
+        assertEquals(3, riskMaster.getPolicyCount());
+        verify(registryConnection, never()).get(any());
+    }
 }
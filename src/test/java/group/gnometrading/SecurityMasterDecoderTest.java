@@ -0,0 +1,157 @@
+package group.gnometrading;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import group.gnometrading.sm.ContractRelationship;
+import group.gnometrading.sm.Event;
+import group.gnometrading.sm.ListingSpec;
+import group.gnometrading.sm.Security;
+import group.gnometrading.strings.ViewString;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class SecurityMasterDecoderTest {
+
+    @ParameterizedTest
+    @ValueSource(
+            strings = {
+                "1970-01-01T00:00:00Z",
+                "2024-02-29T23:59:59.999Z",
+                "2025-06-15T08:30:00.5Z",
+                "1999-12-31T12:00:00.123456Z",
+                "2100-03-01T00:00:00.000Z"
+            })
+    void testEpochMillisMatchesInstant(final String timestamp) {
+        assertEquals(
+                Instant.parse(timestamp).toEpochMilli(),
+                SecurityMasterDecoder.epochMillisValue(new ViewString("\"" + timestamp + "\"")));
+    }
+
+    @Test
+    void testEpochMillisWithOffsetFallsBack() {
+        assertEquals(
+                Instant.parse("2024-01-01T02:00:00+02:00").toEpochMilli(),
+                SecurityMasterDecoder.epochMillisValue(new ViewString("\"2024-01-01T02:00:00+02:00\"")));
+    }
+
+    @Test
+    void testEpochMillisNullAndGarbage() {
+        assertEquals(0L, SecurityMasterDecoder.epochMillisValue(new ViewString("null")));
+        assertEquals(0L, SecurityMasterDecoder.epochMillisValue(new ViewString("\"not a timestamp\"")));
+    }
+
+    @Test
+    void testNumbers() {
+        assertEquals(123, SecurityMasterDecoder.intValue(new ViewString("123")));
+        assertEquals(-42, SecurityMasterDecoder.intValue(new ViewString("-42")));
+        assertEquals(7, SecurityMasterDecoder.intValue(new ViewString("7.9")));
+        assertEquals(0, SecurityMasterDecoder.intValue(new ViewString("null")));
+        assertEquals(5_000_000_000L, JsonValues.longValue(new ViewString("5000000000")));
+        assertEquals(1_000_000_000L, JsonValues.longValue(new ViewString("\"1000000000\"")));
+        assertEquals(-7L, JsonValues.longValue(new ViewString("\"-7\"")));
+    }
+
+    @Test
+    void testDecodeListingSpecQuotedBigints() {
+        final SecurityMasterDecoder decoder = new SecurityMasterDecoder();
+        final ListingSpec spec = decoder.firstListingSpec(ByteBuffer.wrap(
+                """
+                [{"listing_id": 42, "tick_size": "100", "lot_size": "1000", "min_notional": "50000",
+                  "contract_multiplier": "1000000000"}]"""
+                        .getBytes()));
+
+        assertEquals(42, spec.listingId());
+        assertEquals(100L, spec.tickSize());
+        assertEquals(1000L, spec.lotSize());
+        assertEquals(50_000L, spec.minNotional());
+        assertEquals(1_000_000_000L, spec.contractMultiplier());
+    }
+
+    @Test
+    void testStrings() {
+        final SecurityMasterDecoder decoder = new SecurityMasterDecoder();
+        assertNull(decoder.stringValue(new ViewString("null")));
+        assertEquals("", decoder.stringValue(new ViewString("\"\"")));
+        assertEquals("BTC-USD", decoder.stringValue(new ViewString("\"BTC-USD\"")));
+        assertEquals("a\"b\\c/d\ne", decoder.stringValue(new ViewString("\"a\\\"b\\\\c\\/d\\ne\"")));
+        assertEquals("é", decoder.stringValue(new ViewString("\"\\u00e9\"")));
+    }
+
+    @Test
+    void testDecodeSecurities() {
+        final SecurityMasterDecoder decoder = new SecurityMasterDecoder();
+        final List<Security> securities = new ArrayList<>();
+        final int count = decoder.decodeSecurities(
+                ByteBuffer.wrap(
+                        """
+                        [{"security_id": 1, "symbol": "AAPL", "type": 0, "expiry": null, "active": true},
+                         {"security_id": 2, "symbol": null, "expiry": "2025-03-28T08:00:00.000Z"}]"""
+                                .getBytes()),
+                securities::add);
+
+        assertEquals(2, count);
+        assertEquals(1, securities.get(0).securityId());
+        assertEquals("AAPL", securities.get(0).symbol());
+        assertTrue(securities.get(0).active());
+        assertEquals(0L, securities.get(0).expiry());
+        assertNull(securities.get(1).symbol());
+        assertNull(securities.get(1).type());
+        assertEquals(Instant.parse("2025-03-28T08:00:00Z").toEpochMilli(), securities.get(1).expiry());
+    }
+
+    @Test
+    void testDecodeEventTimestamps() {
+        final SecurityMasterDecoder decoder = new SecurityMasterDecoder();
+        final Event event = decoder.firstEvent(ByteBuffer.wrap(
+                """
+                [{"event_id": 9, "title": "Election", "resolved": true,
+                  "resolved_at": "2024-11-06T05:00:00.000Z", "expiry": null}]"""
+                        .getBytes()));
+
+        assertEquals(9, event.eventId());
+        assertTrue(event.resolved());
+        assertEquals(Instant.parse("2024-11-06T05:00:00Z").toEpochMilli(), event.resolvedAt());
+        assertEquals(0L, event.expiry());
+    }
+
+    @Test
+    void testDecodeContractRelationshipConfidence() {
+        final SecurityMasterDecoder decoder = new SecurityMasterDecoder();
+        final List<ContractRelationship> relationships = new ArrayList<>();
+        decoder.decodeContractRelationships(
+                ByteBuffer.wrap(
+                        """
+                        [{"relationship_id": 1, "security_id_a": 10, "security_id_b": 20,
+                          "relationship_type": "IMPLIES", "confidence": 0.95, "method": "manual"}]"""
+                                .getBytes()),
+                relationships::add);
+
+        assertEquals(1, relationships.size());
+        assertEquals(0.95f, relationships.get(0).confidence(), 0.0001f);
+        assertEquals("IMPLIES", relationships.get(0).relationshipType());
+    }
+
+    @Test
+    void testEmptyResponse() {
+        final SecurityMasterDecoder decoder = new SecurityMasterDecoder();
+        assertNull(decoder.firstSecurity(ByteBuffer.wrap("[]".getBytes())));
+        assertEquals(0, decoder.getFallbackCount());
+    }
+
+    @Test
+    void testConsumerExceptionIsNotSwallowedByFallback() {
+        final SecurityMasterDecoder decoder = new SecurityMasterDecoder();
+        final IllegalStateException thrown = assertThrows(
+                IllegalStateException.class,
+                () -> decoder.decodeSecurities(ByteBuffer.wrap("[{\"security_id\": 1}]".getBytes()), security -> {
+                    throw new IllegalStateException("boom");
+                }));
+        assertEquals("boom", thrown.getMessage());
+        assertEquals(0, decoder.getFallbackCount());
+    }
+}
@@ -0,0 +1,131 @@
+package group.gnometrading;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import group.gnometrading.schemas.SchemaType;
+import group.gnometrading.sm.AssetClass;
+import group.gnometrading.sm.ContractType;
+import group.gnometrading.sm.Listing;
+import group.gnometrading.sm.ListingSpec;
+import group.gnometrading.sm.Security;
+import group.gnometrading.sm.SecurityType;
+import group.gnometrading.strings.ViewString;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class SecurityMasterSnapshotTest {
+
+    @Mock
+    private RegistryConnection registryConnection;
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void testRoundTrip() {
+        when(registryConnection.get(new ViewString("/api/exchanges?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"exchange_id": 456, "exchange_name": "NYSE", "region": "us-east-1", "schema_type": "mbp-1"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"security_id": 5, "symbol": "BTC-USDT-PERP", "type": 1, "contract_type": 1, \
+"asset_class": 0, "base_currency": "BTC", "quote_currency": "USDT", "settle_currency": "USDT", \
+"inverse": false, "is_quanto": true, "strike_price": 42, "active": true, "underlying_security_id": 3}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/listings?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"listing_id": 789, "exchange_id": 456, "security_id": 5, "exchange_security_id": "SecId", "exchange_security_symbol": null}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/listing-specs?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"listing_id": 789, "tick_size": 100, "lot_size": 1000, "min_notional": 5, "contract_multiplier": 1000000000}]"""
+                                .getBytes()));
+
+        SecurityMaster original = new SecurityMaster(registryConnection);
+        original.preload();
+        Path file = tempDir.resolve("sm.bin");
+        original.writeSnapshot(file);
+        verify(registryConnection, times(4)).get(any());
+
+        SecurityMaster restored = new SecurityMaster(registryConnection);
+        assertTrue(restored.loadSnapshot(file));
+
+        Security security = restored.getSecurity(5);
+        assertEquals(original.getSecurity(5), security);
+        assertEquals(SecurityType.PERPETUAL, security.type());
+        assertEquals(ContractType.LINEAR_PERPETUAL, security.contractType());
+        assertEquals(AssetClass.CRYPTO, security.assetClass());
+        assertTrue(security.isQuanto());
+        assertEquals(SchemaType.MBP_1, restored.getExchange(456).schemaType());
+        Listing listing = restored.getListing(789);
+        assertEquals(original.getListing(789), listing);
+        assertNull(listing.exchangeSecuritySymbol());
+        assertSame(restored.getListing(789), restored.getListing(456, 5));
+        assertEquals(new ListingSpec(789, 100L, 1000L, 5L, 1_000_000_000L, 0L, 0L), restored.getListingSpec(789));
+        verify(registryConnection, times(4)).get(any());
+    }
+
+    @Test
+    void testLoadMissingOrIncompatibleFile() throws Exception {
+        SecurityMaster securityMaster = new SecurityMaster(registryConnection);
+        assertFalse(securityMaster.loadSnapshot(tempDir.resolve("missing.bin")));
+
+        Path garbage = tempDir.resolve("garbage.bin");
+        Files.write(garbage, new byte[64]);
+        assertFalse(securityMaster.loadSnapshot(garbage));
+    }
+
+    @Test
+    void testLoadTruncatedOrCorruptFile() throws Exception {
+        when(registryConnection.get(new ViewString("/api/exchanges?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"exchange_id": 456, "exchange_name": "NYSE", "region": "us-east-1", "schema_type": "mbp-1"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"security_id": 5, "symbol": "BTC", "type": 0}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/listings?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+        when(registryConnection.get(new ViewString("/api/listing-specs?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+        SecurityMaster original = new SecurityMaster(registryConnection);
+        original.preload();
+        Path file = tempDir.resolve("sm.bin");
+        original.writeSnapshot(file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        Path truncated = tempDir.resolve("truncated.bin");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+        SecurityMaster restored = new SecurityMaster(registryConnection);
+        assertFalse(restored.loadSnapshot(truncated));
+
+        Path corrupt = tempDir.resolve("corrupt.bin");
+        byte[] corruptBytes = bytes.clone();
+        ByteBuffer.wrap(corruptBytes).order(ByteOrder.LITTLE_ENDIAN).putInt(40 + 4, 1 << 20);
+        Files.write(corrupt, corruptBytes);
+        assertFalse(restored.loadSnapshot(corrupt));
+
+        verify(registryConnection, times(4)).get(any());
+        when(registryConnection.get(new ViewString("/api/exchanges?exchangeId=456")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+        assertNull(restored.getExchange(456)); // nothing was applied from either file
+    }
+}
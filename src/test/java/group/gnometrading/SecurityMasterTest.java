@@ -3,10 +3,13 @@ package group.gnometrading;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import group.gnometrading.metrics.RecordingMetricsSink;
 import group.gnometrading.schemas.SchemaType;
 import group.gnometrading.sm.AssetClass;
 import group.gnometrading.sm.ContractRelationship;
+import group.gnometrading.sm.ContractRelationshipGraph;
 import group.gnometrading.sm.ContractType;
+import group.gnometrading.sm.EventIndex;
 import group.gnometrading.sm.Exchange;
 import group.gnometrading.sm.Listing;
 import group.gnometrading.sm.ListingSpec;
@@ -14,6 +17,9 @@ import group.gnometrading.sm.Security;
 import group.gnometrading.sm.SecurityType;
 import group.gnometrading.strings.ViewString;
 import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -110,7 +116,8 @@ class SecurityMasterTest {
                                 new Exchange(12399, "BTC", "us-east-2", SchemaType.MBP_1),
                                 spot(34, "BTC"),
                                 "SecId",
-                                "Binance")));
+                                "Binance",
+                                true)));
     }
 
     @ParameterizedTest
@@ -162,7 +169,8 @@ class SecurityMasterTest {
                                 new Exchange(12399, "BTC", "us-east-2", SchemaType.MBP_1),
                                 spot(34, "BTC"),
                                 "SecId",
-                                "Binance")));
+                                "Binance",
+                                true)));
     }
 
     @ParameterizedTest
@@ -264,12 +272,12 @@ class SecurityMasterTest {
                         42,
                         """
                         [{"listing_id": 42, "tick_size": 100, "lot_size": 1000, "min_notional": 50000, "contract_multiplier": 1000000000}]""",
-                        new ListingSpec(42, 100L, 1000L, 50000L, 1_000_000_000L)),
+                        new ListingSpec(42, 100L, 1000L, 50000L, 1_000_000_000L, 0L, 0L)),
                 Arguments.of(
                         99,
                         """
                         [{"listing_id": 99, "tick_size": 10, "lot_size": 100}]""",
-                        new ListingSpec(99, 10L, 100L, 0L, 0L)));
+                        new ListingSpec(99, 10L, 100L, 0L, 0L, 0L, 0L)));
     }
 
     @Test
@@ -292,6 +300,30 @@ class SecurityMasterTest {
         verify(registryConnection, times(1)).get(any());
     }
 
+    @Test
+    void testCacheMetrics() {
+        when(registryConnection.get(new ViewString("/api/securities?securityId=1")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?securityId=123")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"security_id": 123, "type": 0, "symbol": "BTC"}]"""
+                                .getBytes()));
+
+        securityMaster.getSecurity(1);
+        securityMaster.getSecurity(1);
+        securityMaster.getSecurity(123);
+        securityMaster.getSecurity(123);
+        securityMaster.getSecurity(123);
+
+        final RecordingMetricsSink sink = new RecordingMetricsSink();
+        securityMaster.sampleMetrics(sink);
+        assertEquals(2, sink.get(SecurityMaster.CACHE_MISSES_METRIC));
+        assertEquals(2, sink.get(SecurityMaster.CACHE_HITS_METRIC));
+        assertEquals(1, sink.get(SecurityMaster.CACHE_NEGATIVE_HITS_METRIC));
+        assertEquals(-1, sink.get(SecurityMaster.STALENESS_METRIC));
+    }
+
     @Test
     void testGetExchangeEmptyCaching() {
         when(registryConnection.get(new ViewString("/api/exchanges?exchangeId=1")))
@@ -312,6 +344,96 @@ class SecurityMasterTest {
         verify(registryConnection, times(1)).get(any());
     }
 
+    @Test
+    void testGetSecuritiesBatchesMisses() {
+        when(registryConnection.get(new ViewString("/api/securities?securityId=1")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"security_id": 1, "type": 0, "symbol": "BTC"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?securityIds=2,3,4")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"security_id": 2, "type": 0, "symbol": "ETH"}, {"security_id": 4, "type": 0, "symbol": "SOL"}]"""
+                                .getBytes()));
+
+        Security cached = securityMaster.getSecurity(1);
+        Security[] result = securityMaster.getSecurities(new int[] {4, 1, 3, 2, 4});
+
+        assertEquals("SOL", result[0].symbol());
+        assertSame(cached, result[1]);
+        assertNull(result[2]);
+        assertEquals("ETH", result[3].symbol());
+        assertSame(result[0], result[4]);
+        assertSame(result[3], securityMaster.getSecurity(2));
+        assertNull(securityMaster.getSecurity(3));
+        verify(registryConnection, times(2)).get(any());
+    }
+
+    @Test
+    void testGetListingsBatchesSecurities() {
+        when(registryConnection.get(new ViewString("/api/listings?listingIds=7,8,9")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"listing_id": 7, "exchange_id": 456, "security_id": 1, "exchange_security_id": "A", "exchange_security_symbol": "A"}, {"listing_id": 8, "exchange_id": 456, "security_id": 2, "exchange_security_id": "B", "exchange_security_symbol": "B"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?securityIds=1,2")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"security_id": 1, "type": 0, "symbol": "BTC"}, {"security_id": 2, "type": 0, "symbol": "ETH"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/exchanges?exchangeId=456")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"exchange_id": 456, "exchange_name": "NYSE", "region": "us-east-1", "schema_type": "mbp-1"}]"""
+                                .getBytes()));
+
+        Listing[] result = securityMaster.getListings(new int[] {9, 8, 7});
+
+        assertNull(result[0]);
+        assertEquals("ETH", result[1].security().symbol());
+        assertEquals("BTC", result[2].security().symbol());
+        assertSame(result[1].exchange(), result[2].exchange());
+        assertSame(result[2], securityMaster.getListing(456, 1));
+        assertNull(securityMaster.getListing(9));
+        verify(registryConnection, times(3)).get(any()); // listings + securities + exchange
+    }
+
+    @Test
+    void testGetListingSpecsBatchesMisses() {
+        when(registryConnection.get(new ViewString("/api/listing-specs?listingIds=42,43")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"listing_id": 42, "tick_size": 100, "lot_size": 1000}]"""
+                                .getBytes()));
+
+        ListingSpec[] result = securityMaster.getListingSpecs(new int[] {43, 42});
+
+        assertNull(result[0]);
+        assertEquals(new ListingSpec(42, 100L, 1000L, 0L, 0L, 0L, 0L), result[1]);
+        assertTrue(securityMaster.getListingSpecTable().contains(42));
+        assertArrayEquals(result, securityMaster.getListingSpecs(new int[] {43, 42}));
+        verify(registryConnection, times(1)).get(any());
+    }
+
+    @Test
+    void testGetSecuritiesSplitsLargeBatches() {
+        int[] securityIds = new int[SecurityMaster.MAX_BATCH_IDS + 1];
+        for (int i = 0; i < securityIds.length; i++) {
+            securityIds[i] = i + 1;
+        }
+        String lastSecurity = "[{\"security_id\": " + securityIds.length + ", \"type\": 0, \"symbol\": \"BTC\"}]";
+        when(registryConnection.get(any())).thenAnswer(invocation -> ByteBuffer.wrap("[]".getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?securityId=" + securityIds.length)))
+                .thenReturn(ByteBuffer.wrap(lastSecurity.getBytes()));
+
+        Security[] result = securityMaster.getSecurities(securityIds);
+
+        assertNull(result[0]);
+        assertEquals("BTC", result[securityIds.length - 1].symbol());
+        verify(registryConnection, times(2)).get(any()); // a full batch, then the last id on its own
+    }
+
     @Test
     void testGetListingByExchangeAndSecurityCaching() {
         String listingResponse =
@@ -396,6 +518,41 @@ class SecurityMasterTest {
         verify(registryConnection, times(1)).get(any());
     }
 
+    @Test
+    void testGetContractRelationshipsCaching() {
+        String json =
+                """
+                [{"relationship_id": 2, "security_id_a": 100, "security_id_b": 300,
+                  "relationship_type": "COMPLEMENT", "confidence": 1.0, "method": "structural"}]""";
+        when(registryConnection.get(new ViewString("/api/contract-relationships?securityId=100")))
+                .thenReturn(ByteBuffer.wrap(json.getBytes()));
+
+        assertSame(securityMaster.getContractRelationships(100), securityMaster.getContractRelationships(100));
+        verify(registryConnection, times(1)).get(any());
+    }
+
+    @Test
+    void testGetContractRelationshipsFromLoadedGraph() {
+        String json =
+                """
+                [{"relationship_id": 1, "security_id_a": 100, "security_id_b": 200,
+                  "relationship_type": "IMPLIES", "confidence": 0.9, "method": "semantic"},
+                 {"relationship_id": 2, "security_id_a": 200, "security_id_b": 300,
+                  "relationship_type": "IMPLIES", "confidence": 0.5, "method": "semantic"}]""";
+        when(registryConnection.get(new ViewString("/api/contract-relationships?")))
+                .thenReturn(ByteBuffer.wrap(json.getBytes()));
+
+        ContractRelationshipGraph graph = securityMaster.getContractRelationshipGraph();
+        assertSame(graph, securityMaster.getContractRelationshipGraph());
+        assertEquals(3, graph.securityCount());
+        assertEquals(0.45f, graph.implicationConfidence(100, 300), 0.0001f);
+
+        ContractRelationship[] result = securityMaster.getContractRelationships(200);
+        assertEquals(2, result.length);
+        assertEquals(0, securityMaster.getContractRelationships(999).length);
+        verify(registryConnection, times(1)).get(any());
+    }
+
     @Test
     void testGetContractRelationshipsEmpty() {
         when(registryConnection.get(new ViewString("/api/contract-relationships?securityId=999")))
@@ -428,4 +585,502 @@ class SecurityMasterTest {
         assertEquals("USDT", result.settleCurrency());
         assertTrue(result.active());
     }
+
+    @Test
+    void testPreloadPopulatesCaches() {
+        when(registryConnection.get(new ViewString("/api/exchanges?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"exchange_id": 456, "exchange_name": "NYSE", "region": "us-east-1", "schema_type": "mbp-1"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("""
+                        [{"security_id": 123, "type": 0, "symbol": "BTC"}]""".getBytes()));
+        when(registryConnection.get(new ViewString("/api/listings?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"listing_id": 789, "exchange_id": 456, "security_id": 123, "exchange_security_id": "SecId", "exchange_security_symbol": "SYM"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/listing-specs?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"listing_id": 789, "tick_size": 100, "lot_size": 1000, "min_notional": 0, "contract_multiplier": 1000000000}]"""
+                                .getBytes()));
+
+        securityMaster.preload();
+
+        assertEquals(spot(123, "BTC"), securityMaster.getSecurity(123));
+        assertEquals(new Exchange(456, "NYSE", "us-east-1", SchemaType.MBP_1), securityMaster.getExchange(456));
+        assertEquals(
+                new Listing(
+                        789,
+                        new Exchange(456, "NYSE", "us-east-1", SchemaType.MBP_1),
+                        spot(123, "BTC"),
+                        "SecId",
+                        "SYM",
+                        true),
+                securityMaster.getListing(789));
+        assertEquals(new ListingSpec(789, 100L, 1000L, 0L, 1_000_000_000L, 0L, 0L), securityMaster.getListingSpec(789));
+        verify(registryConnection, times(4)).get(any());
+    }
+
+    @Test
+    void testLoadEventIndex() {
+        when(registryConnection.get(new ViewString("/api/exchanges?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"exchange_id": 456, "exchange_name": "Kalshi", "region": "us-east-1", "schema_type": "mbp-1"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"security_id": 123, "type": 4, "symbol": "FED-CUT"},
+                         {"security_id": 124, "type": 4, "symbol": "FED-HOLD"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/listings?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"listing_id": 789, "exchange_id": 456, "security_id": 123, "exchange_security_id": "CUT", "exchange_security_symbol": "CUT"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/listing-specs?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+        when(registryConnection.get(new ViewString("/api/events?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"event_id": 5, "title": "Fed decision", "category": "economics", "resolved": false}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/event-contracts?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"event_contract_id": 50, "event_id": 5, "security_id": 123, "outcome_label": "Cut"},
+                         {"event_contract_id": 51, "event_id": 5, "security_id": 124, "outcome_label": "Hold"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/exchange-events?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"exchange_event_id": 1, "exchange_id": 456, "event_id": 5, "native_event_id": "FED", "raw_title": "Fed"}]"""
+                                .getBytes()));
+
+        securityMaster.preload();
+        EventIndex index = securityMaster.loadEventIndex();
+
+        assertSame(index, securityMaster.getEventIndex());
+        int row = index.row(5);
+        assertEquals(2, index.outcomeEnd(row) - index.outcomeStart(row));
+        int cut = index.outcomeOf(123);
+        assertEquals("Cut", index.outcomeLabel(cut));
+        assertEquals(789, index.listingId(index.listingStart(cut)));
+        assertEquals(456, index.exchangeId(index.exchangeStart(row)));
+
+        // events and contracts are now cached as well
+        assertEquals("Fed decision", securityMaster.getEvent(5).title());
+        assertEquals("Hold", securityMaster.getEventContractBySecurity(124).outcomeLabel());
+        verify(registryConnection, times(7)).get(any());
+    }
+
+    @Test
+    void testPreloadPagesUntilShortPage() {
+        StringBuilder fullPage = new StringBuilder("[");
+        for (int i = 0; i < SecurityMaster.PAGE_SIZE; i++) {
+            if (i > 0) {
+                fullPage.append(',');
+            }
+            fullPage.append("{\"security_id\": ").append(i).append(", \"type\": 0}");
+        }
+        fullPage.append(']');
+
+        when(registryConnection.get(new ViewString("/api/exchanges?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(fullPage.toString().getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?limit=5000&offset=5000")))
+                .thenReturn(ByteBuffer.wrap("""
+                        [{"security_id": 5000, "type": 0, "symbol": "ETH"}]""".getBytes()));
+        when(registryConnection.get(new ViewString("/api/listings?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+        when(registryConnection.get(new ViewString("/api/listing-specs?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+
+        securityMaster.preload();
+
+        assertEquals(spot(5000, "ETH"), securityMaster.getSecurity(5000));
+        assertNotNull(securityMaster.getSecurity(0));
+        verify(registryConnection, times(5)).get(any());
+    }
+
+    @Test
+    void testPreloadExchanges() {
+        when(registryConnection.get(new ViewString("/api/exchanges?exchangeId=456")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"exchange_id": 456, "exchange_name": "NYSE", "region": "us-east-1", "schema_type": "mbp-1"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?exchangeId=456&limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("""
+                        [{"security_id": 123, "type": 0, "symbol": "BTC"}]""".getBytes()));
+        when(registryConnection.get(new ViewString("/api/listings?exchangeId=456&limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"listing_id": 789, "exchange_id": 456, "security_id": 123, "exchange_security_id": "SecId", "exchange_security_symbol": "SYM"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/listing-specs?exchangeId=456&limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+
+        securityMaster.preloadExchanges(456);
+
+        Listing listing = securityMaster.getListing(789);
+        assertNotNull(listing);
+        assertSame(securityMaster.getSecurity(123), listing.security());
+        assertSame(securityMaster.getExchange(456), listing.exchange());
+        verify(registryConnection, times(4)).get(any());
+    }
+
+    @Test
+    void testRefreshChangesPatchesCachesAndRelinksListings() {
+        stubModifiedPreload();
+        securityMaster.preload();
+        final Listing before = securityMaster.getListing(789);
+
+        when(registryConnection.get(new ViewString("/api/exchanges?modifiedSince=1704067199000&limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?modifiedSince=1704067199000&limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"security_id": 123, "type": 0, "symbol": "XBT", "date_modified": "2024-01-02T00:00:00.000Z"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/listings?modifiedSince=1704067199000&limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+
+        assertEquals(1, securityMaster.refreshChanges());
+
+        assertEquals(spot(123, "XBT"), securityMaster.getSecurity(123));
+        final Listing after = securityMaster.getListing(789);
+        assertNotSame(before, after);
+        assertSame(securityMaster.getSecurity(123), after.security());
+        assertSame(after, securityMaster.getListing(456, 123));
+        verify(registryConnection, times(7)).get(any());
+    }
+
+    @Test
+    void testRefreshChangesRetiresOldNativeSymbol() {
+        stubModifiedPreload();
+        securityMaster.preload();
+
+        when(registryConnection.get(new ViewString("/api/exchanges?modifiedSince=1704067199000&limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?modifiedSince=1704067199000&limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+        when(registryConnection.get(new ViewString("/api/listings?modifiedSince=1704067199000&limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"listing_id": 789, "exchange_id": 456, "security_id": 123, "exchange_security_id": "SecId", "exchange_security_symbol": "SYM2", "date_modified": "2024-01-02T00:00:00.000Z"}]"""
+                                .getBytes()));
+
+        assertEquals(1, securityMaster.refreshChanges());
+
+        assertNull(securityMaster.getListingByExchangeSecuritySymbol(456, "SYM"));
+        assertEquals("SYM2", securityMaster.getListingByExchangeSecuritySymbol(456, "SYM2").exchangeSecuritySymbol());
+        assertEquals(789, securityMaster.getListingByExchangeSecurityId(456, "SecId").listingId());
+        verify(registryConnection, times(7)).get(any());
+    }
+
+    @Test
+    void testRefreshChangesIgnoresUnchangedRows() {
+        stubModifiedPreload();
+        securityMaster.preload();
+        final Listing before = securityMaster.getListing(789);
+
+        when(registryConnection.get(new ViewString("/api/exchanges?modifiedSince=1704067199000&limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"exchange_id": 456, "exchange_name": "NYSE", "region": "us-east-1", "schema_type": "mbp-1", "date_modified": "2024-01-01T00:00:00.000Z"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?modifiedSince=1704067199000&limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"security_id": 123, "type": 0, "symbol": "BTC", "date_modified": "2024-01-01T00:00:00.000Z"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/listings?modifiedSince=1704067199000&limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"listing_id": 789, "exchange_id": 456, "security_id": 123, "exchange_security_id": "SecId", "exchange_security_symbol": "SYM", "date_modified": "2024-01-01T00:00:00.000Z"}]"""
+                                .getBytes()));
+
+        assertEquals(0, securityMaster.refreshChanges());
+        assertSame(before, securityMaster.getListing(789));
+    }
+
+    @Test
+    void testRefreshListingSpecsSwapsChangedSpecs() {
+        stubSpecPreload();
+        securityMaster.preload();
+
+        when(registryConnection.get(new ViewString("/api/listing-specs?latest=true")))
+                .thenReturn(ByteBuffer.wrap("""
+                        [{"id": "7", "recorded_at": "2024-01-02T00:00:00.000Z"}]""".getBytes()));
+        when(registryConnection.get(new ViewString("/api/listing-specs?afterVersion=5&limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"id": "7", "listing_id": 789, "tick_size": "50", "lot_size": "1000", "min_notional": "0", "contract_multiplier": "1000000000", "recorded_at": "2024-01-02T00:00:00.000Z"},
+                         {"id": "6", "listing_id": 790, "tick_size": "1", "lot_size": "1", "min_notional": "0", "contract_multiplier": "1"}]"""
+                                .getBytes()));
+
+        assertEquals(1, securityMaster.refreshListingSpecs());
+
+        final ListingSpec spec = securityMaster.getListingSpec(789);
+        assertEquals(50L, spec.tickSize());
+        assertEquals(7L, spec.version());
+        assertEquals(Instant.parse("2024-01-02T00:00:00Z").toEpochMilli(), spec.recordedAt());
+        assertEquals(50L, securityMaster.getListingSpecTable().tickSize(789));
+        assertFalse(securityMaster.getListingSpecTable().contains(790));
+    }
+
+    @Test
+    void testRefreshListingSpecsSkipsFetchWhenVersionUnchanged() {
+        stubSpecPreload();
+        securityMaster.preload();
+
+        when(registryConnection.get(new ViewString("/api/listing-specs?latest=true")))
+                .thenReturn(ByteBuffer.wrap("""
+                        [{"id": "5"}]""".getBytes()));
+
+        assertEquals(0, securityMaster.refreshListingSpecs());
+        assertEquals(100L, securityMaster.getListingSpecTable().tickSize(789));
+        verify(registryConnection, times(5)).get(any());
+    }
+
+    @Test
+    void testLazySpecLoadAdvancesVersionWatermark() {
+        when(registryConnection.get(new ViewString("/api/listing-specs?listingId=789")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"id": "5", "listing_id": 789, "tick_size": "100", "lot_size": "1000", "min_notional": "0", "contract_multiplier": "1000000000"}]"""
+                                .getBytes()));
+        assertEquals(100L, securityMaster.getListingSpec(789).tickSize());
+
+        when(registryConnection.get(new ViewString("/api/listing-specs?latest=true")))
+                .thenReturn(ByteBuffer.wrap("""
+                        [{"id": "5"}]""".getBytes()));
+
+        assertEquals(0, securityMaster.refreshListingSpecs());
+        verify(registryConnection, times(2)).get(any());
+    }
+
+    @Test
+    void testPollListingSpecsHonorsInterval() {
+        final SecurityMaster polled = new SecurityMaster(registryConnection, 1_000L);
+        when(registryConnection.get(new ViewString("/api/listing-specs?latest=true")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+
+        assertEquals(0, polled.pollListingSpecs(10_000L));
+        assertEquals(0, polled.pollListingSpecs(10_500L));
+        assertEquals(0, polled.pollListingSpecs(11_000L));
+        verify(registryConnection, times(2)).get(any());
+    }
+
+    private void stubSpecPreload() {
+        when(registryConnection.get(new ViewString("/api/exchanges?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+        when(registryConnection.get(new ViewString("/api/listings?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+        when(registryConnection.get(new ViewString("/api/listing-specs?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"id": "5", "listing_id": 789, "tick_size": "100", "lot_size": "1000", "min_notional": "0", "contract_multiplier": "1000000000"}]"""
+                                .getBytes()));
+    }
+
+    @Test
+    void testRefreshChangesNotifiesListeners() {
+        stubModifiedPreload();
+        securityMaster.preload();
+
+        final List<String> notifications = new ArrayList<>();
+        securityMaster.onSecurityChanged(change -> notifications.add(
+                "security " + change.current().securityId() + " activated=" + change.activated()));
+        securityMaster.onListingChanged(change -> notifications.add(
+                "listing " + change.current().listingId() + " deactivated=" + change.deactivated()));
+
+        when(registryConnection.get(new ViewString("/api/exchanges?modifiedSince=1704067199000&limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?modifiedSince=1704067199000&limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"security_id": 123, "type": 0, "symbol": "BTC", "active": true, "date_modified": "2024-01-02T00:00:00.000Z"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/listings?modifiedSince=1704067199000&limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"listing_id": 789, "exchange_id": 456, "security_id": 123, "exchange_security_id": "SecId", "exchange_security_symbol": "SYM", "active": false, "date_modified": "2024-01-02T00:00:00.000Z"}]"""
+                                .getBytes()));
+
+        securityMaster.refreshChanges();
+
+        assertEquals(List.of("security 123 activated=true", "listing 789 deactivated=true"), notifications);
+        assertFalse(securityMaster.getListing(789).active());
+    }
+
+    @Test
+    void testListingFirstSeenInactiveIsNotDeactivated() {
+        final Listing active = new Listing(789, null, null, "SecId", "SYM", true);
+        final Listing inactive = new Listing(789, null, null, "SecId", "SYM", false);
+        final ListingChange change = new ListingChange();
+
+        change.set(null, inactive);
+        assertFalse(change.deactivated());
+        assertFalse(change.activated());
+
+        change.set(inactive, inactive);
+        assertFalse(change.deactivated());
+
+        change.set(active, inactive);
+        assertTrue(change.deactivated());
+
+        change.set(null, active);
+        assertTrue(change.activated());
+        assertFalse(change.deactivated());
+    }
+
+    @Test
+    void testRefreshChangesNotifiesResolvedEvents() {
+        when(registryConnection.get(new ViewString("/api/events?eventId=9")))
+                .thenReturn(ByteBuffer.wrap("""
+                        [{"event_id": 9, "title": "Election", "resolved": false}]""".getBytes()));
+        assertFalse(securityMaster.getEvent(9).resolved());
+
+        final List<Integer> resolved = new ArrayList<>();
+        securityMaster.onEventResolved(resolution -> resolved.add(resolution.eventId()));
+
+        when(registryConnection.get(new ViewString("/api/exchanges?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+        when(registryConnection.get(new ViewString("/api/listings?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+        when(registryConnection.get(new ViewString("/api/events?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"event_id": 9, "title": "Election", "resolved": true, "resolved_at": "2024-11-06T05:00:00.000Z"},
+                         {"event_id": 10, "title": "Uncached", "resolved": true}]"""
+                                .getBytes()));
+
+        securityMaster.refreshChanges();
+
+        assertEquals(List.of(9), resolved);
+        assertTrue(securityMaster.getEvent(9).resolved());
+    }
+
+    @Test
+    void testGetEventSeedsEventChangeWatermark() {
+        when(registryConnection.get(new ViewString("/api/events?eventId=9")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"event_id": 9, "title": "Election", "resolved": false, "date_modified": "2024-01-01T00:00:00.000Z"}]"""
+                                .getBytes()));
+        assertFalse(securityMaster.getEvent(9).resolved());
+
+        when(registryConnection.get(new ViewString("/api/exchanges?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+        when(registryConnection.get(new ViewString("/api/listings?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+        when(registryConnection.get(new ViewString("/api/events?modifiedSince=1704067199000&limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+
+        assertEquals(0, securityMaster.refreshChanges());
+        verify(registryConnection, never()).get(new ViewString("/api/events?limit=5000&offset=0"));
+    }
+
+    private void stubModifiedPreload() {
+        when(registryConnection.get(new ViewString("/api/exchanges?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"exchange_id": 456, "exchange_name": "NYSE", "region": "us-east-1", "schema_type": "mbp-1", "date_modified": "2024-01-01T00:00:00.000Z"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"security_id": 123, "type": 0, "symbol": "BTC", "date_modified": "2024-01-01T00:00:00.000Z"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/listings?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap(
+                        """
+                        [{"listing_id": 789, "exchange_id": 456, "security_id": 123, "exchange_security_id": "SecId", "exchange_security_symbol": "SYM", "date_modified": "2024-01-01T00:00:00.000Z"}]"""
+                                .getBytes()));
+        when(registryConnection.get(new ViewString("/api/listing-specs?limit=5000&offset=0")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+    }
+
+    @Test
+    void testGetListingByExchangeAndSecurityEmptyCaching() {
+        when(registryConnection.get(new ViewString("/api/listings?exchangeId=1&securityId=2")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+
+        assertNull(securityMaster.getListing(1, 2));
+        assertNull(securityMaster.getListing(1, 2));
+        verify(registryConnection, times(1)).get(any());
+    }
+
+    @Test
+    void testGetListingByExchangeAndSecurityUsesListingIdLookup() {
+        String listingResponse =
+                """
+                [{"listing_id": 789, "exchange_id": 456, "security_id": 123, "exchange_security_id": "SecId", "exchange_security_symbol": "SYM"}]""";
+        String exchangeResponse =
+                """
+                [{"exchange_id": 456, "exchange_name": "NYSE", "region": "us-east-1", "schema_type": "mbp-1"}]""";
+        String securityResponse = """
+                [{"security_id": 123, "type": 0, "symbol": "BTC"}]""";
+
+        when(registryConnection.get(new ViewString("/api/listings?listingId=789")))
+                .thenReturn(ByteBuffer.wrap(listingResponse.getBytes()));
+        when(registryConnection.get(new ViewString("/api/exchanges?exchangeId=456")))
+                .thenReturn(ByteBuffer.wrap(exchangeResponse.getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?securityId=123")))
+                .thenReturn(ByteBuffer.wrap(securityResponse.getBytes()));
+
+        Listing byId = securityMaster.getListing(789);
+        assertSame(byId, securityMaster.getListing(456, 123));
+        verify(registryConnection, times(3)).get(any());
+    }
+
+    @Test
+    void testGetListingByExchangeSecurityId() {
+        String listingResponse =
+                """
+                [{"listing_id": 789, "exchange_id": 456, "security_id": 123, "exchange_security_id": "SecId", "exchange_security_symbol": "SYM"}]""";
+        String exchangeResponse =
+                """
+                [{"exchange_id": 456, "exchange_name": "NYSE", "region": "us-east-1", "schema_type": "mbp-1"}]""";
+        String securityResponse = """
+                [{"security_id": 123, "type": 0, "symbol": "BTC"}]""";
+
+        when(registryConnection.get(new ViewString("/api/listings?exchangeId=456&exchangeSecurityId=SecId")))
+                .thenReturn(ByteBuffer.wrap(listingResponse.getBytes()));
+        when(registryConnection.get(new ViewString("/api/exchanges?exchangeId=456")))
+                .thenReturn(ByteBuffer.wrap(exchangeResponse.getBytes()));
+        when(registryConnection.get(new ViewString("/api/securities?securityId=123")))
+                .thenReturn(ByteBuffer.wrap(securityResponse.getBytes()));
+
+        Listing first = securityMaster.getListingByExchangeSecurityId(456, "SecId");
+        assertNotNull(first);
+        assertEquals(789, first.listingId());
+        assertSame(first, securityMaster.getListingByExchangeSecurityId(456, new StringBuilder("SecId")));
+        assertSame(first, securityMaster.getListingByExchangeSecurityId(456, new ViewString("SecId")));
+        assertSame(first, securityMaster.getListingByExchangeSecuritySymbol(456, "SYM"));
+        verify(registryConnection, times(3)).get(any());
+    }
+
+    @Test
+    void testGetListingByExchangeSecuritySymbolEmptyCaching() {
+        when(registryConnection.get(new ViewString("/api/listings?exchangeId=456&exchangeSecuritySymbol=BTC%2FUSD")))
+                .thenReturn(ByteBuffer.wrap("[]".getBytes()));
+
+        assertNull(securityMaster.getListingByExchangeSecuritySymbol(456, "BTC/USD"));
+        assertNull(securityMaster.getListingByExchangeSecuritySymbol(456, new ViewString("BTC/USD")));
+        verify(registryConnection, times(1)).get(any());
+    }
 }
@@ -0,0 +1,81 @@
+package group.gnometrading.arbitrage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import group.gnometrading.sm.ContractRelationship;
+import group.gnometrading.sm.RelationshipType;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class ArbitrageKernelTest {
+
+    private static final ContractRelationship[] RELATIONSHIPS = {
+        new ContractRelationship(1, 10, 20, "EQUIVALENT", 0.95f, "semantic"),
+        new ContractRelationship(2, 10, 11, "COMPLEMENT", 1.0f, "structural"),
+        new ContractRelationship(3, 20, 21, "COMPLEMENT", 1.0f, "structural"),
+        new ContractRelationship(4, 10, 30, "IMPLIES", 1.0f, "manual"),
+        new ContractRelationship(5, 30, 40, "EQUIVALENT", 0.4f, "semantic")
+    };
+
+    @Test
+    void testLayout() {
+        ArbitrageKernel kernel = ArbitrageKernel.scalar(RELATIONSHIPS, 0.5f);
+        assertEquals(3, kernel.pairCount());
+        assertEquals(4, kernel.securityCount());
+        assertEquals(-1, kernel.slot(30));
+        assertEquals(-1, kernel.slot(-5));
+
+        assertEquals(10, kernel.leftSecurityId(0));
+        assertEquals(20, kernel.rightSecurityId(0));
+        assertEquals(RelationshipType.EQUIVALENT, kernel.type(0));
+        assertEquals(RelationshipType.COMPLEMENT, kernel.type(1));
+        assertEquals(3, kernel.relationshipId(2));
+        assertEquals(21, kernel.securityId(kernel.slot(21)));
+    }
+
+    @Test
+    void testBuildFallsBackToScalarWithoutVectorArtifact() {
+        assertFalse(ArbitrageKernel.isVectorAvailable());
+        assertFalse(ArbitrageKernel.build(RELATIONSHIPS, 0.5f).isVectorized());
+    }
+
+    @Test
+    void testFindViolations() {
+        ArbitrageKernel[] kernels = {
+            ArbitrageKernel.scalar(RELATIONSHIPS, 0.5f), ArbitrageKernel.build(RELATIONSHIPS, 0.5f)
+        };
+        for (ArbitrageKernel kernel : kernels) {
+            double[] prices = kernel.newPriceArray();
+            prices[kernel.slot(10)] = 0.60;
+            prices[kernel.slot(20)] = 0.55;
+            prices[kernel.slot(11)] = 0.41;
+            int[] violations = new int[kernel.pairCount()];
+
+            // 21 is unquoted, so the 20/21 complement is skipped
+            assertEquals(1, kernel.findViolations(prices, 0.02, violations));
+            assertEquals(0, violations[0]);
+            assertEquals(0.05, kernel.mispricing(0, prices), 1e-9);
+            assertEquals(0.01, kernel.mispricing(1, prices), 1e-9);
+
+            prices[kernel.slot(21)] = 0.30;
+            assertEquals(2, kernel.findViolations(prices, 0.02, violations));
+            assertArrayEquals(new int[] {0, 2}, Arrays.copyOf(violations, 2));
+            assertEquals(0, kernel.findViolations(prices, 0.2, violations));
+        }
+    }
+
+    @Test
+    void testRejectsShortArrays() {
+        ArbitrageKernel kernel = ArbitrageKernel.build(RELATIONSHIPS, 0.5f);
+        assertThrows(IllegalArgumentException.class, () -> kernel.findViolations(new double[1], 0.01, new int[3]));
+        assertThrows(
+                IllegalArgumentException.class, () -> kernel.findViolations(kernel.newPriceArray(), 0.01, new int[1]));
+    }
+
+    @Test
+    void testEmpty() {
+        ArbitrageKernel kernel = ArbitrageKernel.build(new ContractRelationship[0], 0f);
+        assertEquals(0, kernel.pairCount());
+        assertEquals(0, kernel.findViolations(kernel.newPriceArray(), 0.01, new int[0]));
+    }
+}
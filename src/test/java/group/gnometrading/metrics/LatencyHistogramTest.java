@@ -0,0 +1,47 @@
+package group.gnometrading.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testBuckets() {
+        assertEquals(0, LatencyHistogram.bucket(0));
+        assertEquals(1, LatencyHistogram.bucket(1));
+        assertEquals(2, LatencyHistogram.bucket(2));
+        assertEquals(2, LatencyHistogram.bucket(3));
+        assertEquals(11, LatencyHistogram.bucket(1024));
+        assertEquals(63, LatencyHistogram.bucket(Long.MAX_VALUE));
+        assertEquals(3, LatencyHistogram.upperBound(2));
+    }
+
+    @Test
+    void testPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100);
+        }
+        histogram.record(1_000_000);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(99 * 100 + 1_000_000, histogram.getTotalNanos());
+        assertEquals(127, histogram.getValueAtPercentile(50));
+        assertEquals(127, histogram.getValueAtPercentile(99));
+        assertEquals((1L << 20) - 1, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void testNegativeValuesCountAsZero() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+
+        final long[] buckets = new long[LatencyHistogram.BUCKETS];
+        histogram.copyBuckets(buckets);
+        assertEquals(1, buckets[0]);
+        assertEquals(0, histogram.getTotalNanos());
+    }
+}
@@ -0,0 +1,44 @@
+package group.gnometrading.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Test sink keeping the last sampled value of every counter and gauge, and every histogram's count.
+ */
+public final class RecordingMetricsSink implements MetricsSink {
+
+    private final Map<String, Long> values = new HashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new HashMap<>();
+
+    @Override
+    public void counter(final String name, final long value) {
+        this.values.put(name, value);
+    }
+
+    @Override
+    public void gauge(final String name, final long value) {
+        this.values.put(name, value);
+    }
+
+    @Override
+    public void histogram(final String name, final LatencyHistogram histogram) {
+        this.histograms.put(name, histogram);
+    }
+
+    public long get(final String name) {
+        final Long value = this.values.get(name);
+        if (value == null) {
+            throw new AssertionError("No metric sampled named " + name);
+        }
+        return value;
+    }
+
+    public LatencyHistogram histogram(final String name) {
+        final LatencyHistogram histogram = this.histograms.get(name);
+        if (histogram == null) {
+            throw new AssertionError("No histogram sampled named " + name);
+        }
+        return histogram;
+    }
+}
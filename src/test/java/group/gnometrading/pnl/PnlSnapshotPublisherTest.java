@@ -0,0 +1,162 @@
+package group.gnometrading.pnl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import group.gnometrading.RegistryConnection;
+import group.gnometrading.strings.ViewString;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PnlSnapshotPublisherTest {
+
+    @Mock
+    private RegistryConnection registryConnection;
+
+    private final List<String> posted = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient()
+                .doAnswer(invocation -> {
+                    final byte[] body = invocation.getArgument(1);
+                    final int length = invocation.getArgument(2);
+                    posted.add(new String(body, 0, length, StandardCharsets.UTF_8));
+                    return null;
+                })
+                .when(registryConnection)
+                .post(eq(new ViewString("/api/pnl/snapshots")), any(), anyInt());
+    }
+
+    @Test
+    void testFlushesFullBatchAsArray() {
+        final PnlSnapshotPublisher publisher = new PnlSnapshotPublisher(registryConnection, "s-1", 8, 2, 1_000);
+        assertTrue(publisher.offer(1, 7, 100, 25_000, -12.5, 3, 0, 4));
+        assertTrue(publisher.offer(1, 8, -5, 10, 0.1, 0, 2, 0));
+
+        assertTrue(publisher.flush(0, false));
+
+        assertEquals(
+                List.of("[{\"strategyId\":1,\"listingId\":7,\"netQuantity\":100,\"avgEntryPrice\":25000,"
+                        + "\"realizedPnl\":-12.5,\"totalFees\":3,\"leavesBuyQty\":0,\"leavesSellQty\":4,"
+                        + "\"sessionId\":\"s-1\"},"
+                        + "{\"strategyId\":1,\"listingId\":8,\"netQuantity\":-5,\"avgEntryPrice\":10,"
+                        + "\"realizedPnl\":0.1,\"totalFees\":0,\"leavesBuyQty\":2,\"leavesSellQty\":0,"
+                        + "\"sessionId\":\"s-1\"}]"),
+                posted);
+        assertEquals(2, publisher.getPublishedCount());
+    }
+
+    @Test
+    void testPartialBatchWaitsForInterval() {
+        final PnlSnapshotPublisher publisher = new PnlSnapshotPublisher(registryConnection, null, 8, 4, 1_000);
+        publisher.flush(0, false);
+        publisher.offer(1, 7, 1, 1, 0, 0, 0, 0);
+
+        assertFalse(publisher.flush(999, false));
+        assertTrue(publisher.flush(1_000, false));
+        assertEquals(
+                "[{\"strategyId\":1,\"listingId\":7,\"netQuantity\":1,\"avgEntryPrice\":1,\"realizedPnl\":0,"
+                        + "\"totalFees\":0,\"leavesBuyQty\":0,\"leavesSellQty\":0}]",
+                posted.get(0));
+    }
+
+    @Test
+    void testFullRingDropsSnapshots() {
+        final PnlSnapshotPublisher publisher = new PnlSnapshotPublisher(registryConnection, null, 3, 4, 1_000);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(publisher.offer(1, i, 0, 0, 0, 0, 0, 0));
+        }
+        assertFalse(publisher.offer(1, 4, 0, 0, 0, 0, 0, 0));
+        assertEquals(1, publisher.getDroppedCount());
+
+        // flushing frees the slots
+        assertTrue(publisher.flush(0, false));
+        assertTrue(publisher.offer(1, 5, 0, 0, 0, 0, 0, 0));
+    }
+
+    @Test
+    void testFailedBatchIsRetriedAfterBackoff() {
+        final PnlSnapshotPublisher publisher = new PnlSnapshotPublisher(registryConnection, null, 8, 1, 1_000);
+        doThrow(new RuntimeException("unavailable"))
+                .doAnswer(invocation -> {
+                    posted.add("ok");
+                    return null;
+                })
+                .when(registryConnection)
+                .post(any(), any(), anyInt());
+        publisher.offer(1, 7, 0, 0, 0, 0, 0, 0);
+
+        assertFalse(publisher.flush(0, false));
+        assertEquals(1, publisher.getFailedFlushCount());
+        assertFalse(publisher.flush(500, false));
+        assertTrue(publisher.flush(1_000, false));
+        assertEquals(List.of("ok"), posted);
+        assertEquals(1, publisher.getPublishedCount());
+    }
+
+    @Test
+    void testCloseDrainsQueuedSnapshots() {
+        final PnlSnapshotPublisher publisher = new PnlSnapshotPublisher(registryConnection, null, 8, 4, 60_000);
+        publisher.start();
+        publisher.offer(1, 7, 0, 0, 0, 0, 0, 0);
+        publisher.close();
+
+        assertEquals(1, posted.size());
+        assertEquals(1, publisher.getPublishedCount());
+    }
+
+    @Test
+    void testDrainCountsUnpostedSnapshotsAsDropped() {
+        final PnlSnapshotPublisher publisher = new PnlSnapshotPublisher(registryConnection, null, 8, 2, 60_000);
+        doThrow(new RuntimeException("unavailable")).when(registryConnection).post(any(), any(), anyInt());
+        publisher.offer(1, 7, 0, 0, 0, 0, 0, 0);
+        publisher.offer(1, 8, 0, 0, 0, 0, 0, 0);
+        publisher.offer(1, 9, 0, 0, 0, 0, 0, 0);
+
+        assertEquals(3, publisher.drain(3, 0));
+        assertEquals(3, publisher.getFailedFlushCount());
+        assertEquals(3, publisher.getDroppedCount());
+        assertEquals(0, publisher.getPublishedCount());
+        assertEquals(0, publisher.drain(3, 0));
+    }
+
+    @Test
+    void testDrainRetriesFailedBatch() {
+        final PnlSnapshotPublisher publisher = new PnlSnapshotPublisher(registryConnection, null, 8, 4, 60_000);
+        doThrow(new RuntimeException("unavailable"))
+                .doAnswer(invocation -> {
+                    posted.add("ok");
+                    return null;
+                })
+                .when(registryConnection)
+                .post(any(), any(), anyInt());
+        publisher.offer(1, 7, 0, 0, 0, 0, 0, 0);
+
+        assertEquals(0, publisher.drain(3, 0));
+        assertEquals(List.of("ok"), posted);
+        assertEquals(1, publisher.getPublishedCount());
+        assertEquals(0, publisher.getDroppedCount());
+    }
+
+    @Test
+    void testCloseWhenInterruptedStillDrainsAndRestoresInterrupt() {
+        final PnlSnapshotPublisher publisher = new PnlSnapshotPublisher(registryConnection, null, 8, 4, 60_000);
+        publisher.start();
+        publisher.offer(1, 7, 0, 0, 0, 0, 0, 0);
+
+        Thread.currentThread().interrupt();
+        publisher.close();
+
+        assertTrue(Thread.interrupted());
+        assertEquals(1, publisher.getPublishedCount());
+    }
+}
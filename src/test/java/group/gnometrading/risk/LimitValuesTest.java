@@ -0,0 +1,38 @@
+package group.gnometrading.risk;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import group.gnometrading.strings.ViewString;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class LimitValuesTest {
+
+    @ParameterizedTest
+    @CsvSource(
+            delimiter = '|',
+            value = {
+                "500|500",
+                "-7|-7",
+                "\"1000\"|1000",
+                "null|0",
+                "1e6|1000000",
+                "1E+6|1000000",
+                "2.0|2",
+                "2.50e1|25",
+                "1.5e3|1500",
+                "2500e-2|25",
+                "0.0|0",
+                "9223372036854775807|9223372036854775807"
+            })
+    void testParsesIntegralForms(final String raw, final long expected) {
+        assertEquals(expected, LimitValues.longValue(new ViewString(raw)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"2.5", "1e-1", "1.05", "9223372036854775808", "1e19", "1.", "e5", "1e", "12abc", "\"\""})
+    void testRejectsNonIntegralOrMalformedValues(final String raw) {
+        assertThrows(IllegalArgumentException.class, () -> LimitValues.longValue(new ViewString(raw)));
+    }
+}
@@ -0,0 +1,105 @@
+package group.gnometrading.risk;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import group.gnometrading.RegistryConnection;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class RiskEngineTest {
+
+    private static final String LIMITS =
+            """
+            [{"policy_id": 1, "policy_type": "KILL_SWITCH", "scope": 0, "parameters": {}, "enabled": false},
+             {"policy_id": 2, "policy_type": "MAX_POSITION", "scope": 1, "strategy_id": 10, "parameters": {"max_position": 100}, "enabled": true},
+             {"policy_id": 3, "policy_type": "MAX_NOTIONAL", "scope": 2, "strategy_id": 10, "listing_id": 7, "parameters": {"max_notional": 5000}, "enabled": true},
+             {"policy_id": 4, "policy_type": "MAX_ORDER_SIZE", "scope": 0, "parameters": {"max_order_size": 50}, "enabled": true},
+             {"policy_id": 5, "policy_type": "ORDER_RATE", "scope": 2, "strategy_id": 10, "listing_id": 8, "parameters": {"max_orders": 2, "window_millis": 1000}, "enabled": true},
+             {"policy_id": 6, "policy_type": "MAX_POSITION", "scope": 1, "strategy_id": 20, "parameters": {"max_position": 0}, "enabled": false}]""";
+
+    private static final String KILL_SWITCH_ON =
+            """
+            [{"policy_id": 1, "policy_type": "KILL_SWITCH", "scope": 0, "parameters": {}, "enabled": true}]""";
+
+    @Mock
+    private RegistryConnection registryConnection;
+
+    private RiskMaster riskMaster;
+    private RiskEngine riskEngine;
+
+    @BeforeEach
+    void setUp() {
+        riskMaster = new RiskMaster(registryConnection);
+        riskEngine = new RiskEngine(riskMaster);
+        riskMaster.refresh(ByteBuffer.wrap(LIMITS.getBytes()));
+    }
+
+    @Test
+    void testAcceptsWithinLimits() {
+        assertEquals(RiskDecision.ACCEPTED, riskEngine.check(10, 7, 10, 100, 0, 0));
+        assertEquals(-1, riskEngine.getRejectedPolicyId());
+    }
+
+    @Test
+    void testMaxPosition() {
+        assertEquals(RiskDecision.MAX_POSITION, riskEngine.check(10, 7, 5, 1, 98, 0));
+        assertEquals(2, riskEngine.getRejectedPolicyId());
+        assertEquals(RiskDecision.MAX_POSITION, riskEngine.check(10, 7, -5, 1, -98, 0));
+        // reducing a breached position is allowed
+        assertEquals(RiskDecision.ACCEPTED, riskEngine.check(10, 7, -5, 1, 120, 0));
+    }
+
+    @Test
+    void testMaxNotionalOnlyOnItsListing() {
+        assertEquals(RiskDecision.MAX_NOTIONAL, riskEngine.check(10, 7, 20, 300, 0, 0));
+        assertEquals(3, riskEngine.getRejectedPolicyId());
+        assertEquals(RiskDecision.ACCEPTED, riskEngine.check(10, 9, 20, 300, 0, 0));
+    }
+
+    @Test
+    void testMaxOrderSizeIsGlobal() {
+        assertEquals(RiskDecision.MAX_ORDER_SIZE, riskEngine.check(99, 1, -51, 1, 0, 0));
+        assertEquals(4, riskEngine.getRejectedPolicyId());
+    }
+
+    @Test
+    void testDisabledPoliciesAreSkipped() {
+        assertEquals(RiskDecision.ACCEPTED, riskEngine.check(20, 1, 10, 1, 0, 0));
+    }
+
+    @Test
+    void testOrderRateSlidingWindow() {
+        assertEquals(RiskDecision.ACCEPTED, riskEngine.check(10, 8, 1, 1, 0, 0));
+        assertEquals(RiskDecision.ACCEPTED, riskEngine.check(10, 8, 1, 1, 0, 500));
+        assertEquals(RiskDecision.ORDER_RATE, riskEngine.check(10, 8, 1, 1, 0, 999));
+        assertEquals(RiskDecision.ACCEPTED, riskEngine.check(10, 8, 1, 1, 0, 1000));
+        assertEquals(RiskDecision.ORDER_RATE, riskEngine.check(10, 8, 1, 1, 0, 1499));
+    }
+
+    @Test
+    void testRejectedOrderDoesNotCountTowardsRate() {
+        assertEquals(RiskDecision.MAX_ORDER_SIZE, riskEngine.check(10, 8, 60, 1, 0, 0));
+        assertEquals(RiskDecision.ACCEPTED, riskEngine.check(10, 8, 1, 1, 0, 1));
+        assertEquals(RiskDecision.ACCEPTED, riskEngine.check(10, 8, 1, 1, 0, 2));
+        assertEquals(RiskDecision.ORDER_RATE, riskEngine.check(10, 8, 1, 1, 0, 3));
+    }
+
+    @Test
+    void testRecompilesOnRefreshAndKeepsUnchangedState() {
+        riskEngine.check(10, 8, 1, 1, 0, 0);
+        riskEngine.check(10, 8, 1, 1, 0, 1);
+
+        riskMaster.refresh(ByteBuffer.wrap(LIMITS.getBytes()));
+        assertEquals(RiskDecision.ORDER_RATE, riskEngine.check(10, 8, 1, 1, 0, 2));
+
+        riskMaster.refresh(ByteBuffer.wrap(KILL_SWITCH_ON.getBytes()));
+        assertTrue(riskMaster.isKilled());
+        assertEquals(RiskDecision.KILL_SWITCH, riskEngine.check(10, 8, 1, 1, 0, 3));
+        assertEquals(1, riskEngine.getRejectedPolicyId());
+    }
+}
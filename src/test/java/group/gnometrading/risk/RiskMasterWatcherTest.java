@@ -0,0 +1,134 @@
+package group.gnometrading.risk;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+import group.gnometrading.RegistryConnection;
+import group.gnometrading.strings.ViewString;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class RiskMasterWatcherTest {
+
+    private static final String POLICIES_PATH = "/api/risk/policies";
+    private static final String FIRST_POLL_PATH = "/api/risk/version?waitMillis=" + RiskMaster.WATCH_WAIT_MILLIS;
+
+    private static final String KILL_SWITCH_ENABLED =
+            """
+            [{"policy_id": 1, "policy_type": "KILL_SWITCH", "scope": 0, "parameters": {}, "enabled": true}]""";
+
+    private static final String KILL_SWITCH_DISABLED =
+            """
+            [{"policy_id": 1, "policy_type": "KILL_SWITCH", "scope": 0, "parameters": {}, "enabled": false}]""";
+
+    @Mock
+    private RegistryConnection registryConnection;
+
+    private RiskMaster riskMaster;
+
+    @BeforeEach
+    void setUp() {
+        riskMaster = new RiskMaster(registryConnection);
+    }
+
+    @Test
+    void testPollAppliesKillSwitchAndRefreshes() {
+        when(registryConnection.get(new ViewString(FIRST_POLL_PATH)))
+                .thenReturn(version(3, true));
+        when(registryConnection.get(new ViewString(POLICIES_PATH)))
+                .thenReturn(ByteBuffer.wrap(KILL_SWITCH_ENABLED.getBytes()));
+
+        assertTrue(riskMaster.pollVersion(RiskMaster.WATCH_WAIT_MILLIS));
+
+        assertTrue(riskMaster.isKilled());
+        assertEquals(1, riskMaster.getPolicyCount());
+    }
+
+    @Test
+    void testPollWithUnchangedVersionSkipsRefresh() {
+        when(registryConnection.get(new ViewString(FIRST_POLL_PATH))).thenReturn(version(3, false));
+        when(registryConnection.get(new ViewString(FIRST_POLL_PATH + "&since=3"))).thenReturn(version(3, false));
+        when(registryConnection.get(new ViewString(POLICIES_PATH)))
+                .thenReturn(ByteBuffer.wrap(KILL_SWITCH_DISABLED.getBytes()));
+
+        assertTrue(riskMaster.pollVersion(RiskMaster.WATCH_WAIT_MILLIS));
+        assertFalse(riskMaster.pollVersion(RiskMaster.WATCH_WAIT_MILLIS));
+
+        assertFalse(riskMaster.isKilled());
+        verify(registryConnection, times(1)).get(new ViewString(POLICIES_PATH));
+    }
+
+    @Test
+    void testFailedRefreshIsRetriedOnNextPoll() {
+        when(registryConnection.get(new ViewString(FIRST_POLL_PATH)))
+                .thenReturn(version(3, false), version(3, false));
+        when(registryConnection.get(new ViewString(POLICIES_PATH)))
+                .thenThrow(new RuntimeException("registry unavailable"))
+                .thenReturn(ByteBuffer.wrap(KILL_SWITCH_DISABLED.getBytes()));
+
+        assertThrows(RuntimeException.class, () -> riskMaster.pollVersion(RiskMaster.WATCH_WAIT_MILLIS));
+        assertEquals(0, riskMaster.getPolicyCount());
+
+        assertTrue(riskMaster.pollVersion(RiskMaster.WATCH_WAIT_MILLIS));
+        assertEquals(1, riskMaster.getPolicyCount());
+    }
+
+    @Test
+    void testStaleRefreshDoesNotClearWatcherKill() {
+        // the policies response predates the kill switch the version poll reports
+        when(registryConnection.get(new ViewString(FIRST_POLL_PATH))).thenReturn(version(3, true));
+        when(registryConnection.get(new ViewString(POLICIES_PATH)))
+                .thenReturn(ByteBuffer.wrap(KILL_SWITCH_DISABLED.getBytes()));
+
+        assertTrue(riskMaster.pollVersion(RiskMaster.WATCH_WAIT_MILLIS));
+
+        assertTrue(riskMaster.isKilled());
+        assertEquals(-1, riskMaster.getKillSwitchPolicyId());
+    }
+
+    @Test
+    void testRefreshSetsKillFlag() {
+        riskMaster.refresh(ByteBuffer.wrap(KILL_SWITCH_ENABLED.getBytes()));
+        assertTrue(riskMaster.isKilled());
+        assertEquals(1, riskMaster.getKillSwitchPolicyId());
+
+        riskMaster.refresh(ByteBuffer.wrap(KILL_SWITCH_DISABLED.getBytes()));
+        assertFalse(riskMaster.isKilled());
+    }
+
+    @Test
+    void testWatcherFlipsKillFlag() throws Exception {
+        // stand-in registry: version 1 on the first poll, then the kill switch is engaged at version 2
+        when(registryConnection.get(argThat(path -> path != null && path.toString().startsWith("/api/risk/version"))))
+                .thenReturn(version(1, false))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(10);
+                    return version(2, true);
+                });
+        when(registryConnection.get(new ViewString(POLICIES_PATH)))
+                .thenReturn(ByteBuffer.wrap(KILL_SWITCH_DISABLED.getBytes()))
+                .thenReturn(ByteBuffer.wrap(KILL_SWITCH_ENABLED.getBytes()));
+
+        riskMaster.startWatcher();
+        try {
+            final long deadline = System.currentTimeMillis() + 5_000;
+            while (!riskMaster.isKilled() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(riskMaster.isKilled());
+        } finally {
+            riskMaster.stopWatcher();
+        }
+    }
+
+    private static ByteBuffer version(final int version, final boolean killSwitch) {
+        return ByteBuffer.wrap(
+                ("{\"version\": " + version + ", \"kill_switch\": " + killSwitch + "}").getBytes());
+    }
+}
@@ -0,0 +1,131 @@
+package group.gnometrading.sm;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ContractRelationshipGraphTest {
+
+    private static ContractRelationship relationship(
+            final int relationshipId, final int a, final int b, final String type, final float confidence) {
+        return new ContractRelationship(relationshipId, a, b, type, confidence, "manual");
+    }
+
+    private static Map<Integer, Float> drain(final RelationshipCursor cursor) {
+        Map<Integer, Float> result = new HashMap<>();
+        while (cursor.next()) {
+            result.put(cursor.securityId(), cursor.confidence());
+        }
+        return result;
+    }
+
+    @Test
+    void testSymmetricRelationshipsAppearInBothRows() {
+        ContractRelationshipGraph graph = ContractRelationshipGraph.build(new ContractRelationship[] {
+            relationship(1, 10, 20, "EQUIVALENT", 0.9f), relationship(2, 10, 30, "COMPLEMENT", 1.0f)
+        });
+
+        assertEquals(3, graph.securityCount());
+        assertEquals(2, graph.relationshipCount());
+        assertEquals(2, graph.degree(10));
+        assertEquals(1, graph.degree(20));
+
+        RelationshipCursor cursor = graph.relationships(20, RelationshipType.ALL, 0f, new RelationshipCursor());
+        assertTrue(cursor.next());
+        assertEquals(10, cursor.securityId());
+        assertEquals(RelationshipType.EQUIVALENT, cursor.type());
+        assertEquals(1, cursor.relationshipId());
+        assertFalse(cursor.inbound());
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    void testFiltersByTypeAndConfidence() {
+        ContractRelationshipGraph graph = ContractRelationshipGraph.build(new ContractRelationship[] {
+            relationship(1, 10, 20, "EQUIVALENT", 0.9f),
+            relationship(2, 10, 30, "HEDGEABLE_WITH", 0.4f),
+            relationship(3, 10, 40, "HEDGEABLE_WITH", 0.8f),
+            relationship(4, 10, 50, "MUTUALLY_EXCLUSIVE", 1.0f)
+        });
+        RelationshipCursor cursor = new RelationshipCursor();
+
+        assertEquals(
+                Map.of(30, 0.4f, 40, 0.8f),
+                drain(graph.relationships(10, RelationshipType.HEDGEABLE_WITH.mask(), 0f, cursor)));
+        assertEquals(
+                Map.of(40, 0.8f), drain(graph.relationships(10, RelationshipType.HEDGEABLE_WITH.mask(), 0.5f, cursor)));
+
+        final int mask = RelationshipType.EQUIVALENT.mask() | RelationshipType.MUTUALLY_EXCLUSIVE.mask();
+        assertEquals(Map.of(20, 0.9f, 50, 1.0f), drain(graph.relationships(10, mask, 0f, cursor)));
+        assertEquals(4, drain(graph.relationships(10, RelationshipType.ALL, 0f, cursor)).size());
+    }
+
+    @Test
+    void testImpliesIsDirectional() {
+        ContractRelationshipGraph graph =
+                ContractRelationshipGraph.build(new ContractRelationship[] {relationship(1, 10, 20, "IMPLIES", 1.0f)});
+
+        RelationshipCursor cursor = graph.relationships(20, RelationshipType.ALL, 0f, new RelationshipCursor());
+        assertTrue(cursor.next());
+        assertEquals(10, cursor.securityId());
+        assertEquals(RelationshipType.IMPLIES, cursor.type());
+        assertTrue(cursor.inbound());
+
+        assertEquals(Map.of(20, 1.0f), drain(graph.implied(10, 0f, cursor)));
+        assertTrue(drain(graph.implied(20, 0f, cursor)).isEmpty());
+        assertEquals(-1f, graph.implicationConfidence(20, 10));
+    }
+
+    @Test
+    void testImpliesClosureKeepsStrongestChain() {
+        // 10 -> 20 -> 40 has confidence 0.9 * 0.9 = 0.81, beating the direct 10 -> 40 at 0.5
+        ContractRelationshipGraph graph = ContractRelationshipGraph.build(new ContractRelationship[] {
+            relationship(1, 10, 20, "IMPLIES", 0.9f),
+            relationship(2, 20, 40, "IMPLIES", 0.9f),
+            relationship(3, 10, 40, "IMPLIES", 0.5f),
+            relationship(4, 40, 50, "IMPLIES", 1.0f),
+            relationship(5, 50, 10, "IMPLIES", 1.0f),
+            relationship(6, 20, 60, "EQUIVALENT", 1.0f)
+        });
+
+        Map<Integer, Float> implied = drain(graph.implied(10, 0f, new RelationshipCursor()));
+        assertEquals(3, implied.size());
+        assertEquals(0.9f, implied.get(20), 0.0001f);
+        assertEquals(0.81f, implied.get(40), 0.0001f);
+        assertEquals(0.81f, implied.get(50), 0.0001f);
+        assertFalse(implied.containsKey(60));
+
+        assertEquals(0.81f, graph.implicationConfidence(10, 40), 0.0001f);
+        assertEquals(Map.of(20, 0.9f), drain(graph.implied(10, 0.85f, new RelationshipCursor())));
+
+        RelationshipCursor cursor = graph.implied(10, 0f, new RelationshipCursor());
+        assertTrue(cursor.next());
+        assertEquals(-1, cursor.relationshipId());
+        assertEquals(RelationshipType.IMPLIES, cursor.type());
+    }
+
+    @Test
+    void testSkipsUnknownTypesAndSelfRelationships() {
+        ContractRelationshipGraph graph = ContractRelationshipGraph.build(new ContractRelationship[] {
+            relationship(1, 10, 20, "CORRELATED", 0.9f),
+            relationship(2, 30, 30, "EQUIVALENT", 1.0f),
+            relationship(3, 10, 40, null, 1.0f)
+        });
+
+        assertEquals(0, graph.securityCount());
+        assertEquals(0, graph.relationshipCount());
+        assertFalse(graph.contains(10));
+        assertFalse(graph.relationships(10, RelationshipType.ALL, 0f, new RelationshipCursor()).next());
+        assertFalse(graph.implied(-1, 0f, new RelationshipCursor()).next());
+    }
+
+    @Test
+    void testEmpty() {
+        ContractRelationshipGraph graph = ContractRelationshipGraph.empty();
+        assertEquals(0, graph.securityCount());
+        assertEquals(0, graph.degree(1));
+        assertEquals(-1f, graph.implicationConfidence(1, 2));
+    }
+}
@@ -0,0 +1,132 @@
+package group.gnometrading.sm;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class EventIndexTest {
+
+    private static final Exchange KALSHI = new Exchange(1, "Kalshi", "us-east-1", null);
+    private static final Exchange POLYMARKET = new Exchange(2, "Polymarket", "us-east-1", null);
+
+    private static Security security(final int securityId) {
+        return new Security(
+                securityId,
+                "S" + securityId,
+                SecurityType.EVENT_CONTRACT,
+                ContractType.BINARY,
+                null,
+                null,
+                null,
+                null,
+                false,
+                false,
+                0L,
+                0L,
+                true,
+                0);
+    }
+
+    private static Listing listing(
+            final int listingId, final Exchange exchange, final int securityId, final boolean active) {
+        return new Listing(listingId, exchange, security(securityId), "N" + listingId, "N" + listingId, active);
+    }
+
+    private static EventIndex fedIndex() {
+        return EventIndex.build(
+                new Event[] {
+                    new Event(5, "Fed decision", null, "economics", false, 0L, 2_000L),
+                    new Event(7, "Election", null, "politics", true, 1_000L, 0L),
+                    new Event(9, "No contracts", null, "misc", false, 0L, 0L)
+                },
+                new EventContract[] {
+                    new EventContract(50, 5, 100, "Cut"),
+                    new EventContract(51, 5, 101, "Hold"),
+                    new EventContract(52, 5, 102, "Hike"),
+                    new EventContract(70, 7, 200, "Yes"),
+                    new EventContract(99, 42, 300, "Orphan")
+                },
+                new ExchangeEvent[] {
+                    new ExchangeEvent(1, 1, 5, "FED-25", "Fed", null),
+                    new ExchangeEvent(2, 2, 5, "fed-decision", "Fed", null),
+                    new ExchangeEvent(3, 1, 7, "ELECT", "Election", null)
+                },
+                new Listing[] {
+                    listing(1000, KALSHI, 100, true),
+                    listing(1001, POLYMARKET, 100, true),
+                    listing(1002, KALSHI, 101, true),
+                    listing(1003, KALSHI, 102, false),
+                    listing(1004, KALSHI, 555, true)
+                });
+    }
+
+    @Test
+    void testOutcomesAndListings() {
+        EventIndex index = fedIndex();
+        assertEquals(3, index.eventCount());
+        assertEquals(4, index.outcomeCount());
+
+        int row = index.row(5);
+        assertEquals(5, index.eventId(row));
+        assertEquals(3, index.outcomeEnd(row) - index.outcomeStart(row));
+
+        int cut = index.outcomeStart(row);
+        assertEquals(100, index.outcomeSecurityId(cut));
+        assertEquals(50, index.outcomeContractId(cut));
+        assertEquals("Cut", index.outcomeLabel(cut));
+        assertEquals(2, index.listingEnd(cut) - index.listingStart(cut));
+        assertEquals(1000, index.listingId(index.listingStart(cut)));
+        assertEquals(2, index.listingExchangeId(index.listingStart(cut) + 1));
+
+        int hike = cut + 2;
+        assertEquals("Hike", index.outcomeLabel(hike));
+        assertEquals(index.listingStart(hike), index.listingEnd(hike));
+    }
+
+    @Test
+    void testComplementSetFromSecurity() {
+        EventIndex index = fedIndex();
+        int outcome = index.outcomeOf(101);
+        assertEquals("Hold", index.outcomeLabel(outcome));
+
+        int row = index.outcomeEventRow(outcome);
+        assertEquals(5, index.eventId(row));
+        int[] complement = new int[3];
+        for (int i = index.outcomeStart(row); i < index.outcomeEnd(row); i++) {
+            complement[i - index.outcomeStart(row)] = index.outcomeSecurityId(i);
+        }
+        assertArrayEquals(new int[] {100, 101, 102}, complement);
+
+        assertEquals(-1, index.outcomeOf(300));
+        assertEquals(-1, index.outcomeOf(555));
+        assertEquals(-1, index.outcomeOf(-1));
+    }
+
+    @Test
+    void testExchangesAndLiveness() {
+        EventIndex index = fedIndex();
+        int fed = index.row(5);
+        assertEquals(2, index.exchangeEnd(fed) - index.exchangeStart(fed));
+        assertEquals(1, index.exchangeId(index.exchangeStart(fed)));
+        assertEquals(2, index.exchangeId(index.exchangeStart(fed) + 1));
+
+        assertTrue(index.isLive(fed, 1_500L));
+        assertFalse(index.isLive(fed, 2_000L));
+        assertFalse(index.isLive(index.row(7), 0L));
+        assertTrue(index.isLive(index.row(9), Long.MAX_VALUE));
+
+        int empty = index.row(9);
+        assertEquals(index.outcomeStart(empty), index.outcomeEnd(empty));
+        assertEquals(-1, index.row(42));
+        assertEquals(-1, index.row(1_000_000));
+    }
+
+    @Test
+    void testEmpty() {
+        EventIndex index = EventIndex.empty();
+        assertEquals(0, index.eventCount());
+        assertEquals(0, index.outcomeCount());
+        assertEquals(-1, index.row(5));
+        assertEquals(-1, index.outcomeOf(100));
+    }
+}
@@ -0,0 +1,104 @@
+package group.gnometrading.sm;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+class ListingSpecTableTest {
+
+    @Test
+    void testPutAndRead() {
+        ListingSpecTable table = new ListingSpecTable();
+        table.put(new ListingSpec(42, 100L, 1000L, 50000L, 1_000_000_000L, 0L, 0L));
+
+        assertTrue(table.contains(42));
+        assertEquals(100L, table.tickSize(42));
+        assertEquals(1000L, table.lotSize(42));
+        assertEquals(50000L, table.minNotional(42));
+        assertEquals(1_000_000_000L, table.contractMultiplier(42));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void testMissingListing() {
+        ListingSpecTable table = new ListingSpecTable();
+        assertFalse(table.contains(7));
+        assertEquals(0L, table.tickSize(7));
+        assertEquals(0L, table.tickSize(-1));
+        assertFalse(table.read(7, new long[ListingSpecTable.FIELD_COUNT]));
+    }
+
+    @Test
+    void testUpdateReusesSlot() {
+        ListingSpecTable table = new ListingSpecTable();
+        table.put(new ListingSpec(42, 100L, 1000L, 0L, 1L, 0L, 0L));
+        table.put(new ListingSpec(42, 5L, 10L, 0L, 1L, 0L, 0L));
+
+        assertEquals(1, table.size());
+        assertEquals(5L, table.tickSize(42));
+        assertEquals(10L, table.lotSize(42));
+    }
+
+    @Test
+    void testGrowsBeyondInitialCapacity() {
+        ListingSpecTable table = new ListingSpecTable();
+        for (int listingId = 0; listingId < 5000; listingId++) {
+            table.put(listingId, listingId, listingId * 2L, 0L, 1L);
+        }
+        table.put(1_000_000, 9L, 9L, 9L, 9L);
+
+        assertEquals(5001, table.size());
+        for (int listingId = 0; listingId < 5000; listingId++) {
+            assertEquals(listingId, table.tickSize(listingId));
+            assertEquals(listingId * 2L, table.lotSize(listingId));
+        }
+        assertEquals(9L, table.contractMultiplier(1_000_000));
+    }
+
+    @Test
+    void testLargeListingIds() {
+        ListingSpecTable table = new ListingSpecTable();
+        table.put(Integer.MAX_VALUE, 1L, 2L, 3L, 4L);
+        table.put(1 << 30, 5L, 6L, 7L, 8L);
+        table.put(ListingSpecTable.MAX_DIRECT_LISTING_ID, 9L, 10L, 11L, 12L);
+        for (int i = 1; i <= 100; i++) {
+            table.put((1 << 29) + i, i, i, i, i);
+        }
+
+        assertEquals(1L, table.tickSize(Integer.MAX_VALUE));
+        assertEquals(8L, table.contractMultiplier(1 << 30));
+        assertEquals(10L, table.lotSize(ListingSpecTable.MAX_DIRECT_LISTING_ID));
+        for (int i = 1; i <= 100; i++) {
+            assertEquals(i, table.minNotional((1 << 29) + i));
+        }
+        assertFalse(table.contains((1 << 30) + 1));
+        assertEquals(103, table.size());
+    }
+
+    @Test
+    void testReadersNeverSeeTornSpec() throws Exception {
+        ListingSpecTable table = new ListingSpecTable();
+        table.put(1, 1L, 1L, 1L, 1L);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicBoolean torn = new AtomicBoolean(false);
+
+        Thread reader = new Thread(() -> {
+            long[] fields = new long[ListingSpecTable.FIELD_COUNT];
+            while (running.get()) {
+                table.read(1, fields);
+                if (fields[0] != fields[1] || fields[1] != fields[2] || fields[2] != fields[3]) {
+                    torn.set(true);
+                }
+            }
+        });
+        reader.start();
+        for (long value = 2; value < 200_000; value++) {
+            table.put(1, value, value, value, value);
+        }
+        running.set(false);
+        reader.join();
+
+        assertFalse(torn.get());
+    }
+}
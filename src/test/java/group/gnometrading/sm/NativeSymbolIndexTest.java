@@ -0,0 +1,49 @@
+package group.gnometrading.sm;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import group.gnometrading.strings.GnomeString;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class NativeSymbolIndexTest {
+
+    @Test
+    void testNonAsciiKeysMatchFromBothOverloads() {
+        final NativeSymbolIndex index = new NativeSymbolIndex();
+        final String[] keys = {"BTC-USD", "\u00DCn\u00EF", "\u682A\u5F0F", "\uD83D\uDE00x"};
+        for (int i = 0; i < keys.length; i++) {
+            index.put(1, keys[i], 10 + i);
+        }
+
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(10 + i, index.get(1, keys[i]));
+            assertEquals(10 + i, index.get(1, utf8(keys[i])));
+            assertEquals(ListingKeyIndex.MISSING, index.get(2, keys[i]));
+        }
+        assertEquals(ListingKeyIndex.MISSING, index.get(1, "\u00DCn"));
+    }
+
+    @Test
+    void testNotFoundEntriesAreBounded() {
+        final NativeSymbolIndex index = new NativeSymbolIndex();
+        index.put(1, "SYM", 7);
+        for (int i = 0; i < NativeSymbolIndex.MAX_NOT_FOUND * 3; i++) {
+            index.putNotFound(1, "junk" + i);
+        }
+
+        assertTrue(index.size() <= NativeSymbolIndex.MAX_NOT_FOUND + 1);
+        assertEquals(7, index.get(1, "SYM"));
+        assertEquals(ListingKeyIndex.NOT_FOUND, index.get(1, "junk" + (NativeSymbolIndex.MAX_NOT_FOUND * 3 - 1)));
+        assertEquals(ListingKeyIndex.MISSING, index.get(1, "junk0"));
+    }
+
+    private static GnomeString utf8(final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        final GnomeString string = mock(GnomeString.class);
+        when(string.length()).thenReturn(bytes.length);
+        when(string.byteAt(anyInt())).thenAnswer(invocation -> bytes[(int) invocation.getArgument(0)]);
+        return string;
+    }
+}
@@ -0,0 +1,49 @@
+package group.gnometrading.arbitrage;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Evaluates a full vector of pairs per iteration: both legs' prices are gathered through the pair index arrays,
+ * the mispricing computed lane-wise, and the violating lanes read back from the comparison mask as a bit set.
+ * Lives in the optional {@code gnome-registry-vector} artifact and is only loaded, reflectively, when the
+ * {@code jdk.incubator.vector} module is present; see {@link ArbitrageKernel#build}.
+ */
+final class VectorArbitrageKernel extends ArbitrageKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    VectorArbitrageKernel(final PairLayout layout) {
+        super(layout);
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    int scan(final double[] prices, final double tolerance, final int[] violations) {
+        final PairLayout layout = this.layout;
+        final int lanes = SPECIES.length();
+        final int bound = SPECIES.loopBound(layout.pairCount);
+        int count = 0;
+        int pair = 0;
+        for (; pair < bound; pair += lanes) {
+            final DoubleVector left = DoubleVector.fromArray(SPECIES, prices, 0, layout.left, pair);
+            final DoubleVector right = DoubleVector.fromArray(SPECIES, prices, 0, layout.right, pair);
+            final DoubleVector signs = DoubleVector.fromArray(SPECIES, layout.signs, pair);
+            final DoubleVector targets = DoubleVector.fromArray(SPECIES, layout.targets, pair);
+            final VectorMask<Double> violating =
+                    left.add(right.mul(signs)).sub(targets).abs().compare(VectorOperators.GT, tolerance);
+            long bits = violating.toLong();
+            while (bits != 0) {
+                violations[count++] = pair + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return ScalarArbitrageKernel.scan(layout, prices, tolerance, violations, pair, count);
+    }
+}
@@ -0,0 +1,40 @@
+package group.gnometrading.arbitrage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import group.gnometrading.sm.ContractRelationship;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class VectorArbitrageKernelTest {
+
+    @Test
+    void testBuildFindsVectorKernel() {
+        assertTrue(ArbitrageKernel.isVectorAvailable());
+        assertTrue(ArbitrageKernel.build(new ContractRelationship[0], 0f).isVectorized());
+    }
+
+    @Test
+    void testVectorMatchesScalar() {
+        ContractRelationship[] relationships = new ContractRelationship[10_003];
+        for (int i = 0; i < relationships.length; i++) {
+            String type = i % 3 == 0 ? "COMPLEMENT" : "EQUIVALENT";
+            relationships[i] = new ContractRelationship(i, 2 * i + 1, 2 * i + 2, type, 1f, "manual");
+        }
+        ArbitrageKernel scalar = ArbitrageKernel.scalar(relationships, 0f);
+        ArbitrageKernel vector = ArbitrageKernel.build(relationships, 0f);
+        assertTrue(vector.isVectorized());
+
+        Random random = new Random(7);
+        double[] prices = scalar.newPriceArray();
+        for (int slot = 0; slot < prices.length; slot++) {
+            prices[slot] = random.nextInt(10) == 0 ? Double.NaN : random.nextDouble();
+        }
+        int[] expected = new int[scalar.pairCount()];
+        int[] actual = new int[vector.pairCount()];
+        int count = scalar.findViolations(prices, 0.25, expected);
+        assertTrue(count > 0);
+        assertEquals(count, vector.findViolations(prices, 0.25, actual));
+        assertArrayEquals(expected, actual);
+    }
+}